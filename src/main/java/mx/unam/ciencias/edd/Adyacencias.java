@@ -0,0 +1,55 @@
+package mx.unam.ciencias.edd;
+
+/**
+ * Clase para representar una gráfica con arreglos de adyacencias comprimidas.
+ * Los vértices se identifican con los enteros de 0 a <i>n</i>-1; los vecinos
+ * del vértice <i>i</i> están en las posiciones <code>inicio[i]</code> a
+ * <code>inicio[i+1]-1</code> de los arreglos <code>destino</code> y
+ * <code>peso</code>. Cada arista aparece dos veces, una por cada extremo.
+ */
+class Adyacencias<T> {
+
+    /* Los vértices de la gráfica, por identificador. */
+    public final VerticeGrafica<T>[] vertices;
+    /* Dónde empiezan los vecinos de cada vértice. */
+    public final int[] inicio;
+    /* El identificador de cada vecino. */
+    public final int[] destino;
+    /* El peso de la arista hacia cada vecino. */
+    public final double[] peso;
+
+    /* Crea una representación con los arreglos recibidos. */
+    public Adyacencias(VerticeGrafica<T>[] vertices, int[] inicio,
+                       int[] destino, double[] peso) {
+        this.vertices = vertices;
+        this.inicio = inicio;
+        this.destino = destino;
+        this.peso = peso;
+    }
+
+    /* Regresa el número de vértices. */
+    public int getVertices() {
+        return vertices.length;
+    }
+
+    /* Regresa el número de aristas. */
+    public int getAristas() {
+        return destino.length / 2;
+    }
+
+    /* Llena los arreglos recibidos con los extremos y el peso de cada arista,
+     * una vez por arista y con el extremo menor como origen. */
+    public void aristas(int[] origen, int[] destino, double[] peso) {
+        int k = 0;
+        for(int u = 0; u < vertices.length; u++) {
+            for(int j = inicio[u]; j < inicio[u+1]; j++) {
+                if(u < this.destino[j]) {
+                    origen[k] = u;
+                    destino[k] = this.destino[j];
+                    peso[k] = this.peso[j];
+                    k++;
+                }
+            }
+        }
+    }
+}
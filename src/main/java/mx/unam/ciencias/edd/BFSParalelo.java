@@ -0,0 +1,259 @@
+package mx.unam.ciencias.edd;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Clase para BFS paralelo por niveles sobre una gráfica representada con
+ * {@link Adyacencias}. Cada nivel se reparte en tramos que se procesan en un
+ * {@link ForkJoinPool}; los vértices se reclaman de forma atómica con un OR
+ * sobre un mapa de bits de visitados. Cuando la frontera es ancha, el nivel se
+ * expande de abajo hacia arriba: cada vértice sin visitar busca un vecino en
+ * la frontera, en lugar de que la frontera recorra todas sus aristas.
+ */
+class BFSParalelo {
+
+    /* Acceso atómico a los elementos de arreglos de longs. */
+    private static final VarHandle BITS =
+        MethodHandles.arrayElementVarHandle(long[].class);
+    /* Se cambia a abajo-arriba cuando las aristas de la frontera son más que
+     * las aristas sin visitar entre ALFA. */
+    private static final int ALFA = 14;
+    /* Se regresa a arriba-abajo cuando la frontera tiene menos que n entre
+     * BETA vértices. */
+    private static final int BETA = 24;
+    /* El mínimo de vértices por tramo. */
+    private static final int UMBRAL = 2048;
+
+    /* Clase interna privada para los tramos de un nivel. */
+    private class Tramo extends RecursiveAction {
+
+        /* La versión para serializar. */
+        private static final long serialVersionUID = 1L;
+
+        /* El inicio del tramo. */
+        private int inicio;
+        /* El fin del tramo (exclusivo). */
+        private int fin;
+        /* Los vértices que el tramo agrega a la siguiente frontera. */
+        private int[] salida;
+        /* El número de vértices en la salida. */
+        private int elementos;
+
+        /* Crea un tramo vacío. */
+        public Tramo() {
+            salida = new int[64];
+        }
+
+        /* Procesa el tramo. */
+        @Override protected void compute() {
+            elementos = 0;
+            if(abajoArriba)
+                abajoArriba();
+            else
+                arribaAbajo();
+        }
+
+        /* Recorre las aristas de los vértices del tramo de la frontera. */
+        private void arribaAbajo() {
+            for(int i = inicio; i < fin; i++) {
+                int u = frontera[i];
+                for(int j = ady.inicio[u]; j < ady.inicio[u+1]; j++) {
+                    int v = ady.destino[j];
+                    if(reclama(v))
+                        visita(v, u);
+                }
+            }
+        }
+
+        /* Busca un vecino en la frontera para cada vértice no visitado del
+         * tramo. */
+        private void abajoArriba() {
+            for(int v = inicio; v < fin; v++) {
+                if(estaEn(visitados, v))
+                    continue;
+                for(int j = ady.inicio[v]; j < ady.inicio[v+1]; j++) {
+                    int u = ady.destino[j];
+                    if(estaEn(enFrontera, u)) {
+                        if(reclama(v))
+                            visita(v, u);
+                        break;
+                    }
+                }
+            }
+        }
+
+        /* Registra que v se alcanzó desde u. */
+        private void visita(int v, int u) {
+            padre[v] = u;
+            nivel[v] = profundidad + 1;
+            if(elementos == salida.length) {
+                int[] t = new int[2*elementos];
+                for(int i = 0; i < elementos; i++)
+                    t[i] = salida[i];
+                salida = t;
+            }
+            salida[elementos++] = v;
+        }
+    }
+
+    /* Clase interna privada para procesar todos los tramos de un nivel. */
+    private class Nivel extends RecursiveAction {
+
+        /* La versión para serializar. */
+        private static final long serialVersionUID = 1L;
+
+        /* Los tramos a procesar. */
+        private Tramo[] tramos;
+        /* El número de tramos a procesar. */
+        private int elementos;
+
+        /* Procesa los tramos en paralelo. */
+        @Override protected void compute() {
+            for(int i = 1; i < elementos; i++) {
+                tramos[i].reinitialize();
+                tramos[i].fork();
+            }
+            tramos[0].compute();
+            for(int i = 1; i < elementos; i++)
+                tramos[i].join();
+        }
+    }
+
+    /* La gráfica. */
+    private Adyacencias<?> ady;
+    /* El pool donde se procesan los niveles. */
+    private ForkJoinPool pool;
+    /* El número de vértices. */
+    private int n;
+    /* Mapa de bits de los vértices visitados. */
+    private long[] visitados;
+    /* Mapa de bits de la frontera, para los niveles abajo-arriba. */
+    private long[] enFrontera;
+    /* La frontera actual. */
+    private int[] frontera;
+    /* El número de vértices en la frontera actual. */
+    private int tamFrontera;
+    /* El padre de cada vértice en el árbol BFS, o -1. */
+    private int[] padre;
+    /* El nivel de cada vértice en el árbol BFS, o -1. */
+    private int[] nivel;
+    /* La profundidad del nivel que se está expandiendo. */
+    private int profundidad;
+    /* Si el nivel actual se expande de abajo hacia arriba. */
+    private boolean abajoArriba;
+    /* Los tramos reutilizables. */
+    private Tramo[] tramos;
+
+    /* Crea un BFS paralelo para la gráfica y el pool recibidos. */
+    public BFSParalelo(Adyacencias<?> ady, ForkJoinPool pool) {
+        this.ady = ady;
+        this.pool = pool;
+        n = ady.getVertices();
+        visitados = new long[(n + 63) >>> 6];
+        enFrontera = new long[visitados.length];
+        frontera = new int[Math.max(n, 1)];
+        padre = new int[n];
+        nivel = new int[n];
+        tramos = new Tramo[Math.max(1, pool.getParallelism() * 4)];
+        for(int i = 0; i < tramos.length; i++)
+            tramos[i] = new Tramo();
+    }
+
+    /* Recorre la gráfica desde el origen, o hasta encontrar el destino si no
+     * es -1. */
+    public void recorre(int origen, int destino) {
+        for(int i = 0; i < n; i++) {
+            padre[i] = -1;
+            nivel[i] = -1;
+        }
+        for(int i = 0; i < visitados.length; i++)
+            visitados[i] = 0;
+
+        reclama(origen);
+        nivel[origen] = 0;
+        frontera[0] = origen;
+        tamFrontera = 1;
+        profundidad = 0;
+        abajoArriba = false;
+
+        long restantes = ady.destino.length;
+        long aristasFrontera = grado(origen);
+        restantes -= aristasFrontera;
+
+        Nivel paso = new Nivel();
+        paso.tramos = tramos;
+        while(tamFrontera > 0 && (destino < 0 || nivel[destino] < 0)) {
+            if(!abajoArriba && aristasFrontera > restantes / ALFA)
+                abajoArriba = true;
+            else if(abajoArriba && tamFrontera < n / BETA)
+                abajoArriba = false;
+
+            if(abajoArriba) {
+                for(int i = 0; i < enFrontera.length; i++)
+                    enFrontera[i] = 0;
+                for(int i = 0; i < tamFrontera; i++)
+                    enFrontera[frontera[i] >>> 6] |= 1L << frontera[i];
+            }
+
+            int trabajo = abajoArriba ? n : tamFrontera;
+            int k = Math.max(1, Math.min(tramos.length, trabajo / UMBRAL));
+            for(int i = 0; i < k; i++) {
+                tramos[i].inicio = (int)((long)trabajo * i / k);
+                tramos[i].fin = (int)((long)trabajo * (i+1) / k);
+            }
+            paso.elementos = k;
+            if(k == 1) {
+                tramos[0].compute();
+            } else {
+                paso.reinitialize();
+                pool.invoke(paso);
+            }
+
+            tamFrontera = 0;
+            aristasFrontera = 0;
+            for(int i = 0; i < k; i++) {
+                Tramo t = tramos[i];
+                for(int j = 0; j < t.elementos; j++) {
+                    int v = t.salida[j];
+                    frontera[tamFrontera++] = v;
+                    aristasFrontera += grado(v);
+                }
+            }
+            restantes -= aristasFrontera;
+            profundidad++;
+        }
+    }
+
+    /* Regresa el padre del vértice en el último recorrido, o -1. */
+    public int getPadre(int v) {
+        return padre[v];
+    }
+
+    /* Regresa el nivel del vértice en el último recorrido, o -1 si no se
+     * alcanzó. */
+    public int getNivel(int v) {
+        return nivel[v];
+    }
+
+    /* Regresa el grado del vértice. */
+    private int grado(int v) {
+        return ady.inicio[v+1] - ady.inicio[v];
+    }
+
+    /* Marca al vértice como visitado; regresa true si no lo estaba. */
+    private boolean reclama(int v) {
+        long mascara = 1L << v;
+        if(((long)BITS.getOpaque(visitados, v >>> 6) & mascara) != 0)
+            return false;
+        long anterior = (long)BITS.getAndBitwiseOr(visitados, v >>> 6, mascara);
+        return (anterior & mascara) == 0;
+    }
+
+    /* Nos dice si el bit del vértice está prendido en el mapa. */
+    private static boolean estaEn(long[] mapa, int v) {
+        return (mapa[v >>> 6] & (1L << v)) != 0;
+    }
+}
@@ -0,0 +1,228 @@
+package mx.unam.ciencias.edd;
+
+/**
+ * Clase para búsquedas ALT (A*, marcas y desigualdad del triángulo) sobre
+ * una {@link Grafica}. Se eligen algunos vértices como marcas y se calculan
+ * sus distancias a todos los demás; por la desigualdad del triángulo, para
+ * cualquier marca <i>L</i>, |d(<i>L</i>, <i>t</i>) - d(<i>L</i>,
+ * <i>v</i>)| es una cota inferior de d(<i>v</i>, <i>t</i>), y la mayor de
+ * esas cotas dirige una búsqueda A* hacia el destino sin necesidad de
+ * coordenadas.
+ *
+ * Las tablas son una fotografía de la gráfica al momento de construirse: si
+ * la gráfica cambia, hay que construir otra búsqueda. Las consultas
+ * reutilizan arreglos internos, por lo que una misma búsqueda no debe
+ * consultarse desde varios hilos a la vez.
+ */
+public class BusquedaALT<T> {
+
+    /* La gráfica. */
+    private Adyacencias<T> ady;
+    /* El identificador de cada elemento. */
+    private Diccionario<T, Integer> indices;
+    /* El número de vértices. */
+    private int n;
+    /* Las marcas. */
+    private int[] marcas;
+    /* Las distancias de cada marca a cada vértice. */
+    private double[][] tablas;
+
+    /* Las distancias desde el origen en la consulta actual. */
+    private double[] distancia;
+    /* El vértice anterior de cada vértice en la consulta actual. */
+    private int[] padre;
+    /* Si cada vértice ya se definió en la consulta actual. */
+    private boolean[] definido;
+    /* El montículo de la consulta. */
+    private MonticuloPrimitivo monticulo;
+    /* Los vértices con distancia en la consulta actual, para limpiarlos. */
+    private int[] tocados;
+    /* El número de vértices tocados. */
+    private int numTocados;
+    /* El número de vértices definidos en la última consulta. */
+    private int explorados;
+
+    /**
+     * Construye una búsqueda ALT para la gráfica recibida con el número de
+     * marcas indicado. La primera marca es el vértice más lejano al primero
+     * de la gráfica, y cada marca siguiente es el vértice más lejano a las
+     * marcas ya elegidas; los vértices de otras componentes conexas están a
+     * distancia infinita, por lo que cada componente recibe una marca antes
+     * de que alguna reciba dos. Con cero marcas, las consultas son búsquedas
+     * de Dijkstra que se detienen al llegar al destino.
+     * @param grafica la gráfica.
+     * @param marcas el número de marcas; si es mayor al número de vértices,
+     *        se usan todos.
+     * @throws IllegalArgumentException si el número de marcas es negativo.
+     */
+    public BusquedaALT(Grafica<T> grafica, int marcas) {
+        if(marcas < 0)
+            throw new IllegalArgumentException("El número de marcas no puede ser negativo");
+        ady = grafica.adyacencias();
+        n = ady.getVertices();
+        indices = new Diccionario<T, Integer>(n);
+        for(int i = 0; i < n; i++)
+            indices.agrega(ady.vertices[i].get(), i);
+
+        distancia = new double[n];
+        for(int v = 0; v < n; v++)
+            distancia[v] = Double.POSITIVE_INFINITY;
+        padre = new int[n];
+        definido = new boolean[n];
+        monticulo = new MonticuloPrimitivo(n);
+        tocados = new int[n];
+
+        eligeMarcas(Math.min(marcas, n));
+    }
+
+    /**
+     * Regresa el número de marcas.
+     * @return el número de marcas.
+     */
+    public int getMarcas() {
+        return marcas.length;
+    }
+
+    /**
+     * Regresa los bytes que ocupan las tablas de distancias de las marcas.
+     * @return los bytes que ocupan las tablas de distancias de las marcas.
+     */
+    public long getBytesTablas() {
+        return (long)marcas.length * n * Double.BYTES;
+    }
+
+    /**
+     * Regresa el número de vértices que definió la última consulta. Dijkstra
+     * sin cotas define todos los vértices más cercanos al origen que el
+     * destino; la proporción entre ambos números es la reducción de trabajo
+     * que logran las marcas.
+     * @return el número de vértices que definió la última consulta.
+     */
+    public int getExplorados() {
+        return explorados;
+    }
+
+    /**
+     * Calcula la ruta de peso mínimo entre el elemento de origen y el elemento
+     * de destino con A*, usando las cotas de las marcas.
+     * @param origen el vértice origen.
+     * @param destino el vértice destino.
+     * @return una trayectoria de peso mínimo entre los vértices, como la de
+     *         {@link Grafica#dijkstra}; si hay varias, puede regresar
+     *         cualquiera de ellas. Si los vértices están en componentes conexas
+     *         distintas, regresa una lista vacía.
+     * @throws NoSuchElementException si alguno de los dos elementos no estaba
+     *         en la gráfica al construir la búsqueda.
+     */
+    public Lista<VerticeGrafica<T>> trayectoriaMinima(T origen, T destino) {
+        int s = indices.get(origen);
+        int t = indices.get(destino);
+
+        explorados = 0;
+        toca(s, 0, -1);
+        monticulo.agrega(s, cota(s, t));
+        while(!monticulo.esVacia()) {
+            int u = monticulo.elimina();
+            definido[u] = true;
+            explorados++;
+            if(u == t)
+                break;
+            for(int j = ady.inicio[u]; j < ady.inicio[u+1]; j++) {
+                int v = ady.destino[j];
+                if(definido[v])
+                    continue;
+                double d = distancia[u] + ady.peso[j];
+                if(d < distancia[v]) {
+                    toca(v, d, u);
+                    monticulo.reordena(v, d + cota(v, t));
+                }
+            }
+        }
+
+        Lista<VerticeGrafica<T>> trayectoria = new Lista<VerticeGrafica<T>>();
+        if(definido[t])
+            for(int v = t; v != -1; v = padre[v])
+                trayectoria.agregaInicio(ady.vertices[v]);
+
+        for(int i = 0; i < numTocados; i++) {
+            distancia[tocados[i]] = Double.POSITIVE_INFINITY;
+            definido[tocados[i]] = false;
+        }
+        numTocados = 0;
+        monticulo.limpia();
+        return trayectoria;
+    }
+
+    /* Elige las marcas por el vértice más lejano y llena sus tablas. */
+    private void eligeMarcas(int k) {
+        marcas = new int[k];
+        tablas = new double[k][];
+        if(k == 0)
+            return;
+
+        // La distancia de cada vértice a la marca más cercana.
+        double[] cercana = new double[n];
+        double[] inicial = dijkstra(0);
+        int siguiente = masLejano(inicial);
+        for(int v = 0; v < n; v++)
+            cercana[v] = Double.POSITIVE_INFINITY;
+        for(int i = 0; i < k; i++) {
+            marcas[i] = siguiente;
+            tablas[i] = dijkstra(siguiente);
+            for(int v = 0; v < n; v++)
+                cercana[v] = Math.min(cercana[v], tablas[i][v]);
+            siguiente = masLejano(cercana);
+        }
+    }
+
+    /* Regresa el vértice con la mayor distancia; las infinitas ganan. */
+    private int masLejano(double[] distancias) {
+        int lejano = 0;
+        for(int v = 1; v < n; v++)
+            if(distancias[v] > distancias[lejano])
+                lejano = v;
+        return lejano;
+    }
+
+    /* Regresa las distancias desde el vértice a todos los demás. */
+    private double[] dijkstra(int origen) {
+        double[] d = new double[n];
+        for(int v = 0; v < n; v++)
+            d[v] = Double.POSITIVE_INFINITY;
+        d[origen] = 0;
+        monticulo.agrega(origen, 0);
+        while(!monticulo.esVacia()) {
+            int u = monticulo.elimina();
+            for(int j = ady.inicio[u]; j < ady.inicio[u+1]; j++) {
+                int v = ady.destino[j];
+                double nueva = d[u] + ady.peso[j];
+                if(nueva < d[v]) {
+                    d[v] = nueva;
+                    monticulo.reordena(v, nueva);
+                }
+            }
+        }
+        return d;
+    }
+
+    /* Regresa la mayor cota inferior de la distancia de v a t. */
+    private double cota(int v, int t) {
+        double cota = 0;
+        for(int i = 0; i < tablas.length; i++) {
+            double dv = tablas[i][v];
+            double dt = tablas[i][t];
+            if(dv == Double.POSITIVE_INFINITY || dt == Double.POSITIVE_INFINITY)
+                continue;
+            cota = Math.max(cota, Math.abs(dt - dv));
+        }
+        return cota;
+    }
+
+    /* Define la distancia y el padre del vértice en la consulta actual. */
+    private void toca(int v, double d, int p) {
+        if(distancia[v] == Double.POSITIVE_INFINITY)
+            tocados[numTocados++] = v;
+        distancia[v] = d;
+        padre[v] = p;
+    }
+}
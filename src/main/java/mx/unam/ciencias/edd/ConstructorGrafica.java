@@ -0,0 +1,181 @@
+package mx.unam.ciencias.edd;
+
+/**
+ * Clase para construir gráficas en bloque. Los elementos se agregan en orden
+ * y se identifican por su índice; las aristas se acumulan en arreglos, sin
+ * buscar sus vértices ni verificar si ya existían. Al construir la gráfica se
+ * descartan las aristas repetidas en tiempo lineal, conservando la primera, y
+ * los diccionarios de la gráfica se crean con su tamaño final.
+ */
+public class ConstructorGrafica<T> {
+
+    /* Los elementos. */
+    private Object[] elementos;
+    /* Los pesos de los elementos. */
+    private double[] pesos;
+    /* El número de elementos. */
+    private int n;
+    /* Los orígenes de las aristas. */
+    private int[] origen;
+    /* Los destinos de las aristas. */
+    private int[] destino;
+    /* Los pesos de las aristas. */
+    private double[] peso;
+    /* El número de aristas. */
+    private int m;
+
+    /**
+     * Construye un constructor vacío con espacio para los vértices y aristas
+     * indicados. Si se agregan más, los arreglos crecen.
+     * @param vertices el número esperado de vértices.
+     * @param aristas el número esperado de aristas.
+     */
+    public ConstructorGrafica(int vertices, int aristas) {
+        elementos = new Object[Math.max(vertices, 1)];
+        pesos = new double[elementos.length];
+        origen = new int[Math.max(aristas, 1)];
+        destino = new int[origen.length];
+        peso = new double[origen.length];
+    }
+
+    /**
+     * Agrega un elemento.
+     * @param elemento el elemento a agregar.
+     * @return el índice del elemento, que se usa para conectarlo.
+     * @throws IllegalArgumentException si el elemento es nulo.
+     */
+    public int agrega(T elemento) {
+        return agrega(elemento, 0);
+    }
+
+    /**
+     * Agrega un elemento con el peso de vértice recibido.
+     * @param elemento el elemento a agregar.
+     * @param peso el peso del vértice del elemento.
+     * @return el índice del elemento, que se usa para conectarlo.
+     * @throws IllegalArgumentException si el elemento es nulo o el peso es
+     *         negativo.
+     * @see Grafica#setPesoVertice
+     */
+    public int agrega(T elemento, double peso) {
+        if(elemento == null)
+            throw new IllegalArgumentException("El elemento no puede ser nulo");
+        if(!(peso >= 0))
+            throw new IllegalArgumentException("El peso no puede ser negativo");
+        if(n == elementos.length) {
+            Object[] t = new Object[2*n];
+            double[] p = new double[2*n];
+            for(int i = 0; i < n; i++) {
+                t[i] = elementos[i];
+                p[i] = pesos[i];
+            }
+            elementos = t;
+            pesos = p;
+        }
+        elementos[n] = elemento;
+        pesos[n] = peso;
+        return n++;
+    }
+
+    /**
+     * Conecta los elementos con los índices recibidos, con peso 1. Si ya
+     * estaban conectados, la arista se descarta al construir la gráfica.
+     * @param a el índice del primer elemento.
+     * @param b el índice del segundo elemento.
+     * @throws IllegalArgumentException si los índices son inválidos o
+     *         iguales.
+     */
+    public void conecta(int a, int b) {
+        conecta(a, b, 1);
+    }
+
+    /**
+     * Conecta los elementos con los índices recibidos. Si ya estaban
+     * conectados, la arista se descarta al construir la gráfica.
+     * @param a el índice del primer elemento.
+     * @param b el índice del segundo elemento.
+     * @param peso el peso de la arista.
+     * @throws IllegalArgumentException si los índices son inválidos o
+     *         iguales, o si el peso es no positivo.
+     */
+    public void conecta(int a, int b, double peso) {
+        if(a < 0 || a >= n || b < 0 || b >= n)
+            throw new IllegalArgumentException("Los índices son inválidos");
+        if(a == b)
+            throw new IllegalArgumentException("Los elementos no pueden ser iguales");
+        if(!(peso > 0))
+            throw new IllegalArgumentException("El peso debe ser mayor a 0");
+        if(m == origen.length) {
+            int[] o = new int[2*m];
+            int[] d = new int[2*m];
+            double[] p = new double[2*m];
+            for(int i = 0; i < m; i++) {
+                o[i] = origen[i];
+                d[i] = destino[i];
+                p[i] = this.peso[i];
+            }
+            origen = o;
+            destino = d;
+            this.peso = p;
+        }
+        origen[m] = Math.min(a, b);
+        destino[m] = Math.max(a, b);
+        this.peso[m] = peso;
+        m++;
+    }
+
+    /**
+     * Regresa el número de elementos agregados.
+     * @return el número de elementos agregados.
+     */
+    public int getElementos() {
+        return n;
+    }
+
+    /**
+     * Construye la gráfica. Las aristas se agrupan por su origen con un
+     * ordenamiento por conteo, y las repetidas se descartan marcando los
+     * destinos ya vistos de cada origen.
+     * @return la gráfica con los elementos y aristas agregados.
+     * @throws IllegalArgumentException si se agregó algún elemento repetido.
+     */
+    public Grafica<T> construye() {
+        int[] inicio = new int[n+1];
+        for(int e = 0; e < m; e++)
+            inicio[origen[e]+1]++;
+        for(int i = 0; i < n; i++)
+            inicio[i+1] += inicio[i];
+
+        int[] orden = new int[m];
+        int[] siguiente = new int[n];
+        for(int i = 0; i < n; i++)
+            siguiente[i] = inicio[i];
+        for(int e = 0; e < m; e++)
+            orden[siguiente[origen[e]]++] = e;
+
+        // marca[v] == u+1 si la arista (u, v) ya se agregó.
+        int[] marca = siguiente;
+        for(int i = 0; i < n; i++)
+            marca[i] = 0;
+
+        int[] o = new int[m];
+        int[] d = new int[m];
+        double[] p = new double[m];
+        int k = 0;
+        for(int u = 0; u < n; u++) {
+            for(int j = inicio[u]; j < inicio[u+1]; j++) {
+                int e = orden[j];
+                int v = destino[e];
+                if(marca[v] == u+1)
+                    continue;
+                marca[v] = u+1;
+                o[k] = u;
+                d[k] = v;
+                p[k] = peso[e];
+                k++;
+            }
+        }
+
+        return Grafica.deArreglos(elementos, pesos, n, o, d, p, k);
+    }
+}
@@ -0,0 +1,322 @@
+package mx.unam.ciencias.edd;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Clase para el algoritmo <i>delta-stepping</i> de trayectorias mínimas desde
+ * un origen, sobre una gráfica representada con {@link Adyacencias}. Los
+ * vértices se agrupan en cubetas de ancho delta según su distancia tentativa;
+ * las aristas ligeras (de peso a lo más delta) de cada cubeta se relajan en
+ * paralelo hasta que la cubeta se vacía, y después se relajan, también en
+ * paralelo, las aristas pesadas de los vértices que pasaron por ella. Cada
+ * relajación exitosa se anota con el vértice desde el que se hizo, y al
+ * terminar cada fase el anterior de cada vértice es el de la relajación que
+ * dejó su distancia; las trayectorias se reconstruyen con esos anteriores.
+ */
+class DeltaStepping {
+
+    /* Acceso atómico a las distancias. Las distancias son dobles no
+     * negativos, y para ellos el orden de sus bits como long es el mismo que
+     * el de sus valores. */
+    private static final VarHandle DISTANCIAS =
+        MethodHandles.arrayElementVarHandle(long[].class);
+    /* El mínimo de vértices por tramo. */
+    private static final int UMBRAL = 1024;
+
+    /* Clase interna privada para listas de enteros que crecen. */
+    private static class Enteros {
+
+        /* Los enteros. */
+        private int[] arreglo = new int[16];
+        /* El número de enteros. */
+        private int elementos;
+
+        /* Agrega un entero. */
+        public void agrega(int e) {
+            if(elementos == arreglo.length) {
+                int[] t = new int[2*elementos];
+                for(int i = 0; i < elementos; i++)
+                    t[i] = arreglo[i];
+                arreglo = t;
+            }
+            arreglo[elementos++] = e;
+        }
+    }
+
+    /* Clase interna privada para las relajaciones exitosas de un tramo: el
+     * vértice, el vértice desde el que se relajó y la distancia que quedó,
+     * como bits de doble. */
+    private static class Mejoras {
+
+        /* Los vértices cuya distancia mejoró. */
+        private int[] vertices = new int[16];
+        /* Los vértices desde los que se relajaron. */
+        private int[] anteriores = new int[16];
+        /* Las distancias con las que quedaron, como bits de dobles. */
+        private long[] distancias = new long[16];
+        /* El número de relajaciones. */
+        private int elementos;
+
+        /* Agrega una relajación. */
+        public void agrega(int v, int u, long d) {
+            if(elementos == vertices.length) {
+                int[] tv = new int[2*elementos];
+                int[] ta = new int[2*elementos];
+                long[] td = new long[2*elementos];
+                for(int i = 0; i < elementos; i++) {
+                    tv[i] = vertices[i];
+                    ta[i] = anteriores[i];
+                    td[i] = distancias[i];
+                }
+                vertices = tv;
+                anteriores = ta;
+                distancias = td;
+            }
+            vertices[elementos] = v;
+            anteriores[elementos] = u;
+            distancias[elementos] = d;
+            elementos++;
+        }
+    }
+
+    /* Clase interna privada para los tramos de una fase. */
+    private class Tramo extends RecursiveAction {
+
+        /* La versión para serializar. */
+        private static final long serialVersionUID = 1L;
+
+        /* El inicio del tramo. */
+        private int inicio;
+        /* El fin del tramo (exclusivo). */
+        private int fin;
+        /* Las relajaciones exitosas del tramo. */
+        private Mejoras mejorados = new Mejoras();
+
+        /* Relaja las aristas de los vértices del tramo. */
+        @Override protected void compute() {
+            mejorados.elementos = 0;
+            for(int i = inicio; i < fin; i++) {
+                int u = trabajo.arreglo[i];
+                double du = distancia(u);
+                for(int j = ady.inicio[u]; j < ady.inicio[u+1]; j++) {
+                    double w = ady.peso[j];
+                    if((w <= delta) != ligeras)
+                        continue;
+                    int v = ady.destino[j];
+                    long d = Double.doubleToRawLongBits(du + w);
+                    if(relaja(v, d))
+                        mejorados.agrega(v, u, d);
+                }
+            }
+        }
+    }
+
+    /* Clase interna privada para procesar todos los tramos de una fase. */
+    private class Fase extends RecursiveAction {
+
+        /* La versión para serializar. */
+        private static final long serialVersionUID = 1L;
+
+        /* El número de tramos a procesar. */
+        private int elementos;
+
+        /* Procesa los tramos en paralelo. */
+        @Override protected void compute() {
+            for(int i = 1; i < elementos; i++) {
+                tramos[i].reinitialize();
+                tramos[i].fork();
+            }
+            tramos[0].compute();
+            for(int i = 1; i < elementos; i++)
+                tramos[i].join();
+        }
+    }
+
+    /* La gráfica. */
+    private Adyacencias<?> ady;
+    /* El pool donde se procesan las fases. */
+    private ForkJoinPool pool;
+    /* El ancho de las cubetas. */
+    private double delta;
+    /* El número de vértices. */
+    private int n;
+    /* Las distancias tentativas, como bits de dobles. */
+    private long[] distancias;
+    /* El vértice desde el que se llegó a cada vértice con su distancia
+     * tentativa, o -1. */
+    private int[] anterior;
+    /* Las cubetas. */
+    private Enteros[] cubetas;
+    /* La distancia con la que se relajaron por última vez las aristas ligeras
+     * de cada vértice, como bits de dobles. */
+    private long[] relajado;
+    /* La cubeta más uno en la que cada vértice se agregó a los vértices que
+     * pasaron por ella. */
+    private int[] marca;
+    /* Los vértices a relajar en la fase actual. */
+    private Enteros trabajo;
+    /* Si la fase actual relaja las aristas ligeras o las pesadas. */
+    private boolean ligeras;
+    /* Los tramos reutilizables. */
+    private Tramo[] tramos;
+
+    /* Crea un delta-stepping para la gráfica, el ancho de cubeta y el pool
+     * recibidos. */
+    public DeltaStepping(Adyacencias<?> ady, double delta, ForkJoinPool pool) {
+        this.ady = ady;
+        this.delta = delta;
+        this.pool = pool;
+        n = ady.getVertices();
+        distancias = new long[n];
+        anterior = new int[n];
+        relajado = new long[n];
+        marca = new int[n];
+        cubetas = new Enteros[16];
+        tramos = new Tramo[Math.max(1, pool.getParallelism() * 4)];
+        for(int i = 0; i < tramos.length; i++)
+            tramos[i] = new Tramo();
+    }
+
+    /* Calcula las distancias desde el origen; si el destino no es -1, se
+     * detiene en cuanto su distancia es definitiva. */
+    public void recorre(int origen, int destino) {
+        long infinito = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+        for(int i = 0; i < n; i++) {
+            distancias[i] = infinito;
+            anterior[i] = -1;
+            relajado[i] = -1;
+            marca[i] = 0;
+        }
+        for(int i = 0; i < cubetas.length; i++)
+            cubetas[i] = null;
+
+        distancias[origen] = Double.doubleToRawLongBits(0);
+        agregaACubeta(origen);
+
+        Enteros pendientes = new Enteros();
+        Enteros procesados = new Enteros();
+        Fase fase = new Fase();
+        for(int i = 0; i < cubetas.length; i++) {
+            if(destino >= 0 && distancia(destino) < i * delta)
+                break;
+            procesados.elementos = 0;
+            while(cubetas[i] != null && cubetas[i].elementos > 0) {
+                Enteros cubeta = cubetas[i];
+                cubetas[i] = null;
+                pendientes.elementos = 0;
+                trabajo = pendientes;
+                for(int k = 0; k < cubeta.elementos; k++) {
+                    int v = cubeta.arreglo[k];
+                    if(indiceCubeta(distancia(v)) != i || relajado[v] == distancias[v])
+                        continue;
+                    relajado[v] = distancias[v];
+                    pendientes.agrega(v);
+                    if(marca[v] != i+1) {
+                        marca[v] = i+1;
+                        procesados.agrega(v);
+                    }
+                }
+                ligeras = true;
+                relajaTrabajo(fase);
+            }
+            trabajo = procesados;
+            ligeras = false;
+            relajaTrabajo(fase);
+        }
+    }
+
+    /* Regresa la distancia del vértice en el último recorrido. */
+    public double distancia(int v) {
+        return Double.longBitsToDouble((long)DISTANCIAS.getOpaque(distancias, v));
+    }
+
+    /* Regresa los vértices de la trayectoria del último recorrido desde el
+     * origen hasta el destino, o un arreglo vacío si el destino no se
+     * alcanzó. Lanza IllegalStateException si los anteriores no llevan al
+     * origen. */
+    public int[] trayectoria(int origen, int destino) {
+        if(distancia(destino) == Double.POSITIVE_INFINITY)
+            return new int[0];
+        int longitud = 1;
+        for(int v = destino; v != origen; v = anterior[v]) {
+            if(anterior[v] == -1 || longitud == n)
+                throw new IllegalStateException("Los anteriores no llevan al origen");
+            longitud++;
+        }
+        int[] t = new int[longitud];
+        for(int v = destino, i = longitud-1; i >= 0; v = anterior[v], i--)
+            t[i] = v;
+        return t;
+    }
+
+    /* Relaja en paralelo las aristas de los vértices de trabajo, y agrega los
+     * vértices mejorados a sus cubetas. De las relajaciones de un vértice en
+     * la fase, la que dejó su distancia define su anterior. */
+    private void relajaTrabajo(Fase fase) {
+        int total = trabajo.elementos;
+        if(total == 0)
+            return;
+        int k = Math.max(1, Math.min(tramos.length, total / UMBRAL));
+        for(int i = 0; i < k; i++) {
+            tramos[i].inicio = (int)((long)total * i / k);
+            tramos[i].fin = (int)((long)total * (i+1) / k);
+        }
+        if(k == 1) {
+            tramos[0].compute();
+        } else {
+            fase.elementos = k;
+            fase.reinitialize();
+            pool.invoke(fase);
+        }
+        for(int i = 0; i < k; i++) {
+            Mejoras mejorados = tramos[i].mejorados;
+            for(int j = 0; j < mejorados.elementos; j++) {
+                int v = mejorados.vertices[j];
+                if(mejorados.distancias[j] == distancias[v])
+                    anterior[v] = mejorados.anteriores[j];
+                agregaACubeta(v);
+            }
+        }
+    }
+
+    /* Agrega el vértice a la cubeta de su distancia actual. */
+    private void agregaACubeta(int v) {
+        int i = indiceCubeta(distancia(v));
+        if(i >= cubetas.length) {
+            int l = cubetas.length;
+            while(l <= i)
+                l *= 2;
+            Enteros[] t = new Enteros[l];
+            for(int j = 0; j < cubetas.length; j++)
+                t[j] = cubetas[j];
+            cubetas = t;
+        }
+        if(cubetas[i] == null)
+            cubetas[i] = new Enteros();
+        cubetas[i].agrega(v);
+    }
+
+    /* Regresa el índice de la cubeta de la distancia. */
+    private int indiceCubeta(double d) {
+        double i = Math.floor(d / delta);
+        if(i >= Integer.MAX_VALUE - 1)
+            throw new IllegalStateException("Delta es muy pequeña para las distancias de la gráfica");
+        return (int)i;
+    }
+
+    /* Baja la distancia del vértice a la recibida, como bits de doble, si es
+     * menor; regresa true si la distancia cambió. */
+    private boolean relaja(int v, long nueva) {
+        long actual = (long)DISTANCIAS.getOpaque(distancias, v);
+        while(nueva < actual) {
+            long vista = (long)DISTANCIAS.compareAndExchange(distancias, v, actual, nueva);
+            if(vista == actual)
+                return true;
+            actual = vista;
+        }
+        return false;
+    }
+}
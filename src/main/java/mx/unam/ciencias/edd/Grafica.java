@@ -1,7 +1,15 @@
 package mx.unam.ciencias.edd;
 
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Clase para gráficas. Una gráfica es un conjunto de vértices y aristas, tales
@@ -41,16 +49,27 @@ public class Grafica<T> implements Coleccion<T> {
         private Color color;
         /* La distancia del vértice. */
         private double distancia;
+        /* El peso del vértice. */
+        private double peso;
         /* El índice del vértice. */
         private int indice;
         /* El diccionario de vecinos del vértice. */
-        private Diccionario<T, Vecino> vecinos;
+        private Diccionario<T, Vecino<T>> vecinos;
+        /* El vértice desde el que se llegó a éste en un recorrido. */
+        private Vertice anterior;
 
         /* Crea un nuevo vértice a partir de un elemento. */
         public Vertice(T elemento) {
             this.elemento = elemento;
             this.color = Color.NINGUNO;
-            this.vecinos = new Diccionario<T, Vecino>();
+            this.vecinos = new Diccionario<T, Vecino<T>>();
+        }
+
+        /* Crea un nuevo vértice con espacio para el grado dado. */
+        public Vertice(T elemento, int grado) {
+            this.elemento = elemento;
+            this.color = Color.NINGUNO;
+            this.vecinos = new Diccionario<T, Vecino<T>>(grado);
         }
 
         /* Regresa el elemento del vértice. */
@@ -89,19 +108,25 @@ public class Grafica<T> implements Coleccion<T> {
         }
     }
 
-    /* Clase interna privada para vértices vecinos. */
-    private class Vecino implements VerticeGrafica<T> {
+    /* Clase estática privada para vértices vecinos; es estática para no
+     * guardar una referencia a la gráfica en cada vecino. Las aristas de peso
+     * 1, que son todas las de una gráfica sin pesos o con pesos sólo en los
+     * vértices, no guardan su peso; las demás usan VecinoPesado. */
+    private static class Vecino<T> implements VerticeGrafica<T> {
 
         /* El vértice vecino. */
-        public Vertice vecino;
-        /* El peso de la arista conectando al vértice con su vértice vecino. */
-        public double peso;
+        public Grafica<T>.Vertice vecino;
 
-        /* Construye un nuevo vecino con el vértice recibido como vecino y el
-         * peso especificado. */
-        public Vecino(Vertice vecino, double peso) {
+        /* Construye un nuevo vecino con el vértice recibido como vecino y
+         * peso 1. */
+        public Vecino(Grafica<T>.Vertice vecino) {
             this.vecino = vecino;
-            this.peso = peso;
+        }
+
+        /* Regresa el peso de la arista conectando al vértice con su vértice
+         * vecino. */
+        public double getPeso() {
+            return 1;
         }
 
         /* Regresa el elemento del vecino. */
@@ -125,27 +150,82 @@ public class Grafica<T> implements Coleccion<T> {
         }
     }
 
+    /* Clase estática privada para vecinos por aristas de peso distinto de
+     * 1. */
+    private static class VecinoPesado<T> extends Vecino<T> {
+
+        /* El peso de la arista conectando al vértice con su vértice vecino. */
+        private double peso;
+
+        /* Construye un nuevo vecino con el vértice recibido como vecino y el
+         * peso especificado. */
+        public VecinoPesado(Grafica<T>.Vertice vecino, double peso) {
+            super(vecino);
+            this.peso = peso;
+        }
+
+        /* Regresa el peso de la arista conectando al vértice con su vértice
+         * vecino. */
+        @Override public double getPeso() {
+            return peso;
+        }
+    }
+
+    /* Interface para poder usar lambdas al calcular el costo de recorrer una
+     * arista en el algoritmo de Dijkstra. */
+    @FunctionalInterface
+    private interface CostoArista<T> {
+        /* Regresa el costo de ir del vértice a su vecino. */
+        public double costo(Grafica<T>.Vertice v, Vecino<T> a);
+    }
+
     /* Interface para poder usar lambdas al buscar el elemento que sigue al
      * reconstruir un camino. */
     @FunctionalInterface
     private interface BuscadorCamino<T> {
         /* Regresa true si el vértice se sigue del vecino. */
-        public boolean seSiguen(Grafica<T>.Vertice v, Grafica<T>.Vecino a);
+        public boolean seSiguen(Grafica<T>.Vertice v, Vecino<T> a);
     }
 
+    /* Los primeros bytes de una gráfica guardada: "GRAF". */
+    private static final int FIRMA = 0x47524146;
+    /* La versión del formato de las gráficas guardadas; la versión 1 no
+     * tiene pesos de vértices. */
+    private static final int VERSION = 2;
+    /* El tamaño del buffer para guardar gráficas. */
+    private static final int TAM_BUFFER = 1 << 16;
+
     /* Vértices. */
     private Diccionario<T, Vertice> vertices;
     /* Número de aristas. */
     private int aristas;
 
     /**
-     * Constructor único.
+     * Constructor por omisión.
      */
     public Grafica() {
         vertices = new Diccionario<T, Vertice>();
         aristas = 0;
     }
 
+    /* Construye una gráfica con espacio para el número de vértices dado. */
+    private Grafica(int capacidad) {
+        vertices = new Diccionario<T, Vertice>(capacidad);
+        aristas = 0;
+    }
+
+    /* Truco para crear arreglos genéricos. Es necesario hacerlo así por cómo
+       Java implementa sus genéricos; de otra forma obtenemos advertencias del
+       compilador. */
+    @SuppressWarnings("unchecked") private VerticeGrafica<T>[] nuevoArreglo(int n) {
+        return (VerticeGrafica<T>[])Array.newInstance(VerticeGrafica.class, n);
+    }
+
+    /* Truco para crear arreglos de vértices. */
+    @SuppressWarnings("unchecked") private Vertice[] nuevoArregloVertices(int n) {
+        return (Vertice[])Array.newInstance(Vertice.class, n);
+    }
+
     /**
      * Regresa el número de elementos en la gráfica. El número de elementos es
      * igual al número de vértices.
@@ -194,8 +274,8 @@ public class Grafica<T> implements Coleccion<T> {
         if(sonVecinos(a, b))
             throw new IllegalArgumentException("Los elementos ya son vecinos");
 
-        v1.vecinos.agrega(b, new Vecino(v2, 1));
-        v2.vecinos.agrega(a, new Vecino(v1, 1));
+        v1.vecinos.agrega(b, new Vecino<T>(v2));
+        v2.vecinos.agrega(a, new Vecino<T>(v1));
 
         aristas++;
     }
@@ -221,12 +301,39 @@ public class Grafica<T> implements Coleccion<T> {
         if(sonVecinos(a, b))
             throw new IllegalArgumentException("Los elementos ya son vecinos");
 
-        v1.vecinos.agrega(b, new Vecino(v2, peso));
-        v2.vecinos.agrega(a, new Vecino(v1, peso));
+        v1.vecinos.agrega(b, nuevoVecino(v2, peso));
+        v2.vecinos.agrega(a, nuevoVecino(v1, peso));
+
+        aristas++;
+    }
 
+    /* Conecta dos vértices de la gráfica sin verificar que existan ni que no
+     * sean vecinos. */
+    private void conectaVertices(Vertice a, Vertice b, double peso) {
+        a.vecinos.agrega(b.elemento, nuevoVecino(b, peso));
+        b.vecinos.agrega(a.elemento, nuevoVecino(a, peso));
         aristas++;
     }
 
+    /* Crea un vecino por una arista con el peso dado; sólo guarda el peso si
+     * no es 1. */
+    private Vecino<T> nuevoVecino(Vertice vecino, double peso) {
+        return peso == 1 ? new Vecino<T>(vecino) : new VecinoPesado<T>(vecino, peso);
+    }
+
+    /* Agrega a la gráfica una copia (sin vecinos) de cada uno de los vértices
+     * recibidos, y regresa las copias en el mismo orden. */
+    private Vertice[] agregaCopias(VerticeGrafica<T>[] originales) {
+        Vertice[] copias = nuevoArregloVertices(originales.length);
+        for(int i = 0; i < originales.length; i++) {
+            T elemento = originales[i].get();
+            copias[i] = new Vertice(elemento);
+            copias[i].peso = ((Vertice)originales[i]).peso;
+            vertices.agrega(elemento, copias[i]);
+        }
+        return copias;
+    }
+
     /**
      * Desconecta dos elementos de la gráfica. Los elementos deben estar en la
      * gráfica y estar conectados entre ellos.
@@ -267,7 +374,7 @@ public class Grafica<T> implements Coleccion<T> {
     @Override public void elimina(T elemento) {
         Vertice v = (Vertice)vertice(elemento);
 
-        for(Vecino x : v.vecinos) {
+        for(Vecino<T> x : v.vecinos) {
             Vertice vecino = x.vecino;
             vecino.vecinos.elimina(elemento);
             aristas--;
@@ -310,7 +417,7 @@ public class Grafica<T> implements Coleccion<T> {
         if(!sonVecinos(a, b))
             throw new IllegalArgumentException("Los elementos no son vecinos");
 
-        return v1.vecinos.get(b).peso;
+        return v1.vecinos.get(b).getPeso();
     }
 
     /**
@@ -333,8 +440,35 @@ public class Grafica<T> implements Coleccion<T> {
         if(!sonVecinos(a, b))
             throw new IllegalArgumentException("Los elementos no están conectados");
 
-        v1.vecinos.get(b).peso = peso;
-        v2.vecinos.get(a).peso = peso;
+        // Un vecino sin peso no se puede cambiar; se reemplaza
+        v1.vecinos.agrega(b, nuevoVecino(v2, peso));
+        v2.vecinos.agrega(a, nuevoVecino(v1, peso));
+    }
+
+    /**
+     * Regresa el peso del vértice que contiene al elemento recibido. Por
+     * omisión, el peso de un vértice es 0.
+     * @param elemento el elemento.
+     * @return el peso del vértice que contiene al elemento.
+     * @throws NoSuchElementException si el elemento no está en la gráfica.
+     */
+    public double getPesoVertice(T elemento) {
+        return ((Vertice)vertice(elemento)).peso;
+    }
+
+    /**
+     * Define el peso del vértice que contiene al elemento recibido. El peso
+     * sólo lo usa {@link #dijkstraVertices}.
+     * @param elemento el elemento.
+     * @param peso el nuevo peso del vértice.
+     * @throws NoSuchElementException si el elemento no está en la gráfica.
+     * @throws IllegalArgumentException si el peso es negativo.
+     */
+    public void setPesoVertice(T elemento, double peso) {
+        Vertice v = (Vertice)vertice(elemento);
+        if(!(peso >= 0))
+            throw new IllegalArgumentException("El peso no puede ser negativo");
+        v.peso = peso;
     }
 
     /**
@@ -355,14 +489,14 @@ public class Grafica<T> implements Coleccion<T> {
      */
     public void setColor(VerticeGrafica<T> vertice, Color color) {
         if(vertice == null || (vertice.getClass() != Vertice.class &&
-           vertice.getClass() != Vecino.class))
+           !(vertice instanceof Vecino)))
             throw new IllegalArgumentException("El vértice es inválido");
 
         if(vertice.getClass() == Vertice.class)
             ((Vertice)vertice).color = color;
 
-        if(vertice.getClass() == Vecino.class)
-            ((Vecino)vertice).vecino.color = color;
+        if(vertice instanceof Vecino)
+            ((Vecino<?>)vertice).vecino.color = color;
     }
 
     /**
@@ -380,7 +514,7 @@ public class Grafica<T> implements Coleccion<T> {
         q.mete(w);
         while(!q.esVacia()) {
             Vertice u = q.saca();
-            for(Vecino x : u.vecinos) {
+            for(Vecino<T> x : u.vecinos) {
                 Vertice vecino = x.vecino;
                 if(vecino.color == Color.ROJO) {
                     vecino.color = Color.NEGRO;
@@ -423,7 +557,7 @@ public class Grafica<T> implements Coleccion<T> {
         while(!q.esVacia()) {
             Vertice u = q.saca();
             accion.actua(u);
-            for(Vecino x : u.vecinos) {
+            for(Vecino<T> x : u.vecinos) {
                 Vertice vecino = x.vecino;
                 if(vecino.color == Color.ROJO) {
                     vecino.color = Color.NEGRO;
@@ -453,7 +587,7 @@ public class Grafica<T> implements Coleccion<T> {
         while(!q.esVacia()) {
             Vertice u = q.saca();
             accion.actua(u);
-            for(Vecino x : u.vecinos) {
+            for(Vecino<T> x : u.vecinos) {
                 Vertice vecino = x.vecino;
                 if(vecino.color == Color.ROJO) {
                     vecino.color = Color.NEGRO;
@@ -492,7 +626,7 @@ public class Grafica<T> implements Coleccion<T> {
         }
         s += "}, {";
         for(Vertice v : vertices) {
-            for(Vecino u : v.vecinos) {
+            for(Vecino<T> u : v.vecinos) {
                 Vertice vecino = u.vecino;
                 if(!s.contains("("+v.elemento.toString()+", "+vecino.elemento.toString()+")") &&
                    !s.contains("("+vecino.elemento.toString()+", "+v.elemento.toString()+")"))
@@ -523,7 +657,7 @@ public class Grafica<T> implements Coleccion<T> {
             }catch(Exception e){
                 return false;
             }
-            for(Vecino x : v.vecinos) {
+            for(Vecino<T> x : v.vecinos) {
                 Vertice vecino = x.vecino;
                 if(!grafica.sonVecinos(vg.elemento, vecino.elemento))
                     return false;
@@ -573,7 +707,7 @@ public class Grafica<T> implements Coleccion<T> {
 
         while(!q.esVacia()) {
             Vertice u = q.saca();
-            for(Vecino x : u.vecinos) {
+            for(Vecino<T> x : u.vecinos) {
                 Vertice vecino = x.vecino;
                 if(vecino.distancia == Double.MAX_VALUE) {
                     vecino.distancia = u.distancia + 1;
@@ -590,6 +724,53 @@ public class Grafica<T> implements Coleccion<T> {
         return trayectoria;
     }
 
+    /**
+     * Calcula una trayectoria de distancia mínima entre dos vértices con un
+     * BFS paralelo por niveles en el pool común de {@link ForkJoinPool}.
+     * @param origen el vértice de origen.
+     * @param destino el vértice de destino.
+     * @return una trayectoria de distancia mínima entre los vértices, como la
+     *         de {@link #trayectoriaMinima}; si hay varias, puede regresar
+     *         cualquiera de ellas.
+     * @throws NoSuchElementException si alguno de los dos elementos no está en
+     *         la gráfica.
+     */
+    public Lista<VerticeGrafica<T>> trayectoriaMinimaParalela(T origen, T destino) {
+        return trayectoriaMinimaParalela(origen, destino, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Calcula una trayectoria de distancia mínima entre dos vértices con un
+     * BFS paralelo por niveles. Cada nivel se reparte entre los hilos del
+     * pool, que reclaman los vértices de forma atómica; si la frontera es muy
+     * ancha, el nivel se expande de abajo hacia arriba, buscando para cada
+     * vértice no visitado un vecino en la frontera.
+     * @param origen el vértice de origen.
+     * @param destino el vértice de destino.
+     * @param pool el pool en el que se ejecuta el BFS.
+     * @return una trayectoria de distancia mínima entre los vértices, como la
+     *         de {@link #trayectoriaMinima}; si hay varias, puede regresar
+     *         cualquiera de ellas.
+     * @throws NoSuchElementException si alguno de los dos elementos no está en
+     *         la gráfica.
+     */
+    public Lista<VerticeGrafica<T>> trayectoriaMinimaParalela(T origen, T destino,
+                                                              ForkJoinPool pool) {
+        Vertice s = (Vertice)vertice(origen);
+        Vertice t = (Vertice)vertice(destino);
+
+        Adyacencias<T> ady = adyacencias();
+        BFSParalelo bfs = new BFSParalelo(ady, pool);
+        bfs.recorre(s.indice, t.indice);
+
+        Lista<VerticeGrafica<T>> trayectoria = new Lista<VerticeGrafica<T>>();
+        if(bfs.getNivel(t.indice) < 0)
+            return trayectoria;
+        for(int v = t.indice; v != -1; v = bfs.getPadre(v))
+            trayectoria.agregaInicio(ady.vertices[v]);
+        return trayectoria;
+    }
+
     /**
      * Calcula la ruta de peso mínimo entre el elemento de origen y el elemento
      * de destino.
@@ -602,6 +783,85 @@ public class Grafica<T> implements Coleccion<T> {
      *         la gráfica.
      */
     public Lista<VerticeGrafica<T>> dijkstra(T origen, T destino) {
+        return dijkstra(origen, destino, (v, a) -> a.getPeso());
+    }
+
+    /**
+     * Calcula la ruta de peso mínimo entre el elemento de origen y el elemento
+     * de destino, donde el costo de recorrer una arista es su peso más los
+     * pesos de los dos vértices que conecta. Así el costo de una arista puede
+     * depender sólo de sus extremos, sin guardarlo en cada arista: las
+     * aristas de peso 1, como las de {@link #conecta(Object,Object)}, no
+     * guardan su peso.
+     * @param origen el vértice origen.
+     * @param destino el vértice destino.
+     * @return una trayectoria de costo mínimo entre el vértice <code>origen</code>
+     *         y el vértice <code>destino</code>. Si los vértices están en
+     *         componentes conexas distintas, regresa una lista vacía.
+     * @throws NoSuchElementException si alguno de los dos elementos no está en
+     *         la gráfica.
+     */
+    public Lista<VerticeGrafica<T>> dijkstraVertices(T origen, T destino) {
+        return dijkstra(origen, destino, (v, a) -> a.getPeso() + (v.peso + a.vecino.peso));
+    }
+
+    /**
+     * Calcula la ruta de peso mínimo entre el elemento de origen y el elemento
+     * de destino con el algoritmo <i>delta-stepping</i>, en el pool común de
+     * {@link ForkJoinPool}.
+     * @param origen el vértice origen.
+     * @param destino el vértice destino.
+     * @param delta el ancho de las cubetas de distancias.
+     * @return una trayectoria de peso mínimo entre los vértices, como la de
+     *         {@link #dijkstra}; si hay varias, puede regresar cualquiera de
+     *         ellas.
+     * @throws NoSuchElementException si alguno de los dos elementos no está en
+     *         la gráfica.
+     * @throws IllegalArgumentException si delta no es positiva.
+     */
+    public Lista<VerticeGrafica<T>> deltaStepping(T origen, T destino, double delta) {
+        return deltaStepping(origen, destino, delta, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Calcula la ruta de peso mínimo entre el elemento de origen y el elemento
+     * de destino con el algoritmo <i>delta-stepping</i>. Los vértices se
+     * agrupan en cubetas de ancho delta según su distancia tentativa; las
+     * aristas de peso a lo más delta de cada cubeta se relajan en paralelo
+     * hasta vaciarla, y las de peso mayor se relajan al final, también en
+     * paralelo. Una delta pequeña se parece a Dijkstra; una grande, a
+     * Bellman-Ford.
+     * @param origen el vértice origen.
+     * @param destino el vértice destino.
+     * @param delta el ancho de las cubetas de distancias.
+     * @param pool el pool en el que se relajan las aristas.
+     * @return una trayectoria de peso mínimo entre los vértices, como la de
+     *         {@link #dijkstra}; si hay varias, puede regresar cualquiera de
+     *         ellas.
+     * @throws NoSuchElementException si alguno de los dos elementos no está en
+     *         la gráfica.
+     * @throws IllegalArgumentException si delta no es positiva.
+     */
+    public Lista<VerticeGrafica<T>> deltaStepping(T origen, T destino, double delta,
+                                                  ForkJoinPool pool) {
+        Vertice s = (Vertice)vertice(origen);
+        Vertice t = (Vertice)vertice(destino);
+        if(!(delta > 0))
+            throw new IllegalArgumentException("Delta debe ser mayor a 0");
+
+        Adyacencias<T> ady = adyacencias();
+        DeltaStepping ds = new DeltaStepping(ady, delta, pool);
+        ds.recorre(s.indice, t.indice);
+
+        Lista<VerticeGrafica<T>> trayectoria = new Lista<VerticeGrafica<T>>();
+        for(int v : ds.trayectoria(s.indice, t.indice))
+            trayectoria.agrega(ady.vertices[v]);
+        return trayectoria;
+    }
+
+    /* Algoritmo de Dijkstra con el costo de las aristas recibido. */
+    private Lista<VerticeGrafica<T>> dijkstra(T origen, T destino,
+                                              CostoArista<T> costo) {
         Vertice s = (Vertice)vertice(origen);
         Vertice t = (Vertice)vertice(destino);
 
@@ -620,7 +880,7 @@ public class Grafica<T> implements Coleccion<T> {
         MonticuloDijkstra<Vertice> mm;
 
         int vn = vertices.getElementos();
-        if (aristas <= vn*(vn - 1)/2 - vn)
+        if (aristas <= (long)vn*(vn - 1)/2 - vn)
         {
             mm = new MonticuloMinimo<Vertice>(vertices, vertices.getElementos());
         }else{
@@ -629,10 +889,11 @@ public class Grafica<T> implements Coleccion<T> {
 
         while(!mm.esVacia()) {
             Vertice u = mm.elimina();
-            for(Vecino a : u.vecinos) {
+            for(Vecino<T> a : u.vecinos) {
                 Vertice vecino = a.vecino;
-                if(vecino.distancia > u.distancia + a.peso) {
-                    vecino.distancia = u.distancia + a.peso;
+                double d = u.distancia + costo.costo(u, a);
+                if(vecino.distancia > d) {
+                    vecino.distancia = d;
                     mm.reordena(vecino);
                 }
             }
@@ -641,18 +902,356 @@ public class Grafica<T> implements Coleccion<T> {
         if(t.distancia == Double.MAX_VALUE)
             return trayectoria;
 
-        trayectoria = reconstruir(t, (v, a) -> (a.vecino.distancia == v.distancia - a.peso));
+        trayectoria = reconstruir(t, (v, a) -> (a.vecino.distancia + costo.costo(v, a) == v.distancia));
         
         return trayectoria;
     }
 
+    /**
+     * Calcula un bosque generador de peso mínimo usando el algoritmo de
+     * Kruskal. Las aristas se toman de un montículo de enteros en orden de
+     * peso, y se descartan las que cierran un ciclo usando conjuntos
+     * disjuntos; el algoritmo termina en cuanto el bosque está completo.
+     * @return una nueva gráfica con los mismos elementos y las aristas de un
+     *         bosque generador de peso mínimo. Si la gráfica es conexa, el
+     *         bosque es un árbol.
+     */
+    public Grafica<T> kruskal() {
+        Adyacencias<T> ady = adyacencias();
+        int n = ady.getVertices();
+        int m = ady.getAristas();
+
+        int[] origen = new int[m];
+        int[] destino = new int[m];
+        double[] peso = new double[m];
+        ady.aristas(origen, destino, peso);
+
+        Grafica<T> arbol = new Grafica<T>(n);
+        Vertice[] copias = arbol.agregaCopias(ady.vertices);
+
+        // Cada raíz guarda el negativo del tamaño de su conjunto.
+        int[] padre = new int[n];
+        for(int i = 0; i < n; i++)
+            padre[i] = -1;
+
+        MonticuloPrimitivo mp = new MonticuloPrimitivo(peso);
+        int componentes = n;
+        while(componentes > 1 && !mp.esVacia()) {
+            int e = mp.elimina();
+            int ru = raiz(padre, origen[e]);
+            int rv = raiz(padre, destino[e]);
+            if(ru == rv)
+                continue;
+            une(padre, ru, rv);
+            componentes--;
+            arbol.conectaVertices(copias[origen[e]], copias[destino[e]], peso[e]);
+        }
+
+        return arbol;
+    }
+
+    /**
+     * Calcula un bosque generador de peso mínimo usando el algoritmo de Prim.
+     * Cada vez que el montículo regresa un vértice que no se alcanza desde el
+     * árbol actual, se comienza un nuevo árbol del bosque.
+     * @return una nueva gráfica con los mismos elementos y las aristas de un
+     *         bosque generador de peso mínimo. Si la gráfica es conexa, el
+     *         bosque es un árbol.
+     */
+    public Grafica<T> prim() {
+        Grafica<T> arbol = new Grafica<T>(vertices.getElementos());
+        for(Vertice v : vertices) {
+            v.distancia = Double.MAX_VALUE;
+            v.anterior = null;
+            v.color = Color.ROJO;
+            Vertice copia = arbol.new Vertice(v.elemento);
+            copia.peso = v.peso;
+            arbol.vertices.agrega(v.elemento, copia);
+        }
+
+        MonticuloMinimo<Vertice> mm =
+            new MonticuloMinimo<Vertice>(vertices, vertices.getElementos());
+
+        while(!mm.esVacia()) {
+            Vertice u = mm.elimina();
+            u.color = Color.NEGRO;
+            if(u.anterior != null)
+                arbol.conectaVertices(arbol.vertices.get(u.anterior.elemento),
+                                      arbol.vertices.get(u.elemento), u.distancia);
+            for(Vecino<T> a : u.vecinos) {
+                Vertice vecino = a.vecino;
+                if(vecino.color == Color.ROJO && a.getPeso() < vecino.distancia) {
+                    vecino.distancia = a.getPeso();
+                    vecino.anterior = u;
+                    mm.reordena(vecino);
+                }
+            }
+        }
+
+        for(Vertice v : vertices) {
+            v.color = Color.NINGUNO;
+            v.anterior = null;
+        }
+        return arbol;
+    }
+
+    /**
+     * Guarda la gráfica en un archivo binario. El archivo tiene un encabezado
+     * con el número de vértices y de aristas, la tabla de elementos en el
+     * orden de iteración de la gráfica, los pesos de los vértices, y después
+     * las aristas como tres arreglos: los índices de sus orígenes, los de sus
+     * destinos y sus pesos.
+     * @param ruta la ruta del archivo.
+     * @param serializador el serializador para los elementos.
+     * @throws IOException si ocurre un error al escribir el archivo.
+     */
+    public void guarda(Path ruta, SerializadorElemento<T> serializador)
+        throws IOException {
+        Adyacencias<T> ady = adyacencias();
+        int n = ady.getVertices();
+        int m = ady.getAristas();
+        int[] origen = new int[m];
+        int[] destino = new int[m];
+        double[] peso = new double[m];
+        ady.aristas(origen, destino, peso);
+
+        try(FileChannel canal = FileChannel.open(ruta, StandardOpenOption.WRITE,
+                                                 StandardOpenOption.CREATE,
+                                                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(TAM_BUFFER);
+            buffer.putInt(FIRMA).putInt(VERSION).putInt(n).putInt(m);
+            for(int i = 0; i < n; i++) {
+                T elemento = ady.vertices[i].get();
+                int l = serializador.longitud(elemento);
+                if(buffer.remaining() < l) {
+                    vacia(canal, buffer);
+                    if(buffer.capacity() < l)
+                        buffer = ByteBuffer.allocateDirect(l);
+                }
+                serializador.escribe(elemento, buffer);
+            }
+            double[] pesosVertices = new double[n];
+            for(int i = 0; i < n; i++)
+                pesosVertices[i] = ((Vertice)ady.vertices[i]).peso;
+            escribeDobles(canal, buffer, pesosVertices);
+            escribeEnteros(canal, buffer, origen);
+            escribeEnteros(canal, buffer, destino);
+            escribeDobles(canal, buffer, peso);
+            vacia(canal, buffer);
+        }
+    }
+
+    /* Escribe un arreglo de dobles usando el buffer. */
+    private static void escribeDobles(FileChannel canal, ByteBuffer buffer,
+                                      double[] arreglo) throws IOException {
+        int i = 0;
+        while(i < arreglo.length) {
+            if(buffer.remaining() < 8)
+                vacia(canal, buffer);
+            int k = Math.min(arreglo.length - i, buffer.remaining() / 8);
+            buffer.asDoubleBuffer().put(arreglo, i, k);
+            buffer.position(buffer.position() + 8*k);
+            i += k;
+        }
+    }
+
+    /* Escribe un arreglo de enteros usando el buffer. */
+    private static void escribeEnteros(FileChannel canal, ByteBuffer buffer,
+                                       int[] arreglo) throws IOException {
+        int i = 0;
+        while(i < arreglo.length) {
+            if(buffer.remaining() < 4)
+                vacia(canal, buffer);
+            int k = Math.min(arreglo.length - i, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(arreglo, i, k);
+            buffer.position(buffer.position() + 4*k);
+            i += k;
+        }
+    }
+
+    /* Escribe el contenido del buffer en el canal y lo deja vacío. */
+    private static void vacia(FileChannel canal, ByteBuffer buffer)
+        throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining())
+            canal.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Carga una gráfica guardada con {@link #guarda}. El archivo se mapea a
+     * memoria y las aristas se leen en bloque; los diccionarios de vértices y
+     * de vecinos se crean con su tamaño final. Las aristas repetidas se
+     * rechazan, como en {@link #conecta}.
+     * @param <T> el tipo de los elementos de la gráfica.
+     * @param ruta la ruta del archivo.
+     * @param serializador el serializador para los elementos.
+     * @return la gráfica guardada en el archivo.
+     * @throws IOException si ocurre un error al leer el archivo, o si el
+     *         archivo no es una gráfica guardada válida.
+     */
+    public static <T> Grafica<T> carga(Path ruta,
+                                       SerializadorElemento<T> serializador)
+        throws IOException {
+        try(FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            ByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            return carga(buffer, serializador);
+        } catch(BufferUnderflowException e) {
+            throw new IOException("La gráfica guardada está incompleta");
+        } catch(IllegalArgumentException e) {
+            throw new IOException("La gráfica guardada es inválida: " + e.getMessage());
+        }
+    }
+
+    /* Carga una gráfica guardada a partir de un buffer. */
+    private static <T> Grafica<T> carga(ByteBuffer buffer,
+                                        SerializadorElemento<T> serializador)
+        throws IOException {
+        if(buffer.getInt() != FIRMA)
+            throw new IOException("El archivo no es una gráfica guardada");
+        int version = buffer.getInt();
+        if(version < 1 || version > VERSION)
+            throw new IOException("La versión de la gráfica guardada no es soportada");
+        int n = buffer.getInt();
+        int m = buffer.getInt();
+        if(n < 0 || m < 0)
+            throw new IOException("La gráfica guardada es inválida");
+        // Antes de reservar los arreglos, las aristas y los pesos deben caber
+        // en lo que queda del archivo; los elementos son distintos, así que a
+        // lo más uno puede ocupar 0 bytes.
+        long bytes = 16L*m + (version > 1 ? 8L*n : 0);
+        if(bytes + n - 1 > buffer.remaining())
+            throw new IOException("La gráfica guardada está incompleta");
+
+        Object[] elementos = new Object[n];
+        for(int i = 0; i < n; i++)
+            elementos[i] = serializador.lee(buffer);
+
+        double[] pesosVertices = null;
+        if(version > 1) {
+            pesosVertices = new double[n];
+            buffer.asDoubleBuffer().get(pesosVertices);
+            buffer.position(buffer.position() + 8*n);
+            for(int i = 0; i < n; i++)
+                if(!(pesosVertices[i] >= 0))
+                    throw new IOException("La gráfica guardada tiene un vértice inválido");
+        }
+
+        int[] origen = new int[m];
+        int[] destino = new int[m];
+        double[] peso = new double[m];
+        buffer.asIntBuffer().get(origen);
+        buffer.position(buffer.position() + 4*m);
+        buffer.asIntBuffer().get(destino);
+        buffer.position(buffer.position() + 4*m);
+        buffer.asDoubleBuffer().get(peso);
+
+        for(int e = 0; e < m; e++)
+            if(origen[e] < 0 || origen[e] >= n || destino[e] < 0 ||
+               destino[e] >= n || origen[e] == destino[e] || !(peso[e] > 0))
+                throw new IOException("La gráfica guardada tiene una arista inválida");
+
+        return deArreglos(elementos, pesosVertices, n, origen, destino, peso, m);
+    }
+
+    /* Crea una gráfica con los primeros n elementos y las primeras m aristas
+     * de los arreglos recibidos. Las aristas no deben ser lazos y sus
+     * extremos deben ser índices válidos; si se repiten, se lanza
+     * IllegalArgumentException. Los pesos de los vértices pueden ser null.
+     * Los diccionarios de vértices y de vecinos se crean con su tamaño
+     * final. */
+    static <T> Grafica<T> deArreglos(Object[] elementos, double[] pesosVertices,
+                                     int n, int[] origen, int[] destino,
+                                     double[] peso, int m) {
+        int[] grado = new int[n];
+        for(int e = 0; e < m; e++) {
+            grado[origen[e]]++;
+            grado[destino[e]]++;
+        }
+
+        Grafica<T> g = new Grafica<T>(n);
+        Grafica<T>.Vertice[] v = g.nuevoArregloVertices(n);
+        for(int i = 0; i < n; i++) {
+            @SuppressWarnings("unchecked") T elemento = (T)elementos[i];
+            v[i] = g.new Vertice(elemento, grado[i]);
+            if(pesosVertices != null)
+                v[i].peso = pesosVertices[i];
+            g.vertices.agrega(elemento, v[i]);
+        }
+        if(g.vertices.getElementos() != n)
+            throw new IllegalArgumentException("Hay elementos repetidos");
+
+        for(int e = 0; e < m; e++)
+            g.conectaVertices(v[origen[e]], v[destino[e]], peso[e]);
+        // Una arista repetida reemplaza al vecino que ya estaba, así que el
+        // vértice queda con menos vecinos que su grado.
+        for(int i = 0; i < n; i++)
+            if(v[i].vecinos.getElementos() != grado[i])
+                throw new IllegalArgumentException("Los elementos ya son vecinos");
+
+        return g;
+    }
+
+    /* Regresa la raíz del conjunto del elemento i, partiendo a la mitad el
+     * camino recorrido. */
+    private static int raiz(int[] padre, int i) {
+        while(padre[i] >= 0) {
+            int p = padre[i];
+            if(padre[p] < 0)
+                return p;
+            padre[i] = padre[p];
+            i = padre[p];
+        }
+        return i;
+    }
+
+    /* Une los conjuntos de las raíces a y b, colgando el menor del mayor. */
+    private static void une(int[] padre, int a, int b) {
+        if(padre[a] > padre[b]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        padre[a] += padre[b];
+        padre[b] = a;
+    }
+
+    /* Regresa la gráfica representada con arreglos de adyacencias
+     * comprimidas. Los identificadores de los vértices siguen el orden de
+     * iteración de la gráfica. */
+    Adyacencias<T> adyacencias() {
+        int n = vertices.getElementos();
+        VerticeGrafica<T>[] arreglo = nuevoArreglo(n);
+        int[] inicio = new int[n+1];
+        int i = 0;
+        for(Vertice v : vertices) {
+            v.indice = i;
+            arreglo[i] = v;
+            inicio[i+1] = inicio[i] + v.vecinos.getElementos();
+            i++;
+        }
+
+        int[] destino = new int[inicio[n]];
+        double[] peso = new double[inicio[n]];
+        for(i = 0; i < n; i++) {
+            int k = inicio[i];
+            for(Vecino<T> a : ((Vertice)arreglo[i]).vecinos) {
+                destino[k] = a.vecino.indice;
+                peso[k] = a.getPeso();
+                k++;
+            }
+        }
+
+        return new Adyacencias<T>(arreglo, inicio, destino, peso);
+    }
+
     private Lista<VerticeGrafica<T>> reconstruir(Vertice v, BuscadorCamino<T> busca) {
         Lista<VerticeGrafica<T>> trayectoria = new Lista<VerticeGrafica<T>>();
     
         trayectoria.agrega(v);
         Vertice actual = v;
         while(actual.distancia != 0) {
-            for(Vecino a : actual.vecinos) {
+            for(Vecino<T> a : actual.vecinos) {
                 Vertice vecino = a.vecino;
                 if(busca.seSiguen(actual, a)) {
                     trayectoria.agregaInicio(vecino);
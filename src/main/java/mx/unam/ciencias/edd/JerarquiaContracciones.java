@@ -0,0 +1,458 @@
+package mx.unam.ciencias.edd;
+
+/**
+ * Clase para jerarquías de contracciones sobre una {@link Grafica}. Al
+ * construirse, los vértices se contraen uno por uno, del menos al más
+ * importante; al contraer un vértice se agregan atajos entre sus vecinos
+ * cuando la trayectoria que pasa por él es la única mínima entre ellos. Las
+ * consultas hacen una búsqueda bidireccional que sólo sube en la jerarquía,
+ * por lo que exploran una parte muy pequeña de la gráfica, y los atajos de
+ * la trayectoria encontrada se desempacan en las aristas originales.
+ *
+ * La jerarquía es una fotografía de la gráfica al momento de construirse: si
+ * la gráfica cambia, hay que construir otra. Las consultas reutilizan
+ * arreglos internos, por lo que una misma jerarquía no debe consultarse
+ * desde varios hilos a la vez.
+ */
+public class JerarquiaContracciones<T> {
+
+    /* El máximo de vértices que se definen en cada búsqueda de testigos al
+     * contraer un vértice. */
+    private static final int LIMITE_TESTIGOS = 500;
+    /* El máximo de vértices que se definen en cada búsqueda de testigos al
+     * calcular una prioridad; un límite menor sólo agrega atajos de más a la
+     * estimación. */
+    private static final int LIMITE_SIMULACION = 40;
+
+    /* Los vértices de la gráfica. */
+    private VerticeGrafica<T>[] vertices;
+    /* El identificador de cada elemento. */
+    private Diccionario<T, Integer> indices;
+    /* El número de vértices. */
+    private int n;
+
+    /* Los extremos de cada arista o atajo. */
+    private int[] extremoA;
+    private int[] extremoB;
+    /* El peso de cada arista o atajo. */
+    private double[] peso;
+    /* Para los atajos, la arista entre el extremo A y el vértice contraído,
+     * o -1 para las aristas originales. */
+    private int[] primera;
+    /* Para los atajos, la arista entre el vértice contraído y el extremo B. */
+    private int[] segunda;
+    /* El número de aristas más atajos. */
+    private int aristas;
+    /* El número de aristas originales. */
+    private int originales;
+
+    /* Las aristas de cada vértice hacia vértices más importantes, en
+     * adyacencias comprimidas. */
+    private int[] inicioArriba;
+    private int[] aristaArriba;
+
+    /* Las listas de aristas de cada vértice durante la contracción. */
+    private int[][] lista;
+    /* El número de aristas en la lista de cada vértice. */
+    private int[] grado;
+    /* El número de vecinos contraídos de cada vértice. */
+    private int[] contraidos;
+    /* Las distancias de las búsquedas de testigos. */
+    private double[] testigo;
+
+    /* Las distancias de la búsqueda hacia adelante y hacia atrás. */
+    private double[] distanciaIda;
+    private double[] distanciaVuelta;
+    /* La arista con la que se llegó a cada vértice en cada búsqueda. */
+    private int[] padreIda;
+    private int[] padreVuelta;
+    /* Los montículos de las búsquedas. */
+    private MonticuloPrimitivo ida;
+    private MonticuloPrimitivo vuelta;
+    /* Los vértices con alguna distancia definida, para limpiarlos. */
+    private int[] tocados;
+    /* El número de vértices tocados. */
+    private int numTocados;
+
+    /**
+     * Construye la jerarquía de contracciones de la gráfica recibida. El orden
+     * de contracción se decide por la diferencia entre los atajos que
+     * agregaría cada vértice y sus aristas, más sus vecinos ya contraídos, y
+     * se actualiza de forma perezosa.
+     * @param grafica la gráfica.
+     */
+    public JerarquiaContracciones(Grafica<T> grafica) {
+        Adyacencias<T> ady = grafica.adyacencias();
+        vertices = ady.vertices;
+        n = ady.getVertices();
+        indices = new Diccionario<T, Integer>(n);
+        for(int i = 0; i < n; i++)
+            indices.agrega(vertices[i].get(), i);
+
+        originales = ady.getAristas();
+        int capacidad = Math.max(2 * originales, 1);
+        extremoA = new int[capacidad];
+        extremoB = new int[capacidad];
+        peso = new double[capacidad];
+        primera = new int[capacidad];
+        segunda = new int[capacidad];
+        ady.aristas(extremoA, extremoB, peso);
+        for(int e = 0; e < originales; e++) {
+            primera[e] = -1;
+            segunda[e] = -1;
+        }
+        aristas = originales;
+
+        contrae(ady);
+        preparaConsultas();
+    }
+
+    /**
+     * Regresa el número de atajos que se agregaron a la gráfica.
+     * @return el número de atajos que se agregaron a la gráfica.
+     */
+    public int getAtajos() {
+        return aristas - originales;
+    }
+
+    /**
+     * Calcula la ruta de peso mínimo entre el elemento de origen y el elemento
+     * de destino, usando la jerarquía.
+     * @param origen el vértice origen.
+     * @param destino el vértice destino.
+     * @return una trayectoria de peso mínimo entre los vértices, con las
+     *         aristas originales de la gráfica, como la de
+     *         {@link Grafica#dijkstra}; si hay varias, puede regresar
+     *         cualquiera de ellas. Si los vértices están en componentes conexas
+     *         distintas, regresa una lista vacía.
+     * @throws NoSuchElementException si alguno de los dos elementos no estaba
+     *         en la gráfica al construir la jerarquía.
+     */
+    public Lista<VerticeGrafica<T>> trayectoriaMinima(T origen, T destino) {
+        int s = indices.get(origen);
+        int t = indices.get(destino);
+
+        Lista<VerticeGrafica<T>> trayectoria = new Lista<VerticeGrafica<T>>();
+        if(s == t) {
+            trayectoria.agrega(vertices[t]);
+            return trayectoria;
+        }
+
+        int encuentro = busca(s, t);
+        if(encuentro >= 0) {
+            // Las aristas de ida se recorren del encuentro hacia el origen,
+            // por lo que se guardan en una pila para desempacarlas en orden.
+            Pila<Integer> subida = new Pila<Integer>();
+            for(int v = encuentro; v != s; v = otro(padreIda[v], v))
+                subida.mete(padreIda[v]);
+            trayectoria.agrega(vertices[s]);
+            int actual = s;
+            while(!subida.esVacia()) {
+                int e = subida.saca();
+                desempaca(e, actual, trayectoria);
+                actual = otro(e, actual);
+            }
+            for(int v = encuentro; v != t; v = otro(padreVuelta[v], v))
+                desempaca(padreVuelta[v], v, trayectoria);
+        }
+
+        limpiaConsulta();
+        return trayectoria;
+    }
+
+    /* Contrae todos los vértices y construye las aristas hacia arriba. */
+    private void contrae(Adyacencias<T> ady) {
+        lista = new int[n][];
+        grado = new int[n];
+        contraidos = new int[n];
+        for(int v = 0; v < n; v++)
+            lista[v] = new int[Math.max(ady.inicio[v+1] - ady.inicio[v], 1)];
+        for(int e = 0; e < originales; e++) {
+            agregaALista(extremoA[e], e);
+            agregaALista(extremoB[e], e);
+        }
+
+        testigo = new double[n];
+        for(int v = 0; v < n; v++)
+            testigo[v] = Double.POSITIVE_INFINITY;
+        tocados = new int[n];
+        MonticuloPrimitivo busqueda = new MonticuloPrimitivo(n);
+
+        double[] prioridades = new double[n];
+        for(int v = 0; v < n; v++)
+            prioridades[v] = prioridad(v, busqueda);
+        MonticuloPrimitivo orden = new MonticuloPrimitivo(prioridades);
+
+        while(!orden.esVacia()) {
+            int v = orden.elimina();
+            double p = prioridad(v, busqueda);
+            if(p > prioridades[v]) {
+                orden.agrega(v, p);
+                continue;
+            }
+            atajos(v, busqueda, false);
+            for(int i = 0; i < grado[v]; i++) {
+                int u = otro(lista[v][i], v);
+                quitaDeLista(u, lista[v][i]);
+                contraidos[u]++;
+            }
+        }
+
+        // Al contraerse un vértice, todos sus vecinos restantes son más
+        // importantes, y su lista ya no cambia: es su lista hacia arriba.
+        inicioArriba = new int[n+1];
+        for(int v = 0; v < n; v++)
+            inicioArriba[v+1] = inicioArriba[v] + grado[v];
+        aristaArriba = new int[inicioArriba[n]];
+        for(int v = 0; v < n; v++)
+            for(int i = 0; i < grado[v]; i++)
+                aristaArriba[inicioArriba[v] + i] = lista[v][i];
+
+        lista = null;
+        grado = null;
+        contraidos = null;
+        testigo = null;
+    }
+
+    /* Regresa la prioridad de contracción del vértice: los atajos que
+     * agregaría, menos sus aristas, más sus vecinos contraídos. */
+    private double prioridad(int v, MonticuloPrimitivo busqueda) {
+        return atajos(v, busqueda, true) - grado[v] + contraidos[v];
+    }
+
+    /* Calcula los atajos necesarios para contraer el vértice y regresa su
+     * número; si no se está simulando, los agrega. */
+    private int atajos(int v, MonticuloPrimitivo busqueda, boolean simula) {
+        int[] aristasV = lista[v];
+        int k = grado[v];
+        int limite = simula ? LIMITE_SIMULACION : LIMITE_TESTIGOS;
+
+        int total = 0;
+        for(int i = 0; i < k-1; i++) {
+            int ei = aristasV[i];
+            int u = otro(ei, v);
+            double maximo = 0;
+            for(int j = i+1; j < k; j++)
+                maximo = Math.max(maximo, peso[aristasV[j]]);
+            testigos(u, v, peso[ei] + maximo, limite, busqueda);
+            for(int j = i+1; j < k; j++) {
+                int ej = aristasV[j];
+                int w = otro(ej, v);
+                double d = peso[ei] + peso[ej];
+                if(testigo[w] <= d)
+                    continue;
+                total++;
+                if(!simula)
+                    agregaAtajo(u, w, d, ei, ej);
+            }
+            for(int j = 0; j < numTocados; j++)
+                testigo[tocados[j]] = Double.POSITIVE_INFINITY;
+            numTocados = 0;
+        }
+        return total;
+    }
+
+    /* Calcula las distancias desde u sin pasar por el vértice excluido, hasta
+     * la distancia máxima o el límite de vértices definidos. */
+    private void testigos(int u, int excluido, double maxima, int limite,
+                          MonticuloPrimitivo busqueda) {
+        testigo[u] = 0;
+        tocados[numTocados++] = u;
+        busqueda.agrega(u, 0);
+        int definidos = 0;
+        while(!busqueda.esVacia()) {
+            int x = busqueda.elimina();
+            if(testigo[x] > maxima || ++definidos > limite)
+                break;
+            for(int i = 0; i < grado[x]; i++) {
+                int e = lista[x][i];
+                int y = otro(e, x);
+                if(y == excluido)
+                    continue;
+                double d = testigo[x] + peso[e];
+                if(d < testigo[y]) {
+                    if(testigo[y] == Double.POSITIVE_INFINITY)
+                        tocados[numTocados++] = y;
+                    testigo[y] = d;
+                    busqueda.reordena(y, d);
+                }
+            }
+        }
+        busqueda.limpia();
+    }
+
+    /* Agrega un atajo entre u y w que pasa por las aristas recibidas. Si u y
+     * w ya estaban conectados con un peso mayor, el atajo reemplaza a la
+     * arista en sus listas. */
+    private void agregaAtajo(int u, int w, double d, int eu, int ew) {
+        for(int i = 0; i < grado[u]; i++) {
+            int anterior = lista[u][i];
+            if(otro(anterior, u) != w)
+                continue;
+            if(peso[anterior] <= d)
+                return;
+            int e = nuevaArista(u, w, d, eu, ew);
+            lista[u][i] = e;
+            for(int j = 0; j < grado[w]; j++)
+                if(lista[w][j] == anterior)
+                    lista[w][j] = e;
+            return;
+        }
+        int e = nuevaArista(u, w, d, eu, ew);
+        agregaALista(u, e);
+        agregaALista(w, e);
+    }
+
+    /* Crea una arista nueva y regresa su identificador. */
+    private int nuevaArista(int a, int b, double p, int ea, int eb) {
+        if(aristas == extremoA.length) {
+            int l = 2 * aristas;
+            extremoA = crece(extremoA, l);
+            extremoB = crece(extremoB, l);
+            primera = crece(primera, l);
+            segunda = crece(segunda, l);
+            double[] t = new double[l];
+            for(int i = 0; i < aristas; i++)
+                t[i] = peso[i];
+            peso = t;
+        }
+        extremoA[aristas] = a;
+        extremoB[aristas] = b;
+        peso[aristas] = p;
+        primera[aristas] = ea;
+        segunda[aristas] = eb;
+        return aristas++;
+    }
+
+    /* Agrega la arista a la lista del vértice. */
+    private void agregaALista(int v, int e) {
+        if(grado[v] == lista[v].length)
+            lista[v] = crece(lista[v], 2 * grado[v]);
+        lista[v][grado[v]++] = e;
+    }
+
+    /* Quita la arista de la lista del vértice. */
+    private void quitaDeLista(int v, int e) {
+        for(int i = 0; i < grado[v]; i++) {
+            if(lista[v][i] == e) {
+                lista[v][i] = lista[v][--grado[v]];
+                return;
+            }
+        }
+    }
+
+    /* Reserva los arreglos de las consultas. */
+    private void preparaConsultas() {
+        distanciaIda = new double[n];
+        distanciaVuelta = new double[n];
+        for(int v = 0; v < n; v++) {
+            distanciaIda[v] = Double.POSITIVE_INFINITY;
+            distanciaVuelta[v] = Double.POSITIVE_INFINITY;
+        }
+        padreIda = new int[n];
+        padreVuelta = new int[n];
+        ida = new MonticuloPrimitivo(n);
+        vuelta = new MonticuloPrimitivo(n);
+        tocados = new int[n];
+        numTocados = 0;
+    }
+
+    /* Hace la búsqueda bidireccional hacia arriba y regresa el vértice donde
+     * se encuentra la trayectoria mínima, o -1 si no hay trayectoria. */
+    private int busca(int s, int t) {
+        toca(s);
+        toca(t);
+        distanciaIda[s] = 0;
+        distanciaVuelta[t] = 0;
+        ida.agrega(s, 0);
+        vuelta.agrega(t, 0);
+
+        double mejor = Double.POSITIVE_INFINITY;
+        int encuentro = -1;
+        while(!ida.esVacia() || !vuelta.esVacia()) {
+            for(int lado = 0; lado < 2; lado++) {
+                MonticuloPrimitivo m = lado == 0 ? ida : vuelta;
+                double[] propia = lado == 0 ? distanciaIda : distanciaVuelta;
+                double[] otra = lado == 0 ? distanciaVuelta : distanciaIda;
+                int[] padre = lado == 0 ? padreIda : padreVuelta;
+                if(m.esVacia())
+                    continue;
+                int u = m.elimina();
+                if(propia[u] >= mejor) {
+                    m.limpia();
+                    continue;
+                }
+                if(propia[u] + otra[u] < mejor) {
+                    mejor = propia[u] + otra[u];
+                    encuentro = u;
+                }
+                for(int i = inicioArriba[u]; i < inicioArriba[u+1]; i++) {
+                    int e = aristaArriba[i];
+                    int v = otro(e, u);
+                    double d = propia[u] + peso[e];
+                    if(d < propia[v]) {
+                        if(distanciaIda[v] == Double.POSITIVE_INFINITY &&
+                           distanciaVuelta[v] == Double.POSITIVE_INFINITY)
+                            toca(v);
+                        propia[v] = d;
+                        padre[v] = e;
+                        m.reordena(v, d);
+                    }
+                }
+            }
+        }
+        return encuentro;
+    }
+
+    /* Registra que el vértice tiene alguna distancia definida. */
+    private void toca(int v) {
+        tocados[numTocados++] = v;
+    }
+
+    /* Deja los arreglos de las consultas listos para la siguiente. */
+    private void limpiaConsulta() {
+        for(int i = 0; i < numTocados; i++) {
+            distanciaIda[tocados[i]] = Double.POSITIVE_INFINITY;
+            distanciaVuelta[tocados[i]] = Double.POSITIVE_INFINITY;
+        }
+        numTocados = 0;
+        ida.limpia();
+        vuelta.limpia();
+    }
+
+    /* Agrega a la trayectoria los vértices de la arista recorrida desde el
+     * vértice recibido, sin incluirlo, desempacando los atajos. */
+    private void desempaca(int e, int desde, Lista<VerticeGrafica<T>> trayectoria) {
+        Pila<Integer> pendientes = new Pila<Integer>();
+        pendientes.mete(desde);
+        pendientes.mete(e);
+        while(!pendientes.esVacia()) {
+            int a = pendientes.saca();
+            int v = pendientes.saca();
+            if(primera[a] < 0) {
+                trayectoria.agrega(vertices[otro(a, v)]);
+                continue;
+            }
+            int antes = extremoA[a] == v ? primera[a] : segunda[a];
+            int despues = extremoA[a] == v ? segunda[a] : primera[a];
+            int medio = otro(antes, v);
+            pendientes.mete(medio);
+            pendientes.mete(despues);
+            pendientes.mete(v);
+            pendientes.mete(antes);
+        }
+    }
+
+    /* Regresa el extremo de la arista que no es el vértice recibido. */
+    private int otro(int e, int v) {
+        return extremoA[e] == v ? extremoB[e] : extremoA[e];
+    }
+
+    /* Regresa una copia más grande del arreglo. */
+    private static int[] crece(int[] arreglo, int l) {
+        int[] t = new int[l];
+        for(int i = 0; i < arreglo.length; i++)
+            t[i] = arreglo[i];
+        return t;
+    }
+}
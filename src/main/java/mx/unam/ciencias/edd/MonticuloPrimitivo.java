@@ -0,0 +1,150 @@
+package mx.unam.ciencias.edd;
+
+/**
+ * Clase para montículos mínimos de identificadores enteros con llaves
+ * primitivas. Los identificadores van de 0 a <i>n</i>-1 y cada uno tiene una
+ * llave de tipo <code>double</code>; a diferencia de {@link MonticuloMinimo},
+ * no se necesita un objeto por elemento, por lo que sirve para gráficas con
+ * millones de vértices o aristas.
+ */
+class MonticuloPrimitivo {
+
+    /* Los identificadores en el árbol. */
+    private int[] arbol;
+    /* La posición en el árbol de cada identificador, o -1 si no está. */
+    private int[] posicion;
+    /* La llave de cada identificador. */
+    private double[] llaves;
+    /* El número de elementos en el árbol. */
+    private int elementos;
+
+    /* Crea un montículo vacío para identificadores entre 0 y n-1. */
+    public MonticuloPrimitivo(int n) {
+        arbol = new int[n];
+        posicion = new int[n];
+        llaves = new double[n];
+        for(int i = 0; i < n; i++)
+            posicion[i] = -1;
+    }
+
+    /* Crea un montículo con todos los identificadores entre 0 y
+     * llaves.length-1, en tiempo O(n). El arreglo de llaves se usa
+     * directamente, sin copiarlo. */
+    public MonticuloPrimitivo(double[] llaves) {
+        int n = llaves.length;
+        this.llaves = llaves;
+        arbol = new int[n];
+        posicion = new int[n];
+        for(int i = 0; i < n; i++) {
+            arbol[i] = i;
+            posicion[i] = i;
+        }
+        elementos = n;
+        for(int i = n/2-1; i >= 0; i--)
+            acomodaAbajo(i);
+    }
+
+    /* Agrega un identificador con la llave dada. */
+    public void agrega(int id, double llave) {
+        llaves[id] = llave;
+        arbol[elementos] = id;
+        posicion[id] = elementos;
+        elementos++;
+        acomodaArriba(elementos-1);
+    }
+
+    /* Cambia la llave de un identificador; si no está en el montículo, lo
+     * agrega. */
+    public void reordena(int id, double llave) {
+        int i = posicion[id];
+        if(i < 0) {
+            agrega(id, llave);
+            return;
+        }
+        double anterior = llaves[id];
+        llaves[id] = llave;
+        if(llave < anterior)
+            acomodaArriba(i);
+        else
+            acomodaAbajo(i);
+    }
+
+    /* Elimina el identificador con la llave mínima y lo regresa. */
+    public int elimina() {
+        if(elementos == 0)
+            throw new IllegalStateException("El montículo es vacío");
+        int id = arbol[0];
+        elementos--;
+        if(elementos > 0) {
+            arbol[0] = arbol[elementos];
+            posicion[arbol[0]] = 0;
+            acomodaAbajo(0);
+        }
+        posicion[id] = -1;
+        return id;
+    }
+
+    /* Regresa la llave de un identificador. */
+    public double llave(int id) {
+        return llaves[id];
+    }
+
+    /* Nos dice si el identificador está en el montículo. */
+    public boolean contiene(int id) {
+        return posicion[id] >= 0;
+    }
+
+    /* Nos dice si el montículo es vacío. */
+    public boolean esVacia() {
+        return elementos == 0;
+    }
+
+    /* Regresa el número de elementos en el montículo. */
+    public int getElementos() {
+        return elementos;
+    }
+
+    /* Vacía el montículo en tiempo proporcional a sus elementos, para poder
+     * reutilizarlo sin volver a reservar sus arreglos. */
+    public void limpia() {
+        for(int i = 0; i < elementos; i++)
+            posicion[arbol[i]] = -1;
+        elementos = 0;
+    }
+
+    private void acomodaArriba(int i) {
+        int id = arbol[i];
+        double llave = llaves[id];
+        while(i > 0) {
+            int padre = (i-1)/2;
+            int p = arbol[padre];
+            if(llaves[p] <= llave)
+                break;
+            arbol[i] = p;
+            posicion[p] = i;
+            i = padre;
+        }
+        arbol[i] = id;
+        posicion[id] = i;
+    }
+
+    private void acomodaAbajo(int i) {
+        int id = arbol[i];
+        double llave = llaves[id];
+        while(true) {
+            int hijo = 2*i + 1;
+            if(hijo >= elementos)
+                break;
+            if(hijo+1 < elementos && llaves[arbol[hijo+1]] < llaves[arbol[hijo]])
+                hijo++;
+            int h = arbol[hijo];
+            if(llaves[h] >= llave)
+                break;
+            arbol[i] = h;
+            posicion[h] = i;
+            i = hijo;
+        }
+        arbol[i] = id;
+        posicion[id] = i;
+    }
+}
@@ -0,0 +1,84 @@
+package mx.unam.ciencias.edd;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Interfaz para escribir y leer elementos en binario, usada para guardar y
+ * cargar gráficas con {@link Grafica#guarda} y {@link Grafica#carga}.
+ */
+public interface SerializadorElemento<T> {
+
+    /**
+     * Regresa el número de bytes que ocupa el elemento serializado.
+     * @param elemento el elemento.
+     * @return el número de bytes que ocupa el elemento serializado.
+     */
+    public int longitud(T elemento);
+
+    /**
+     * Escribe el elemento en la posición actual del buffer.
+     * @param elemento el elemento a escribir.
+     * @param buffer el buffer, con al menos {@link #longitud} bytes
+     *        disponibles.
+     */
+    public void escribe(T elemento, ByteBuffer buffer);
+
+    /**
+     * Lee un elemento de la posición actual del buffer.
+     * @param buffer el buffer.
+     * @return el elemento leído.
+     * @throws java.nio.BufferUnderflowException si el elemento no cabe en
+     *         lo que queda del buffer.
+     * @throws IllegalArgumentException si los bytes no son un elemento
+     *         válido.
+     */
+    public T lee(ByteBuffer buffer);
+
+    /**
+     * Regresa un serializador para enteros, de 4 bytes cada uno.
+     * @return un serializador para enteros.
+     */
+    public static SerializadorElemento<Integer> enteros() {
+        return new SerializadorElemento<Integer>() {
+            @Override public int longitud(Integer elemento) {
+                return 4;
+            }
+            @Override public void escribe(Integer elemento, ByteBuffer buffer) {
+                buffer.putInt(elemento);
+            }
+            @Override public Integer lee(ByteBuffer buffer) {
+                return buffer.getInt();
+            }
+        };
+    }
+
+    /**
+     * Regresa un serializador para cadenas, en UTF-8 precedidas por su
+     * longitud.
+     * @return un serializador para cadenas.
+     */
+    public static SerializadorElemento<String> cadenas() {
+        return new SerializadorElemento<String>() {
+            @Override public int longitud(String elemento) {
+                return 4 + elemento.getBytes(StandardCharsets.UTF_8).length;
+            }
+            @Override public void escribe(String elemento, ByteBuffer buffer) {
+                byte[] b = elemento.getBytes(StandardCharsets.UTF_8);
+                buffer.putInt(b.length);
+                buffer.put(b);
+            }
+            @Override public String lee(ByteBuffer buffer) {
+                int l = buffer.getInt();
+                if(l < 0)
+                    throw new IllegalArgumentException("La longitud de la cadena es negativa");
+                if(l > buffer.remaining())
+                    throw new BufferUnderflowException();
+                byte[] b = new byte[l];
+                buffer.get(b);
+                return new String(b, StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
@@ -0,0 +1,198 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+/**
+ * Clase para calcular qué cuartos de un laberinto se alcanzan desde la
+ * entrada, sin pesos ni gráficas. Cada renglón se guarda como mapas de bits
+ * en longs: las puertas Este, las puertas Sur y los cuartos alcanzados. Un
+ * renglón se inunda con corrimientos y máscaras de 64 cuartos por operación,
+ * primero hacia el Este y luego hacia el Oeste, y los renglones que ganan
+ * cuartos pasan los suyos a sus vecinos por las puertas Sur.
+ */
+public class Alcanzabilidad {
+
+  /* El ancho y alto del laberinto */
+  private int w;
+  private int h;
+  /* El número de longs por renglón */
+  private int palabras;
+  /* El bit j del renglón i está prendido si la puerta Este de (j,i) existe */
+  private long[] este;
+  /* El bit j del renglón i está prendido si la puerta Sur de (j,i) existe */
+  private long[] sur;
+  /* El bit j del renglón i está prendido si (j,i) se alcanza */
+  private long[] alcanzados;
+  /* La entrada y la salida, como índices y*w+x, o -1 */
+  private int entrada;
+  private int salida;
+
+  /**
+   * Constructor, calcula los cuartos que se alcanzan desde la entrada
+   * @param laberinto el laberinto
+   */
+  public Alcanzabilidad(Laberinto laberinto) {
+    w = laberinto.getAncho();
+    h = laberinto.getAlto();
+    palabras = (w + 63) >>> 6;
+    este = new long[h * palabras];
+    sur = new long[h * palabras];
+    alcanzados = new long[h * palabras];
+    for(int i = 0; i < h; i++)
+    {
+      for(int j = 0; j < w; j++)
+      {
+        long bit = 1L << j;
+        int k = i * palabras + (j >>> 6);
+        if(j < w-1 && laberinto.abiertaEste(j, i))
+          este[k] |= bit;
+        if(i < h-1 && laberinto.abiertaSur(j, i))
+          sur[k] |= bit;
+      }
+    }
+    entrada = laberinto.getEntrada();
+    salida = laberinto.getSalida();
+    if(entrada != -1)
+      inunda();
+  }
+
+  /**
+   * Nos dice si el cuarto se alcanza desde la entrada
+   * @param x la columna del cuarto
+   * @param y el renglón del cuarto
+   * @return true si el cuarto se alcanza desde la entrada
+   */
+  public boolean alcanza(int x, int y) {
+    return (alcanzados[y * palabras + (x >>> 6)] & (1L << x)) != 0;
+  }
+
+  /**
+   * Nos dice si el laberinto tiene entrada y salida, y la salida se alcanza
+   * desde la entrada
+   * @return true si el laberinto tiene solución
+   */
+  public boolean tieneSolucion() {
+    return entrada != -1 && salida != -1 && alcanza(salida % w, salida / w);
+  }
+
+  /**
+   * Devuelve el número de cuartos que no se alcanzan desde la entrada
+   * @return el número de cuartos que no se alcanzan desde la entrada
+   */
+  public int getInalcanzables() {
+    int n = 0;
+    for(long a : alcanzados)
+      n += Long.bitCount(a);
+    return w*h - n;
+  }
+
+  /* Inunda desde la entrada, con una pila de renglones por revisar */
+  private void inunda() {
+    int[] pila = new int[h];
+    boolean[] enPila = new boolean[h];
+    int n = 0;
+    long[] renglon = new long[palabras];
+
+    // El renglón de la entrada y sus vecinos empiezan en la pila
+    int y = entrada / w;
+    alcanzados[y * palabras + ((entrada % w) >>> 6)] |= 1L << (entrada % w);
+    for(int i = Math.max(y-1, 0); i <= Math.min(y+1, h-1); i++)
+    {
+      pila[n++] = i;
+      enPila[i] = true;
+    }
+    while(n > 0)
+    {
+      int i = pila[--n];
+      enPila[i] = false;
+      int base = i * palabras;
+      for(int k = 0; k < palabras; k++)
+      {
+        renglon[k] = alcanzados[base + k];
+        if(i > 0)
+          renglon[k] |= alcanzados[base - palabras + k] & sur[base - palabras + k];
+        if(i < h-1)
+          renglon[k] |= alcanzados[base + palabras + k] & sur[base + k];
+      }
+      inundaRenglon(renglon, base);
+
+      boolean cambio = false;
+      for(int k = 0; k < palabras; k++)
+      {
+        if(renglon[k] != alcanzados[base + k])
+        {
+          alcanzados[base + k] = renglon[k];
+          cambio = true;
+        }
+      }
+      if(!cambio)
+        continue;
+      if(i > 0 && !enPila[i-1])
+      {
+        pila[n++] = i-1;
+        enPila[i-1] = true;
+      }
+      if(i < h-1 && !enPila[i+1])
+      {
+        pila[n++] = i+1;
+        enPila[i+1] = true;
+      }
+    }
+  }
+
+  /* Extiende los cuartos del renglón por sus puertas Este y Oeste */
+  private void inundaRenglon(long[] r, int base) {
+    // Hacia el Este: se entra al bit j desde j-1 si la puerta Este de j-1
+    // existe; el acarreo pasa el bit 63 de una palabra al bit 0 de la otra
+    long acarreo = 0;
+    for(int k = 0; k < palabras; k++)
+    {
+      long e = este[base + k];
+      r[k] = llenaEste(r[k] | acarreo, e << 1);
+      acarreo = (r[k] & e) >>> 63;
+    }
+    // Hacia el Oeste: se entra al bit j desde j+1 si la puerta Este de j
+    // existe
+    acarreo = 0;
+    for(int k = palabras-1; k >= 0; k--)
+    {
+      long e = este[base + k];
+      r[k] = llenaOeste(r[k] | (acarreo & e), e);
+      acarreo = (r[k] & 1L) << 63;
+    }
+  }
+
+  /* Llenado de Kogge-Stone hacia los bits más significativos: g son los
+   * bits alcanzados y p los bits a los que se puede entrar desde el bit
+   * anterior */
+  private static long llenaEste(long g, long p) {
+    g |= p & (g << 1);
+    p &= p << 1;
+    g |= p & (g << 2);
+    p &= p << 2;
+    g |= p & (g << 4);
+    p &= p << 4;
+    g |= p & (g << 8);
+    p &= p << 8;
+    g |= p & (g << 16);
+    p &= p << 16;
+    g |= p & (g << 32);
+    return g;
+  }
+
+  /* Llenado de Kogge-Stone hacia los bits menos significativos: g son los
+   * bits alcanzados y p los bits a los que se puede entrar desde el bit
+   * siguiente */
+  private static long llenaOeste(long g, long p) {
+    g |= p & (g >>> 1);
+    p &= p >>> 1;
+    g |= p & (g >>> 2);
+    p &= p >>> 2;
+    g |= p & (g >>> 4);
+    p &= p >>> 4;
+    g |= p & (g >>> 8);
+    p &= p >>> 8;
+    g |= p & (g >>> 16);
+    p &= p >>> 16;
+    g |= p & (g >>> 32);
+    return g;
+  }
+}
@@ -1,5 +1,7 @@
 package mx.unam.ciencias.edd.proyecto3;
 
+import mx.unam.ciencias.edd.Lista;
+
 /**
  * Clase para extraer banderas
  */
@@ -9,6 +11,8 @@ public class Argumentos {
   private boolean generar = false;
   /* La semilla */
   private long semilla = System.currentTimeMillis();
+  /* Es verdadero si se usó la bandera -c */
+  private boolean compacto = false;
   /* Es verdadero si se usó la bandera -w */
   private boolean wflag = false;
   /* El ancho */
@@ -17,6 +21,30 @@ public class Argumentos {
   private boolean hflag = false;
   /* El alto */
   private int h = -1;
+  /* El número de laberintos del contenedor a generar, o 0 */
+  private int registros = 0;
+  /* El registro del contenedor a resolver, o -1 */
+  private int registro = -1;
+  /* Es verdadero si se usó la bandera -m */
+  private boolean multiple = false;
+  /* Es verdadero si se usó la bandera -p */
+  private boolean paralelo = false;
+  /* El prefijo de los archivos de las soluciones, o null */
+  private String prefijo = null;
+  /* El socket en el que escucha el servidor, o null */
+  private String servidor = null;
+  /* El socket del servidor al que se mandan los laberintos, o null */
+  private String cliente = null;
+  /* Es verdadero si se usó la bandera -r */
+  private boolean ruta = false;
+  /* Es verdadero si se usó la bandera -z */
+  private boolean comprimir = false;
+  /* El formato de las soluciones */
+  private String formato = "svg";
+  /* El lado de los bloques para resolver por jerarquías, o 0 */
+  private int bloque = 0;
+  /* Los archivos de entrada */
+  private Lista<String> archivos = new Lista<String>();
 
 
   /**
@@ -28,6 +56,8 @@ public class Argumentos {
     for(int i = 0; i < args.length; i++) {
       if(args[i].equals("-g")) {
         generar = true;
+      }else if(args[i].equals("-c")) {
+        compacto = true;
       }else if(args[i].equals("-w")) {
         wflag = true;
         if(i+1 >= args.length)
@@ -60,6 +90,74 @@ public class Argumentos {
           throw new IllegalArgumentException("La semilla debe ser un número válido");
         }
         i++;
+      }else if(args[i].equals("-n")) {
+        if(i+1 >= args.length)
+          throw new IllegalArgumentException("Se debe especificar el número de laberintos -n <registros>");
+        
+        try{
+          registros = Integer.parseInt(args[i+1]);
+        }catch(NumberFormatException nfe){
+          throw new IllegalArgumentException("El número de laberintos debe ser un número válido");
+        }
+        if(registros < 1)
+          throw new IllegalArgumentException("El número de laberintos debe ser mayor o igual a 1");
+        i++;
+      }else if(args[i].equals("-k")) {
+        if(i+1 >= args.length)
+          throw new IllegalArgumentException("Se debe especificar el registro del contenedor -k <registro>");
+        
+        try{
+          registro = Integer.parseInt(args[i+1]);
+        }catch(NumberFormatException nfe){
+          throw new IllegalArgumentException("El registro debe ser un número válido");
+        }
+        if(registro < 0)
+          throw new IllegalArgumentException("El registro debe ser mayor o igual a 0");
+        i++;
+      }else if(args[i].equals("-m")) {
+        multiple = true;
+      }else if(args[i].equals("-p")) {
+        paralelo = true;
+      }else if(args[i].equals("-o")) {
+        if(i+1 >= args.length)
+          throw new IllegalArgumentException("Se debe especificar el prefijo de las soluciones -o <prefijo>");
+        prefijo = args[i+1];
+        i++;
+      }else if(args[i].equals("-d")) {
+        if(i+1 >= args.length)
+          throw new IllegalArgumentException("Se debe especificar el socket del servidor -d <socket>");
+        servidor = args[i+1];
+        i++;
+      }else if(args[i].equals("-u")) {
+        if(i+1 >= args.length)
+          throw new IllegalArgumentException("Se debe especificar el socket del servidor -u <socket>");
+        cliente = args[i+1];
+        i++;
+      }else if(args[i].equals("-f")) {
+        if(i+1 >= args.length)
+          throw new IllegalArgumentException("Se debe especificar el formato de las soluciones -f <formato>");
+        formato = args[i+1];
+        if(!formato.equals("svg") && !formato.equals("trazos") && !getImagen())
+          throw new IllegalArgumentException("El formato debe ser svg, trazos, png, pbm o pgm");
+        i++;
+      }else if(args[i].equals("-j")) {
+        if(i+1 >= args.length)
+          throw new IllegalArgumentException("Se debe especificar el lado de los bloques -j <lado>");
+        
+        try{
+          bloque = Integer.parseInt(args[i+1]);
+        }catch(NumberFormatException nfe){
+          throw new IllegalArgumentException("El lado de los bloques debe ser un número válido");
+        }
+        if(bloque < 2)
+          throw new IllegalArgumentException("El lado de los bloques debe ser mayor o igual a 2");
+        i++;
+      }else if(args[i].equals("-z")) {
+        comprimir = true;
+      }else if(args[i].equals("-r")) {
+        ruta = true;
+      }else if(!args[i].startsWith("-")) {
+        archivos.agrega(args[i]);
       }
     }
     if(generar) {
@@ -68,7 +166,33 @@ public class Argumentos {
       
       if(w < 2 || h < 2)
         throw new IllegalArgumentException("El alto y el ancho deben ser mayores o iguales a 2");
+
+      if(registro >= 0 || multiple)
+        throw new IllegalArgumentException("Las banderas -k y -m sólo se usan para resolver");
+    } else {
+      if(registros > 0)
+        throw new IllegalArgumentException("La bandera -n sólo se usa con -g");
+
+      if(registro >= 0 && archivos.esVacia())
+        throw new IllegalArgumentException("Se debe especificar el contenedor -k <registro> <archivo>.mzr");
+
+      if(multiple && (registro >= 0 || !archivos.esVacia()))
+        throw new IllegalArgumentException("La bandera -m sólo se usa con la entrada estándar");
     }
+    if(servidor != null && (generar || multiple || cliente != null || registro >= 0 || !archivos.esVacia()))
+      throw new IllegalArgumentException("La bandera -d no se usa con otras banderas ni archivos");
+    if(cliente != null && (generar || multiple || registro >= 0))
+      throw new IllegalArgumentException("La bandera -u sólo se usa con archivos .mze o la entrada estándar");
+    if(comprimir && servidor != null)
+      throw new IllegalArgumentException("La bandera -z no se usa con -d");
+    if(getImagen() && (multiple || cliente != null || comprimir))
+      throw new IllegalArgumentException("Los formatos png, pbm y pgm no se usan con -m, -u ni -z");
+    if(bloque > 0 && (generar || servidor != null || cliente != null))
+      throw new IllegalArgumentException("La bandera -j sólo se usa al resolver localmente");
+    if(ruta && cliente == null)
+      throw new IllegalArgumentException("La bandera -r sólo se usa con -u");
+    if(!multiple && (paralelo || prefijo != null))
+      throw new IllegalArgumentException("Las banderas -p y -o sólo se usan con -m");
   }
 
   /**
@@ -79,6 +203,14 @@ public class Argumentos {
     return generar;
   }
 
+  /**
+   * Devuelve true si la bandera -c se usó
+   * @return true si la bandera -c se usó
+   */
+  public boolean getCompacto() {
+    return compacto;
+  }
+
   /**
    * Devuelve el ancho
    * @return el ancho
@@ -95,6 +227,122 @@ public class Argumentos {
     return h;
   }
 
+  /**
+   * Devuelve el número de laberintos del contenedor a generar
+   * @return el número de laberintos, o 0 si no se usó la bandera -n
+   */
+  public int getRegistros() {
+    return registros;
+  }
+
+  /**
+   * Devuelve el registro del contenedor a resolver
+   * @return el registro, o -1 si no se usó la bandera -k
+   */
+  public int getRegistro() {
+    return registro;
+  }
+
+  /**
+   * Devuelve true si la bandera -m se usó
+   * @return true si la bandera -m se usó
+   */
+  public boolean getMultiple() {
+    return multiple;
+  }
+
+  /**
+   * Devuelve true si la bandera -p se usó
+   * @return true si la bandera -p se usó
+   */
+  public boolean getParalelo() {
+    return paralelo;
+  }
+
+  /**
+   * Devuelve el prefijo de los archivos de las soluciones
+   * @return el prefijo, o null si no se usó la bandera -o
+   */
+  public String getPrefijo() {
+    return prefijo;
+  }
+
+  /**
+   * Devuelve el socket en el que escucha el servidor
+   * @return el socket, o null si no se usó la bandera -d
+   */
+  public String getServidor() {
+    return servidor;
+  }
+
+  /**
+   * Devuelve el socket del servidor al que se mandan los laberintos
+   * @return el socket, o null si no se usó la bandera -u
+   */
+  public String getCliente() {
+    return cliente;
+  }
+
+  /**
+   * Devuelve true si la bandera -r se usó
+   * @return true si la bandera -r se usó
+   */
+  public boolean getRuta() {
+    return ruta;
+  }
+
+  /**
+   * Devuelve true si la bandera -z se usó
+   * @return true si la bandera -z se usó
+   */
+  public boolean getComprimir() {
+    return comprimir;
+  }
+
+  /**
+   * Devuelve el formato de las soluciones
+   * @return el formato de las soluciones: svg (por omisión), trazos, png,
+   *         pbm o pgm
+   */
+  public String getFormato() {
+    return formato;
+  }
+
+  /**
+   * Devuelve true si las soluciones van en el formato trazos, con las
+   * paredes en un solo trazo
+   * @return true si se usó -f trazos
+   */
+  public boolean getTrazos() {
+    return formato.equals("trazos");
+  }
+
+  /**
+   * Devuelve true si las soluciones se dibujan como imágenes, en PNG o en
+   * Netpbm
+   * @return true si se usó -f png, -f pbm o -f pgm
+   */
+  public boolean getImagen() {
+    return formato.equals("png") || formato.equals("pbm") || formato.equals("pgm");
+  }
+
+  /**
+   * Devuelve el lado de los bloques para resolver por jerarquías con
+   * {@link ResolvedorJerarquico}
+   * @return el lado de los bloques, o 0 si no se usó la bandera -j
+   */
+  public int getBloque() {
+    return bloque;
+  }
+
+  /**
+   * Devuelve los archivos de entrada, los argumentos que no son banderas
+   * @return los archivos de entrada; si es vacía, se lee la entrada estándar
+   */
+  public Lista<String> getArchivos() {
+    return archivos;
+  }
+
   /**
    * Devuelve la semilla
    * @return la semilla
@@ -0,0 +1,64 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Clase para mandar laberintos a un {@link Servidor} local. Todas las
+ * solicitudes de un cliente usan la misma conexión
+ */
+public class Cliente implements Closeable {
+
+  /* La conexión */
+  private SocketChannel canal;
+
+  /**
+   * Constructor, se conecta al servidor
+   * @param socket el archivo del socket del servidor
+   * @throws IOException si no se puede conectar
+   */
+  public Cliente(Path socket) throws IOException {
+    canal = SocketChannel.open(StandardProtocolFamily.UNIX);
+    canal.connect(UnixDomainSocketAddress.of(socket));
+  }
+
+  /**
+   * Manda un archivo .mze y espera la respuesta
+   * @param tipo el tipo de solicitud, {@link Servidor#SVG}, {@link
+   *        Servidor#TRAZOS} o {@link Servidor#RUTA}
+   * @param archivo los bytes del archivo
+   * @return el SVG de la solución, o los cuartos de la ruta
+   * @throws IOException si no se puede comunicar con el servidor
+   * @throws IllegalArgumentException si el servidor responde con un error
+   */
+  public String solicita(byte tipo, byte[] archivo) throws IOException {
+    ByteBuffer encabezado = ByteBuffer.allocate(5).put(tipo).putInt(archivo.length).flip();
+    ByteBuffer[] solicitud = { encabezado, ByteBuffer.wrap(archivo) };
+    while(solicitud[0].hasRemaining() || solicitud[1].hasRemaining())
+      canal.write(solicitud);
+
+    encabezado.clear();
+    if(!Servidor.lee(canal, encabezado))
+      throw new IOException("El servidor cerró la conexión");
+    byte[] cuerpo = new byte[encabezado.getInt(1)];
+    Servidor.lee(canal, ByteBuffer.wrap(cuerpo));
+    String respuesta = new String(cuerpo, StandardCharsets.UTF_8);
+    if(encabezado.get(0) != Servidor.BIEN)
+      throw new IllegalArgumentException(respuesta);
+    return respuesta;
+  }
+
+  /**
+   * Cierra la conexión
+   * @throws IOException si no se puede cerrar
+   */
+  @Override public void close() throws IOException {
+    canal.close();
+  }
+}
@@ -0,0 +1,256 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Clase para etiquetar las componentes conexas de los cuartos de un
+ * laberinto. El laberinto se parte en franjas de renglones que se etiquetan
+ * al mismo tiempo en un {@link ForkJoinPool}, cada una con su propio
+ * unión-búsqueda; después se unen las etiquetas a través de las fronteras
+ * entre franjas y se numeran las componentes de 0 en adelante, en el orden
+ * de su primer cuarto.
+ */
+public class Componentes {
+
+  /* Suma atómica sobre los elementos de arreglos de enteros */
+  private static final VarHandle ENTEROS =
+    MethodHandles.arrayElementVarHandle(int[].class);
+  /* El mínimo de cuartos por franja */
+  private static final int UMBRAL = 4096;
+
+  /* Clase interna privada para las franjas de renglones */
+  private class Franja extends RecursiveAction {
+
+    /* La versión para serializar */
+    private static final long serialVersionUID = 1L;
+
+    /* El primer cuarto de la franja */
+    private int inicio;
+    /* El cuarto siguiente al último de la franja */
+    private int fin;
+    /* La fase que se ejecuta */
+    private int fase;
+    /* El número de raíces de la franja */
+    private int raices;
+    /* La etiqueta de la primera raíz de la franja */
+    private int primera;
+
+    /* Crea la franja de los renglones [y0, y1) */
+    public Franja(int y0, int y1) {
+      inicio = y0 * w;
+      fin = y1 * w;
+    }
+
+    /* Ejecuta la fase actual sobre la franja */
+    @Override protected void compute() {
+      switch(fase)
+      {
+        case 0: une(); break;
+        case 1: raices(); break;
+        case 2: numera(); break;
+        default: etiqueta(); break;
+      }
+    }
+
+    /* Une los cuartos de la franja por sus puertas Este y Sur; sólo se
+     * escribe en los padres de la franja */
+    private void une() {
+      for(int i = inicio; i < fin; i++)
+        padre[i] = i;
+      for(int y = inicio / w, i = inicio; i < fin; y++)
+      {
+        for(int x = 0; x < w; x++, i++)
+        {
+          if(x < w-1 && laberinto.abiertaEste(x, y))
+            Componentes.this.une(i, i+1);
+          if(i + w < fin && laberinto.abiertaSur(x, y))
+            Componentes.this.une(i, i+w);
+        }
+      }
+    }
+
+    /* Guarda la raíz de cada cuarto y cuenta las raíces de la franja */
+    private void raices() {
+      raices = 0;
+      for(int i = inicio; i < fin; i++)
+      {
+        int r = i;
+        while(padre[r] != r)
+          r = padre[r];
+        etiquetas[i] = r;
+        if(r == i)
+          raices++;
+      }
+    }
+
+    /* Cambia el padre de cada raíz por su etiqueta definitiva */
+    private void numera() {
+      int c = primera;
+      for(int i = inicio; i < fin; i++)
+        if(etiquetas[i] == i)
+          padre[i] = c++;
+    }
+
+    /* Cambia la raíz de cada cuarto por su etiqueta, y suma los tamaños por
+     * tramos de cuartos seguidos con la misma etiqueta */
+    private void etiqueta() {
+      int anterior = -1;
+      int tramo = 0;
+      for(int i = inicio; i < fin; i++)
+      {
+        int c = padre[etiquetas[i]];
+        etiquetas[i] = c;
+        if(c != anterior)
+        {
+          if(tramo > 0)
+            ENTEROS.getAndAdd(tamanos, anterior, tramo);
+          anterior = c;
+          tramo = 0;
+        }
+        tramo++;
+      }
+      if(tramo > 0)
+        ENTEROS.getAndAdd(tamanos, anterior, tramo);
+    }
+  }
+
+  /* El laberinto */
+  private Laberinto laberinto;
+  /* El ancho y alto del laberinto */
+  private int w;
+  private int h;
+  /* El padre de cada cuarto en el unión-búsqueda */
+  private int[] padre;
+  /* La etiqueta de cada cuarto, como índices y*w+x */
+  private int[] etiquetas;
+  /* El número de cuartos de cada componente */
+  private int[] tamanos;
+
+  /**
+   * Constructor, etiqueta los cuartos del laberinto con franjas de al menos
+   * 4096 cuartos, sin pasar de cuatro franjas por procesador
+   * @param laberinto el laberinto
+   */
+  public Componentes(Laberinto laberinto) {
+    this(laberinto, franjasPorOmision(laberinto));
+  }
+
+  /**
+   * Constructor, etiqueta los cuartos del laberinto con el número de franjas
+   * indicado
+   * @param laberinto el laberinto
+   * @param franjas el número de franjas; si es mayor que el número de
+   *        renglones, se usa un renglón por franja
+   * @throws IllegalArgumentException si el número de franjas no es positivo
+   */
+  public Componentes(Laberinto laberinto, int franjas) {
+    if(franjas < 1)
+      throw new IllegalArgumentException("El número de franjas debe ser positivo");
+    this.laberinto = laberinto;
+    w = laberinto.getAncho();
+    h = laberinto.getAlto();
+    padre = new int[w*h];
+    etiquetas = new int[w*h];
+
+    franjas = Math.min(franjas, h);
+    Franja[] f = new Franja[franjas];
+    for(int k = 0; k < franjas; k++)
+      f[k] = new Franja(k * h / franjas, (k+1) * h / franjas);
+
+    ejecuta(f, 0);
+    // Las fronteras entre franjas se unen en orden; son w uniones por
+    // frontera, contra los w*h/franjas cuartos de cada franja
+    for(int k = 1; k < franjas; k++)
+      for(int i = f[k].inicio - w; i < f[k].inicio; i++)
+        if(laberinto.abiertaSur(i % w, i / w))
+          une(i, i+w);
+    ejecuta(f, 1);
+    int c = 0;
+    for(Franja franja : f)
+    {
+      franja.primera = c;
+      c += franja.raices;
+    }
+    tamanos = new int[c];
+    ejecuta(f, 2);
+    ejecuta(f, 3);
+    padre = null;
+  }
+
+  /**
+   * Devuelve el número de componentes conexas
+   * @return el número de componentes conexas
+   */
+  public int getComponentes() {
+    return tamanos.length;
+  }
+
+  /**
+   * Devuelve la etiqueta de la componente del cuarto; las componentes se
+   * numeran de 0 en adelante en el orden de su primer cuarto
+   * @param x la columna del cuarto
+   * @param y el renglón del cuarto
+   * @return la etiqueta de la componente del cuarto
+   */
+  public int getEtiqueta(int x, int y) {
+    return etiquetas[y*w + x];
+  }
+
+  /**
+   * Devuelve el número de cuartos de la componente
+   * @param c la etiqueta de la componente
+   * @return el número de cuartos de la componente
+   */
+  public int getTamano(int c) {
+    return tamanos[c];
+  }
+
+  /* Ejecuta la fase sobre todas las franjas y espera a que terminen */
+  private void ejecuta(Franja[] f, int fase) {
+    for(Franja franja : f)
+    {
+      franja.fase = fase;
+      franja.reinitialize();
+    }
+    if(f.length == 1)
+      f[0].compute();
+    else
+      ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+          @Override protected void compute() {
+            invokeAll(f);
+          }
+        });
+  }
+
+  /* Une los conjuntos de dos cuartos; la raíz es siempre el menor índice,
+   * para que cada franja sólo apunte a cuartos de sí misma o de franjas
+   * anteriores */
+  private void une(int a, int b) {
+    a = raiz(a);
+    b = raiz(b);
+    if(a < b)
+      padre[b] = a;
+    else if(b < a)
+      padre[a] = b;
+  }
+
+  /* La raíz del cuarto, partiendo el camino a la mitad */
+  private int raiz(int i) {
+    while(padre[i] != i)
+    {
+      padre[i] = padre[padre[i]];
+      i = padre[i];
+    }
+    return i;
+  }
+
+  /* El número de franjas por omisión para el laberinto */
+  private static int franjasPorOmision(Laberinto laberinto) {
+    int n = laberinto.getAncho() * laberinto.getAlto();
+    int procesadores = Runtime.getRuntime().availableProcessors();
+    return Math.max(1, Math.min(n / UMBRAL, 4 * procesadores));
+  }
+}
@@ -0,0 +1,200 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Clase para verificar la consistencia de las paredes de renglones completos
+ * (regla 6): el bit Este de cada cuarto debe ser igual al bit Oeste del
+ * siguiente, y el bit Sur de cada cuarto al bit Norte del de abajo. Los
+ * renglones se leen de 8 en 8 cuartos como longs, y las 8 comparaciones se
+ * hacen con un solo XOR y una máscara; los cuartos que no completan un long
+ * se revisan uno por uno.
+ *
+ * Si la máquina virtual se inició con <code>--add-modules
+ * jdk.incubator.vector</code>, los renglones de más de 255 cuartos (que sólo
+ * hay en MAZX) se revisan con {@link ConsistenciaVectorial}. Con AVX-512,
+ * revisar un laberinto de 1024×256 toma unos 95 us con vectores y 260 us con
+ * longs, pero en uno de 255×255 los dos tardan lo mismo (unos 60 us), porque
+ * un renglón apenas llena 3 vectores y el resto se revisa uno por uno; por
+ * eso los renglones de MAZE se quedan con los longs.
+ */
+public class ConsistenciaRenglones {
+
+  /* Lectura de 8 bytes de un arreglo como long, en cualquier posición */
+  private static final VarHandle LONGS =
+    MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  /* Lectura de 8 bytes de un buffer como long, en cualquier posición */
+  private static final VarHandle LONGS_BUFFER =
+    MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  /* El bit menos significativo de cada byte */
+  private static final long BAJOS = 0x0101010101010101L;
+  /* Si se cargó la API de vectores */
+  private static final boolean VECTORES =
+    ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+  /* El ancho a partir del cual se usan vectores */
+  private static final int UMBRAL_VECTORES = 256;
+
+  private ConsistenciaRenglones() {}
+
+  /**
+   * Busca el primer cuarto del renglón cuya pared Oeste no coincide con la
+   * pared Este del cuarto anterior
+   * @param renglon los cuartos del renglón
+   * @param w el número de cuartos del renglón
+   * @return la columna del primer cuarto inconsistente, o -1
+   */
+  public static int horizontal(byte[] renglon, int w) {
+    if(VECTORES && w >= UMBRAL_VECTORES)
+      return ConsistenciaVectorial.horizontal(renglon, w);
+    return horizontalLongs(renglon, w);
+  }
+
+  /**
+   * Versión por longs de {@link #horizontal(byte[], int)}, aunque se haya
+   * cargado la API de vectores
+   * @param renglon los cuartos del renglón
+   * @param w el número de cuartos del renglón
+   * @return la columna del primer cuarto inconsistente, o -1
+   */
+  public static int horizontalLongs(byte[] renglon, int w) {
+    int x = 0;
+    // El long en x tiene los cuartos x..x+7 y el de x+1 los x+1..x+8; el
+    // bit 0 (Este) de cada byte del primero se compara con el bit 2 (Oeste)
+    // del mismo byte del segundo
+    for(; x + 9 <= w; x += 8)
+    {
+      long a = (long)LONGS.get(renglon, x);
+      long b = (long)LONGS.get(renglon, x+1);
+      long d = (a ^ (b >>> 2)) & BAJOS;
+      if(d != 0)
+        return x + 1 + (Long.numberOfTrailingZeros(d) >>> 3);
+    }
+    for(; x + 1 < w; x++)
+      if(((renglon[x] ^ (renglon[x+1] >>> 2)) & 1) != 0)
+        return x + 1;
+    return -1;
+  }
+
+  /**
+   * Busca el primer cuarto del renglón de abajo cuya pared Norte no
+   * coincide con la pared Sur del cuarto de arriba
+   * @param arriba los cuartos del renglón de arriba
+   * @param abajo los cuartos del renglón de abajo
+   * @param w el número de cuartos de cada renglón
+   * @return la columna del primer cuarto inconsistente, o -1
+   */
+  public static int vertical(byte[] arriba, byte[] abajo, int w) {
+    if(VECTORES && w >= UMBRAL_VECTORES)
+      return ConsistenciaVectorial.vertical(arriba, abajo, w);
+    return verticalLongs(arriba, abajo, w);
+  }
+
+  /**
+   * Versión por longs de {@link #vertical(byte[], byte[], int)}, aunque se
+   * haya cargado la API de vectores
+   * @param arriba los cuartos del renglón de arriba
+   * @param abajo los cuartos del renglón de abajo
+   * @param w el número de cuartos de cada renglón
+   * @return la columna del primer cuarto inconsistente, o -1
+   */
+  public static int verticalLongs(byte[] arriba, byte[] abajo, int w) {
+    int x = 0;
+    // El bit 3 (Sur) de cada byte de arriba contra el bit 1 (Norte) de abajo
+    for(; x + 8 <= w; x += 8)
+    {
+      long a = (long)LONGS.get(arriba, x);
+      long b = (long)LONGS.get(abajo, x);
+      long d = ((a >>> 3) ^ (b >>> 1)) & BAJOS;
+      if(d != 0)
+        return x + (Long.numberOfTrailingZeros(d) >>> 3);
+    }
+    for(; x < w; x++)
+      if((((arriba[x] >>> 3) ^ (abajo[x] >>> 1)) & 1) != 0)
+        return x;
+    return -1;
+  }
+
+  /**
+   * Versión de {@link #horizontal(byte[], int)} para un renglón dentro de un
+   * buffer, por ejemplo un archivo mapeado a memoria
+   * @param buffer el buffer
+   * @param renglon la posición del primer cuarto del renglón en el buffer
+   * @param w el número de cuartos del renglón
+   * @return la columna del primer cuarto inconsistente, o -1
+   */
+  public static int horizontal(ByteBuffer buffer, int renglon, int w) {
+    if(VECTORES && w >= UMBRAL_VECTORES)
+      return ConsistenciaVectorial.horizontal(buffer, renglon, w);
+    int x = 0;
+    for(; x + 9 <= w; x += 8)
+    {
+      long a = (long)LONGS_BUFFER.get(buffer, renglon + x);
+      long b = (long)LONGS_BUFFER.get(buffer, renglon + x+1);
+      long d = (a ^ (b >>> 2)) & BAJOS;
+      if(d != 0)
+        return x + 1 + (Long.numberOfTrailingZeros(d) >>> 3);
+    }
+    for(; x + 1 < w; x++)
+      if(((buffer.get(renglon + x) ^ (buffer.get(renglon + x+1) >>> 2)) & 1) != 0)
+        return x + 1;
+    return -1;
+  }
+
+  /**
+   * Versión de {@link #vertical(byte[], byte[], int)} para dos renglones
+   * dentro de buffers, por ejemplo un archivo mapeado a memoria
+   * @param a el buffer del renglón de arriba
+   * @param arriba la posición del primer cuarto del renglón de arriba
+   * @param b el buffer del renglón de abajo
+   * @param abajo la posición del primer cuarto del renglón de abajo
+   * @param w el número de cuartos de cada renglón
+   * @return la columna del primer cuarto inconsistente, o -1
+   */
+  public static int vertical(ByteBuffer a, int arriba, ByteBuffer b, int abajo, int w) {
+    if(VECTORES && w >= UMBRAL_VECTORES)
+      return ConsistenciaVectorial.vertical(a, arriba, b, abajo, w);
+    int x = 0;
+    for(; x + 8 <= w; x += 8)
+    {
+      long s = (long)LONGS_BUFFER.get(a, arriba + x);
+      long n = (long)LONGS_BUFFER.get(b, abajo + x);
+      long d = ((s >>> 3) ^ (n >>> 1)) & BAJOS;
+      if(d != 0)
+        return x + (Long.numberOfTrailingZeros(d) >>> 3);
+    }
+    for(; x < w; x++)
+      if((((a.get(arriba + x) >>> 3) ^ (b.get(abajo + x) >>> 1)) & 1) != 0)
+        return x;
+    return -1;
+  }
+
+  /**
+   * Versión cuarto por cuarto de {@link #horizontal(byte[], int)}
+   * @param renglon los cuartos del renglón
+   * @param w el número de cuartos del renglón
+   * @return la columna del primer cuarto inconsistente, o -1
+   */
+  public static int horizontalEscalar(byte[] renglon, int w) {
+    for(int x = 1; x < w; x++)
+      if(((renglon[x-1] & 0b0001) == 0) != ((renglon[x] & 0b0100) == 0))
+        return x;
+    return -1;
+  }
+
+  /**
+   * Versión cuarto por cuarto de {@link #vertical(byte[], byte[], int)}
+   * @param arriba los cuartos del renglón de arriba
+   * @param abajo los cuartos del renglón de abajo
+   * @param w el número de cuartos de cada renglón
+   * @return la columna del primer cuarto inconsistente, o -1
+   */
+  public static int verticalEscalar(byte[] arriba, byte[] abajo, int w) {
+    for(int x = 0; x < w; x++)
+      if(((arriba[x] & 0b1000) == 0) != ((abajo[x] & 0b0010) == 0))
+        return x;
+    return -1;
+  }
+}
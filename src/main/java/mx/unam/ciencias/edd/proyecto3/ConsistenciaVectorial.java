@@ -0,0 +1,104 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Versiones de las verificaciones de {@link ConsistenciaRenglones} con la
+ * API de vectores, que compara tantos cuartos como quepan en un registro
+ * vectorial del procesador (32 o 64 con AVX2 o AVX-512) en lugar de 8. La
+ * API es un módulo en incubación: esta clase sólo se carga si la máquina
+ * virtual se inició con <code>--add-modules jdk.incubator.vector</code>, y
+ * si no, {@link ConsistenciaRenglones} se queda con los longs
+ */
+final class ConsistenciaVectorial {
+
+  /* El tamaño de vector preferido por el procesador */
+  private static final VectorSpecies<Byte> ESPECIE = ByteVector.SPECIES_PREFERRED;
+
+  private ConsistenciaVectorial() {}
+
+  /* Como ConsistenciaRenglones.horizontal, por vectores */
+  static int horizontal(byte[] renglon, int w) {
+    int x = 0;
+    for(; x + ESPECIE.length() + 1 <= w; x += ESPECIE.length())
+    {
+      ByteVector a = ByteVector.fromArray(ESPECIE, renglon, x);
+      ByteVector b = ByteVector.fromArray(ESPECIE, renglon, x+1);
+      VectorMask<Byte> d = diferentes(a, b.lanewise(VectorOperators.LSHR, 2));
+      if(d.anyTrue())
+        return x + 1 + d.firstTrue();
+    }
+    for(; x + 1 < w; x++)
+      if(((renglon[x] ^ (renglon[x+1] >>> 2)) & 1) != 0)
+        return x + 1;
+    return -1;
+  }
+
+  /* Como ConsistenciaRenglones.vertical, por vectores */
+  static int vertical(byte[] arriba, byte[] abajo, int w) {
+    int x = 0;
+    for(; x + ESPECIE.length() <= w; x += ESPECIE.length())
+    {
+      ByteVector a = ByteVector.fromArray(ESPECIE, arriba, x);
+      ByteVector b = ByteVector.fromArray(ESPECIE, abajo, x);
+      VectorMask<Byte> d = diferentes(a.lanewise(VectorOperators.LSHR, 3),
+                                      b.lanewise(VectorOperators.LSHR, 1));
+      if(d.anyTrue())
+        return x + d.firstTrue();
+    }
+    for(; x < w; x++)
+      if((((arriba[x] >>> 3) ^ (abajo[x] >>> 1)) & 1) != 0)
+        return x;
+    return -1;
+  }
+
+  /* Como ConsistenciaRenglones.horizontal para un buffer, por vectores */
+  static int horizontal(ByteBuffer buffer, int renglon, int w) {
+    int x = 0;
+    for(; x + ESPECIE.length() + 1 <= w; x += ESPECIE.length())
+    {
+      ByteVector a = carga(buffer, renglon + x);
+      ByteVector b = carga(buffer, renglon + x+1);
+      VectorMask<Byte> d = diferentes(a, b.lanewise(VectorOperators.LSHR, 2));
+      if(d.anyTrue())
+        return x + 1 + d.firstTrue();
+    }
+    for(; x + 1 < w; x++)
+      if(((buffer.get(renglon + x) ^ (buffer.get(renglon + x+1) >>> 2)) & 1) != 0)
+        return x + 1;
+    return -1;
+  }
+
+  /* Como ConsistenciaRenglones.vertical para buffers, por vectores */
+  static int vertical(ByteBuffer a, int arriba, ByteBuffer b, int abajo, int w) {
+    int x = 0;
+    for(; x + ESPECIE.length() <= w; x += ESPECIE.length())
+    {
+      ByteVector s = carga(a, arriba + x);
+      ByteVector n = carga(b, abajo + x);
+      VectorMask<Byte> d = diferentes(s.lanewise(VectorOperators.LSHR, 3),
+                                      n.lanewise(VectorOperators.LSHR, 1));
+      if(d.anyTrue())
+        return x + d.firstTrue();
+    }
+    for(; x < w; x++)
+      if((((a.get(arriba + x) >>> 3) ^ (b.get(abajo + x) >>> 1)) & 1) != 0)
+        return x;
+    return -1;
+  }
+
+  /* Los carriles en los que el bit 0 de los dos vectores es distinto */
+  private static VectorMask<Byte> diferentes(ByteVector a, ByteVector b) {
+    return a.lanewise(VectorOperators.XOR, b).and((byte)1).compare(VectorOperators.NE, 0);
+  }
+
+  /* Lee un vector del buffer en cualquier posición */
+  private static ByteVector carga(ByteBuffer buffer, int i) {
+    return ByteVector.fromByteBuffer(ESPECIE, buffer, i, ByteOrder.LITTLE_ENDIAN);
+  }
+}
@@ -0,0 +1,179 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import mx.unam.ciencias.edd.Dispersores;
+
+/**
+ * Clase para leer contenedores de laberintos escritos por {@link
+ * EscritorContenedor}. El archivo se mapea a memoria de sólo lectura y se
+ * lee sólo su final y su índice; cada registro se valida hasta que se pide,
+ * así que resolver el registro <i>k</i> no recorre los demás.
+ *
+ * El formato, con los enteros del byte más significativo al menos
+ * significativo:
+ * <ol>
+ *   <li>MAZR.</li>
+ *   <li>Los registros, cada uno un archivo .mze completo (MAZE, MAZX o
+ *       MAZC).</li>
+ *   <li>El índice, con 28 bytes por registro: su posición y su longitud
+ *       (8 bytes cada una), su número de renglones y de columnas, y la
+ *       dispersión de Bob Jenkins de sus bytes (4 bytes cada uno).</li>
+ *   <li>La posición del índice (8 bytes), el número de registros (4
+ *       bytes), y MAZR.</li>
+ * </ol>
+ */
+public class Contenedor {
+
+  /* El archivo mapeado */
+  private ByteBuffer buffer;
+  /* La posición del índice */
+  private int indice;
+  /* El número de registros */
+  private int registros;
+
+  /**
+   * Constructor, mapea el contenedor y valida su final y su índice
+   * @param archivo el contenedor
+   * @throws IOException si no se puede leer el archivo
+   * @throws IllegalArgumentException si el archivo no es un contenedor
+   *         válido
+   */
+  public Contenedor(Path archivo) throws IOException {
+    try(FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+      if(canal.size() > Integer.MAX_VALUE)
+        throw new IllegalArgumentException("El contenedor es inválido (mide más de 2 GB)");
+      MappedByteBuffer mapeo = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+      buffer = mapeo;
+    }
+    int n = buffer.limit();
+    int firma = EscritorContenedor.FIRMA.length;
+    if(!esContenedor(buffer) || n < firma + EscritorContenedor.FINAL)
+      throw new IllegalArgumentException("El contenedor es inválido (debe iniciar con MAZR)");
+    for(int i = 0; i < firma; i++)
+      if(buffer.get(n - firma + i) != EscritorContenedor.FIRMA[i])
+        throw new IllegalArgumentException("El contenedor es inválido (debe terminar con MAZR)");
+    long posicion = buffer.getLong(n - EscritorContenedor.FINAL);
+    registros = buffer.getInt(n - EscritorContenedor.FINAL + 8);
+    if(registros < 0 || posicion < firma
+       || posicion + (long)registros * EscritorContenedor.ENTRADA != n - EscritorContenedor.FINAL)
+      throw new IllegalArgumentException("El contenedor es inválido (el índice no coincide con su tamaño)");
+    indice = (int)posicion;
+    for(int k = 0; k < registros; k++)
+    {
+      long inicio = buffer.getLong(entrada(k));
+      long longitud = buffer.getLong(entrada(k) + 8);
+      if(inicio < firma || longitud < 0 || inicio + longitud > indice)
+        throw new IllegalArgumentException("El contenedor es inválido (el registro "+k+" está fuera del archivo)");
+    }
+  }
+
+  /**
+   * Nos dice si el buffer empieza con la firma de un contenedor, MAZR
+   * @param buffer el buffer, desde su posición
+   * @return true si el buffer empieza con MAZR
+   */
+  public static boolean esContenedor(ByteBuffer buffer) {
+    int p = buffer.position();
+    if(buffer.limit() - p < EscritorContenedor.FIRMA.length)
+      return false;
+    for(int i = 0; i < EscritorContenedor.FIRMA.length; i++)
+      if(buffer.get(p + i) != EscritorContenedor.FIRMA[i])
+        return false;
+    return true;
+  }
+
+  /**
+   * Devuelve el número de registros
+   * @return el número de registros
+   */
+  public int getRegistros() {
+    return registros;
+  }
+
+  /**
+   * Devuelve el número de renglones del registro, según el índice
+   * @param k el registro
+   * @return el número de renglones del registro
+   * @throws IllegalArgumentException si el registro no existe
+   */
+  public int getAlto(int k) {
+    return buffer.getInt(entrada(k) + 16);
+  }
+
+  /**
+   * Devuelve el número de columnas del registro, según el índice
+   * @param k el registro
+   * @return el número de columnas del registro
+   * @throws IllegalArgumentException si el registro no existe
+   */
+  public int getAncho(int k) {
+    return buffer.getInt(entrada(k) + 20);
+  }
+
+  /**
+   * Devuelve la dispersión de Bob Jenkins del registro, según el índice
+   * @param k el registro
+   * @return la dispersión del registro
+   * @throws IllegalArgumentException si el registro no existe
+   */
+  public int getDispersion(int k) {
+    return buffer.getInt(entrada(k) + 24);
+  }
+
+  /**
+   * Devuelve los bytes del registro, sin copiarlos, después de verificar
+   * su dispersión
+   * @param k el registro
+   * @return un buffer de sólo lectura con los bytes del registro, desde su
+   *         posición
+   * @throws IllegalArgumentException si el registro no existe o su
+   *         dispersión no coincide con la del índice
+   */
+  public ByteBuffer registro(int k) {
+    int inicio = (int)buffer.getLong(entrada(k));
+    int longitud = (int)buffer.getLong(entrada(k) + 8);
+    ByteBuffer registro = buffer.asReadOnlyBuffer();
+    registro.position(inicio);
+    registro.limit(inicio + longitud);
+    // Dispersores sólo recibe arreglos
+    byte[] bytes = new byte[longitud];
+    registro.duplicate().get(bytes);
+    if(Dispersores.dispersaBJ(bytes) != getDispersion(k))
+      throw new IllegalArgumentException("El contenedor es inválido (el registro "+k+" está dañado)");
+    return registro;
+  }
+
+  /**
+   * Valida el registro y regresa su laberinto, que usa los cuartos del
+   * archivo mapeado sin copiarlos
+   * @param k el registro
+   * @return el laberinto del registro
+   * @throws IllegalArgumentException si el registro no existe, está dañado,
+   *         o sus dimensiones no coinciden con las del índice
+   * @throws ExcepcionFormatoInvalido si el registro no es un .mze válido
+   */
+  public Laberinto laberinto(int k) {
+    try {
+      ValidadorMaze v = new ValidadorMaze(registro(k));
+      if(v.getAlto() != getAlto(k) || v.getAncho() != getAncho(k))
+        throw new IllegalArgumentException("El contenedor es inválido (las dimensiones del registro "+k
+                                           +" no coinciden con el índice)");
+      return new Laberinto(v.getAncho(), v.getAlto(), v.cuartos());
+    } catch(IOException ioe) {
+      // Leer de un buffer no lanza IOException
+      throw new IllegalStateException(ioe);
+    }
+  }
+
+  /* La posición de la entrada del registro en el índice */
+  private int entrada(int k) {
+    if(k < 0 || k >= registros)
+      throw new IllegalArgumentException("No existe el registro "+k+"; el contenedor tiene "+registros);
+    return indice + k * EscritorContenedor.ENTRADA;
+  }
+}
@@ -0,0 +1,133 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import mx.unam.ciencias.edd.Dispersores;
+
+/**
+ * Clase para escribir contenedores de laberintos, archivos que empiezan con
+ * MAZR y guardan muchos laberintos seguidos, cada uno con el formato de un
+ * archivo .mze completo. Al terminar se escribe un índice con la posición,
+ * la longitud, las dimensiones y la dispersión de Bob Jenkins de cada
+ * registro, y al final la posición del índice, el número de registros y
+ * otra vez MAZR; ver {@link Contenedor}.
+ */
+public class EscritorContenedor {
+
+  /* Los bytes con los que empieza y termina el contenedor */
+  static final byte[] FIRMA = { 0x4D, 0x41, 0x5A, 0x52 };
+  /* Los bytes de cada entrada del índice */
+  static final int ENTRADA = 28;
+  /* Los bytes del final: la posición del índice, los registros y la firma */
+  static final int FINAL = 16;
+
+  /* La salida */
+  private DataOutputStream out;
+  /* La posición, el tamaño, las dimensiones y la dispersión de cada
+   * registro */
+  private long[] posiciones;
+  private long[] longitudes;
+  private int[] altos;
+  private int[] anchos;
+  private int[] dispersiones;
+  /* El número de registros */
+  private int registros;
+  /* La posición del siguiente byte */
+  private long posicion;
+  /* Si ya se escribió el índice */
+  private boolean terminado;
+
+  /**
+   * Constructor, escribe el inicio del contenedor
+   * @param out la salida
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public EscritorContenedor(OutputStream out) throws IOException {
+    this.out = new DataOutputStream(out);
+    this.out.write(FIRMA);
+    posicion = FIRMA.length;
+    posiciones = new long[16];
+    longitudes = new long[16];
+    altos = new int[16];
+    anchos = new int[16];
+    dispersiones = new int[16];
+  }
+
+  /**
+   * Agrega un laberinto al contenedor
+   * @param laberinto el laberinto
+   * @param compacto si el registro usa el {@link FormatoCompacto}
+   * @throws IOException si no se puede escribir en la salida
+   * @throws IllegalStateException si el contenedor ya se terminó
+   */
+  public void agrega(Laberinto laberinto, boolean compacto) throws IOException {
+    if(terminado)
+      throw new IllegalStateException("El contenedor ya se terminó");
+    ByteArrayOutputStream registro = new ByteArrayOutputStream();
+    if(compacto)
+      FormatoCompacto.escribe(laberinto, registro);
+    else
+      FormatoMaze.escribe(laberinto, registro);
+    byte[] bytes = registro.toByteArray();
+
+    if(registros == posiciones.length)
+      crece();
+    posiciones[registros] = posicion;
+    longitudes[registros] = bytes.length;
+    altos[registros] = laberinto.getAlto();
+    anchos[registros] = laberinto.getAncho();
+    dispersiones[registros] = Dispersores.dispersaBJ(bytes);
+    registros++;
+    out.write(bytes);
+    posicion += bytes.length;
+  }
+
+  /**
+   * Escribe el índice y el final del contenedor; la salida no se cierra
+   * @throws IOException si no se puede escribir en la salida
+   * @throws IllegalStateException si el contenedor ya se terminó
+   */
+  public void termina() throws IOException {
+    if(terminado)
+      throw new IllegalStateException("El contenedor ya se terminó");
+    terminado = true;
+    long indice = posicion;
+    for(int i = 0; i < registros; i++)
+    {
+      out.writeLong(posiciones[i]);
+      out.writeLong(longitudes[i]);
+      out.writeInt(altos[i]);
+      out.writeInt(anchos[i]);
+      out.writeInt(dispersiones[i]);
+    }
+    out.writeLong(indice);
+    out.writeInt(registros);
+    out.write(FIRMA);
+    out.flush();
+  }
+
+  /* Duplica el tamaño de los arreglos del índice */
+  private void crece() {
+    int n = 2 * posiciones.length;
+    long[] p = new long[n];
+    long[] l = new long[n];
+    int[] a = new int[n];
+    int[] w = new int[n];
+    int[] d = new int[n];
+    for(int i = 0; i < registros; i++)
+    {
+      p[i] = posiciones[i];
+      l[i] = longitudes[i];
+      a[i] = altos[i];
+      w[i] = anchos[i];
+      d[i] = dispersiones[i];
+    }
+    posiciones = p;
+    longitudes = l;
+    altos = a;
+    anchos = w;
+    dispersiones = d;
+  }
+}
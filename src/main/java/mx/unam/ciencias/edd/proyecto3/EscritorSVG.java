@@ -0,0 +1,271 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Clase para escribir SVG conforme se genera, sin armar el documento en
+ * memoria. El texto se junta en un arreglo de caracteres que se reutiliza
+ * y que se manda a la salida cada vez que se llena, y los enteros se
+ * escriben dígito por dígito en el mismo arreglo, sin crear cadenas.
+ *
+ * Además de elementos line sueltos, se pueden juntar segmentos horizontales
+ * y verticales en un solo elemento path, con comandos relativos, y puntos
+ * en un solo elemento polyline, sin los puntos intermedios de los tramos
+ * rectos.
+ */
+public class EscritorSVG {
+
+  /* El tamaño del arreglo de caracteres */
+  private static final int TAMANO = 8192;
+  /* Lo más que ocupa un entero: el signo y 10 dígitos */
+  private static final int DIGITOS = 11;
+
+  /* La salida */
+  private Writer out;
+  /* Los caracteres que no se han mandado a la salida */
+  private char[] buffer;
+  /* El número de caracteres en el arreglo */
+  private int n;
+  /* Si el trazo ya tiene segmentos, y la posición en la que terminó el
+   * último */
+  private boolean trazado;
+  private int trazoX;
+  private int trazoY;
+  /* El número de puntos escritos de la polilínea, y el último */
+  private int puntos;
+  private int puntoX;
+  private int puntoY;
+  /* Si hay un punto de la polilínea sin escribir, que puede ser intermedio
+   * de un tramo recto, y el punto */
+  private boolean pendiente;
+  private int pendienteX;
+  private int pendienteY;
+
+  /**
+   * Constructor, recibe la salida
+   * @param out la salida
+   */
+  public EscritorSVG(Writer out) {
+    this.out = out;
+    buffer = new char[TAMANO];
+  }
+
+  /**
+   * Escribe texto
+   * @param s el texto
+   * @return el mismo escritor
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public EscritorSVG texto(String s) throws IOException {
+    int i = 0;
+    while(i < s.length())
+    {
+      if(n == buffer.length)
+        vacia();
+      int k = Math.min(s.length() - i, buffer.length - n);
+      s.getChars(i, i + k, buffer, n);
+      n += k;
+      i += k;
+    }
+    return this;
+  }
+
+  /**
+   * Escribe un entero en decimal
+   * @param v el entero
+   * @return el mismo escritor
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public EscritorSVG entero(int v) throws IOException {
+    if(buffer.length - n < DIGITOS)
+      vacia();
+    long u = v;
+    if(u < 0)
+    {
+      buffer[n++] = '-';
+      u = -u;
+    }
+    int fin = n + digitos(u);
+    for(int i = fin - 1; i >= n; i--)
+    {
+      buffer[i] = (char)('0' + u % 10);
+      u /= 10;
+    }
+    n = fin;
+    return this;
+  }
+
+  /**
+   * Escribe un caracter
+   * @param c el caracter
+   * @return el mismo escritor
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public EscritorSVG caracter(char c) throws IOException {
+    if(n == buffer.length)
+      vacia();
+    buffer[n++] = c;
+    return this;
+  }
+
+  /**
+   * Empieza un elemento path, tabulado, al que se le agregan segmentos con
+   * {@link #segmento}
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public void iniciaTrazo() throws IOException {
+    texto("\t<path d='");
+    trazado = false;
+  }
+
+  /**
+   * Agrega un segmento horizontal o vertical al elemento path: un
+   * movimiento relativo desde el final del segmento anterior, si no
+   * empieza ahí, y una línea horizontal o vertical relativa
+   * @param x1 la coordenada x del inicio
+   * @param y1 la coordenada y del inicio
+   * @param x2 la coordenada x del final
+   * @param y2 la coordenada y del final; x2 debe ser x1 o y2 debe ser y1
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public void segmento(int x1, int y1, int x2, int y2) throws IOException {
+    if(!trazado)
+      caracter('M').entero(x1).caracter(' ').entero(y1);
+    else if(x1 != trazoX || y1 != trazoY)
+      par('m', x1 - trazoX, y1 - trazoY);
+    if(y1 == y2)
+      caracter('h').entero(x2 - x1);
+    else
+      caracter('v').entero(y2 - y1);
+    trazado = true;
+    trazoX = x2;
+    trazoY = y2;
+  }
+
+  /**
+   * Termina el elemento path
+   * @param atributos el texto entre el atributo d y el cierre del elemento,
+   *        con sus espacios
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public void terminaTrazo(String atributos) throws IOException {
+    texto("'").texto(atributos).texto(" />\n");
+  }
+
+  /**
+   * Empieza un elemento polyline, tabulado, al que se le agregan puntos
+   * con {@link #punto}
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public void iniciaPolilinea() throws IOException {
+    texto("\t<polyline points='");
+    puntos = 0;
+    pendiente = false;
+  }
+
+  /**
+   * Agrega un punto a la polilínea; si el punto anterior quedó en medio de
+   * un tramo recto, no se escribe
+   * @param x la coordenada x
+   * @param y la coordenada y
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public void punto(int x, int y) throws IOException {
+    if(puntos == 0)
+    {
+      escribePunto(x, y);
+      return;
+    }
+    if(pendiente && !recto(x, y))
+      escribePunto(pendienteX, pendienteY);
+    pendiente = true;
+    pendienteX = x;
+    pendienteY = y;
+  }
+
+  /**
+   * Termina el elemento polyline
+   * @param atributos el texto entre el atributo points y el cierre del
+   *        elemento, con sus espacios
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public void terminaPolilinea(String atributos) throws IOException {
+    if(pendiente)
+      escribePunto(pendienteX, pendienteY);
+    pendiente = false;
+    texto("'").texto(atributos).texto(" />\n");
+  }
+
+  /* Nos dice si el punto pendiente está en el tramo recto que va del
+   * último punto escrito al punto dado, en la misma dirección */
+  private boolean recto(int x, int y) {
+    long ax = pendienteX - puntoX;
+    long ay = pendienteY - puntoY;
+    long bx = x - pendienteX;
+    long by = y - pendienteY;
+    return ax * by == ay * bx && ax * bx + ay * by >= 0;
+  }
+
+  /* Escribe un punto de la polilínea */
+  private void escribePunto(int x, int y) throws IOException {
+    if(puntos++ > 0)
+      caracter(' ');
+    entero(x).caracter(',').entero(y);
+    puntoX = x;
+    puntoY = y;
+  }
+
+  /* Escribe un comando con dos números; un signo menos separa los números
+   * sin espacio */
+  private void par(char comando, int a, int b) throws IOException {
+    caracter(comando).entero(a);
+    if(b >= 0)
+      caracter(' ');
+    entero(b);
+  }
+
+  /**
+   * Escribe un elemento line, tabulado y en su propio renglón
+   * @param x1 la coordenada x del inicio
+   * @param y1 la coordenada y del inicio
+   * @param x2 la coordenada x del final
+   * @param y2 la coordenada y del final
+   * @param atributos el texto entre y2 y el cierre del elemento, con sus
+   *        espacios
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public void linea(int x1, int y1, int x2, int y2, String atributos) throws IOException {
+    texto("\t<line x1='").entero(x1);
+    texto("' y1='").entero(y1);
+    texto("' x2='").entero(x2);
+    texto("' y2='").entero(y2);
+    texto("'").texto(atributos).texto(" />\n");
+  }
+
+  /**
+   * Manda a la salida los caracteres pendientes, y la vacía
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public void flush() throws IOException {
+    vacia();
+    out.flush();
+  }
+
+  /* Manda los caracteres del arreglo a la salida */
+  private void vacia() throws IOException {
+    out.write(buffer, 0, n);
+    n = 0;
+  }
+
+  /* El número de dígitos de un entero no negativo */
+  private static int digitos(long u) {
+    int d = 1;
+    while(u >= 10)
+    {
+      u /= 10;
+      d++;
+    }
+    return d;
+  }
+}
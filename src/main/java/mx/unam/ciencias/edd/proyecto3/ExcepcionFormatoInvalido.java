@@ -0,0 +1,44 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+/**
+ * Clase para excepciones de archivos .mze que no cumplen el formato
+ */
+public class ExcepcionFormatoInvalido extends IllegalArgumentException {
+
+  /* La versión para serializar */
+  private static final long serialVersionUID = 1L;
+
+  /* La posición del primer byte que viola el formato */
+  private long posicion;
+  /* El número de la regla violada */
+  private int regla;
+
+  /**
+   * Constructor, recibe la posición del byte y la regla violada
+   * @param posicion la posición del primer byte que viola el formato
+   * @param regla el número de la regla violada, como en el README
+   * @param mensaje la descripción del error
+   */
+  public ExcepcionFormatoInvalido(long posicion, int regla, String mensaje) {
+    super(String.format("El archivo es inválido (byte 0x%x, regla %d): %s",
+                        posicion, regla, mensaje));
+    this.posicion = posicion;
+    this.regla = regla;
+  }
+
+  /**
+   * Devuelve la posición del primer byte que viola el formato
+   * @return la posición del primer byte que viola el formato
+   */
+  public long getPosicion() {
+    return posicion;
+  }
+
+  /**
+   * Devuelve el número de la regla violada
+   * @return el número de la regla violada
+   */
+  public int getRegla() {
+    return regla;
+  }
+}
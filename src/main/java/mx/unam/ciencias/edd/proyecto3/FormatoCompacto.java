@@ -0,0 +1,176 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Clase para el formato compacto de archivos .mze, que empieza con MAZC. Por
+ * la regla de consistencia, la pared Oeste de cada cuarto es la Este del
+ * anterior, y la Norte es la Sur del de arriba; así que de cada cuarto sólo
+ * se guardan 6 bits: la pared Este, la Sur y el puntaje. Después del
+ * encabezado (MAZC, y el número de renglones y el de columnas en 4 bytes
+ * cada uno, del más significativo al menos significativo) van los cuartos,
+ * 8 por cada 6 bytes, del bit menos significativo al más significativo;
+ * luego las paredes Norte del primer renglón y las paredes Oeste de la
+ * primera columna, un bit por cuarto. Al leer, los cuartos se expanden y
+ * las paredes Oeste y Norte se reconstruyen de 8 en 8 cuartos con longs.
+ */
+public class FormatoCompacto {
+
+  /* Los bytes con los que empieza el archivo */
+  private static final byte[] FIRMA = { 0x4D, 0x41, 0x5A, 0x43 };
+  /* Lectura y escritura de 8 bytes como long */
+  private static final VarHandle LONGS =
+    MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle LONGS_BUFFER =
+    MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  /* El bit menos significativo de cada byte */
+  private static final long BAJOS = 0x0101010101010101L;
+  /* El byte del cuarto (sin paredes Oeste y Norte) de cada código de 6 bits */
+  private static final byte[] CUARTOS = new byte[64];
+
+  static {
+    for(int c = 0; c < 64; c++)
+      CUARTOS[c] = (byte)(((c >>> 2) << 4) | (((c >>> 1) & 1) << 3) | (c & 1));
+  }
+
+  private FormatoCompacto() {}
+
+  /**
+   * Escribe el laberinto en el formato compacto
+   * @param laberinto el laberinto
+   * @param out la salida
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public static void escribe(Laberinto laberinto, OutputStream out) throws IOException {
+    int w = laberinto.getAncho();
+    int h = laberinto.getAlto();
+    out.write(FIRMA);
+    escribeEntero(out, h);
+    escribeEntero(out, w);
+
+    byte[] norte = new byte[(w + 7) >>> 3];
+    byte[] oeste = new byte[(h + 7) >>> 3];
+    byte[] grupo = new byte[6];
+    long acumulado = 0;
+    int bits = 0;
+    int x = 0;
+    int y = 0;
+    for(Byte b : laberinto)
+    {
+      int c = b & 0xFF;
+      if(y == 0 && (c & 0b0010) != 0)
+        norte[x >>> 3] |= 1 << (x & 7);
+      if(x == 0 && (c & 0b0100) != 0)
+        oeste[y >>> 3] |= 1 << (y & 7);
+      acumulado |= (long)(((c >>> 4) << 2) | (((c >>> 3) & 1) << 1) | (c & 1)) << bits;
+      bits += 6;
+      if(bits == 48)
+      {
+        for(int i = 0; i < 6; i++)
+          grupo[i] = (byte)(acumulado >>> (8*i));
+        out.write(grupo);
+        acumulado = 0;
+        bits = 0;
+      }
+      if(++x == w)
+      {
+        x = 0;
+        y++;
+      }
+    }
+    for(int i = 0; i < bits; i += 8)
+      out.write((int)(acumulado >>> i));
+    out.write(norte);
+    out.write(oeste);
+  }
+
+  /* El número de bytes después del encabezado */
+  static long bytesDatos(int w, int h) {
+    return bytesCuartos(w, h) + ((w + 7) >>> 3) + ((h + 7) >>> 3);
+  }
+
+  /* El número de bytes de los cuartos */
+  private static long bytesCuartos(int w, int h) {
+    return (6L * w * h + 7) >>> 3;
+  }
+
+  /* Reconstruye los w*h cuartos a partir de los datos que empiezan en la
+   * posición inicio de la fuente, que debe tener bytesDatos(w, h) bytes */
+  static void decodifica(ByteBuffer fuente, int inicio, int w, int h, byte[] destino) {
+    int n = w*h;
+    int p = inicio;
+    int i = 0;
+    long anterior = 0;
+    // Se leen 8 bytes por cada 6; los 2 de más siempre existen, porque
+    // después de los cuartos van las paredes Norte y Oeste. La pared Oeste
+    // de cada cuarto es la Este del anterior, que es el byte de abajo del
+    // mismo long o el último del long anterior; la pared Norte es la Sur
+    // del cuarto de arriba, que ya se escribió si hay al menos 8 columnas
+    for(; i + 8 <= n; i += 8, p += 6)
+    {
+      long r = expande((long)LONGS_BUFFER.get(fuente, p));
+      long izquierda = (r << 8) | (anterior >>> 56);
+      anterior = r;
+      r |= (izquierda & BAJOS) << 2;
+      if(w >= 8 && i >= w)
+        r |= (((long)LONGS.get(destino, i-w) >>> 3) & BAJOS) << 1;
+      LONGS.set(destino, i, r);
+      // El long que cruza del primer renglón al segundo
+      if(w >= 8 && i < w && i+8 > w)
+        for(int j = w; j < i+8; j++)
+          destino[j] |= ((destino[j-w] >>> 3) & 1) << 1;
+    }
+    if(i < n)
+    {
+      long v = 0;
+      for(int k = 0; k < (6*(n-i) + 7) >>> 3; k++)
+        v |= (long)(fuente.get(p + k) & 0xFF) << (8*k);
+      for(int k = 0, j = i; j < n; j++, k++)
+      {
+        destino[j] = CUARTOS[(int)(v >>> (6*k)) & 0x3F];
+        if(j > 0)
+          destino[j] |= (destino[j-1] & 1) << 2;
+        if(j >= w && w >= 8)
+          destino[j] |= ((destino[j-w] >>> 3) & 1) << 1;
+      }
+    }
+    // Con menos de 8 columnas, el renglón de arriba puede estar en el mismo
+    // long; las paredes Norte se reconstruyen al final
+    if(w < 8)
+      for(int j = w; j < n; j++)
+        destino[j] |= ((destino[j-w] >>> 3) & 1) << 1;
+
+    int norte = inicio + (int)bytesCuartos(w, h);
+    int oeste = norte + ((w + 7) >>> 3);
+    for(int x = 0; x < w; x++)
+      destino[x] |= ((fuente.get(norte + (x >>> 3)) >>> (x & 7)) & 1) << 1;
+    for(int y = 0; y < h; y++)
+    {
+      int bit = (fuente.get(oeste + (y >>> 3)) >>> (y & 7)) & 1;
+      destino[y*w] = (byte)((destino[y*w] & ~0b0100) | (bit << 2));
+    }
+  }
+
+  /* Separa los 8 códigos de 6 bits de los 48 bits menos significativos en
+   * los 8 bytes de un long, partiéndolos por mitades, y los convierte en
+   * bytes de cuarto */
+  private static long expande(long v) {
+    long y = (v & 0xFFFFFFL) | ((v & 0xFFFFFF000000L) << 8);
+    y = (y & 0x00000FFF00000FFFL) | ((y & 0x00FFF00000FFF000L) << 4);
+    y = (y & 0x003F003F003F003FL) | ((y & 0x0FC00FC00FC00FC0L) << 2);
+    // El puntaje (bits 2-5) y la pared Sur (bit 1) suben dos bits; la
+    // pared Este se queda en el bit 0
+    return ((y & 0x3E3E3E3E3E3E3E3EL) << 2) | (y & BAJOS);
+  }
+
+  /* Escribe un entero en 4 bytes, del más significativo al menos */
+  private static void escribeEntero(OutputStream out, int n) throws IOException {
+    for(int i = 24; i >= 0; i -= 8)
+      out.write(n >>> i);
+  }
+}
@@ -0,0 +1,39 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Clase para escribir laberintos en el formato MAZE, o en el formato
+ * extendido MAZX si alguna de sus dimensiones no cabe en un byte
+ */
+public class FormatoMaze {
+
+  private FormatoMaze() {}
+
+  /**
+   * Escribe el laberinto, con su encabezado y sus cuartos
+   * @param laberinto el laberinto
+   * @param out la salida
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public static void escribe(Laberinto laberinto, OutputStream out) throws IOException {
+    out.write(encabezado(laberinto.getAncho(), laberinto.getAlto()));
+    for(Byte b : laberinto)
+      out.write(b.byteValue());
+  }
+
+  /* El encabezado del archivo: MAZE con las dimensiones en un byte si
+   * caben, o MAZX con las dimensiones en 4 bytes */
+  private static byte[] encabezado(int w, int h) {
+    if(w <= 255 && h <= 255)
+      return new byte[] { 0x4D, 0x41, 0x5A, 0x45, (byte)h, (byte)w };
+    byte[] e = { 0x4D, 0x41, 0x5A, 0x58, 0, 0, 0, 0, 0, 0, 0, 0 };
+    for(int i = 0; i < 4; i++)
+    {
+      e[4 + i] = (byte)(h >>> (24 - 8*i));
+      e[8 + i] = (byte)(w >>> (24 - 8*i));
+    }
+    return e;
+  }
+}
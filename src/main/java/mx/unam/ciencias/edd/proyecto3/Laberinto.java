@@ -1,243 +1,316 @@
 package mx.unam.ciencias.edd.proyecto3;
 
+import mx.unam.ciencias.edd.ConstructorGrafica;
 import mx.unam.ciencias.edd.Grafica;
-import mx.unam.ciencias.edd.IteradorLista;
 import mx.unam.ciencias.edd.Lista;
 import mx.unam.ciencias.edd.VerticeGrafica;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.Random;
 
 public class Laberinto implements Iterable<Byte> {
+
+  // El número máximo de cuartos, para que los índices y los buffers de los
+  // cuartos quepan en un int
+  public static final int MAXIMO_CUARTOS = 1 << 30;
   
   private Random r;
-  private byte width;
-  private byte height;
-  private byte[][] casillas;
-  private Lista<Integer> visitadas = new Lista<Integer>();
+  private int width;
+  private int height;
+  // Los cuartos, renglón por renglón a partir de inicio; puede ser un
+  // buffer de sólo lectura, que se copia la primera vez que se escribe
+  private ByteBuffer casillas;
+  private int inicio;
+  // Los cuartos visitados por el generador, como lista doblemente ligada
+  // sobre arreglos: el siguiente y el anterior de cada cuarto, o -1
+  private int[] siguienteVisitada;
+  private int[] anteriorVisitada;
+  private int primeraVisitada = -1;
+  private int ultimaVisitada = -1;
+  // Los cuartos que el generador puede escoger al azar, en el orden en que
+  // se agregaron: un árbol de Fenwick marca las posiciones que siguen
+  // vivas, para encontrar la i-ésima y eliminar en tiempo logarítmico
   private int[] visitadasRandom;
+  private int[] posicionRandom;
+  private int[] arbolRandom;
+  private int visitadasRandomAgregadas = 0;
   private int visitadasRandomElementos = 0;
   private int entrada = -1;
   private int salida = -1;
+  // Los corredores de la gráfica contraída: sus extremos (y*w+x), el rango
+  // de sus cuartos escondidos en ocultos, y su peso
+  private int[] ocultos;
+  private int[] corredorOrigen;
+  private int[] corredorDestino;
+  private int[] corredorInicio;
+  private int[] corredorFin;
+  private double[] corredorPeso;
+  // El primer corredor que sale de cada cuarto
+  private int[] primerCorredor;
+  private int corredores;
+  private double reduccion;
 
   private class Iterador implements Iterator<Byte> {
     private int i = 0;
-    private int j = 0;
 
     @Override public boolean hasNext() {
-      return i < toUnsignedByte(height) && j < toUnsignedByte(width);
+      return i < width*height;
     }
 
     @Override public Byte next() {
-      byte e = casillas[i][j++];
-      if (j >= toUnsignedByte(width)) {
-        j = 0;
-        i++;
-      }
-      return Byte.valueOf(e);
+      return Byte.valueOf(casilla(i++));
     }
   }
 
   public Laberinto(long semilla, int w, int h) {
-    if (w < 2 || w > 255)
-      throw new IllegalArgumentException("El ancho debe ser mayor a 2 y menor a 255");
-    
-    if (h < 2 || h > 255)
-      throw new IllegalArgumentException("El alto debe ser mayor a 2 y menor a 255");
-
+    verificaDimensiones(w, h);
     r = new Random(semilla);
-    width = toByte(w);
-    height = toByte(h);
-    // System.out.println("w: "+toUnsignedByte(width)+" h: "+toUnsignedByte(height));
-    casillas = new byte[toUnsignedByte(height)][toUnsignedByte(width)];
-    for(int i = 0; i < toUnsignedByte(height); i++)
-    {
-      for(int j = 0; j < toUnsignedByte(width); j++)
-      {
-        casillas[i][j] = (byte)0xFF;
-      }
-    }
+    width = w;
+    height = h;
+    casillas = ByteBuffer.allocate(w*h);
+    for(int i = 0; i < w*h; i++)
+      casillas.put(i, (byte)0xFF);
     generar();
   }
 
   public Laberinto(int w, int h, byte[][] c) {
-    if (w < 2 || w > 255)
-      throw new IllegalArgumentException("El ancho debe ser mayor a 2 y menor a 255");
-    
-    if (h < 2 || h > 255)
-      throw new IllegalArgumentException("El alto debe ser mayor a 2 y menor a 255");
-
-    width = toByte(w);
-    height = toByte(h);
+    verificaDimensiones(w, h);
+    width = w;
+    height = h;
+    casillas = ByteBuffer.allocate(w*h);
+    for(int i = 0; i < h; i++)
+      casillas.put(c[i], 0, w);
+  }
+
+  // Usa los cuartos del buffer desde su posición, sin copiarlos
+  public Laberinto(int w, int h, ByteBuffer c) {
+    verificaDimensiones(w, h);
+    if (c.remaining() < w*h)
+      throw new IllegalArgumentException("Faltan cuartos en el buffer");
+
+    width = w;
+    height = h;
     casillas = c;
+    inicio = c.position();
+  }
+
+  private static void verificaDimensiones(int w, int h) {
+    if (w < 2 || h < 2)
+      throw new IllegalArgumentException("El ancho y el alto deben ser mayores o iguales a 2");
+
+    if ((long)w * h > MAXIMO_CUARTOS)
+      throw new IllegalArgumentException("El laberinto no puede tener más de "+MAXIMO_CUARTOS+" cuartos");
   }
 
   public void generar() {
-    visitadasRandom = new int[toUnsignedByte(width)*toUnsignedByte(height)+1];
-    int inicial = par(randX(), randY());
-    // System.out.println("Par: "+inicial);
-    // System.out.println("Casilla inicial x: "+toUnsignedByte(getX(inicial))+" y: "+toUnsignedByte(getY(inicial)));
-    visitadas.agregaInicio(inicial);
-    setValor(getX(inicial), getY(inicial), toByte(0));
-    while (!visitadas.esVacia()) {
+    int n = width*height;
+    siguienteVisitada = new int[n];
+    anteriorVisitada = new int[n];
+    visitadasRandom = new int[n];
+    posicionRandom = new int[n];
+    arbolRandom = new int[n+1];
+    for(int i = 0; i < n; i++)
+      posicionRandom[i] = -1;
+    int inicial = indice(randX(), randY());
+    agregaVisitada(inicial);
+    setValor(inicial, 0);
+    int[] vecinos = new int[4];
+    int[] direccionesValidas = new int[4];
+    while (primeraVisitada != -1) {
       int actual = siguiente();
-      // System.out.println("Actual: x: "+getX(actual)+" y: "+getY(actual));
-      int[] vecinos = new int[4];
-      Lista<Integer> direccionesValidas = new Lista<Integer>();
+      int validas = 0;
       for(int i = 0; i < 4; i++)
       {
         int vecino = getVecino(actual, i);
         vecinos[i] = vecino;
-        if(vecino != -1 && valor(getCasilla(getX(vecino), getY(vecino))) == 15) // Es una casilla válida y no ha sido visitada
-          direccionesValidas.agrega(i);
+        if(vecino != -1 && valor(casilla(vecino)) == 15) // Es una casilla válida y no ha sido visitada
+          direccionesValidas[validas++] = i;
       }
-      // System.out.println("Direcciones válidas: "+direccionesValidas.toString());
-      if(direccionesValidas.esVacia())
+      if(validas == 0)
       {
-        // System.out.println("No hay vecinos válidos");
-        visitadas.elimina(actual);
+        eliminaVisitada(actual);
         eliminarVisitadasRandom(actual);
         continue;
       }
-      int i = r.nextInt(direccionesValidas.getLongitud());
-      int d = direccionesValidas.get(i);
+      int i = r.nextInt(validas);
+      int d = direccionesValidas[i];
       int vecinorandom = vecinos[d];
-      tiraMuro(getX(actual), getY(actual), d);
-      tiraMuro(getX(vecinorandom), getY(vecinorandom), direccionOpuesta(d));
-      visitadas.agregaInicio(vecinorandom);
-      // System.out.println("Vecino random x: "+getX(vecinorandom)+" y: "+getY(vecinorandom));
-      setValor(getX(vecinorandom), getY(vecinorandom), toByte(0));
-      setValor(getX(actual), getY(actual), toByte(0));
-      visitadasRandom[visitadasRandomElementos++] = vecinorandom;
-    }
-
-    for(int i = 0; i < toUnsignedByte(height); i++)
-    {
-      for(int j = 0; j < toUnsignedByte(width); j++)
-      {
-        setValor((byte)j, (byte)i, (byte)r.nextInt(16));
-      }
+      tiraMuro(actual, d);
+      tiraMuro(vecinorandom, direccionOpuesta(d));
+      agregaVisitada(vecinorandom);
+      setValor(vecinorandom, 0);
+      setValor(actual, 0);
+      agregaVisitadasRandom(vecinorandom);
     }
+    siguienteVisitada = anteriorVisitada = null;
+    visitadasRandom = posicionRandom = arbolRandom = null;
 
-    int entrada = r.nextInt(toUnsignedByte(height));
-    int salida = r.nextInt(toUnsignedByte(height));
+    for(int i = 0; i < n; i++)
+      setValor(i, r.nextInt(16));
 
-    tiraMuro((byte)0, (byte)entrada, 2);
-    tiraMuro((byte)(width-1), (byte)salida, 0);
+    int entrada = r.nextInt(height);
+    int salida = r.nextInt(height);
 
-    entrada = par((byte)0, (byte)entrada);
-    salida = par((byte)(width-1), (byte)salida);
+    tiraMuro(indice(0, entrada), 2);
+    tiraMuro(indice(width-1, salida), 0);
   }
   
   private int valor(byte c) {
-    // System.out.println("valor de: "+toUnsignedByte(c)+" v: "+((int)(toUnsignedByte(c) >> 4)));
-    return (int)((int)toUnsignedByte(c) >> 4);
+    return (c & 0xFF) >> 4;
   }
 
-  private byte toByte(int n) {
-    return (byte)(n & 0xFF);
+  int indice(int x, int y) {
+    return y*width + x;
   }
 
-  private short toUnsignedByte(byte b) {
-    return (short)(((short)b) & 0xFF); 
+  private int randX() {
+    return r.nextInt(width);
   }
 
-  private int par(byte x, byte y)
-  {
-    short ux = toUnsignedByte(x);
-    short uy = toUnsignedByte(y);
-    // System.out.println("par: "+((ux << 8) | uy));
-    return (int)((ux << 8) | uy);
+  private int randY() {
+    return r.nextInt(height);
   }
 
-  private byte randX() {
-    return toByte(r.nextInt(toUnsignedByte(width)));
+  int getX(int c) {
+    return c % width;
   }
 
-  private byte randY() {
-    return toByte(r.nextInt(toUnsignedByte(height)));
+  int getY(int c) {
+    return c / width;
   }
 
-  private byte getX(int par) {
-    // System.out.println("getx >> 8: "+(par >> 8));
-    // System.out.println("getx tobyte: "+toByte(par >> 8));
-    return toByte(par >> 8);
+  private byte casilla(int x, int y) {
+    return casillas.get(inicio + y*width + x);
+  }
+
+  private byte casilla(int c) {
+    return casillas.get(inicio + c);
+  }
+
+  private void ponCasilla(int c, byte b) {
+    if(casillas.isReadOnly())
+    {
+      ByteBuffer copia = ByteBuffer.allocate(width*height);
+      copia.put(casillas.duplicate().position(inicio).limit(inicio + copia.capacity()));
+      casillas = copia;
+      inicio = 0;
+    }
+    casillas.put(inicio + c, b);
   }
 
-  private byte getY(int par) {
-    return toByte(par & 0xFF);
+  // Agrega el cuarto al inicio de la lista de visitadas
+  private void agregaVisitada(int c) {
+    anteriorVisitada[c] = -1;
+    siguienteVisitada[c] = primeraVisitada;
+    if(primeraVisitada != -1)
+      anteriorVisitada[primeraVisitada] = c;
+    else
+      ultimaVisitada = c;
+    primeraVisitada = c;
   }
 
-  private byte getCasilla(byte x, byte y) {
-    return casillas[toUnsignedByte(y)][toUnsignedByte(x)];
+  private void eliminaVisitada(int c) {
+    if(anteriorVisitada[c] != -1)
+      siguienteVisitada[anteriorVisitada[c]] = siguienteVisitada[c];
+    else
+      primeraVisitada = siguienteVisitada[c];
+    if(siguienteVisitada[c] != -1)
+      anteriorVisitada[siguienteVisitada[c]] = anteriorVisitada[c];
+    else
+      ultimaVisitada = anteriorVisitada[c];
   }
 
   private int siguiente() {
     int c = r.nextInt(100);
     if (c < 25) // Random
     {
-      // System.out.println("Escogiendo casilla al azar");
       if(visitadasRandomElementos <= 0)
-        return visitadas.getUltimo();
+        return ultimaVisitada;
       
       int i = r.nextInt(visitadasRandomElementos);
-      // System.out.println("l: "+visitadasRandomElementos+" i: "+i);
-      return visitadasRandom[i];
+      return visitadasRandom[iesimaRandom(i)];
     } else { // Más reciente
-      // System.out.println("Escogiendo casilla más reciente");
-      return visitadas.getPrimero();
+      return primeraVisitada;
     }
   }
 
+  private void agregaVisitadasRandom(int e) {
+    int p = visitadasRandomAgregadas++;
+    visitadasRandom[p] = e;
+    posicionRandom[e] = p;
+    actualizaRandom(p, 1);
+    visitadasRandomElementos++;
+  }
+
   private void eliminarVisitadasRandom(int e) {
-    for(int i = 0; i < visitadasRandomElementos; i++)
+    int p = posicionRandom[e];
+    if(p == -1)
+      return;
+    posicionRandom[e] = -1;
+    actualizaRandom(p, -1);
+    visitadasRandomElementos--;
+  }
+
+  private void actualizaRandom(int p, int d) {
+    for(int i = p+1; i < arbolRandom.length; i += i & -i)
+      arbolRandom[i] += d;
+  }
+
+  // La posición de la i-ésima visitada que sigue viva, bajando por el árbol
+  // de Fenwick
+  private int iesimaRandom(int i) {
+    int p = 0;
+    int resto = i+1;
+    for(int paso = Integer.highestOneBit(arbolRandom.length-1); paso > 0; paso >>= 1)
     {
-      if(visitadasRandom[i] == e)
+      if(p + paso < arbolRandom.length && arbolRandom[p + paso] < resto)
       {
-        for(int j = i+1; j < visitadasRandomElementos; j++)
-        {
-          visitadasRandom[j-1] = visitadasRandom[j];
-        }
-        visitadasRandomElementos--;
-        break;
+        p += paso;
+        resto -= arbolRandom[p];
       }
     }
+    return p;
   }
 
-  private int getVecino(int par, int d) {
+  private int getVecino(int c, int d) {
     if (d == 0) { // E
-      if(getX(par) == width-1)
+      if(getX(c) == width-1)
         return -1;
-      return par(toByte(getX(par)+1), getY(par));
+      return c+1;
     } else if (d == 1) { // N
-      if(getY(par) == 0)
+      if(getY(c) == 0)
         return -1;
-      return par(getX(par), toByte(getY(par)-1));
+      return c-width;
     } else if (d == 2) { // O
-      if(getX(par) == 0)
+      if(getX(c) == 0)
         return -1;
-      return par(toByte(getX(par)-1), getY(par));
+      return c-1;
     } else if (d == 3) { // S
-      if(getY(par) == height-1)
+      if(getY(c) == height-1)
         return -1;
-      return par(getX(par), toByte(getY(par)+1));
+      return c+width;
     }
     return -1;
   }
 
-  private void setValor(byte x, byte y, byte v) {
-    casillas[toUnsignedByte(y)][toUnsignedByte(x)] = toByte(((v & 0xF) << 4) | (casillas[toUnsignedByte(y)][toUnsignedByte(x)] & 0xF));
+  private void setValor(int c, int v) {
+    ponCasilla(c, (byte)(((v & 0xF) << 4) | (casilla(c) & 0xF)));
   }
 
-  private void tiraMuro(byte x, byte y, int d) {
+  private void tiraMuro(int c, int d) {
+    byte b = casilla(c);
     if (d == 0) {
-      casillas[toUnsignedByte(y)][toUnsignedByte(x)] &= 0xFE; // casilla & 1111 1110
+      ponCasilla(c, (byte)(b & 0xFE)); // casilla & 1111 1110
     } else if (d == 1) {
-      casillas[toUnsignedByte(y)][toUnsignedByte(x)] &= 0xFD; // casilla & 1111 1101
+      ponCasilla(c, (byte)(b & 0xFD)); // casilla & 1111 1101
     } else if (d == 2) {
-      casillas[toUnsignedByte(y)][toUnsignedByte(x)] &= 0xFB; // casilla & 1111 1011
+      ponCasilla(c, (byte)(b & 0xFB)); // casilla & 1111 1011
     } else if (d == 3) {
-      casillas[toUnsignedByte(y)][toUnsignedByte(x)] &= 0xF7; // casilla & 1111 0111
+      ponCasilla(c, (byte)(b & 0xF7)); // casilla & 1111 0111
     }
   }
 
@@ -249,159 +322,299 @@ public class Laberinto implements Iterable<Byte> {
     return new Iterador();
   }
 
-  private Grafica<Integer> grafica() {
-    Grafica<Integer> g = new Grafica<Integer>();
-    for(int i = 0; i < toUnsignedByte(height); i++)
+  int getAncho() {
+    return width;
+  }
+
+  int getAlto() {
+    return height;
+  }
+
+  int puntaje(int x, int y) {
+    return valor(casilla(x, y));
+  }
+
+  byte getCasilla(int x, int y) {
+    return casilla(x, y);
+  }
+
+  void setCasilla(int x, int y, byte c) {
+    ponCasilla(indice(x, y), c);
+  }
+
+  // Una puerta está abierta si cualquiera de los dos cuartos no tiene muro
+  boolean abiertaEste(int x, int y) {
+    return (casilla(x, y) & 0b0001) == 0b0000 || (casilla(x+1, y) & 0b0100) == 0b0000;
+  }
+
+  boolean abiertaSur(int x, int y) {
+    return (casilla(x, y) & 0b1000) == 0b0000 || (casilla(x, y+1) & 0b0010) == 0b0000;
+  }
+
+  // El lado (0 Este, 1 Norte, 2 Oeste, 3 Sur) en el que el cuarto tiene una
+  // puerta hacia afuera del laberinto, o -1
+  int ladoAbierto(int x, int y) {
+    int w = width;
+    int h = height;
+    byte c = casilla(x, y);
+    if(x == 0 && (c & 0b0100) == 0b0000)
+      return 2;
+    if(x == w-1 && (c & 0b0001) == 0b0000)
+      return 0;
+    if(y == 0 && (c & 0b0010) == 0b0000)
+      return 1;
+    if(y == h-1 && (c & 0b1000) == 0b0000)
+      return 3;
+    return -1;
+  }
+
+  // El n-ésimo cuarto frontera con una puerta hacia afuera, en el orden de
+  // los bytes del archivo, o -1
+  private int abertura(int n) {
+    int w = width;
+    int h = height;
+    for(int i = 0; i < h; i++)
     {
-      for(int j = 0; j < toUnsignedByte(width); j++)
+      for(int j = 0; j < w; j++)
       {
-        g.agrega(par((byte)j, (byte)i));
+        if(ladoAbierto(j, i) != -1 && n-- == 0)
+          return indice(j, i);
+        // En los renglones de en medio sólo las orillas son frontera
+        if(i > 0 && i < h-1 && j == 0)
+          j = w-2;
       }
     }
-    for(int i = 0; i < toUnsignedByte(height); i++)
-    {
-      for(int j = 0; j < toUnsignedByte(width); j++)
-      {
-        byte c1 = getCasilla((byte)j, (byte)i);
-        if((c1 & 0b0001) == 0b0000)
-        {
-          if(j < width-1)
-          {
-            byte c2 = getCasilla((byte)(j+1), (byte)i);
-            try{
-              g.conecta(par((byte)j, (byte)i), par((byte)(j+1), (byte)i), valor(c1)+valor(c2)+1);
-            }catch(Exception e){
-
-            }
-          }else{
-            salida = par((byte)j, (byte)i);
-          }
-        }
-        if((c1 & 0b0010) == 0b0000 && i > 0)
-        {
-          byte c2 = getCasilla((byte)j, (byte)(i-1));
-          try{
-            g.conecta(par((byte)j, (byte)i), par((byte)j, (byte)(i-1)), valor(c1)+valor(c2)+1);
-          }catch(Exception e){
+    return -1;
+  }
 
-          }
-        }
-        if((c1 & 0b0100) == 0b0000)
-        {
-          if(j > 0)
-          {
-            byte c2 = getCasilla((byte)(j-1), (byte)i);
-            try{
-              g.conecta(par((byte)j, (byte)i), par((byte)(j-1), (byte)i), valor(c1)+valor(c2)+1);
-            }catch(Exception e){
-
-            }
-          }else{
-            entrada = par((byte)j, (byte)i);
-          }
-        }
-        if((c1 & 0b1000) == 0b0000 && i < height-1)
-        {
-          byte c2 = getCasilla((byte)j, (byte)(i+1));
-          try{
-            g.conecta(par((byte)j, (byte)i), par((byte)j, (byte)(i+1)), valor(c1)+valor(c2)+1);
-          }catch(Exception e){
+  // La entrada es la primera abertura en el orden del archivo, o -1
+  int getEntrada() {
+    return abertura(0);
+  }
 
-          }
-        }
-      }
-    }
-    return g;
+  // La salida es la segunda abertura en el orden del archivo, o -1
+  int getSalida() {
+    return abertura(1);
   }
 
-  public Lista<VerticeGrafica<Integer>> resuelve() {
-    Grafica<Integer> g = grafica();
-    return g.dijkstra(entrada, salida);
+  // Llena v con los cuartos (y*w+x) a los que hay puerta desde c y
+  // regresa cuántos son
+  private int vecinos(int c, int[] v) {
+    int w = width;
+    int h = height;
+    int x = c % w;
+    int y = c / w;
+    int n = 0;
+    if(x < w-1 && abiertaEste(x, y))
+      v[n++] = c+1;
+    if(y > 0 && abiertaSur(x, y-1))
+      v[n++] = c-w;
+    if(x > 0 && abiertaEste(x-1, y))
+      v[n++] = c-1;
+    if(y < h-1 && abiertaSur(x, y))
+      v[n++] = c+w;
+    return n;
   }
 
-  public String toSVG() {
-    StringBuilder s = new StringBuilder();
-    s.append("<svg version='1.1' width='"+(toUnsignedByte(width)*10 + 4)+"' height='"+(toUnsignedByte(height)*10 + 4)+"'>\n");
-    s.append("\t<rect x='2' y='2' width='"+(toUnsignedByte(width)*10)+"' height='"+(toUnsignedByte(height)*10)+"' fill='white' />\n");
-    s.append("\t<!-- Lineas horizontales -->\n");
-    for(int i = 0; i < toUnsignedByte(height); i++)
+  // La gráfica contraída: los cuartos con exactamente dos puertas (que no
+  // son la entrada ni la salida) se esconden en el corredor que los
+  // contiene, y cada corredor entre cruces o callejones es una sola arista.
+  // Con el costo de dijkstraVertices (1 por puerta más los puntajes de sus
+  // dos cuartos), cruzar un corredor de k cuartos escondidos cuesta k+1 más
+  // dos veces sus puntajes, más los puntajes de sus extremos, que son los
+  // pesos de sus vértices.
+  private Grafica<Integer> grafica() {
+    int w = width;
+    int h = height;
+    entrada = getEntrada();
+    salida = getSalida();
+    int[] v = new int[4];
+    boolean[] esVertice = new boolean[w*h];
+    ConstructorGrafica<Integer> c = new ConstructorGrafica<Integer>(w*h/2, w*h/2);
+    int[] vertice = new int[w*h];
+    // Cada corredor guardado ocupa una puerta de cada uno de sus dos
+    // extremos, así que hay a lo más la mitad de las puertas de los
+    // vértices; con ciclos pueden ser más que los cuartos
+    long puertas = 0;
+    for(int i = 0; i < w*h; i++)
     {
-      int ini = 0;
-      int fin;
-      for(int j = 0; j <= toUnsignedByte(width); j++)
+      int grado = vecinos(i, v);
+      esVertice[i] = grado != 2;
+      if(esVertice[i])
       {
-        if(j == toUnsignedByte(width) || (casillas[i][j] & 0b0010) == 0b0000)
-        {
-          fin = j;
-          if(ini != j)
-            s.append("\t<line x1='"+(2 + ini*10)+"' y1='"+(2 + i*10)+"' x2='"+(2 + fin*10)+"' y2='"+(2 + i*10)+"' stroke='black' />\n");
-          ini = j+1;
-        }
+        vertice[i] = c.agrega(i, valor(casilla(i)));
+        puertas += grado;
       }
     }
-    int i = toUnsignedByte(height)-1;
-    int ini = 0;
-    int fin;
-    for(int j = 0; j <= toUnsignedByte(width); j++)
+    for(int e : new int[] { entrada, salida })
     {
-      if(j == toUnsignedByte(width) || (casillas[i][j] & 0b1000) == 0b0000)
+      if(e != -1 && !esVertice[e])
       {
-        fin = j;
-        if(ini != j)
-          s.append("\t<line x1='"+(2 + ini*10)+"' y1='"+(2 + (i+1)*10)+"' x2='"+(2 + fin*10)+"' y2='"+(2 + (i+1)*10)+"' stroke='black' />\n");
-        ini = j+1;
+        esVertice[e] = true;
+        vertice[e] = c.agrega(e, valor(casilla(e)));
+        puertas += 2;
       }
     }
-    s.append("\t<!-- Lineas verticales -->\n");
-    for(int j = 0; j < toUnsignedByte(width); j++)
+
+    ocultos = new int[w*h];
+    int numOcultos = 0;
+    int maximo = (int)(puertas / 2);
+    corredorOrigen = new int[maximo];
+    corredorDestino = new int[maximo];
+    corredorInicio = new int[maximo];
+    corredorFin = new int[maximo];
+    corredorPeso = new double[maximo];
+    primerCorredor = new int[w*h];
+    corredores = 0;
+    int[] u = new int[4];
+    for(int a = 0; a < w*h; a++)
     {
-      ini = 0;
-      fin = -1;
-      for(i = 0; i <= toUnsignedByte(height); i++)
+      primerCorredor[a] = corredores;
+      if(!esVertice[a])
+        continue;
+      int n = vecinos(a, v);
+      for(int k = 0; k < n; k++)
       {
-        if(i == toUnsignedByte(height) || (casillas[i][j] & 0b0100) == 0b0000 )
+        // Se recorre el corredor hasta el siguiente vértice
+        int inicio = numOcultos;
+        double peso = 1;
+        int anterior = a;
+        int actual = v[k];
+        // Los cuartos de un corredor que se va a descartar pueden no caber
+        // detrás de los ya guardados; los guardados nunca llenan el arreglo,
+        // porque cada cuarto oculto está en un solo corredor
+        while(!esVertice[actual])
+        {
+          if(numOcultos < ocultos.length)
+            ocultos[numOcultos] = actual;
+          numOcultos++;
+          peso += 1 + 2 * valor(casilla(actual));
+          vecinos(actual, u);
+          int siguiente = u[0] == anterior ? u[1] : u[0];
+          anterior = actual;
+          actual = siguiente;
+        }
+        // Cada corredor se encuentra desde sus dos extremos y se guarda desde
+        // el menor; si hay varios entre los mismos extremos, todos salen del
+        // mismo cuarto y se queda el más ligero
+        int b = actual;
+        int repetido = -1;
+        for(int i = primerCorredor[a]; i < corredores; i++)
+          if(corredorDestino[i] == b)
+            repetido = i;
+        if(b <= a || (repetido != -1 && corredorPeso[repetido] <= peso))
         {
-          fin = i;
-          if(ini != i)
-            s.append("\t<line x1='"+(2 + j*10)+"' y1='"+(2 + ini*10)+"' x2='"+(2 + j*10)+"' y2='"+(2 + fin*10)+"' stroke='black' />\n");
-          ini = i+1;
+          numOcultos = inicio;
+          continue;
         }
+        int i = repetido != -1 ? repetido : corredores++;
+        corredorOrigen[i] = a;
+        corredorDestino[i] = b;
+        corredorInicio[i] = inicio;
+        corredorFin[i] = numOcultos;
+        corredorPeso[i] = peso;
       }
     }
-    int j = toUnsignedByte(width)-1;
-    ini = 0;
-    fin = -1;
-    for(i = 0; i <= toUnsignedByte(height); i++)
+    for(int i = 0; i < corredores; i++)
+      c.conecta(vertice[corredorOrigen[i]], vertice[corredorDestino[i]], corredorPeso[i]);
+
+    Grafica<Integer> g = c.construye();
+    reduccion = 1 - (double)g.getElementos() / (w*h);
+    return g;
+  }
+
+  // El corredor guardado entre los cuartos a y b
+  private int corredor(int a, int b) {
+    int o = Math.min(a, b);
+    int d = Math.max(a, b);
+    int i = primerCorredor[o];
+    while(corredorDestino[i] != d)
+      i++;
+    return i;
+  }
+
+  /**
+   * Resuelve el laberinto sobre la gráfica contraída y expande los
+   * corredores de la ruta
+   * @return los cuartos de la ruta de la entrada a la salida, como índices
+   *         y*w+x
+   * @throws NoSuchElementException si el laberinto no tiene entrada o salida
+   */
+  public int[] resuelve() {
+    int w = width;
+    Grafica<Integer> g = grafica();
+    Lista<VerticeGrafica<Integer>> ruta = g.dijkstraVertices(entrada, salida);
+    Lista<Integer> cuartos = new Lista<Integer>();
+    int anterior = -1;
+    for(VerticeGrafica<Integer> v : ruta)
     {
-      if(i == toUnsignedByte(height) || (casillas[i][j] & 0b0001) == 0b0000 )
+      int actual = v.get();
+      if(anterior != -1)
       {
-        fin = i;
-        if(ini != i)
-          s.append("\t<line x1='"+(2 + (j+1)*10)+"' y1='"+(2 + ini*10)+"' x2='"+(2 + (j+1)*10)+"' y2='"+(2 + fin*10)+"' stroke='black' />\n");
-        ini = i+1;
+        int k = corredor(anterior, actual);
+        if(corredorOrigen[k] == anterior)
+          for(int i = corredorInicio[k]; i < corredorFin[k]; i++)
+            cuartos.agrega(ocultos[i]);
+        else
+          for(int i = corredorFin[k]-1; i >= corredorInicio[k]; i--)
+            cuartos.agrega(ocultos[i]);
       }
+      cuartos.agrega(actual);
+      anterior = actual;
     }
-    s.append("\t<!-- Solución -->\n");
-    Lista<VerticeGrafica<Integer>> p = resuelve();
-    IteradorLista<VerticeGrafica<Integer>> it = p.iteradorLista();
-    i = 0;
-    int[] sol = new int[p.getElementos()];
-    while(it.hasNext())
-      sol[i++] = it.next().get();
-    if(sol.length > 0)
-      s.append("\t<line x1='"+(2)+"' y1='"+(toUnsignedByte(getY(sol[0]))*10 + 5 + 2)+"' x2='"+(toUnsignedByte(getX(sol[0]))*10 + 5 + 2)+"' y2='"+(toUnsignedByte(getY(sol[0]))*10 + 5 + 2)+"'  stroke='green' />\n");
-    for(i = 0; i < sol.length; i++)
-    {
-      int n = sol[i];
-      if(i < sol.length-1)
-      {
-        int n2 = sol[i+1];
-       s.append("\t<line x1='"+(toUnsignedByte(getX(n))*10 + 5 + 2)+"' y1='"+(toUnsignedByte(getY(n))*10 + 5 + 2)+"' x2='"+(toUnsignedByte(getX(n2))*10 + 5 + 2)+"' y2='"+(toUnsignedByte(getY(n2))*10 + 5 + 2)+"'  stroke='green' />\n");
-      }
+    int[] sol = new int[cuartos.getElementos()];
+    int i = 0;
+    for(Integer c : cuartos)
+      sol[i++] = c;
+    return sol;
+  }
+
+  /**
+   * Devuelve la fracción de cuartos que la última resolución escondió en
+   * corredores, en lugar de buscarlos como vértices
+   * @return la fracción de cuartos escondidos en corredores
+   */
+  public double getReduccion() {
+    return reduccion;
+  }
+
+  /**
+   * Resuelve el laberinto y regresa el SVG con la solución; para
+   * laberintos grandes conviene más {@link #escribeSVG}
+   * @return el SVG con la solución
+   */
+  public String toSVG() {
+    StringWriter s = new StringWriter();
+    try {
+      escribeSVG(s);
+    } catch(IOException ioe) {
+      // StringWriter no lanza IOException
+      throw new IllegalStateException(ioe);
     }
-    if(sol.length > 0)
-      s.append("\t<line x1='"+(toUnsignedByte(getX(sol[sol.length-1]))*10 + 5 + 2)+"' y1='"+(toUnsignedByte(getY(sol[sol.length-1]))*10 + 5 + 2)+"' x2='"+(toUnsignedByte(getX(sol[sol.length-1]))*10 + 10 + 2)+"' y2='"+(toUnsignedByte(getY(sol[sol.length-1]))*10 + 5 + 2)+"'  stroke='green' />\n");
-    s.append("</svg>");
     return s.toString();
   }
-}
\ No newline at end of file
+
+  /**
+   * Resuelve el laberinto y escribe el SVG con la solución conforme se
+   * genera, sin guardarlo en memoria; la salida no se cierra
+   * @param out la salida
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public void escribeSVG(Writer out) throws IOException {
+    escribeSVG(out, false);
+  }
+
+  /**
+   * Resuelve el laberinto y escribe el SVG con la solución conforme se
+   * genera, sin guardarlo en memoria; la salida no se cierra
+   * @param out la salida
+   * @param trazos si todas las paredes van en un solo elemento path y la
+   *        solución en un solo elemento polyline, en lugar de un elemento
+   *        line por cada tramo
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public void escribeSVG(Writer out, boolean trazos) throws IOException {
+    new RenderizadorSVG(trazos).dibuja(this, resuelve(), out);
+  }
+
+}
@@ -2,20 +2,62 @@ package mx.unam.ciencias.edd.proyecto3;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Proyecto3
  */
 public class Proyecto3 {
 
+  /* La línea que sigue a cada solución al resolver varios laberintos de la
+   * entrada estándar */
+  private static final String SEPARADOR = "\f";
+  /* Los primeros dos bytes de un archivo gzip */
+  private static final int GZIP_1 = 0x1F;
+  private static final int GZIP_2 = 0x8B;
+  /* El tamaño de los buffers de compresión */
+  private static final int BUFFER = 1 << 16;
+
   public static void uso() {
-    System.out.println("Uso:\njava -jar target/proyecto3.jar -g -s [semilla] -w <alto> -h <ancho> > <archivo>.mze\n"
-                      + "java -jar target/proyecto3.jar < <archivo>.mze > solucion.svg");
+    System.out.println("Uso:\njava -jar target/proyecto3.jar -g [-c] [-z] -s [semilla] -w <alto> -h <ancho> > <archivo>.mze\n"
+                      + "java -jar target/proyecto3.jar -g [-c] -n <registros> -s [semilla] -w <alto> -h <ancho> > <archivo>.mzr\n"
+                      + "java -jar target/proyecto3.jar [-z] [-j <lado>] [-f svg|trazos|png|pbm|pgm] < <archivo>.mze[.gz] > solucion.svg[z]\n"
+                      + "java -jar target/proyecto3.jar -m [-p] [-o <prefijo>] < <archivos>.mze (varios laberintos seguidos)\n"
+                      + "java -jar target/proyecto3.jar <archivo>.mze... (con varios archivos, cada solución va a <archivo>.svg)\n"
+                      + "java -jar target/proyecto3.jar -k <registro> <archivo>.mzr...\n"
+                      + "java -jar target/proyecto3.jar -d <socket> (servidor)\n"
+                      + "java -jar target/proyecto3.jar -u <socket> [-r] [<archivo>.mze...] (cliente)");
     System.exit(1);
   }
 
   public static void main(String[] args) {
+    // Sin pantalla; las imágenes sólo se dibujan en memoria
+    if(System.getProperty("java.awt.headless") == null)
+      System.setProperty("java.awt.headless", "true");
     Argumentos a = null;
     try {
       a = new Argumentos(args);
@@ -23,8 +65,11 @@ public class Proyecto3 {
       System.err.println(e);
       uso();
     }
+    // Con varios archivos o con -o, las soluciones no van a la salida
+    // estándar
+    if (a.getComprimir() && a.getArchivos().getLongitud() <= 1 && a.getPrefijo() == null)
+      comprimeSalida();
 
-    byte[] maze = { 0x4D, 0x41, 0x5A, 0x45 };
     if (a.getGenerar()) {
       Laberinto l = null;
       try{
@@ -36,69 +81,384 @@ public class Proyecto3 {
       // System.out.println("Laberinto de "+a.getAlto()+"x"+a.getAncho()+" con semilla "+a.getSemilla());
       BufferedOutputStream out = new BufferedOutputStream(System.out);
       try{
-        out.write(maze);
-        out.write(a.getAlto());
-        out.write(a.getAncho());
-        out.flush();
+        if (a.getRegistros() > 0) {
+          // El registro i usa la semilla + i, para poder regenerarlo solo
+          EscritorContenedor contenedor = new EscritorContenedor(out);
+          contenedor.agrega(l, a.getCompacto());
+          for(int i = 1; i < a.getRegistros(); i++)
+            contenedor.agrega(new Laberinto(a.getSemilla() + i, a.getAncho(), a.getAlto()),
+                              a.getCompacto());
+          contenedor.termina();
+        } else if (a.getCompacto()) {
+          FormatoCompacto.escribe(l, out);
+        } else {
+          FormatoMaze.escribe(l, out);
+        }
+        out.close();
       }catch(Exception e){
         System.err.println(e);
         System.exit(1);
       }
-      for(Byte b : l)
-      {
-        try{
-          out.write(b.byteValue());
-        }catch(Exception e){
-          System.err.println(e);
-          System.exit(1);
-        }
-      }
-      try {
-        out.flush();
-        out.close();
-      } catch (IOException e) {
+    } else if (a.getServidor() != null) {
+      try{
+        new Servidor(Paths.get(a.getServidor())).atiende();
+      }catch(Exception e){
         System.err.println(e);
         System.exit(1);
       }
-    } else {
-      BufferedInputStream in = new BufferedInputStream(System.in);
-      byte[][] casillas = null;
-      int w = -1;
-      int h = -1;
+    } else if (a.getCliente() != null) {
+      usaServidor(a);
+    } else if (a.getMultiple()) {
+      resuelveFlujo(a);
+    } else if (a.getArchivos().esVacia()) {
+      Laberinto l = null;
       try{
-        for(byte b : maze)
-          if(in.read() != b)
-            throw new IllegalArgumentException("El archivo es inválido (debe iniciar de manera correcta)");
-        h = in.read();
-        w = in.read();
-        if (w < 2 || w > 255)
-          throw new IllegalArgumentException("El archivo es inválido (el ancho es inválido)");
-        
-        if (h < 2 || h > 255)
-          throw new IllegalArgumentException("El archivo es inválido (el alto es inválido)");
-        
-        casillas = new byte[h][w];
-        for(int i = 0; i < h; i++)
-        {
-          byte[] row = in.readNBytes(w);
-          if(row.length != w)
-            throw new IllegalArgumentException("El archivo es inválido (las filas/columnas están incompletas)");
-          
-          casillas[i] = row;
-        }
+        InputStream in = descomprime(new BufferedInputStream(System.in, BUFFER));
+        ValidadorMaze v = new ValidadorMaze(in);
+        l = new Laberinto(v.getAncho(), v.getAlto(), v.cuartos());
         in.close();
       }catch(Exception e){
         System.err.println(e);
         System.exit(1);
       }
       try{
-        Laberinto l = new Laberinto(w, h, casillas);
-        System.out.println(l.toSVG());
+        if(a.getImagen())
+          dibuja(l, a, renderizador(a), new BufferedOutputStream(System.out, BUFFER));
+        else
+          resuelve(l, a, new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
       }catch(Exception e){
         System.err.println(e);
         System.exit(1);
       }
+    } else {
+      // Con un solo archivo la solución va a la salida estándar, como al
+      // leer de la entrada estándar; con varios, cada una a su .svg
+      boolean uno = a.getArchivos().getLongitud() == 1;
+      boolean errores = false;
+      for(String archivo : a.getArchivos())
+      {
+        try{
+          Laberinto l = a.getRegistro() >= 0
+            ? new Contenedor(Paths.get(archivo)).laberinto(a.getRegistro())
+            : mapea(archivo);
+          if(a.getImagen() && uno)
+            dibuja(l, a, renderizador(a), new BufferedOutputStream(System.out, BUFFER));
+          else if(a.getImagen())
+          {
+            Renderizador r = renderizador(a);
+            try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(archivoSalida(archivo, r.getExtension())), BUFFER)) {
+              dibuja(l, a, r, out);
+            }
+          }
+          else if(uno)
+            resuelve(l, a, new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+          else
+            try(Writer w = abre(archivoSalida(archivo, extension(a)), a.getComprimir())) {
+              resuelve(l, a, w);
+            }
+        }catch(Exception e){
+          System.err.println(archivo+": "+e);
+          errores = true;
+        }
+      }
+      if(errores)
+        System.exit(1);
+    }
+  }
+
+  /* Resuelve los laberintos que vienen seguidos en la entrada estándar;
+   * cada uno termina donde lo dice su encabezado. Con -p se resuelven en
+   * paralelo mientras se leen los siguientes, pero las soluciones se
+   * escriben en el orden de la entrada: a la salida estándar, cada una
+   * seguida del separador, o con -o a <prefijo><registro>.svg. Un error de
+   * formato detiene la lectura, porque ya no se sabe dónde empieza el
+   * siguiente registro; un laberinto sin solución sólo se reporta */
+  private static void resuelveFlujo(Argumentos a) {
+    int hilos = a.getParalelo() ? Runtime.getRuntime().availableProcessors() : 1;
+    ExecutorService pool = a.getParalelo() ? Executors.newFixedThreadPool(hilos) : null;
+    // Sólo hay a lo más 4 laberintos por hilo esperando a escribirse
+    FutureTask<String>[] ventana = nuevaVentana(4 * hilos);
+    // La suma de las fracciones de cuartos que se escondieron en corredores
+    DoubleAdder reduccion = new DoubleAdder();
+    long inicio = System.nanoTime();
+    int leidos = 0;
+    int escritos = 0;
+    boolean errores = false;
+    try{
+      BufferedInputStream in = descomprime(new BufferedInputStream(System.in, BUFFER));
+      while(true)
+      {
+        in.mark(1);
+        if(in.read() == -1)
+          break;
+        in.reset();
+        ValidadorMaze v = new ValidadorMaze(in);
+        Laberinto l = new Laberinto(v.getAncho(), v.getAlto(), v.cuartos());
+        if(leidos - escritos == ventana.length)
+          errores |= !escribe(a, escritos, ventana[escritos++ % ventana.length]);
+        FutureTask<String> t = new FutureTask<String>(() -> {
+            String svg = resuelve(l, a);
+            reduccion.add(l.getReduccion());
+            return svg;
+          });
+        ventana[leidos++ % ventana.length] = t;
+        if(pool == null)
+          t.run();
+        else
+          pool.execute(t);
+      }
+    }catch(Exception e){
+      System.err.println("registro "+leidos+": "+e);
+      errores = true;
+    }
+    while(escritos < leidos)
+      errores |= !escribe(a, escritos, ventana[escritos++ % ventana.length]);
+    if(pool != null)
+      pool.shutdown();
+    double segundos = (System.nanoTime() - inicio) / 1e9;
+    System.err.printf("%d laberintos en %.3f s (%.1f laberintos por segundo)%n",
+                      escritos, segundos, escritos / segundos);
+    if(a.getBloque() == 0 && leidos > 0)
+      System.err.printf("%.1f%% de los cuartos en corredores%n",
+                        100 * reduccion.sum() / leidos);
+    if(errores)
+      System.exit(1);
+  }
+
+  /* Truco para crear un arreglo genérico. Es necesario hacerlo así por cómo
+     Java implementa sus genéricos; de otra forma obtenemos advertencias del
+     compilador. */
+  @SuppressWarnings("unchecked")
+  private static FutureTask<String>[] nuevaVentana(int n) {
+    return (FutureTask<String>[])Array.newInstance(FutureTask.class, n);
+  }
+
+  /* Manda los laberintos de los archivos, o el de la entrada estándar, al
+   * servidor por una sola conexión; las respuestas se escriben como al
+   * resolver localmente */
+  private static void usaServidor(Argumentos a) {
+    byte tipo = a.getRuta() ? Servidor.RUTA : a.getTrazos() ? Servidor.TRAZOS : Servidor.SVG;
+    boolean errores = false;
+    try(Cliente c = new Cliente(Paths.get(a.getCliente()))) {
+      if(a.getArchivos().esVacia())
+      {
+        InputStream in = descomprime(new BufferedInputStream(System.in, BUFFER));
+        imprime(c.solicita(tipo, in.readAllBytes()));
+      }
+      else
+      {
+        boolean uno = a.getArchivos().getLongitud() == 1;
+        for(String archivo : a.getArchivos())
+        {
+          try{
+            String respuesta;
+            try(InputStream in = descomprime(new BufferedInputStream(Files.newInputStream(Paths.get(archivo)), BUFFER))) {
+              respuesta = c.solicita(tipo, in.readAllBytes());
+            }
+            if(uno)
+              imprime(respuesta);
+            else
+              guarda(archivoSalida(archivo, extension(a)), respuesta, a.getComprimir());
+          }catch(IllegalArgumentException iae){
+            System.err.println(archivo+": "+iae.getMessage());
+            errores = true;
+          }
+        }
+      }
+    }catch(Exception e){
+      System.err.println(e);
+      errores = true;
+    }
+    if(errores)
+      System.exit(1);
+  }
+
+  /* Espera la solución del registro y la escribe; regresa false si el
+   * laberinto no tenía solución o no se pudo escribir */
+  private static boolean escribe(Argumentos a, int registro, FutureTask<String> t) {
+    try{
+      String svg = t.get();
+      if(a.getPrefijo() == null)
+      {
+        imprime(svg);
+        imprime(SEPARADOR);
+      }
+      else
+        guarda(Paths.get(a.getPrefijo() + registro + extension(a)), svg, a.getComprimir());
+      return true;
+    }catch(ExecutionException e){
+      System.err.println("registro "+registro+": "+e.getCause());
+    }catch(Exception e){
+      System.err.println("registro "+registro+": "+e);
+    }
+    return false;
+  }
+
+  /* Mapea el archivo a memoria de sólo lectura y lo valida; el laberinto
+   * usa los cuartos del mapeo sin copiarlos, que sigue siendo válido al
+   * cerrar el canal. Si el archivo está comprimido con gzip, se
+   * descomprime conforme se valida */
+  private static Laberinto mapea(String archivo) throws IOException {
+    MappedByteBuffer buffer;
+    try(FileChannel canal = FileChannel.open(Paths.get(archivo), StandardOpenOption.READ)) {
+      buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+    }
+    if(esGzip(buffer))
+    {
+      try(InputStream in = new GZIPInputStream(Files.newInputStream(Paths.get(archivo)), BUFFER)) {
+        ValidadorMaze v = new ValidadorMaze(new BufferedInputStream(in, BUFFER));
+        return new Laberinto(v.getAncho(), v.getAlto(), v.cuartos());
+      }
+    }
+    ValidadorMaze v = new ValidadorMaze(buffer);
+    return new Laberinto(v.getAncho(), v.getAlto(), v.cuartos());
+  }
+
+  /* Nos dice si el buffer empieza con los bytes de gzip */
+  private static boolean esGzip(ByteBuffer buffer) {
+    return buffer.limit() >= 2
+      && (buffer.get(0) & 0xFF) == GZIP_1 && (buffer.get(1) & 0xFF) == GZIP_2;
+  }
+
+  /* Si el flujo empieza con los bytes de gzip, regresa un flujo que lo
+   * descomprime conforme se lee; si no, el mismo flujo */
+  private static BufferedInputStream descomprime(BufferedInputStream in) throws IOException {
+    in.mark(2);
+    int b1 = in.read();
+    int b2 = in.read();
+    in.reset();
+    if(b1 == GZIP_1 && b2 == GZIP_2)
+      return new BufferedInputStream(new GZIPInputStream(in, BUFFER), BUFFER);
+    return in;
+  }
+
+  /* Cambia la salida estándar por una que comprime con gzip; el final del
+   * flujo comprimido se escribe al terminar el programa */
+  private static void comprimeSalida() {
+    try{
+      OutputStream gzip = new GZIPOutputStream(new FileOutputStream(FileDescriptor.out), BUFFER);
+      PrintStream salida = new PrintStream(gzip, false, StandardCharsets.UTF_8);
+      System.setOut(salida);
+      Runtime.getRuntime().addShutdownHook(new Thread(salida::close));
+    }catch(IOException e){
+      System.err.println(e);
+      System.exit(1);
+    }
+  }
+
+  /* Abre el archivo para escribir texto en UTF-8, comprimido si se pide */
+  private static Writer abre(Path archivo, boolean comprimir) throws IOException {
+    OutputStream out = Files.newOutputStream(archivo);
+    if(comprimir)
+      out = new GZIPOutputStream(out, BUFFER);
+    return new OutputStreamWriter(out, StandardCharsets.UTF_8);
+  }
+
+  /* Escribe el texto y un salto de línea a la salida estándar en UTF-8,
+   * sin importar la codificación de la plataforma */
+  private static void imprime(String texto) throws IOException {
+    Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+    out.write(texto);
+    out.write('\n');
+    out.flush();
+  }
+
+  /* Escribe el texto y un salto de línea al archivo, comprimido si se
+   * pide; el texto se codifica por partes, sin copiarlo completo */
+  private static void guarda(Path archivo, String texto, boolean comprimir) throws IOException {
+    try(Writer w = abre(archivo, comprimir)) {
+      w.write(texto);
+      w.write('\n');
+    }
+  }
+
+  /* La extensión de los archivos de las soluciones */
+  private static String extension(Argumentos a) {
+    String e = a.getRuta() ? ".ruta" : ".svg";
+    if(a.getComprimir())
+      e += a.getRuta() ? ".gz" : "z";
+    return e;
+  }
+
+  /* El archivo de la solución: el de entrada con la extensión dada */
+  private static Path archivoSalida(String archivo, String extension) {
+    int punto = archivo.lastIndexOf('.');
+    if(punto > archivo.lastIndexOf('/'))
+      archivo = archivo.substring(0, punto);
+    return Paths.get(archivo + extension);
+  }
+
+  /* Verifica que el laberinto tenga solución y regresa el SVG */
+  private static String resuelve(Laberinto l, Argumentos a) throws IOException {
+    StringWriter s = new StringWriter();
+    verifica(l);
+    new RenderizadorSVG(a.getTrazos()).dibuja(l, ruta(l, a), s);
+    return s.toString();
+  }
+
+  /* Verifica que el laberinto tenga solución y escribe el SVG, con un
+   * salto de línea, conforme se genera; la salida no se cierra */
+  private static void resuelve(Laberinto l, Argumentos a, Writer out) throws IOException {
+    verifica(l);
+    new RenderizadorSVG(a.getTrazos()).dibuja(l, ruta(l, a), out);
+    out.write('\n');
+    out.flush();
+  }
+
+  /* La ruta de la entrada a la salida; con -j se busca por bloques, y se
+   * reporta cuántas tablas de bloques se calcularon */
+  private static int[] ruta(Laberinto l, Argumentos a) {
+    if(a.getBloque() == 0)
+      return l.resuelve();
+    ResolvedorJerarquico r = new ResolvedorJerarquico(l, a.getBloque());
+    int[] ruta = r.resuelve();
+    System.err.println(r.getReconstrucciones() + " bloques de " + a.getBloque() + "x" + a.getBloque());
+    return ruta;
+  }
+
+  /* El renderizador de las imágenes del formato de los argumentos */
+  private static Renderizador renderizador(Argumentos a) {
+    switch(a.getFormato())
+    {
+      case "pbm": return new RenderizadorNetpbm(false);
+      case "pgm": return new RenderizadorNetpbm(true);
+      default: return new RenderizadorPNG();
+    }
+  }
+
+  /* Verifica que el laberinto tenga solución y dibuja la imagen con el
+   * renderizador; la salida no se cierra */
+  private static void dibuja(Laberinto l, Argumentos a, Renderizador r, OutputStream out) throws IOException {
+    verifica(l);
+    r.dibuja(l, ruta(l, a), out);
+  }
+
+  /* Verifica que el laberinto tenga solución, y reporta las bolsas de
+   * cuartos que no se alcanzan desde la entrada */
+  private static void verifica(Laberinto l) {
+    Alcanzabilidad alcance = new Alcanzabilidad(l);
+    if(!alcance.tieneSolucion())
+      throw new IllegalArgumentException("El archivo es inválido (el laberinto no tiene solución)");
+    if(alcance.getInalcanzables() > 0)
+      reportaBolsas(l);
+  }
+
+  /* Reporta al error estándar las bolsas de cuartos que no se alcanzan
+   * desde la entrada */
+  private static void reportaBolsas(Laberinto l) {
+    Componentes c = new Componentes(l);
+    int entrada = l.getEntrada();
+    int principal = c.getEtiqueta(l.getX(entrada), l.getY(entrada));
+    int cuartos = 0;
+    int mayor = 0;
+    for(int k = 0; k < c.getComponentes(); k++)
+    {
+      if(k == principal)
+        continue;
+      cuartos += c.getTamano(k);
+      mayor = Math.max(mayor, c.getTamano(k));
     }
+    System.err.println("Hay "+cuartos+" cuartos que no se alcanzan desde la entrada, en "
+                       +(c.getComponentes()-1)+" bolsas (la mayor de "+mayor+" cuartos)");
   }
-  
-}
\ No newline at end of file
+}
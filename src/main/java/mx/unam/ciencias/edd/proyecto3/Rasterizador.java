@@ -0,0 +1,215 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+/**
+ * Clase para dibujar un laberinto y su ruta renglón de pixeles por
+ * renglón de pixeles, con la geometría de los renderizadores: 10 pixeles
+ * por cuarto, un margen de 2 pixeles, paredes de un pixel y la ruta por los
+ * centros de los cuartos. Cada renglón se calcula sin ver los demás, así
+ * que se pueden calcular en cualquier orden y en varios hilos; los tramos
+ * de la ruta se agrupan por renglón de cuartos para no recorrerlos todos en
+ * cada renglón.
+ */
+class Rasterizador {
+
+  /* Los pixeles por cuarto y el margen */
+  static final int LADO = 10;
+  static final int MARGEN = 2;
+  /* Los colores, como índices */
+  static final byte BLANCO = 0;
+  static final byte NEGRO = 1;
+  static final byte VERDE = 2;
+
+  /* El laberinto */
+  private Laberinto laberinto;
+  /* El ancho y alto del laberinto */
+  private int w;
+  private int h;
+  /* El ancho y alto de la imagen */
+  private int ancho;
+  private int alto;
+  /* Los puntos de la ruta, x y y intercalados */
+  private int[] puntos;
+  /* Los tramos de la ruta (el índice de su primer punto) de cada renglón
+   * de cuartos: los de la banda b van de primero[b] a primero[b+1] */
+  private int[] primero;
+  private int[] tramos;
+
+  /**
+   * Constructor, recibe el laberinto y su ruta
+   * @param laberinto el laberinto
+   * @param ruta los cuartos de la ruta, como índices y*w+x
+   * @throws IllegalArgumentException si un renglón de pixeles no cabe en
+   *         un arreglo
+   */
+  Rasterizador(Laberinto laberinto, int[] ruta) {
+    this.laberinto = laberinto;
+    w = laberinto.getAncho();
+    h = laberinto.getAlto();
+    // Cada renglón debe caber en un arreglo
+    if((long)w*LADO + 2*MARGEN > Integer.MAX_VALUE - 8 || (long)h*LADO + 2*MARGEN > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("El laberinto es demasiado grande para dibujarlo");
+    ancho = w*LADO + 2*MARGEN;
+    alto = h*LADO + 2*MARGEN;
+    puntos = puntos(laberinto, ruta);
+    agrupaTramos();
+  }
+
+  /**
+   * Devuelve los puntos de la ruta, x y y intercalados: la puerta de la
+   * entrada, el centro de cada cuarto y la puerta de la salida
+   * @param laberinto el laberinto
+   * @param ruta los cuartos de la ruta, como índices y*w+x
+   * @return los puntos de la ruta, o un arreglo vacío si la ruta es vacía
+   */
+  static int[] puntos(Laberinto laberinto, int[] ruta) {
+    if(ruta.length == 0)
+      return new int[0];
+    int[] p = new int[2 * (ruta.length + 2)];
+    puerta(laberinto, ruta[0], p, 0);
+    for(int i = 0; i < ruta.length; i++)
+    {
+      p[2*i + 2] = laberinto.getX(ruta[i])*LADO + LADO/2 + MARGEN;
+      p[2*i + 3] = laberinto.getY(ruta[i])*LADO + LADO/2 + MARGEN;
+    }
+    puerta(laberinto, ruta[ruta.length-1], p, p.length - 2);
+    return p;
+  }
+
+  /* Escribe en la posición i el punto de la puerta hacia afuera del
+   * cuarto */
+  private static void puerta(Laberinto laberinto, int c, int[] p, int i) {
+    int x = laberinto.getX(c);
+    int y = laberinto.getY(c);
+    int px = x*LADO + LADO/2 + MARGEN;
+    int py = y*LADO + LADO/2 + MARGEN;
+    switch(laberinto.ladoAbierto(x, y))
+    {
+      case 0: px = x*LADO + LADO + MARGEN; break;
+      case 1: py = y*LADO + MARGEN; break;
+      case 2: px = x*LADO + MARGEN; break;
+      case 3: py = y*LADO + LADO + MARGEN; break;
+    }
+    p[i] = px;
+    p[i+1] = py;
+  }
+
+  /**
+   * Devuelve el ancho de la imagen
+   * @return el ancho de la imagen, en pixeles
+   */
+  int getAncho() {
+    return ancho;
+  }
+
+  /**
+   * Devuelve el alto de la imagen
+   * @return el alto de la imagen, en pixeles
+   */
+  int getAlto() {
+    return alto;
+  }
+
+  /**
+   * Dibuja un renglón de pixeles
+   * @param py el renglón
+   * @param destino el arreglo donde se escriben los colores
+   * @param i la posición del primer pixel del renglón en el arreglo
+   */
+  void renglon(int py, byte[] destino, int i) {
+    for(int px = 0; px < ancho; px++)
+      destino[i + px] = BLANCO;
+    horizontales(py, destino, i);
+    verticales(py, destino, i);
+    ruta(py, destino, i);
+  }
+
+  /* Las paredes Norte de un renglón de cuartos, o las Sur del último */
+  private void horizontales(int py, byte[] destino, int i) {
+    if(py < MARGEN || (py - MARGEN) % LADO != 0)
+      return;
+    int r = (py - MARGEN) / LADO;
+    if(r > h)
+      return;
+    int pared = r < h ? 0b0010 : 0b1000;
+    int y = r < h ? r : h-1;
+    for(int j = 0; j < w; j++)
+      if((laberinto.getCasilla(j, y) & pared) != 0)
+        linea(destino, i + MARGEN + j*LADO, i + MARGEN + (j+1)*LADO, NEGRO);
+  }
+
+  /* Las paredes Oeste, y las Este de la última columna, que cruzan el
+   * renglón de pixeles; en la frontera entre dos renglones de cuartos
+   * cuentan las de los dos */
+  private void verticales(int py, byte[] destino, int i) {
+    if(py < MARGEN || py > MARGEN + h*LADO)
+      return;
+    int r = (py - MARGEN) / LADO;
+    int desde = Math.max(0, (py - MARGEN) % LADO == 0 ? r-1 : r);
+    for(int y = desde; y <= Math.min(r, h-1); y++)
+    {
+      for(int j = 0; j < w; j++)
+        if((laberinto.getCasilla(j, y) & 0b0100) != 0)
+          destino[i + MARGEN + j*LADO] = NEGRO;
+      if((laberinto.getCasilla(w-1, y) & 0b0001) != 0)
+        destino[i + MARGEN + w*LADO] = NEGRO;
+    }
+  }
+
+  /* Los tramos de la ruta que cruzan el renglón de pixeles */
+  private void ruta(int py, byte[] destino, int i) {
+    if(tramos.length == 0)
+      return;
+    int b = banda(py);
+    for(int t = primero[b]; t < primero[b+1]; t++)
+    {
+      int k = tramos[t];
+      int x1 = puntos[k];
+      int y1 = puntos[k+1];
+      int x2 = puntos[k+2];
+      int y2 = puntos[k+3];
+      if(y1 == y2)
+      {
+        if(py == y1)
+          linea(destino, i + Math.min(x1, x2), i + Math.max(x1, x2), VERDE);
+      }
+      else if(py >= Math.min(y1, y2) && py <= Math.max(y1, y2))
+        destino[i + x1] = VERDE;
+    }
+  }
+
+  /* Agrupa los tramos de la ruta por los renglones de cuartos que cruzan;
+   * cada tramo mide a lo más un cuarto, así que cruza a lo más dos */
+  private void agrupaTramos() {
+    int n = puntos.length / 2 - 1;
+    primero = new int[h + 1];
+    if(n <= 0)
+    {
+      tramos = new int[0];
+      return;
+    }
+    int[] cuenta = new int[h];
+    for(int k = 0; k < n; k++)
+      for(int b = banda(Math.min(puntos[2*k+1], puntos[2*k+3])); b <= banda(Math.max(puntos[2*k+1], puntos[2*k+3])); b++)
+        cuenta[b]++;
+    for(int b = 0; b < h; b++)
+      primero[b+1] = primero[b] + cuenta[b];
+    tramos = new int[primero[h]];
+    for(int b = 0; b < h; b++)
+      cuenta[b] = primero[b];
+    for(int k = 0; k < n; k++)
+      for(int b = banda(Math.min(puntos[2*k+1], puntos[2*k+3])); b <= banda(Math.max(puntos[2*k+1], puntos[2*k+3])); b++)
+        tramos[cuenta[b]++] = 2*k;
+  }
+
+  /* El renglón de cuartos al que pertenece un renglón de pixeles; los
+   * márgenes cuentan con el primero y el último */
+  private int banda(int py) {
+    return Math.min(Math.max((py - MARGEN) / LADO, 0), h-1);
+  }
+
+  /* Pinta las posiciones [a, b] del arreglo */
+  private static void linea(byte[] destino, int a, int b, byte color) {
+    for(int p = a; p <= b; p++)
+      destino[p] = color;
+  }
+}
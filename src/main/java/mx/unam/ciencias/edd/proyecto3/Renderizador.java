@@ -0,0 +1,28 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Interfaz para los renderizadores de laberintos resueltos. Un
+ * renderizador no resuelve: recibe el laberinto y la ruta ya calculada,
+ * por ejemplo con {@link Laberinto#resuelve}, y sólo la dibuja.
+ */
+public interface Renderizador {
+
+  /**
+   * Dibuja el laberinto y su ruta en la salida; la salida no se cierra
+   * @param laberinto el laberinto
+   * @param ruta los cuartos de la ruta de la entrada a la salida, como
+   *        índices y*w+x
+   * @param out la salida
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public void dibuja(Laberinto laberinto, int[] ruta, OutputStream out) throws IOException;
+
+  /**
+   * Devuelve la extensión de los archivos del formato, con el punto
+   * @return la extensión de los archivos del formato
+   */
+  public String getExtension();
+}
@@ -0,0 +1,87 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Renderizador de laberintos resueltos en los formatos binarios de Netpbm:
+ * PBM (P4), con un bit por pixel y la ruta en negro como las paredes, o
+ * PGM (P5), con un byte por pixel y la ruta en gris. La geometría es la
+ * misma que la del SVG. Cada renglón de pixeles se calcula con el {@link
+ * Rasterizador} y se escribe en cuanto está listo, así que en memoria sólo
+ * están el laberinto, la ruta y un renglón; la imagen puede tener muchos
+ * más pixeles de los que caben en memoria.
+ */
+public class RenderizadorNetpbm implements Renderizador {
+
+  /* Los tonos de gris de cada color del Rasterizador en PGM */
+  private static final byte[] GRISES = { (byte)255, 0, (byte)128 };
+
+  /* Si se usa PGM en lugar de PBM */
+  private boolean gris;
+
+  /**
+   * Constructor, recibe el formato
+   * @param gris true para PGM, con la ruta en gris; false para PBM
+   */
+  public RenderizadorNetpbm(boolean gris) {
+    this.gris = gris;
+  }
+
+  /**
+   * Dibuja el laberinto y su ruta, escribiendo cada renglón de pixeles en
+   * cuanto se calcula; la salida no se cierra
+   * @param laberinto el laberinto
+   * @param ruta los cuartos de la ruta, como índices y*w+x
+   * @param out la salida
+   * @throws IOException si no se puede escribir en la salida
+   */
+  @Override public void dibuja(Laberinto laberinto, int[] ruta, OutputStream out) throws IOException {
+    Rasterizador r = new Rasterizador(laberinto, ruta);
+    int ancho = r.getAncho();
+    int alto = r.getAlto();
+    String encabezado = gris
+      ? "P5\n" + ancho + " " + alto + "\n255\n"
+      : "P4\n" + ancho + " " + alto + "\n";
+    out.write(encabezado.getBytes(StandardCharsets.US_ASCII));
+
+    byte[] colores = new byte[ancho];
+    byte[] renglon = gris ? colores : new byte[(ancho + 7) / 8];
+    for(int py = 0; py < alto; py++)
+    {
+      r.renglon(py, colores, 0);
+      if(gris)
+        for(int px = 0; px < ancho; px++)
+          renglon[px] = GRISES[colores[px]];
+      else
+        empaca(colores, renglon);
+      out.write(renglon);
+    }
+    out.flush();
+  }
+
+  /**
+   * Devuelve la extensión de los archivos del formato
+   * @return ".pgm" o ".pbm"
+   */
+  @Override public String getExtension() {
+    return gris ? ".pgm" : ".pbm";
+  }
+
+  /* Empaca un renglón en bits, del más significativo al menos
+   * significativo de cada byte; todo lo que no es blanco es negro (1) */
+  private static void empaca(byte[] colores, byte[] bits) {
+    for(int i = 0; i < bits.length; i++)
+    {
+      int b = 0;
+      for(int k = 0; k < 8; k++)
+      {
+        int px = 8*i + k;
+        if(px < colores.length && colores[px] != Rasterizador.BLANCO)
+          b |= 0x80 >>> k;
+      }
+      bits[i] = (byte)b;
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import javax.imageio.ImageIO;
+
+/**
+ * Renderizador de laberintos resueltos como imágenes PNG, con la misma
+ * geometría que su SVG: 10 pixeles por cuarto, un margen de 2 pixeles,
+ * paredes negras de un pixel y la ruta en verde. Los pixeles se escriben
+ * directamente en el arreglo de la imagen, por franjas de renglones que se
+ * dibujan al mismo tiempo en un {@link ForkJoinPool}; cada franja sólo
+ * escribe sus propios renglones, así que no comparten nada más que el
+ * {@link Rasterizador}, que sólo se lee.
+ */
+public class RenderizadorPNG implements Renderizador {
+
+  /* El mínimo de renglones de pixeles por franja */
+  private static final int UMBRAL = 64;
+  /* La paleta, con los colores del Rasterizador; con un byte por pixel en
+   * lugar de tres, el PNG se codifica mucho más rápido */
+  private static final IndexColorModel PALETA =
+    new IndexColorModel(8, 3, new byte[] { (byte)0xFF, 0, 0 },
+                        new byte[] { (byte)0xFF, 0, (byte)0x80 },
+                        new byte[] { (byte)0xFF, 0, 0 });
+
+  /* Clase interna privada para las franjas de renglones de pixeles */
+  private static class Franja extends RecursiveAction {
+
+    /* La versión para serializar */
+    private static final long serialVersionUID = 1L;
+
+    /* El rasterizador */
+    private Rasterizador r;
+    /* Los pixeles de la imagen */
+    private byte[] pixeles;
+    /* El primer renglón de la franja */
+    private int inicio;
+    /* El renglón siguiente al último de la franja */
+    private int fin;
+
+    /* Crea la franja de los renglones [inicio, fin) */
+    public Franja(Rasterizador r, byte[] pixeles, int inicio, int fin) {
+      this.r = r;
+      this.pixeles = pixeles;
+      this.inicio = inicio;
+      this.fin = fin;
+    }
+
+    /* Dibuja la franja */
+    @Override protected void compute() {
+      for(int py = inicio; py < fin; py++)
+        r.renglon(py, pixeles, py * r.getAncho());
+    }
+  }
+
+  /* El número de franjas, o 0 para calcularlo con el alto de la imagen */
+  private int franjas;
+
+  /**
+   * Constructor, dibuja con franjas de al menos 64 renglones, sin pasar de
+   * cuatro franjas por procesador
+   */
+  public RenderizadorPNG() {
+    this.franjas = 0;
+  }
+
+  /**
+   * Constructor, dibuja con el número de franjas indicado
+   * @param franjas el número de franjas; si es mayor que el número de
+   *        renglones de la imagen, se usa un renglón por franja
+   * @throws IllegalArgumentException si el número de franjas no es positivo
+   */
+  public RenderizadorPNG(int franjas) {
+    if(franjas < 1)
+      throw new IllegalArgumentException("El número de franjas debe ser positivo");
+    this.franjas = franjas;
+  }
+
+  /**
+   * Dibuja el laberinto y su ruta en una imagen
+   * @param laberinto el laberinto
+   * @param ruta los cuartos de la ruta, como índices y*w+x
+   * @return la imagen
+   * @throws IllegalArgumentException si la imagen tendría más de 2^31-1
+   *         pixeles
+   */
+  public BufferedImage imagen(Laberinto laberinto, int[] ruta) {
+    Rasterizador r = new Rasterizador(laberinto, ruta);
+    int ancho = r.getAncho();
+    int alto = r.getAlto();
+    if((long)ancho * alto > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("El laberinto es demasiado grande para dibujarlo en memoria ("
+                                         + ancho + "x" + alto + " pixeles)");
+    BufferedImage imagen = new BufferedImage(ancho, alto, BufferedImage.TYPE_BYTE_INDEXED, PALETA);
+    byte[] pixeles = ((DataBufferByte)imagen.getRaster().getDataBuffer()).getData();
+
+    int procesadores = Runtime.getRuntime().availableProcessors();
+    int n = franjas > 0 ? franjas : Math.max(1, Math.min(alto / UMBRAL, 4 * procesadores));
+    n = Math.min(n, alto);
+    Franja[] f = new Franja[n];
+    for(int k = 0; k < n; k++)
+      f[k] = new Franja(r, pixeles, (int)((long)k * alto / n), (int)((long)(k+1) * alto / n));
+    if(n == 1)
+      f[0].compute();
+    else
+      ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+          @Override protected void compute() {
+            invokeAll(f);
+          }
+        });
+    return imagen;
+  }
+
+  /**
+   * Dibuja el laberinto y su ruta, y escribe la imagen como PNG; la salida
+   * no se cierra
+   * @param laberinto el laberinto
+   * @param ruta los cuartos de la ruta, como índices y*w+x
+   * @param out la salida
+   * @throws IOException si no se puede escribir en la salida
+   * @throws IllegalArgumentException si la imagen tendría más de 2^31-1
+   *         pixeles
+   */
+  @Override public void dibuja(Laberinto laberinto, int[] ruta, OutputStream out) throws IOException {
+    if(!ImageIO.write(imagen(laberinto, ruta), "png", out))
+      throw new IOException("No hay un escritor de PNG disponible");
+    out.flush();
+  }
+
+  /**
+   * Devuelve la extensión de los archivos PNG
+   * @return ".png"
+   */
+  @Override public String getExtension() {
+    return ".png";
+  }
+}
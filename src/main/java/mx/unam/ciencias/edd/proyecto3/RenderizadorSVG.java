@@ -0,0 +1,161 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Renderizador de laberintos resueltos como SVG, escrito conforme se genera
+ * con un {@link EscritorSVG}. Las paredes van en un elemento line por cada
+ * tramo o, con trazos, todas en un solo elemento path, y la ruta en un
+ * elemento line por cuarto o en un solo elemento polyline.
+ */
+public class RenderizadorSVG implements Renderizador {
+
+  /* Los atributos de las líneas de las paredes y de la ruta */
+  private static final String PARED = " stroke='black'";
+  private static final String RUTA = "  stroke='green'";
+  /* Los atributos del trazo de las paredes y de la polilínea de la ruta */
+  private static final String PARED_TRAZO = " fill='none' stroke='black'";
+  private static final String RUTA_TRAZO = " fill='none' stroke='green'";
+  /* Los pixeles por cuarto y el margen */
+  private static final int LADO = Rasterizador.LADO;
+  private static final int MARGEN = Rasterizador.MARGEN;
+
+  /* Si las paredes y la ruta van en un solo elemento cada una */
+  private boolean trazos;
+
+  /**
+   * Constructor, recibe el tipo de SVG
+   * @param trazos si todas las paredes van en un solo elemento path y la
+   *        ruta en un solo elemento polyline, en lugar de un elemento line
+   *        por cada tramo
+   */
+  public RenderizadorSVG(boolean trazos) {
+    this.trazos = trazos;
+  }
+
+  /**
+   * Dibuja el laberinto y su ruta como SVG en UTF-8, terminado con un salto
+   * de línea; la salida no se cierra
+   * @param laberinto el laberinto
+   * @param ruta los cuartos de la ruta, como índices y*w+x
+   * @param out la salida
+   * @throws IOException si no se puede escribir en la salida
+   */
+  @Override public void dibuja(Laberinto laberinto, int[] ruta, OutputStream out) throws IOException {
+    Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    dibuja(laberinto, ruta, w);
+    w.write('\n');
+    w.flush();
+  }
+
+  /**
+   * Dibuja el laberinto y su ruta como SVG; la salida no se cierra
+   * @param laberinto el laberinto
+   * @param ruta los cuartos de la ruta, como índices y*w+x
+   * @param out la salida
+   * @throws IOException si no se puede escribir en la salida
+   */
+  public void dibuja(Laberinto laberinto, int[] ruta, Writer out) throws IOException {
+    int width = laberinto.getAncho();
+    int height = laberinto.getAlto();
+    EscritorSVG s = new EscritorSVG(out);
+    s.texto("<svg version='1.1' width='").entero(width*LADO + 2*MARGEN)
+      .texto("' height='").entero(height*LADO + 2*MARGEN).texto("'>\n");
+    s.texto("\t<rect x='2' y='2' width='").entero(width*LADO)
+      .texto("' height='").entero(height*LADO).texto("' fill='white' />\n");
+    if(trazos)
+    {
+      s.texto("\t<!-- Paredes -->\n");
+      s.iniciaTrazo();
+    }
+    else
+      s.texto("\t<!-- Lineas horizontales -->\n");
+    for(int i = 0; i < height; i++)
+    {
+      int ini = 0;
+      for(int j = 0; j <= width; j++)
+      {
+        if(j == width || (laberinto.getCasilla(j, i) & 0b0010) == 0b0000)
+        {
+          if(ini != j)
+            pared(s, MARGEN + ini*LADO, MARGEN + i*LADO, MARGEN + j*LADO, MARGEN + i*LADO);
+          ini = j+1;
+        }
+      }
+    }
+    int ini = 0;
+    for(int j = 0; j <= width; j++)
+    {
+      if(j == width || (laberinto.getCasilla(j, height-1) & 0b1000) == 0b0000)
+      {
+        if(ini != j)
+          pared(s, MARGEN + ini*LADO, MARGEN + height*LADO, MARGEN + j*LADO, MARGEN + height*LADO);
+        ini = j+1;
+      }
+    }
+    if(!trazos)
+      s.texto("\t<!-- Lineas verticales -->\n");
+    for(int j = 0; j < width; j++)
+    {
+      ini = 0;
+      for(int i = 0; i <= height; i++)
+      {
+        if(i == height || (laberinto.getCasilla(j, i) & 0b0100) == 0b0000)
+        {
+          if(ini != i)
+            pared(s, MARGEN + j*LADO, MARGEN + ini*LADO, MARGEN + j*LADO, MARGEN + i*LADO);
+          ini = i+1;
+        }
+      }
+    }
+    ini = 0;
+    for(int i = 0; i <= height; i++)
+    {
+      if(i == height || (laberinto.getCasilla(width-1, i) & 0b0001) == 0b0000)
+      {
+        if(ini != i)
+          pared(s, MARGEN + width*LADO, MARGEN + ini*LADO, MARGEN + width*LADO, MARGEN + i*LADO);
+        ini = i+1;
+      }
+    }
+    if(trazos)
+      s.terminaTrazo(PARED_TRAZO);
+
+    // La ruta va de la puerta de la entrada al centro de su cuarto, por los
+    // centros de los cuartos, y del centro de la salida a su puerta
+    s.texto("\t<!-- Solución -->\n");
+    int[] p = Rasterizador.puntos(laberinto, ruta);
+    if(trazos)
+    {
+      s.iniciaPolilinea();
+      for(int k = 0; k < p.length; k += 2)
+        s.punto(p[k], p[k+1]);
+      s.terminaPolilinea(RUTA_TRAZO);
+    }
+    else
+      for(int k = 0; k + 2 < p.length; k += 2)
+        s.linea(p[k], p[k+1], p[k+2], p[k+3], RUTA);
+    s.texto("</svg>");
+    s.flush();
+  }
+
+  /**
+   * Devuelve la extensión de los archivos SVG
+   * @return ".svg"
+   */
+  @Override public String getExtension() {
+    return ".svg";
+  }
+
+  /* Dibuja una pared, como elemento line o como segmento del trazo */
+  private void pared(EscritorSVG s, int x1, int y1, int x2, int y2) throws IOException {
+    if(trazos)
+      s.segmento(x1, y1, x2, y2);
+    else
+      s.linea(x1, y1, x2, y2, PARED);
+  }
+}
@@ -0,0 +1,334 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.lang.reflect.Array;
+import mx.unam.ciencias.edd.ConstructorGrafica;
+import mx.unam.ciencias.edd.Grafica;
+import mx.unam.ciencias.edd.Lista;
+import mx.unam.ciencias.edd.MonticuloMinimo;
+import mx.unam.ciencias.edd.ValorIndexable;
+import mx.unam.ciencias.edd.VerticeGrafica;
+
+/**
+ * Clase para resolver laberintos grandes por jerarquías (HPA*). El laberinto
+ * se parte en bloques cuadrados; los cuartos de cada bloque con una puerta
+ * hacia otro bloque son sus fronteras, y para cada bloque se guarda la
+ * distancia entre cada par de sus fronteras sin salir de él. La búsqueda se
+ * hace en la gráfica abstracta de fronteras, y después sólo se refinan los
+ * bloques por los que pasa la ruta. Como todas las puertas entre bloques son
+ * fronteras, la ruta tiene el mismo costo que la de {@link
+ * Laberinto#resuelve}.
+ */
+public class ResolvedorJerarquico {
+
+  /* El laberinto */
+  private Laberinto laberinto;
+  /* El ancho y alto del laberinto */
+  private int w;
+  private int h;
+  /* El lado de los bloques */
+  private int tam;
+  /* El número de bloques por fila */
+  private int bloquesX;
+  /* Los cuartos frontera de cada bloque, como índices y*w+x */
+  private int[][] fronteras;
+  /* Las distancias entre las fronteras de cada bloque, k*k por bloque */
+  private double[][] distancias;
+  /* Los bloques cuyos cuartos cambiaron */
+  private boolean[] sucio;
+  /* La gráfica abstracta, o null si hay que volver a armarla */
+  private Grafica<Integer> abstracta;
+  /* El número de tablas de bloques calculadas */
+  private int reconstrucciones;
+
+  /* Distancias, padres y vértices de la búsqueda dentro de un bloque */
+  private double[] distancia;
+  private int[] padre;
+  private ValorIndexable<Integer>[] nodos;
+
+  /**
+   * Constructor, divide el laberinto en bloques de tam x tam cuartos
+   * @param laberinto el laberinto
+   * @param tam el lado de los bloques
+   * @throws IllegalArgumentException si el lado es menor a 2
+   */
+  public ResolvedorJerarquico(Laberinto laberinto, int tam) {
+    if(tam < 2)
+      throw new IllegalArgumentException("El lado de los bloques debe ser mayor o igual a 2");
+    this.laberinto = laberinto;
+    this.tam = tam;
+    w = laberinto.getAncho();
+    h = laberinto.getAlto();
+    bloquesX = (w + tam - 1) / tam;
+    int bloques = bloquesX * ((h + tam - 1) / tam);
+    fronteras = new int[bloques][];
+    distancias = new double[bloques][];
+    sucio = new boolean[bloques];
+    for(int b = 0; b < bloques; b++)
+      sucio[b] = true;
+    distancia = new double[tam*tam];
+    padre = new int[tam*tam];
+    nodos = nuevoArreglo(tam*tam);
+  }
+
+  /* Truco para crear un arreglo genérico. Es necesario hacerlo así por cómo
+     Java implementa sus genéricos; de otra forma obtenemos advertencias del
+     compilador. */
+  @SuppressWarnings("unchecked")
+  private static ValorIndexable<Integer>[] nuevoArreglo(int n) {
+    return (ValorIndexable<Integer>[])Array.newInstance(ValorIndexable.class, n);
+  }
+
+  /**
+   * Cambia un cuarto del laberinto y marca para recalcular los bloques que
+   * toca, el suyo y los de sus vecinos, porque sus puertas cambian
+   * @param x la columna del cuarto
+   * @param y el renglón del cuarto
+   * @param casilla el nuevo valor del cuarto
+   */
+  public void setCasilla(int x, int y, byte casilla) {
+    laberinto.setCasilla(x, y, casilla);
+    marca(x, y);
+    if(x > 0)
+      marca(x-1, y);
+    if(x < w-1)
+      marca(x+1, y);
+    if(y > 0)
+      marca(x, y-1);
+    if(y < h-1)
+      marca(x, y+1);
+  }
+
+  /**
+   * Devuelve el número de tablas de bloques calculadas hasta ahora
+   * @return el número de tablas de bloques calculadas hasta ahora
+   */
+  public int getReconstrucciones() {
+    return reconstrucciones;
+  }
+
+  /**
+   * Resuelve el laberinto de la entrada a la salida
+   * @return los cuartos de la ruta, como índices y*w+x, o un arreglo vacío
+   *         si no hay ruta
+   */
+  public int[] resuelve() {
+    int s = laberinto.getEntrada();
+    int t = laberinto.getSalida();
+    if(s == -1 || t == -1)
+      return new int[0];
+
+    if(abstracta == null)
+      arma();
+
+    // La entrada y la salida se conectan a las fronteras de su bloque sólo
+    // durante la búsqueda
+    Lista<Integer> temporales = new Lista<Integer>();
+    conectaTemporal(s, temporales);
+    if(t != s)
+      conectaTemporal(t, temporales);
+    Lista<VerticeGrafica<Integer>> ruta = abstracta.dijkstra(s, t);
+    for(Integer v : temporales)
+      abstracta.elimina(v);
+
+    Lista<Integer> cuartos = new Lista<Integer>();
+    int anterior = -1;
+    for(VerticeGrafica<Integer> v : ruta) {
+      int actual = v.get();
+      if(anterior == -1 || bloque(anterior) != bloque(actual))
+        cuartos.agrega(actual);
+      else
+        refina(anterior, actual, cuartos);
+      anterior = actual;
+    }
+
+    int[] sol = new int[cuartos.getElementos()];
+    int i = 0;
+    for(Integer c : cuartos)
+      sol[i++] = c;
+    return sol;
+  }
+
+  /* Recalcula las tablas de los bloques sucios y arma la gráfica abstracta */
+  private void arma() {
+    for(int b = 0; b < sucio.length; b++)
+    {
+      if(sucio[b])
+      {
+        calculaBloque(b);
+        sucio[b] = false;
+        reconstrucciones++;
+      }
+    }
+
+    int[] vertice = new int[w*h];
+    ConstructorGrafica<Integer> c = new ConstructorGrafica<Integer>(w*h/tam, w*h/tam);
+    for(int b = 0; b < fronteras.length; b++)
+      for(int f : fronteras[b])
+        vertice[f] = c.agrega(f);
+
+    for(int b = 0; b < fronteras.length; b++)
+    {
+      int[] f = fronteras[b];
+      int k = f.length;
+      for(int i = 0; i < k; i++)
+      {
+        for(int j = i+1; j < k; j++)
+          if(distancias[b][i*k+j] != Double.POSITIVE_INFINITY)
+            c.conecta(vertice[f[i]], vertice[f[j]], distancias[b][i*k+j]);
+        // Las puertas entre bloques se conectan desde el cuarto menor
+        int x = f[i] % w;
+        int y = f[i] / w;
+        if(x < w-1 && laberinto.abiertaEste(x, y) && bloque(f[i]+1) != b)
+          c.conecta(vertice[f[i]], vertice[f[i]+1], costo(f[i], f[i]+1));
+        if(y < h-1 && laberinto.abiertaSur(x, y) && bloque(f[i]+w) != b)
+          c.conecta(vertice[f[i]], vertice[f[i]+w], costo(f[i], f[i]+w));
+      }
+    }
+    abstracta = c.construye();
+  }
+
+  /* Calcula las fronteras del bloque y las distancias entre ellas */
+  private void calculaBloque(int b) {
+    int x0 = (b % bloquesX) * tam;
+    int y0 = (b / bloquesX) * tam;
+    int x1 = Math.min(x0 + tam, w);
+    int y1 = Math.min(y0 + tam, h);
+
+    Lista<Integer> l = new Lista<Integer>();
+    for(int y = y0; y < y1; y++)
+    {
+      for(int x = x0; x < x1; x++)
+      {
+        boolean frontera = (x == x0 && x > 0 && laberinto.abiertaEste(x-1, y))
+                        || (x == x1-1 && x < w-1 && laberinto.abiertaEste(x, y))
+                        || (y == y0 && y > 0 && laberinto.abiertaSur(x, y-1))
+                        || (y == y1-1 && y < h-1 && laberinto.abiertaSur(x, y));
+        if(frontera)
+          l.agrega(y*w + x);
+      }
+    }
+    int k = l.getElementos();
+    int[] f = new int[k];
+    int i = 0;
+    for(Integer c : l)
+      f[i++] = c;
+
+    double[] d = new double[k*k];
+    for(i = 0; i < k; i++)
+    {
+      buscaEnBloque(f[i], -1);
+      for(int j = 0; j < k; j++)
+        d[i*k+j] = distancia[local(f[j])];
+    }
+    fronteras[b] = f;
+    distancias[b] = d;
+  }
+
+  /* Agrega el cuarto a la gráfica abstracta si no es frontera, conectado a
+   * las fronteras y los temporales de su bloque */
+  private void conectaTemporal(int v, Lista<Integer> temporales) {
+    if(abstracta.contiene(v))
+      return;
+    abstracta.agrega(v);
+    buscaEnBloque(v, -1);
+    int b = bloque(v);
+    for(int f : fronteras[b])
+      if(distancia[local(f)] != Double.POSITIVE_INFINITY)
+        abstracta.conecta(v, f, distancia[local(f)]);
+    for(Integer u : temporales)
+      if(bloque(u) == b && distancia[local(u)] != Double.POSITIVE_INFINITY)
+        abstracta.conecta(v, u, distancia[local(u)]);
+    temporales.agrega(v);
+  }
+
+  /* Agrega a la lista los cuartos de la ruta mínima de a a b dentro de su
+   * bloque, sin incluir a a */
+  private void refina(int a, int b, Lista<Integer> cuartos) {
+    buscaEnBloque(a, b);
+    int x0 = (bloque(a) % bloquesX) * tam;
+    int y0 = (bloque(a) / bloquesX) * tam;
+    Lista<Integer> tramo = new Lista<Integer>();
+    for(int v = local(b); v != local(a); v = padre[v])
+      tramo.agregaInicio((y0 + v / tam) * w + x0 + v % tam);
+    for(Integer c : tramo)
+      cuartos.agrega(c);
+  }
+
+  /* Dijkstra desde el cuarto sin salir de su bloque; si destino no es -1,
+   * se detiene al llegar a él */
+  private void buscaEnBloque(int origen, int destino) {
+    int b = bloque(origen);
+    int x0 = (b % bloquesX) * tam;
+    int y0 = (b / bloquesX) * tam;
+    int x1 = Math.min(x0 + tam, w);
+    int y1 = Math.min(y0 + tam, h);
+
+    MonticuloMinimo<ValorIndexable<Integer>> m = new MonticuloMinimo<ValorIndexable<Integer>>();
+    for(int i = 0; i < tam*tam; i++)
+    {
+      distancia[i] = Double.POSITIVE_INFINITY;
+      nodos[i] = null;
+    }
+    int o = local(origen);
+    distancia[o] = 0;
+    nodos[o] = new ValorIndexable<Integer>(origen, 0);
+    m.agrega(nodos[o]);
+    while(!m.esVacia())
+    {
+      int u = m.elimina().getElemento();
+      if(u == destino)
+        break;
+      int x = u % w;
+      int y = u / w;
+      if(x < x1-1 && laberinto.abiertaEste(x, y))
+        relaja(u, u+1, m);
+      if(x > x0 && laberinto.abiertaEste(x-1, y))
+        relaja(u, u-1, m);
+      if(y < y1-1 && laberinto.abiertaSur(x, y))
+        relaja(u, u+w, m);
+      if(y > y0 && laberinto.abiertaSur(x, y-1))
+        relaja(u, u-w, m);
+    }
+  }
+
+  /* Relaja la puerta de u a v dentro del bloque */
+  private void relaja(int u, int v, MonticuloMinimo<ValorIndexable<Integer>> m) {
+    int lu = local(u);
+    int lv = local(v);
+    double d = distancia[lu] + costo(u, v);
+    if(d >= distancia[lv])
+      return;
+    distancia[lv] = d;
+    padre[lv] = lu;
+    if(nodos[lv] == null)
+    {
+      nodos[lv] = new ValorIndexable<Integer>(v, d);
+      m.agrega(nodos[lv]);
+    }else{
+      nodos[lv].setValor(d);
+      m.reordena(nodos[lv]);
+    }
+  }
+
+  /* El costo de cruzar la puerta entre dos cuartos, como en
+   * Laberinto#resuelve */
+  private double costo(int u, int v) {
+    return 1 + (laberinto.puntaje(u % w, u / w) + laberinto.puntaje(v % w, v / w));
+  }
+
+  /* Marca como sucio el bloque del cuarto */
+  private void marca(int x, int y) {
+    sucio[bloque(y*w + x)] = true;
+    abstracta = null;
+  }
+
+  /* El bloque del cuarto */
+  private int bloque(int c) {
+    return (c / w / tam) * bloquesX + (c % w) / tam;
+  }
+
+  /* El índice del cuarto dentro de su bloque */
+  private int local(int c) {
+    return ((c / w) % tam) * tam + (c % w) % tam;
+  }
+}
@@ -0,0 +1,197 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Clase para resolver laberintos como servidor local, en un socket de
+ * dominio Unix. El proceso se queda corriendo, así que el JIT ya está
+ * caliente para cada laberinto; cada cliente se atiende en su propio hilo
+ * (virtual, si la máquina virtual los tiene) y puede mandar varias
+ * solicitudes por la misma conexión, que reutilizan sus buffers. Lo que
+ * reserva cada solución no se reutiliza: en un laberinto de 1000×1000, los
+ * arreglos por cuarto de {@link Laberinto#resuelve} son unos 37 de los 295
+ * MB, y el resto son los vértices y vecinos de la gráfica contraída.
+ *
+ * Cada solicitud es un byte con el tipo ({@link #SVG}, {@link #TRAZOS} o
+ * {@link #RUTA}), la
+ * longitud del archivo .mze en 4 bytes y el archivo; cada respuesta es un
+ * byte con el estado ({@link #BIEN} o {@link #ERROR}), la longitud del
+ * cuerpo en 4 bytes y el cuerpo en UTF-8: el SVG de la solución, los
+ * cuartos de la ruta como "x y" uno por línea, o el mensaje de error. Las
+ * longitudes van del byte más significativo al menos significativo.
+ */
+public class Servidor {
+
+  /** Solicitud del SVG de la solución. */
+  public static final byte SVG = 's';
+  /** Solicitud del SVG de la solución con las paredes en un solo trazo. */
+  public static final byte TRAZOS = 't';
+  /** Solicitud de los cuartos de la ruta. */
+  public static final byte RUTA = 'r';
+  /** Respuesta exitosa. */
+  public static final byte BIEN = 0;
+  /** Respuesta con un mensaje de error. */
+  public static final byte ERROR = 1;
+  /* La longitud máxima de un archivo: el encabezado de MAZX y sus cuartos */
+  private static final int MAXIMO = 12 + Laberinto.MAXIMO_CUARTOS;
+
+  /* El archivo del socket */
+  private Path socket;
+
+  /**
+   * Constructor, recibe el archivo del socket
+   * @param socket el archivo del socket; si ya existe, se reemplaza
+   */
+  public Servidor(Path socket) {
+    this.socket = socket;
+  }
+
+  /**
+   * Escucha en el socket y atiende clientes hasta que termina el proceso;
+   * al terminar se borra el archivo del socket
+   * @throws IOException si no se puede crear el socket
+   */
+  public void atiende() throws IOException {
+    Files.deleteIfExists(socket);
+    ExecutorService hilos = hilos();
+    try(ServerSocketChannel servidor = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+      servidor.bind(UnixDomainSocketAddress.of(socket));
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+          try {
+            Files.deleteIfExists(socket);
+          } catch(IOException ioe) {}
+        }));
+      while(true)
+      {
+        SocketChannel cliente = servidor.accept();
+        hilos.execute(() -> conexion(cliente));
+      }
+    } finally {
+      hilos.shutdown();
+    }
+  }
+
+  /* Atiende las solicitudes de un cliente hasta que cierra la conexión */
+  private void conexion(SocketChannel cliente) {
+    ByteBuffer encabezado = ByteBuffer.allocate(5);
+    ByteBuffer archivo = ByteBuffer.allocate(1 << 16);
+    try(cliente) {
+      while(true)
+      {
+        encabezado.clear();
+        if(!lee(cliente, encabezado))
+          return;
+        byte tipo = encabezado.get(0);
+        int n = encabezado.getInt(1);
+        if(n < 0 || n > MAXIMO)
+        {
+          // No se puede saber dónde empieza la siguiente solicitud
+          responde(cliente, ERROR, "La solicitud es inválida (el archivo mide "+n+" bytes)");
+          return;
+        }
+        archivo = recibe(cliente, archivo, n);
+        if(archivo == null)
+          return;
+        String cuerpo;
+        try {
+          cuerpo = resuelve(tipo, archivo);
+        } catch(Exception e) {
+          responde(cliente, ERROR, e.getMessage() != null ? e.getMessage() : e.toString());
+          continue;
+        }
+        responde(cliente, BIEN, cuerpo);
+      }
+    } catch(IOException ioe) {
+      System.err.println(ioe);
+    }
+  }
+
+  /* Lee los n bytes del archivo y regresa el buffer que los tiene, o null
+   * si la conexión se cerró antes del primer byte. El buffer crece al doble
+   * conforme llegan los bytes, así que un encabezado que anuncia un archivo
+   * enorme no reserva memoria que el cliente no manda */
+  private static ByteBuffer recibe(SocketChannel cliente, ByteBuffer archivo, int n) throws IOException {
+    archivo.clear().limit(Math.min(n, archivo.capacity()));
+    while(true)
+    {
+      if(!lee(cliente, archivo))
+        return null;
+      if(archivo.position() == n)
+        return archivo.flip();
+      ByteBuffer mayor = ByteBuffer.allocate((int)Math.min(n, 2L * archivo.capacity()));
+      archivo = mayor.put(archivo.flip());
+    }
+  }
+
+  /* Valida el archivo y regresa la respuesta de la solicitud */
+  private static String resuelve(byte tipo, ByteBuffer archivo) throws IOException {
+    if(tipo != SVG && tipo != TRAZOS && tipo != RUTA)
+      throw new IllegalArgumentException("La solicitud es inválida (tipo "+tipo+")");
+    ValidadorMaze v = new ValidadorMaze(archivo);
+    Laberinto l = new Laberinto(v.getAncho(), v.getAlto(), v.cuartos());
+    if(!new Alcanzabilidad(l).tieneSolucion())
+      throw new IllegalArgumentException("El archivo es inválido (el laberinto no tiene solución)");
+    if(tipo != RUTA)
+    {
+      StringWriter s = new StringWriter();
+      l.escribeSVG(s, tipo == TRAZOS);
+      return s.toString();
+    }
+    StringBuilder s = new StringBuilder();
+    for(int c : l.resuelve())
+      s.append(l.getX(c)).append(' ').append(l.getY(c)).append('\n');
+    return s.toString();
+  }
+
+  /* Escribe una respuesta completa */
+  private static void responde(SocketChannel cliente, byte estado, String cuerpo) throws IOException {
+    byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer encabezado = ByteBuffer.allocate(5).put(estado).putInt(bytes.length).flip();
+    ByteBuffer[] respuesta = { encabezado, ByteBuffer.wrap(bytes) };
+    while(respuesta[0].hasRemaining() || respuesta[1].hasRemaining())
+      cliente.write(respuesta);
+  }
+
+  /**
+   * Lee del canal hasta llenar el buffer
+   * @param canal el canal
+   * @param buffer el buffer
+   * @return false si el canal se cerró antes de leer el primer byte
+   * @throws IOException si no se puede leer, o si el canal se cerró con el
+   *         buffer a medias
+   */
+  static boolean lee(SocketChannel canal, ByteBuffer buffer) throws IOException {
+    boolean vacio = buffer.position() == 0;
+    while(buffer.hasRemaining())
+    {
+      if(canal.read(buffer) == -1)
+      {
+        if(vacio && buffer.position() == 0)
+          return false;
+        throw new IOException("La conexión se cerró a la mitad de un mensaje");
+      }
+    }
+    return true;
+  }
+
+  /* Un hilo virtual por cliente si la máquina virtual los tiene (Java 21
+   * en adelante); si no, hilos de plataforma que se reutilizan */
+  private static ExecutorService hilos() {
+    try {
+      return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch(ReflectiveOperationException roe) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+}
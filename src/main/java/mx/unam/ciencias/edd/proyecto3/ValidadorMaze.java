@@ -0,0 +1,387 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Clase para leer y validar archivos .mze en una sola pasada. Los renglones
+ * se validan conforme llegan, guardando sólo el anterior: la consistencia de
+ * las paredes con el vecino Oeste y el vecino Norte, con {@link
+ * ConsistenciaRenglones}, y que las paredes de la frontera estén cerradas
+ * salvo exactamente dos aberturas, la entrada y la salida en el orden del
+ * archivo. En cuanto un renglón tiene un byte que viola una regla se lanza
+ * una {@link ExcepcionFormatoInvalido} con la posición del primero, y no se
+ * lee más.
+ *
+ * Además del formato MAZE, se aceptan archivos que empiezan con MAZX, en
+ * los que el número de renglones y el de columnas ocupan 4 bytes cada uno,
+ * del más significativo al menos significativo; el resto del archivo es
+ * igual. Los archivos que empiezan con MAZC usan el {@link
+ * FormatoCompacto}; sus cuartos se reconstruyen completos en memoria, y por
+ * construcción siempre son consistentes.
+ *
+ * La entrada puede ser un flujo o un buffer, por ejemplo un archivo mapeado
+ * a memoria; con un buffer los renglones se validan en su lugar, y {@link
+ * #cuartos} regresa los cuartos sin copiarlos.
+ */
+public class ValidadorMaze {
+
+  /* Los bytes con los que empieza el archivo */
+  private static final byte[] FIRMA = { 0x4D, 0x41, 0x5A, 0x45 };
+  /* El último byte de la firma del formato extendido, MAZX */
+  private static final byte EXTENDIDO = 0x58;
+  /* El último byte de la firma del formato compacto, MAZC */
+  private static final byte COMPACTO = 0x43;
+
+  /* La entrada, si es un flujo */
+  private InputStream in;
+  /* La entrada, si es un buffer, y la posición del inicio del archivo */
+  private ByteBuffer buffer;
+  private int base;
+  /* La posición del siguiente byte */
+  private long posicion;
+  /* Si el archivo usa el formato extendido */
+  private boolean extendido;
+  /* Si el archivo usa el formato compacto */
+  private boolean compacto;
+  /* Los cuartos reconstruidos del formato compacto, o null */
+  private byte[] decodificados;
+  /* La posición del primer byte de los cuartos */
+  private long datos;
+  /* El ancho y alto del laberinto */
+  private int w;
+  private int h;
+  /* El siguiente renglón a leer */
+  private int renglon;
+  /* El renglón anterior, y la posición de su primer cuarto */
+  private ByteBuffer anterior;
+  private int inicioAnterior;
+  /* El número de aberturas encontradas */
+  private int aberturas;
+  /* La entrada y la salida, como índices y*w+x, o -1 */
+  private int entrada = -1;
+  private int salida = -1;
+
+  /**
+   * Constructor, lee y valida el encabezado
+   * @param in la entrada
+   * @throws IOException si no se puede leer la entrada
+   * @throws ExcepcionFormatoInvalido si el encabezado es inválido
+   */
+  public ValidadorMaze(InputStream in) throws IOException {
+    this.in = in;
+    leeEncabezado();
+  }
+
+  /**
+   * Constructor, valida el encabezado que empieza en la posición del buffer
+   * @param buffer la entrada
+   * @throws ExcepcionFormatoInvalido si el encabezado es inválido
+   */
+  public ValidadorMaze(ByteBuffer buffer) {
+    this.buffer = buffer;
+    base = buffer.position();
+    try {
+      leeEncabezado();
+    } catch(IOException ioe) {
+      // Leer de un buffer no lanza IOException
+      throw new IllegalStateException(ioe);
+    }
+  }
+
+  /* Lee y valida el encabezado */
+  private void leeEncabezado() throws IOException {
+    for(int i = 0; i < FIRMA.length; i++)
+    {
+      int b = lee(1, "el archivo debe iniciar con MAZE, MAZX o MAZC");
+      if(i == FIRMA.length-1 && b == EXTENDIDO)
+        extendido = true;
+      else if(i == FIRMA.length-1 && b == COMPACTO)
+        compacto = true;
+      else if(b != (FIRMA[i] & 0xFF))
+        throw new ExcepcionFormatoInvalido(posicion-1, 1, "el archivo debe iniciar con MAZE, MAZX o MAZC");
+    }
+    int bytes = extendido || compacto ? 4 : 1;
+    h = leeDimension(2, "falta el número de renglones");
+    if(h < 2)
+      throw new ExcepcionFormatoInvalido(posicion-bytes, 2, "debe haber al menos 2 renglones");
+    w = leeDimension(3, "falta el número de columnas");
+    if(w < 2)
+      throw new ExcepcionFormatoInvalido(posicion-bytes, 3, "debe haber al menos 2 columnas");
+    if((long)w * h > Laberinto.MAXIMO_CUARTOS)
+      throw new ExcepcionFormatoInvalido(posicion-bytes, 3, "el laberinto no puede tener más de "
+                                         + Laberinto.MAXIMO_CUARTOS + " cuartos");
+    datos = posicion;
+  }
+
+  /* Lee una dimensión: un byte, o 4 en el formato extendido */
+  private int leeDimension(int regla, String mensaje) throws IOException {
+    if(!extendido && !compacto)
+      return lee(regla, mensaje);
+    int d = 0;
+    for(int i = 0; i < 4; i++)
+      d = (d << 8) | lee(regla, mensaje);
+    return d;
+  }
+
+  /**
+   * Nos dice si el archivo usa el formato extendido, MAZX
+   * @return true si el archivo usa el formato extendido
+   */
+  public boolean esExtendido() {
+    return extendido;
+  }
+
+  /**
+   * Nos dice si el archivo usa el formato compacto, MAZC
+   * @return true si el archivo usa el formato compacto
+   */
+  public boolean esCompacto() {
+    return compacto;
+  }
+
+  /**
+   * Devuelve el ancho
+   * @return el ancho
+   */
+  public int getAncho() {
+    return w;
+  }
+
+  /**
+   * Devuelve el alto
+   * @return el alto
+   */
+  public int getAlto() {
+    return h;
+  }
+
+  /**
+   * Nos dice si quedan renglones por leer
+   * @return true si quedan renglones por leer
+   */
+  public boolean hayRenglon() {
+    return renglon < h;
+  }
+
+  /**
+   * Lee y valida el siguiente renglón; al leer el último, verifica que haya
+   * exactamente dos aberturas
+   * @return los cuartos del renglón
+   * @throws IOException si no se puede leer la entrada
+   * @throws ExcepcionFormatoInvalido si algún cuarto viola el formato
+   * @throws IllegalStateException si ya se leyeron todos los renglones
+   */
+  public byte[] siguienteRenglon() throws IOException {
+    if(renglon >= h)
+      throw new IllegalStateException("Ya se leyeron todos los renglones");
+    byte[] actual;
+    if(compacto)
+    {
+      int i = renglon * w;
+      valida(ByteBuffer.wrap(decodifica()), i);
+      actual = new byte[w];
+      System.arraycopy(decodificados, i, actual, 0, w);
+    }
+    else if(in != null)
+    {
+      actual = in.readNBytes(w);
+      if(actual.length < w)
+        throw new ExcepcionFormatoInvalido(posicion + actual.length, 5, "faltan cuartos");
+      posicion += w;
+      valida(ByteBuffer.wrap(actual), 0);
+    }
+    else
+    {
+      int i = siguienteEnBuffer();
+      valida(buffer, i);
+      actual = new byte[w];
+      buffer.duplicate().position(i).get(actual);
+    }
+    return actual;
+  }
+
+  /**
+   * Lee y valida todos los renglones. Si la entrada es un buffer, los
+   * cuartos no se copian: se regresa una vista de sólo lectura del mismo
+   * buffer; si es un flujo, se leen a un solo arreglo. En el formato
+   * compacto, los cuartos se reconstruyen en un arreglo
+   * @return un buffer con los w*h cuartos, desde su posición
+   * @throws IOException si no se puede leer la entrada
+   * @throws ExcepcionFormatoInvalido si algún cuarto viola el formato
+   * @throws IllegalStateException si ya se leyó algún renglón
+   */
+  public ByteBuffer cuartos() throws IOException {
+    if(renglon > 0)
+      throw new IllegalStateException("Ya se leyeron renglones");
+    if(compacto)
+    {
+      ByteBuffer cuartos = ByteBuffer.wrap(decodifica());
+      while(renglon < h)
+        valida(cuartos, renglon * w);
+      return cuartos;
+    }
+    if(in != null)
+    {
+      byte[] todos = new byte[w*h];
+      ByteBuffer cuartos = ByteBuffer.wrap(todos);
+      while(renglon < h)
+      {
+        int i = renglon * w;
+        int n = in.readNBytes(todos, i, w);
+        if(n < w)
+          throw new ExcepcionFormatoInvalido(posicion + n, 5, "faltan cuartos");
+        posicion += w;
+        valida(cuartos, i);
+      }
+      return cuartos;
+    }
+    int inicio = base + (int)posicion;
+    while(renglon < h)
+      valida(buffer, siguienteEnBuffer());
+    ByteBuffer cuartos = buffer.asReadOnlyBuffer();
+    cuartos.position(inicio);
+    cuartos.limit(inicio + w*h);
+    return cuartos;
+  }
+
+  /* La posición del siguiente renglón en el buffer; si no cabe completo,
+   * lanza la excepción de la regla 5 */
+  private int siguienteEnBuffer() {
+    int i = base + (int)posicion;
+    int quedan = buffer.limit() - i;
+    if(quedan < w)
+      throw new ExcepcionFormatoInvalido(posicion + quedan, 5, "faltan cuartos");
+    posicion += w;
+    return i;
+  }
+
+  /* Lee y reconstruye todos los cuartos del formato compacto, la primera
+   * vez que se piden */
+  private byte[] decodifica() throws IOException {
+    if(decodificados != null)
+      return decodificados;
+    int bytes = (int)FormatoCompacto.bytesDatos(w, h);
+    ByteBuffer fuente;
+    int inicio;
+    if(in != null)
+    {
+      byte[] leidos = in.readNBytes(bytes);
+      if(leidos.length < bytes)
+        throw new ExcepcionFormatoInvalido(posicion + leidos.length, 5, "faltan cuartos");
+      fuente = ByteBuffer.wrap(leidos);
+      inicio = 0;
+    }
+    else
+    {
+      inicio = base + (int)posicion;
+      int quedan = buffer.limit() - inicio;
+      if(quedan < bytes)
+        throw new ExcepcionFormatoInvalido(posicion + quedan, 5, "faltan cuartos");
+      fuente = buffer;
+    }
+    posicion += bytes;
+    decodificados = new byte[w*h];
+    FormatoCompacto.decodifica(fuente, inicio, w, h, decodificados);
+    return decodificados;
+  }
+
+  /* La posición en el archivo del byte con el i-ésimo cuarto */
+  private long posicionCuarto(long i) {
+    return compacto ? datos + 6*i / 8 : datos + i;
+  }
+
+  /* Valida el siguiente renglón, que empieza en la posición i del buffer, y
+   * avanza al que sigue */
+  private void valida(ByteBuffer actual, int i) {
+    int y = renglon;
+    long inicio = posicionCuarto((long)y * w);
+
+    // Regla 6, sobre el renglón completo; se reporta el primer cuarto que
+    // la viola, a menos que antes haya uno que viole la regla 8. Los
+    // cuartos del formato compacto no pueden violarla
+    int x6 = compacto ? -1 : ConsistenciaRenglones.horizontal(actual, i, w);
+    String m6 = "la pared Oeste no coincide con la Este del cuarto anterior";
+    if(y > 0 && !compacto)
+    {
+      int xv = ConsistenciaRenglones.vertical(anterior, inicioAnterior, actual, i, w);
+      if(xv != -1 && (x6 == -1 || xv < x6))
+      {
+        x6 = xv;
+        m6 = "la pared Norte no coincide con la Sur del cuarto de arriba";
+      }
+    }
+    int fin = x6 == -1 ? w : x6;
+
+    // Regla 8: las paredes de la frontera están cerradas salvo dos; en los
+    // renglones de en medio sólo las orillas son frontera
+    for(int x = 0; x < fin; x++)
+    {
+      if(y > 0 && y < h-1 && x > 0 && x < w-1)
+        x = w-1;
+      if(x >= fin)
+        break;
+      int c = actual.get(i + x);
+      int abiertas = 0;
+      if(x == 0 && (c & 0b0100) == 0)
+        abiertas++;
+      if(x == w-1 && (c & 0b0001) == 0)
+        abiertas++;
+      if(y == 0 && (c & 0b0010) == 0)
+        abiertas++;
+      if(y == h-1 && (c & 0b1000) == 0)
+        abiertas++;
+      if(abiertas > 1)
+        throw new ExcepcionFormatoInvalido(posicionCuarto((long)y * w + x), 8, "un cuarto no puede ser la entrada y la salida");
+      if(abiertas == 1)
+      {
+        if(++aberturas > 2)
+          throw new ExcepcionFormatoInvalido(posicionCuarto((long)y * w + x), 8, "hay más de dos aberturas en la frontera");
+        if(aberturas == 1)
+          entrada = y*w + x;
+        else
+          salida = y*w + x;
+      }
+    }
+    if(x6 != -1)
+      throw new ExcepcionFormatoInvalido(inicio + x6, 6, m6);
+
+    anterior = actual;
+    inicioAnterior = i;
+    renglon++;
+    if(renglon == h && aberturas < 2)
+      throw new ExcepcionFormatoInvalido(posicionCuarto((long)w * h), 8, "debe haber una entrada y una salida en la frontera");
+  }
+
+  /**
+   * Devuelve la entrada, la primera abertura en el orden del archivo, como
+   * índice y*w+x
+   * @return la entrada, o -1 si no se ha leído
+   */
+  public int getEntrada() {
+    return entrada;
+  }
+
+  /**
+   * Devuelve la salida, la segunda abertura en el orden del archivo, como
+   * índice y*w+x
+   * @return la salida, o -1 si no se ha leído
+   */
+  public int getSalida() {
+    return salida;
+  }
+
+  /* Lee un byte; si el archivo se acabó, lanza la excepción de la regla */
+  private int lee(int regla, String mensaje) throws IOException {
+    int b;
+    if(in != null)
+      b = in.read();
+    else
+      b = base + posicion < buffer.limit() ? buffer.get(base + (int)posicion) & 0xFF : -1;
+    if(b == -1)
+      throw new ExcepcionFormatoInvalido(posicion, regla, mensaje);
+    posicion++;
+    return b;
+  }
+}
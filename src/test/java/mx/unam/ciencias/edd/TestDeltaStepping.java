@@ -0,0 +1,190 @@
+package mx.unam.ciencias.edd;
+
+import java.lang.reflect.Array;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link DeltaStepping}. Está en el
+ * paquete de la clase porque {@link Grafica} no acepta aristas de peso 0, y
+ * aquí se arman las adyacencias directamente para probarlas.
+ */
+public class TestDeltaStepping {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Pool con varios hilos, para que las fases se partan en tramos. */
+    private ForkJoinPool pool;
+
+    /**
+     * Crea el generador y el pool para cada prueba.
+     */
+    public TestDeltaStepping() {
+        random = new Random();
+        pool = new ForkJoinPool(4);
+    }
+
+    /**
+     * Termina el pool de cada prueba.
+     */
+    @After public void terminaPool() {
+        pool.shutdown();
+    }
+
+    /**
+     * Prueba unitaria para {@link DeltaStepping#trayectoria} con aristas de
+     * peso 0 y un ciclo de peso 0.
+     */
+    @Test public void testCicloDePesoCero() {
+        // 0 -1- 1 -0- 2 -0- 3 -0- 1 (ciclo 1-2-3 de peso 0), 3 -2- 4,
+        // 0 -0- 5 -5- 4
+        int[] origen =  { 0, 1, 2, 3, 3, 0, 5 };
+        int[] destino = { 1, 2, 3, 1, 4, 5, 4 };
+        double[] peso = { 1, 0, 0, 0, 2, 0, 5 };
+        Adyacencias<Integer> ady = adyacencias(6, origen, destino, peso, 7);
+        for (double delta : new double[] { 0.5, 1, 100 }) {
+            DeltaStepping ds = new DeltaStepping(ady, delta, pool);
+            ds.recorre(0, -1);
+            double[] esperadas = { 0, 1, 1, 1, 3, 0 };
+            for (int v = 0; v < 6; v++)
+                Assert.assertTrue(ds.distancia(v) == esperadas[v]);
+            for (int v = 0; v < 6; v++)
+                verificaTrayectoria(ady, ds, 0, v);
+            int[] t = ds.trayectoria(0, 0);
+            Assert.assertTrue(t.length == 1 && t[0] == 0);
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link DeltaStepping#trayectoria} en gráficas
+     * aleatorias con muchas aristas de peso 0, lo bastante grandes para que
+     * las fases se relajen en varios tramos.
+     */
+    @Test public void testPesosCeroAleatorios() {
+        for (int r = 0; r < 3; r++) {
+            int n = 3000 + random.nextInt(2000);
+            int m = 3 * n;
+            int[] origen = new int[m];
+            int[] destino = new int[m];
+            double[] peso = new double[m];
+            int k = 0;
+            // Un camino para que todo se alcance, y aristas al azar
+            for (int v = 1; v < n; v++)
+                k = agrega(origen, destino, peso, k, v - 1, v);
+            while (k < m) {
+                int a = random.nextInt(n);
+                int b = random.nextInt(n);
+                if (a != b)
+                    k = agrega(origen, destino, peso, k, a, b);
+            }
+            Adyacencias<Integer> ady = adyacencias(n, origen, destino, peso, m);
+            double[] esperadas = bellmanFord(ady, 0);
+            for (double delta : new double[] { 0.25, 1, 4 }) {
+                DeltaStepping ds = new DeltaStepping(ady, delta, pool);
+                ds.recorre(0, -1);
+                for (int v = 0; v < n; v++)
+                    Assert.assertTrue(ds.distancia(v) == esperadas[v]);
+                for (int i = 0; i < 20; i++)
+                    verificaTrayectoria(ady, ds, 0, random.nextInt(n));
+            }
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link DeltaStepping#trayectoria} con un destino
+     * que no se alcanza.
+     */
+    @Test public void testInalcanzable() {
+        Adyacencias<Integer> ady = adyacencias(3, new int[] { 0 }, new int[] { 1 },
+                                               new double[] { 0 }, 1);
+        DeltaStepping ds = new DeltaStepping(ady, 1, pool);
+        ds.recorre(0, 2);
+        Assert.assertTrue(ds.trayectoria(0, 2).length == 0);
+    }
+
+    /* Agrega una arista con peso 0, 0.5, 1 o 3 y regresa el siguiente
+     * índice. */
+    private int agrega(int[] origen, int[] destino, double[] peso, int k,
+                       int a, int b) {
+        double[] pesos = { 0, 0, 0.5, 1, 3 };
+        origen[k] = a;
+        destino[k] = b;
+        peso[k] = pesos[random.nextInt(pesos.length)];
+        return k + 1;
+    }
+
+    /* Verifica que la trayectoria vaya del origen al destino por aristas de
+     * la gráfica y que pese la distancia del destino. */
+    private static void verificaTrayectoria(Adyacencias<Integer> ady,
+                                            DeltaStepping ds,
+                                            int origen, int destino) {
+        int[] t = ds.trayectoria(origen, destino);
+        Assert.assertTrue(t[0] == origen);
+        Assert.assertTrue(t[t.length-1] == destino);
+        double total = 0;
+        for (int i = 0; i + 1 < t.length; i++) {
+            double minimo = Double.POSITIVE_INFINITY;
+            for (int j = ady.inicio[t[i]]; j < ady.inicio[t[i]+1]; j++)
+                if (ady.destino[j] == t[i+1])
+                    minimo = Math.min(minimo, ady.peso[j]);
+            Assert.assertTrue(minimo != Double.POSITIVE_INFINITY);
+            total += minimo;
+        }
+        Assert.assertTrue(total == ds.distancia(destino));
+    }
+
+    /* Calcula las distancias desde el origen con Bellman-Ford. */
+    private static double[] bellmanFord(Adyacencias<Integer> ady, int origen) {
+        int n = ady.getVertices();
+        double[] d = new double[n];
+        for (int v = 0; v < n; v++)
+            d[v] = Double.POSITIVE_INFINITY;
+        d[origen] = 0;
+        boolean cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (int u = 0; u < n; u++)
+                for (int j = ady.inicio[u]; j < ady.inicio[u+1]; j++)
+                    if (d[u] + ady.peso[j] < d[ady.destino[j]]) {
+                        d[ady.destino[j]] = d[u] + ady.peso[j];
+                        cambio = true;
+                    }
+        }
+        return d;
+    }
+
+    /* Arma las adyacencias de n vértices con las primeras m aristas. */
+    private static Adyacencias<Integer> adyacencias(int n, int[] origen,
+                                                    int[] destino,
+                                                    double[] peso, int m) {
+        int[] inicio = new int[n+1];
+        for (int e = 0; e < m; e++) {
+            inicio[origen[e]+1]++;
+            inicio[destino[e]+1]++;
+        }
+        for (int v = 0; v < n; v++)
+            inicio[v+1] += inicio[v];
+        int[] siguiente = new int[n];
+        for (int v = 0; v < n; v++)
+            siguiente[v] = inicio[v];
+        int[] d = new int[2*m];
+        double[] p = new double[2*m];
+        for (int e = 0; e < m; e++) {
+            d[siguiente[origen[e]]] = destino[e];
+            p[siguiente[origen[e]]++] = peso[e];
+            d[siguiente[destino[e]]] = origen[e];
+            p[siguiente[destino[e]]++] = peso[e];
+        }
+        @SuppressWarnings("unchecked") VerticeGrafica<Integer>[] vertices =
+            (VerticeGrafica<Integer>[])Array.newInstance(VerticeGrafica.class, n);
+        return new Adyacencias<Integer>(vertices, inicio, d, p);
+    }
+}
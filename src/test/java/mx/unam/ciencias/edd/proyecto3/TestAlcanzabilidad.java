@@ -0,0 +1,210 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link Alcanzabilidad}: los
+ * cuartos que se alcanzan desde la entrada son los mismos que con BFS por
+ * todos los cuartos, también cuando un renglón ocupa varios longs y el
+ * último no está completo.
+ */
+public class TestAlcanzabilidad {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+
+    /**
+     * Crea el generador para cada prueba.
+     */
+    public TestAlcanzabilidad() {
+        random = new Random();
+    }
+
+    /**
+     * Prueba unitaria para anchos del 2 al 70, con puertas al azar que
+     * dejan bolsas de cuartos sin salida, y aberturas en cualquier lado.
+     */
+    @Test public void testAnchos() {
+        for (int w = 2; w <= 70; w++)
+            compara(aleatorio(w, 2 + random.nextInt(30)));
+    }
+
+    /**
+     * Prueba unitaria para anchos mayores a 64, múltiplos de 64 y no, para
+     * que el llenado pase cuartos de un long a otro en los dos sentidos.
+     */
+    @Test public void testAnchosGrandes() {
+        int[] anchos = { 64, 65, 127, 128, 129, 191, 192, 200, 255, 256, 300 };
+        for (int w : anchos)
+            for (int k = 0; k < 5; k++)
+                compara(aleatorio(w, 2 + random.nextInt(20)));
+        for (int k = 0; k < 5; k++)
+            compara(aleatorio(257 + random.nextInt(800), 2 + random.nextInt(6)));
+    }
+
+    /**
+     * Prueba unitaria para corredores que cruzan todo el renglón: una
+     * serpiente obliga a inundar hacia el Este y hacia el Oeste por todos
+     * los longs del renglón.
+     */
+    @Test public void testSerpiente() {
+        for (int w : new int[] { 63, 64, 65, 130, 200 }) {
+            int h = 2 + random.nextInt(10);
+            byte[][] c = paredes(w, h);
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x + 1 < w; x++)
+                    abreEste(c, x, y);
+                if (y + 1 < h)
+                    abreSur(c, y % 2 == 0 ? w-1 : 0, y);
+            }
+            c[0][0] &= ~0b0100;
+            c[h-1][h % 2 == 1 ? w-1 : 0] &= ~0b1000;
+            Laberinto l = new Laberinto(w, h, c);
+            compara(l);
+            Assert.assertTrue(new Alcanzabilidad(l).getInalcanzables() == 0);
+            // Una pared en medio del primer renglón deja todo lo demás fuera
+            c[0][w/2] |= 0b0001;
+            c[0][w/2+1] |= 0b0100;
+            l = new Laberinto(w, h, c);
+            compara(l);
+            Alcanzabilidad a = new Alcanzabilidad(l);
+            Assert.assertFalse(a.tieneSolucion());
+            Assert.assertTrue(a.getInalcanzables() == w * h - (w/2 + 1));
+        }
+    }
+
+    /**
+     * Prueba unitaria para laberintos sin aberturas o con una sola: sin
+     * entrada no se alcanza nada, y sin salida no hay solución.
+     */
+    @Test public void testSinAberturas() {
+        for (int k = 0; k < 10; k++) {
+            int w = 2 + random.nextInt(150);
+            int h = 2 + random.nextInt(20);
+            byte[][] c = puertas(w, h, random.nextDouble());
+            Laberinto l = new Laberinto(w, h, c);
+            compara(l);
+            Alcanzabilidad a = new Alcanzabilidad(l);
+            Assert.assertTrue(a.getInalcanzables() == w * h);
+            abre(c, w, h, random.nextInt(2 * (w + h)));
+            l = new Laberinto(w, h, c);
+            compara(l);
+            Assert.assertFalse(new Alcanzabilidad(l).tieneSolucion());
+        }
+    }
+
+    /* Verifica alcanza, getInalcanzables y tieneSolucion contra BFS desde
+     * la entrada por todos los cuartos. */
+    private static void compara(Laberinto l) {
+        int w = l.getAncho();
+        int h = l.getAlto();
+        boolean[] bfs = bfs(l);
+        Alcanzabilidad a = new Alcanzabilidad(l);
+        int inalcanzables = 0;
+        for (int y = 0; y < h; y++)
+            for (int x = 0; x < w; x++) {
+                Assert.assertTrue(a.alcanza(x, y) == bfs[y * w + x]);
+                if (!bfs[y * w + x])
+                    inalcanzables++;
+            }
+        Assert.assertTrue(a.getInalcanzables() == inalcanzables);
+        boolean solucion = l.getEntrada() != -1 && l.getSalida() != -1 &&
+            bfs[l.getSalida()];
+        Assert.assertTrue(a.tieneSolucion() == solucion);
+    }
+
+    /* Los cuartos que se alcanzan desde la entrada con BFS. */
+    private static boolean[] bfs(Laberinto l) {
+        int w = l.getAncho();
+        int n = w * l.getAlto();
+        boolean[] visto = new boolean[n];
+        if (l.getEntrada() == -1)
+            return visto;
+        int[] cola = new int[n];
+        int cabeza = 0, rabo = 0;
+        cola[rabo++] = l.getEntrada();
+        visto[l.getEntrada()] = true;
+        while (cabeza < rabo) {
+            int c = cola[cabeza++];
+            int x = c % w, y = c / w;
+            int[] vecinos = {
+                x + 1 < w && l.abiertaEste(x, y) ? c + 1 : -1,
+                x > 0 && l.abiertaEste(x-1, y) ? c - 1 : -1,
+                y + 1 < l.getAlto() && l.abiertaSur(x, y) ? c + w : -1,
+                y > 0 && l.abiertaSur(x, y-1) ? c - w : -1
+            };
+            for (int v : vecinos)
+                if (v != -1 && !visto[v]) {
+                    visto[v] = true;
+                    cola[rabo++] = v;
+                }
+        }
+        return visto;
+    }
+
+    /* Un laberinto con puertas al azar y dos o tres aberturas en lados al
+     * azar; con pocas puertas quedan bolsas separadas de la entrada. */
+    private Laberinto aleatorio(int w, int h) {
+        byte[][] c = puertas(w, h, random.nextDouble());
+        int aberturas = 2 + random.nextInt(2);
+        for (int k = 0; k < aberturas; k++)
+            abre(c, w, h, random.nextInt(2 * (w + h)));
+        return new Laberinto(w, h, c);
+    }
+
+    /* Un laberinto cerrado, con cada puerta interior abierta con la
+     * probabilidad dada y puntajes al azar. */
+    private byte[][] puertas(int w, int h, double densidad) {
+        byte[][] c = paredes(w, h);
+        for (int y = 0; y < h; y++)
+            for (int x = 0; x < w; x++) {
+                c[y][x] |= random.nextInt(16) << 4;
+                if (x + 1 < w && random.nextDouble() < densidad)
+                    abreEste(c, x, y);
+                if (y + 1 < h && random.nextDouble() < densidad)
+                    abreSur(c, x, y);
+            }
+        return c;
+    }
+
+    /* Abre la pared exterior número p, contando primero las del Norte, luego
+     * las del Sur, luego las del Oeste y al final las del Este. */
+    private static void abre(byte[][] c, int w, int h, int p) {
+        if (p < w)
+            c[0][p] &= ~0b0010;
+        else if (p < 2 * w)
+            c[h-1][p - w] &= ~0b1000;
+        else if (p < 2 * w + h)
+            c[p - 2 * w][0] &= ~0b0100;
+        else
+            c[p - 2 * w - h][w-1] &= ~0b0001;
+    }
+
+    /* Un laberinto con todas las paredes y puntaje 0. */
+    private static byte[][] paredes(int w, int h) {
+        byte[][] c = new byte[h][w];
+        for (int y = 0; y < h; y++)
+            for (int x = 0; x < w; x++)
+                c[y][x] = 0x0F;
+        return c;
+    }
+
+    /* Abre la puerta entre (x, y) y (x+1, y). */
+    private static void abreEste(byte[][] c, int x, int y) {
+        c[y][x] &= ~0b0001;
+        c[y][x+1] &= ~0b0100;
+    }
+
+    /* Abre la puerta entre (x, y) y (x, y+1). */
+    private static void abreSur(byte[][] c, int x, int y) {
+        c[y][x] &= ~0b1000;
+        c[y+1][x] &= ~0b0010;
+    }
+}
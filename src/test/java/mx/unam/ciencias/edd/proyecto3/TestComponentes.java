@@ -0,0 +1,177 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link Componentes}: con
+ * cualquier número de franjas, las etiquetas y los tamaños son los de BFS
+ * por todos los cuartos, numerando las componentes en el orden de su primer
+ * cuarto.
+ */
+public class TestComponentes {
+
+    /** Expiración para que ninguna prueba tarde más de 10 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(10);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+
+    /**
+     * Crea el generador para cada prueba.
+     */
+    public TestComponentes() {
+        random = new Random();
+    }
+
+    /**
+     * Prueba unitaria para 1 a 40 franjas, con menos, tantas o más franjas
+     * que renglones.
+     */
+    @Test public void testFranjas() {
+        for (int franjas = 1; franjas <= 40; franjas++)
+            for (int k = 0; k < 3; k++) {
+                int w = 2 + random.nextInt(40);
+                int h = 2 + random.nextInt(50);
+                compara(aleatorio(w, h), franjas);
+            }
+    }
+
+    /**
+     * Prueba unitaria para el número de franjas por omisión, en laberintos
+     * con menos y con más de 4096 cuartos por franja.
+     */
+    @Test public void testPorOmision() {
+        for (int k = 0; k < 5; k++) {
+            int w = 2 + random.nextInt(300);
+            int h = 2 + random.nextInt(300);
+            Laberinto l = aleatorio(w, h);
+            int[] etiquetas = bfs(l);
+            Componentes c = new Componentes(l);
+            verifica(l, c, etiquetas);
+        }
+    }
+
+    /**
+     * Prueba unitaria para laberintos sin puertas y generados: una
+     * componente por cuarto, o una sola componente.
+     */
+    @Test public void testExtremos() {
+        for (int franjas = 1; franjas <= 40; franjas += 1 + random.nextInt(5)) {
+            int w = 2 + random.nextInt(40);
+            int h = 2 + random.nextInt(40);
+            Componentes c = new Componentes(new Laberinto(w, h, puertas(w, h, 0)),
+                                            franjas);
+            Assert.assertTrue(c.getComponentes() == w * h);
+            for (int y = 0; y < h; y++)
+                for (int x = 0; x < w; x++) {
+                    Assert.assertTrue(c.getEtiqueta(x, y) == y * w + x);
+                    Assert.assertTrue(c.getTamano(y * w + x) == 1);
+                }
+            c = new Componentes(new Laberinto(random.nextLong(), w, h), franjas);
+            Assert.assertTrue(c.getComponentes() == 1);
+            Assert.assertTrue(c.getTamano(0) == w * h);
+        }
+    }
+
+    /**
+     * Prueba unitaria para un número de franjas que no es positivo.
+     */
+    @Test public void testFranjasInvalidas() {
+        Laberinto l = new Laberinto(random.nextLong(), 5, 5);
+        for (int franjas : new int[] { 0, -1, Integer.MIN_VALUE }) {
+            try {
+                new Componentes(l, franjas);
+                Assert.fail();
+            } catch (IllegalArgumentException iae) {}
+        }
+    }
+
+    /* Verifica las componentes con el número de franjas contra BFS. */
+    private static void compara(Laberinto l, int franjas) {
+        verifica(l, new Componentes(l, franjas), bfs(l));
+    }
+
+    /* Verifica getComponentes, getEtiqueta y getTamano contra las
+     * etiquetas de BFS. */
+    private static void verifica(Laberinto l, Componentes c, int[] etiquetas) {
+        int w = l.getAncho();
+        int n = 0;
+        for (int e : etiquetas)
+            n = Math.max(n, e + 1);
+        Assert.assertTrue(c.getComponentes() == n);
+        int[] tamanos = new int[n];
+        for (int i = 0; i < etiquetas.length; i++) {
+            Assert.assertTrue(c.getEtiqueta(i % w, i / w) == etiquetas[i]);
+            tamanos[etiquetas[i]]++;
+        }
+        for (int k = 0; k < n; k++)
+            Assert.assertTrue(c.getTamano(k) == tamanos[k]);
+    }
+
+    /* Las etiquetas de BFS desde cada cuarto sin etiqueta, en el orden de
+     * los cuartos. */
+    private static int[] bfs(Laberinto l) {
+        int w = l.getAncho();
+        int n = w * l.getAlto();
+        int[] etiquetas = new int[n];
+        for (int i = 0; i < n; i++)
+            etiquetas[i] = -1;
+        int[] cola = new int[n];
+        int componentes = 0;
+        for (int i = 0; i < n; i++) {
+            if (etiquetas[i] != -1)
+                continue;
+            int cabeza = 0, rabo = 0;
+            cola[rabo++] = i;
+            etiquetas[i] = componentes;
+            while (cabeza < rabo) {
+                int c = cola[cabeza++];
+                int x = c % w, y = c / w;
+                int[] vecinos = {
+                    x + 1 < w && l.abiertaEste(x, y) ? c + 1 : -1,
+                    x > 0 && l.abiertaEste(x-1, y) ? c - 1 : -1,
+                    y + 1 < l.getAlto() && l.abiertaSur(x, y) ? c + w : -1,
+                    y > 0 && l.abiertaSur(x, y-1) ? c - w : -1
+                };
+                for (int v : vecinos)
+                    if (v != -1 && etiquetas[v] == -1) {
+                        etiquetas[v] = componentes;
+                        cola[rabo++] = v;
+                    }
+            }
+            componentes++;
+        }
+        return etiquetas;
+    }
+
+    /* Un laberinto con puertas al azar; la densidad varía para que haya
+     * desde muchas componentes pequeñas hasta unas pocas grandes. */
+    private Laberinto aleatorio(int w, int h) {
+        return new Laberinto(w, h, puertas(w, h, random.nextDouble()));
+    }
+
+    /* Un laberinto cerrado, con cada puerta interior abierta con la
+     * probabilidad dada. */
+    private byte[][] puertas(int w, int h, double densidad) {
+        byte[][] c = new byte[h][w];
+        for (int y = 0; y < h; y++)
+            for (int x = 0; x < w; x++)
+                c[y][x] = 0x0F;
+        for (int y = 0; y < h; y++)
+            for (int x = 0; x < w; x++) {
+                if (x + 1 < w && random.nextDouble() < densidad) {
+                    c[y][x] &= ~0b0001;
+                    c[y][x+1] &= ~0b0100;
+                }
+                if (y + 1 < h && random.nextDouble() < densidad) {
+                    c[y][x] &= ~0b1000;
+                    c[y+1][x] &= ~0b0010;
+                }
+            }
+        return c;
+    }
+}
@@ -0,0 +1,94 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link ConsistenciaRenglones}.
+ * Las pruebas corren con <code>--add-modules jdk.incubator.vector</code>,
+ * así que los renglones de más de 255 cuartos se revisan con {@link
+ * ConsistenciaVectorial}; todas las versiones deben encontrar el mismo
+ * cuarto que las versiones cuarto por cuarto.
+ */
+public class TestConsistenciaRenglones {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+
+    /**
+     * Crea el generador para cada prueba.
+     */
+    public TestConsistenciaRenglones() {
+        random = new Random();
+    }
+
+    /**
+     * Verifica que las pruebas usen la API de vectores.
+     */
+    @Test public void testVectores() {
+        Assert.assertTrue(ModuleLayer.boot()
+                          .findModule("jdk.incubator.vector").isPresent());
+    }
+
+    /**
+     * Prueba unitaria para {@link ConsistenciaRenglones#horizontal} y
+     * {@link ConsistenciaRenglones#vertical}, en arreglos y en buffers,
+     * con renglones consistentes y con un cuarto inconsistente.
+     */
+    @Test public void testRenglones() {
+        for (int k = 0; k < 500; k++) {
+            int w = 2 + random.nextInt(k % 2 == 0 ? 40 : 1200);
+            byte[] arriba = renglon(null, w);
+            byte[] abajo = renglon(arriba, w);
+            int error = random.nextInt(3);
+            if (error == 1)
+                abajo[1 + random.nextInt(w - 1)] ^= 0b0100;
+            else if (error == 2)
+                abajo[random.nextInt(w)] ^= 0b0010;
+            verifica(arriba, abajo, w);
+        }
+    }
+
+    /* Compara las versiones por longs, o por vectores, y en buffers contra
+     * las versiones cuarto por cuarto. */
+    private void verifica(byte[] arriba, byte[] abajo, int w) {
+        int h = ConsistenciaRenglones.horizontalEscalar(abajo, w);
+        int v = ConsistenciaRenglones.verticalEscalar(arriba, abajo, w);
+        Assert.assertTrue(ConsistenciaRenglones.horizontal(abajo, w) == h);
+        Assert.assertTrue(ConsistenciaRenglones.vertical(arriba, abajo, w) == v);
+        Assert.assertTrue(ConsistenciaRenglones.horizontalLongs(abajo, w) == h);
+        Assert.assertTrue(ConsistenciaRenglones.verticalLongs(arriba, abajo, w) == v);
+        // Los dos renglones seguidos en un buffer de sólo lectura, después
+        // de unos bytes de más para que no empiecen alineados
+        int corrimiento = random.nextInt(16);
+        ByteBuffer b = ByteBuffer.allocate(corrimiento + 2 * w);
+        b.position(corrimiento);
+        b.put(arriba).put(abajo);
+        b = b.asReadOnlyBuffer();
+        int i = corrimiento + w;
+        Assert.assertTrue(ConsistenciaRenglones.horizontal(b, i, w) == h);
+        Assert.assertTrue(ConsistenciaRenglones.vertical(b, corrimiento, b, i, w) == v);
+    }
+
+    /* Un renglón aleatorio consistente con su vecino Oeste y, si no es
+     * null, con el renglón de arriba. */
+    private byte[] renglon(byte[] arriba, int w) {
+        byte[] r = new byte[w];
+        for (int x = 0; x < w; x++) {
+            int c = random.nextInt(256);
+            if (x > 0)
+                c = (c & ~0b0100) | ((r[x-1] & 0b0001) << 2);
+            if (arriba != null)
+                c = (c & ~0b0010) | ((arriba[x] & 0b1000) >> 2);
+            r[x] = (byte)c;
+        }
+        return r;
+    }
+}
@@ -0,0 +1,233 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import mx.unam.ciencias.edd.Dispersores;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de las clases {@link EscritorContenedor} y
+ * {@link Contenedor}.
+ */
+public class TestContenedor {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /** Carpeta para los contenedores. */
+    @Rule public TemporaryFolder carpeta = new TemporaryFolder();
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Los laberintos del último contenedor escrito. */
+    private Laberinto[] laberintos;
+    /* Si cada registro del último contenedor se escribió en MAZC. */
+    private boolean[] compactos;
+
+    /**
+     * Crea el generador para cada prueba.
+     */
+    public TestContenedor() {
+        random = new Random();
+    }
+
+    /**
+     * Prueba unitaria para el índice: cada registro tiene sus bytes, sus
+     * dimensiones y su dispersión, y se lee como el laberinto original. Hay
+     * más de 16 registros, para que el escritor tenga que crecer sus
+     * arreglos.
+     */
+    @Test public void testIndice() throws IOException {
+        int n = 17 + random.nextInt(20);
+        Path p = escribe(n);
+        Contenedor c = new Contenedor(p);
+        Assert.assertTrue(c.getRegistros() == n);
+        byte[] archivo = Files.readAllBytes(p);
+        int posicion = 4;
+        for (int k = 0; k < n; k++) {
+            Laberinto l = laberintos[k];
+            byte[] bytes = formato(l, compactos[k]);
+            Assert.assertTrue(c.getAlto(k) == l.getAlto());
+            Assert.assertTrue(c.getAncho(k) == l.getAncho());
+            Assert.assertTrue(c.getDispersion(k) == Dispersores.dispersaBJ(bytes));
+            ByteBuffer r = c.registro(k);
+            Assert.assertTrue(r.position() == posicion);
+            Assert.assertTrue(r.remaining() == bytes.length);
+            Assert.assertArrayEquals(bytes, Arrays.copyOfRange(archivo, posicion,
+                                                               posicion + bytes.length));
+            posicion += bytes.length;
+            Laberinto leido = c.laberinto(k);
+            for (int y = 0; y < l.getAlto(); y++)
+                for (int x = 0; x < l.getAncho(); x++)
+                    Assert.assertTrue(leido.getCasilla(x, y) == l.getCasilla(x, y));
+            Assert.assertArrayEquals(l.resuelve(), leido.resuelve());
+        }
+        Assert.assertTrue(posicion == archivo.length - 28 * n - 16);
+    }
+
+    /**
+     * Prueba unitaria para la dispersión: un registro con un byte cambiado
+     * se rechaza, y los demás se siguen leyendo.
+     */
+    @Test public void testDispersion() throws IOException {
+        int n = 3 + random.nextInt(5);
+        Path p = escribe(n);
+        Contenedor c = new Contenedor(p);
+        int k = random.nextInt(n);
+        ByteBuffer r = c.registro(k);
+        int i = r.position() + 12 + random.nextInt(r.remaining() - 12);
+        byte[] archivo = Files.readAllBytes(p);
+        archivo[i] ^= 0b0001;
+        Files.write(p, archivo);
+        c = new Contenedor(p);
+        try {
+            c.registro(k);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        try {
+            c.laberinto(k);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        for (int j = 0; j < n; j++)
+            if (j != k)
+                Assert.assertArrayEquals(laberintos[j].resuelve(),
+                                         c.laberinto(j).resuelve());
+    }
+
+    /**
+     * Prueba unitaria para pedir registros que no existen, como con un
+     * <code>-k</code> fuera de rango.
+     */
+    @Test public void testFueraDeRango() throws IOException {
+        int n = 1 + random.nextInt(5);
+        Contenedor c = new Contenedor(escribe(n));
+        for (int k : new int[] { -1, n, n + 1, Integer.MAX_VALUE, Integer.MIN_VALUE }) {
+            try {
+                c.laberinto(k);
+                Assert.fail();
+            } catch (IllegalArgumentException iae) {}
+            try {
+                c.getAlto(k);
+                Assert.fail();
+            } catch (IllegalArgumentException iae) {}
+        }
+        c = new Contenedor(escribe(0));
+        Assert.assertTrue(c.getRegistros() == 0);
+        try {
+            c.laberinto(0);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para un final dañado: la firma, la posición del
+     * índice, el número de registros, un registro fuera del archivo o un
+     * archivo cortado.
+     */
+    @Test public void testFinalDanado() throws IOException {
+        int n = 2 + random.nextInt(5);
+        byte[] original = Files.readAllBytes(escribe(n));
+        int fin = original.length;
+        // La firma del final
+        byte[] archivo = original.clone();
+        archivo[fin - 1] = 'X';
+        invalido(archivo);
+        // La posición del índice
+        archivo = original.clone();
+        ByteBuffer.wrap(archivo).putLong(fin - 16, 3);
+        invalido(archivo);
+        archivo = original.clone();
+        ByteBuffer.wrap(archivo).putLong(fin - 16, Long.MAX_VALUE);
+        invalido(archivo);
+        // El número de registros
+        archivo = original.clone();
+        ByteBuffer.wrap(archivo).putInt(fin - 8, n + 1);
+        invalido(archivo);
+        archivo = original.clone();
+        ByteBuffer.wrap(archivo).putInt(fin - 8, -1);
+        invalido(archivo);
+        // Un registro que se sale hacia el índice
+        archivo = original.clone();
+        int entrada = fin - 16 - 28 * n + 28 * random.nextInt(n);
+        ByteBuffer.wrap(archivo).putLong(entrada + 8, fin);
+        invalido(archivo);
+        // Cortado, y sin nada después de la firma del inicio
+        invalido(Arrays.copyOf(original, fin - 1));
+        invalido(Arrays.copyOf(original, 4));
+        // Las dimensiones del índice no son las del registro
+        archivo = original.clone();
+        ByteBuffer.wrap(archivo).putInt(entrada + 16, 1000);
+        Path p = carpeta.newFile().toPath();
+        Files.write(p, archivo);
+        try {
+            new Contenedor(p).laberinto((entrada - (fin - 16 - 28 * n)) / 28);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link EscritorContenedor} después de terminar.
+     */
+    @Test public void testTerminado() throws IOException {
+        EscritorContenedor e = new EscritorContenedor(new ByteArrayOutputStream());
+        e.agrega(new Laberinto(random.nextLong(), 3, 3), false);
+        e.termina();
+        try {
+            e.agrega(new Laberinto(random.nextLong(), 3, 3), false);
+            Assert.fail();
+        } catch (IllegalStateException ise) {}
+        try {
+            e.termina();
+            Assert.fail();
+        } catch (IllegalStateException ise) {}
+    }
+
+    /* Escribe un contenedor con n laberintos aleatorios, algunos en MAZC y
+     * algunos en MAZX, y regresa su ruta. */
+    private Path escribe(int n) throws IOException {
+        laberintos = new Laberinto[n];
+        compactos = new boolean[n];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EscritorContenedor e = new EscritorContenedor(out);
+        for (int k = 0; k < n; k++) {
+            int w = k % 5 == 4 ? 256 + random.nextInt(50) : 2 + random.nextInt(40);
+            laberintos[k] = new Laberinto(random.nextLong(), w, 2 + random.nextInt(40));
+            compactos[k] = random.nextBoolean();
+            e.agrega(laberintos[k], compactos[k]);
+        }
+        e.termina();
+        Path p = carpeta.newFile().toPath();
+        Files.write(p, out.toByteArray());
+        return p;
+    }
+
+    /* Los bytes del laberinto en MAZE o MAZX, o en MAZC. */
+    private static byte[] formato(Laberinto l, boolean compacto)
+        throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (compacto)
+            FormatoCompacto.escribe(l, out);
+        else
+            FormatoMaze.escribe(l, out);
+        return out.toByteArray();
+    }
+
+    /* Verifica que el contenedor se rechace al abrirlo. */
+    private void invalido(byte[] archivo) throws IOException {
+        Path p = carpeta.newFile().toPath();
+        Files.write(p, archivo);
+        try {
+            new Contenedor(p);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+}
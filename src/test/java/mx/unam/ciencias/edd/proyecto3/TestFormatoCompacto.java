@@ -0,0 +1,103 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link FormatoCompacto}: al
+ * leer un laberinto en MAZC se obtienen los mismos cuartos que al leerlo
+ * en MAZE o MAZX, también cuando los cuartos de un renglón no completan
+ * los 8 cuartos de un long.
+ */
+public class TestFormatoCompacto {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+
+    /**
+     * Crea el generador para cada prueba.
+     */
+    public TestFormatoCompacto() {
+        random = new Random();
+    }
+
+    /**
+     * Prueba unitaria para leer MAZC con anchos que no son múltiplos de 8,
+     * del 2 al 71 y algunos mayores a 255.
+     */
+    @Test public void testAnchos() throws IOException {
+        for (int w = 2; w < 72; w++) {
+            if (w % 8 == 0)
+                continue;
+            compara(new Laberinto(random.nextLong(), w, 2 + random.nextInt(30)));
+        }
+        for (int k = 0; k < 5; k++) {
+            int w = 256 + 8 * random.nextInt(40) + 1 + random.nextInt(7);
+            compara(new Laberinto(random.nextLong(), w, 2 + random.nextInt(10)));
+        }
+    }
+
+    /**
+     * Prueba unitaria para leer MAZC con anchos múltiplos de 8 y alturas
+     * que no lo son, para que el total de cuartos tampoco lo sea.
+     */
+    @Test public void testAlturas() throws IOException {
+        for (int k = 0; k < 20; k++) {
+            int w = 8 * (1 + random.nextInt(10));
+            int h = 2 + random.nextInt(40);
+            compara(new Laberinto(random.nextLong(), w, h));
+        }
+    }
+
+    /* Escribe el laberinto en MAZC y en MAZE o MAZX, y verifica que al
+     * leer los dos, como flujo, como buffer y renglón por renglón, se
+     * obtengan los mismos cuartos. */
+    private static void compara(Laberinto l) throws IOException {
+        int w = l.getAncho();
+        int h = l.getAlto();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FormatoMaze.escribe(l, out);
+        byte[] original = out.toByteArray();
+        out = new ByteArrayOutputStream();
+        FormatoCompacto.escribe(l, out);
+        byte[] compacto = out.toByteArray();
+        Assert.assertTrue(compacto.length == 12 + FormatoCompacto.bytesDatos(w, h));
+        Assert.assertTrue(compacto[3] == 'C');
+
+        ByteBuffer esperados = new ValidadorMaze(ByteBuffer.wrap(original)).cuartos();
+        ValidadorMaze[] validadores = {
+            new ValidadorMaze(new ByteArrayInputStream(compacto)),
+            new ValidadorMaze(ByteBuffer.wrap(compacto))
+        };
+        for (ValidadorMaze v : validadores) {
+            Assert.assertTrue(v.esCompacto());
+            Assert.assertTrue(v.getAncho() == w);
+            Assert.assertTrue(v.getAlto() == h);
+            ByteBuffer cuartos = v.cuartos();
+            for (int i = 0; i < w * h; i++)
+                Assert.assertTrue(cuartos.get(cuartos.position() + i) ==
+                                  esperados.get(esperados.position() + i));
+            Assert.assertTrue(v.getEntrada() == l.getEntrada());
+            Assert.assertTrue(v.getSalida() == l.getSalida());
+        }
+
+        ValidadorMaze v = new ValidadorMaze(new ByteArrayInputStream(compacto));
+        for (int y = 0; y < h; y++) {
+            byte[] renglon = v.siguienteRenglon();
+            for (int x = 0; x < w; x++)
+                Assert.assertTrue(renglon[x] ==
+                                  esperados.get(esperados.position() + y * w + x));
+        }
+        Assert.assertFalse(v.hayRenglon());
+    }
+}
@@ -0,0 +1,132 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.CRC32;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link FormatoMaze}: los
+ * laberintos que caben en MAZE se escriben igual que antes del formato
+ * extendido, y los que no, en MAZX; los dos se leen de regreso con {@link
+ * ValidadorMaze} sin cambios.
+ */
+public class TestFormatoMaze {
+
+    /** Expiración para que ninguna prueba tarde más de 10 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(10);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+
+    /**
+     * Crea el generador para cada prueba.
+     */
+    public TestFormatoMaze() {
+        random = new Random();
+    }
+
+    /**
+     * Prueba unitaria para {@link FormatoMaze#escribe} con laberintos
+     * generados con la semilla 1234: los bytes son los mismos que escribía
+     * el generador antes de que existiera MAZX.
+     */
+    @Test public void testSinCambios() throws IOException {
+        int[][] dimensiones = { { 100, 60 }, { 2, 2 }, { 127, 3 },
+                                { 77, 127 }, { 255, 255 } };
+        long[] crc = { 0xd6fc323cL, 0x59509761L, 0x7289151aL,
+                       0x9ff60b9dL, 0xe0647c4aL };
+        for (int i = 0; i < crc.length; i++) {
+            int w = dimensiones[i][0];
+            int h = dimensiones[i][1];
+            byte[] archivo = escribe(new Laberinto(1234, w, h));
+            Assert.assertTrue(archivo.length == 6 + w * h);
+            CRC32 c = new CRC32();
+            c.update(archivo);
+            Assert.assertTrue(c.getValue() == crc[i]);
+        }
+    }
+
+    /**
+     * Prueba unitaria para escribir y leer en MAZE, con anchos entre 128 y
+     * 254, en los que antes fallaba el generador.
+     */
+    @Test public void testMaze() throws IOException {
+        for (int k = 0; k < 6; k++) {
+            int w = 128 + random.nextInt(127);
+            int h = 2 + random.nextInt(254);
+            if (k % 2 == 1) {
+                int t = w;
+                w = h;
+                h = t;
+            }
+            Laberinto l = new Laberinto(random.nextLong(), w, h);
+            byte[] archivo = escribe(l);
+            Assert.assertTrue(archivo.length == 6 + w * h);
+            Assert.assertTrue(archivo[3] == 'E');
+            Assert.assertTrue((archivo[4] & 0xFF) == h);
+            Assert.assertTrue((archivo[5] & 0xFF) == w);
+            lee(l, archivo, 6);
+        }
+    }
+
+    /**
+     * Prueba unitaria para escribir y leer en MAZX, cuando el ancho, el
+     * alto o los dos no caben en un byte.
+     */
+    @Test public void testMazx() throws IOException {
+        int[][] dimensiones = { { 256, 2 }, { 2, 256 }, { 300, 300 },
+                                { 1000 + random.nextInt(1000), 3 },
+                                { 5, 1000 + random.nextInt(1000) } };
+        for (int[] d : dimensiones) {
+            int w = d[0];
+            int h = d[1];
+            Laberinto l = new Laberinto(random.nextLong(), w, h);
+            byte[] archivo = escribe(l);
+            Assert.assertTrue(archivo.length == 12 + w * h);
+            Assert.assertTrue(archivo[3] == 'X');
+            ByteBuffer b = ByteBuffer.wrap(archivo);
+            Assert.assertTrue(b.getInt(4) == h);
+            Assert.assertTrue(b.getInt(8) == w);
+            lee(l, archivo, 12);
+        }
+    }
+
+    /* Escribe el laberinto a un arreglo. */
+    private static byte[] escribe(Laberinto l) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FormatoMaze.escribe(l, out);
+        return out.toByteArray();
+    }
+
+    /* Lee el archivo como flujo y como buffer, y verifica que tenga los
+     * cuartos, la entrada, la salida y la ruta del laberinto. */
+    private static void lee(Laberinto l, byte[] archivo, int datos)
+        throws IOException {
+        int w = l.getAncho();
+        int h = l.getAlto();
+        ValidadorMaze[] validadores = {
+            new ValidadorMaze(new ByteArrayInputStream(archivo)),
+            new ValidadorMaze(ByteBuffer.wrap(archivo))
+        };
+        for (ValidadorMaze v : validadores) {
+            Assert.assertTrue(v.getAncho() == w);
+            Assert.assertTrue(v.getAlto() == h);
+            Assert.assertTrue(v.esExtendido() == (datos == 12));
+            ByteBuffer cuartos = v.cuartos();
+            for (int i = 0; i < w * h; i++)
+                Assert.assertTrue(cuartos.get(cuartos.position() + i) ==
+                                  l.getCasilla(i % w, i / w));
+            Assert.assertTrue(v.getEntrada() == l.getEntrada());
+            Assert.assertTrue(v.getSalida() == l.getSalida());
+            Laberinto leido = new Laberinto(w, h, cuartos);
+            Assert.assertArrayEquals(l.resuelve(), leido.resuelve());
+        }
+    }
+}
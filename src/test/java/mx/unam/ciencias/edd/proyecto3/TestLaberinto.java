@@ -0,0 +1,283 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la contracción de corredores de
+ * {@link Laberinto#resuelve}.
+ */
+public class TestLaberinto {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+
+    /**
+     * Crea el generador para cada prueba.
+     */
+    public TestLaberinto() {
+        random = new Random();
+    }
+
+    /**
+     * Prueba unitaria para {@link Laberinto#getReduccion} en un peine: un
+     * corredor arriba, con dientes hasta abajo. Sólo quedan como vértices
+     * el renglón de arriba y las puntas de los dientes.
+     */
+    @Test public void testPeine() {
+        for (int k = 0; k < 10; k++) {
+            int w = 2 + random.nextInt(30);
+            int h = 2 + random.nextInt(30);
+            byte[][] c = paredes(w, h);
+            for (int x = 0; x + 1 < w; x++)
+                abreEste(c, x, 0);
+            for (int x = 0; x < w; x++)
+                for (int y = 0; y + 1 < h; y++)
+                    abreSur(c, x, y);
+            c[0][0] &= ~0b0100;
+            c[0][w-1] &= ~0b0001;
+            Laberinto l = new Laberinto(w, h, c);
+            int[] ruta = l.resuelve();
+            Assert.assertTrue(l.getReduccion() == 1 - (double)(2 * w) / (w * h));
+            Assert.assertTrue(ruta.length == w);
+            for (int x = 0; x < w; x++)
+                Assert.assertTrue(ruta[x] == x);
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link Laberinto#getReduccion} en una serpiente:
+     * un solo corredor que recorre todos los renglones. Sólo quedan la
+     * entrada y la salida.
+     */
+    @Test public void testSerpiente() {
+        int w = 2 + random.nextInt(30);
+        int h = 2 + random.nextInt(30);
+        byte[][] c = paredes(w, h);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x + 1 < w; x++)
+                abreEste(c, x, y);
+            if (y + 1 < h)
+                abreSur(c, y % 2 == 0 ? w-1 : 0, y);
+        }
+        c[0][0] &= ~0b0100;
+        c[h-1][h % 2 == 1 ? w-1 : 0] &= ~0b1000;
+        Laberinto l = new Laberinto(w, h, c);
+        int[] ruta = l.resuelve();
+        Assert.assertTrue(l.getReduccion() == 1 - 2.0 / (w * h));
+        Assert.assertTrue(ruta.length == w * h);
+        for (int i = 0; i < w * h; i++) {
+            int y = i / w;
+            int x = y % 2 == 0 ? i % w : w - 1 - i % w;
+            Assert.assertTrue(ruta[i] == y * w + x);
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link Laberinto#resuelve} en laberintos
+     * aleatorios: la ruta es la única del árbol, y sólo se buscan como
+     * vértices los cruces, las puntas, la entrada y la salida.
+     */
+    @Test public void testResuelve() {
+        for (int k = 0; k < 200; k++) {
+            int w = 2 + random.nextInt(20);
+            int h = 2 + random.nextInt(20);
+            Laberinto l = new Laberinto(random.nextLong(), w, h);
+            Assert.assertArrayEquals(rutaArbol(l), l.resuelve());
+            Assert.assertTrue(l.getReduccion() ==
+                              1 - (double)vertices(l) / (w * h));
+        }
+        // Un corredor largo que se recorre desde su extremo mayor después de
+        // guardar casi todos los demás
+        Laberinto l = new Laberinto(2139215297105423308L, 8, 6);
+        Assert.assertArrayEquals(rutaArbol(l), l.resuelve());
+    }
+
+    /**
+     * Prueba unitaria para {@link Laberinto#resuelve} en laberintos con
+     * ciclos, en los que la gráfica contraída puede tener más aristas que
+     * cuartos: la ruta cuesta lo mismo que la de Dijkstra por todos los
+     * cuartos.
+     */
+    @Test public void testCiclos() {
+        // Todas las puertas interiores abiertas, con la entrada al Oeste del
+        // renglón 1 y la salida al Este del renglón 8
+        byte[][] c = paredes(10, 10);
+        for (int y = 0; y < 10; y++)
+            for (int x = 0; x < 10; x++) {
+                if (x + 1 < 10)
+                    abreEste(c, x, y);
+                if (y + 1 < 10)
+                    abreSur(c, x, y);
+            }
+        c[1][0] &= ~0b0100;
+        c[8][9] &= ~0b0001;
+        verificaCosto(new Laberinto(10, 10, c));
+        // Laberintos generados con puertas de más al azar y puntajes nuevos
+        for (int k = 0; k < 200; k++) {
+            int w = 2 + random.nextInt(20);
+            int h = 2 + random.nextInt(20);
+            Laberinto l = new Laberinto(random.nextLong(), w, h);
+            c = new byte[h][w];
+            for (int y = 0; y < h; y++)
+                for (int x = 0; x < w; x++)
+                    c[y][x] = (byte)((random.nextInt(16) << 4) |
+                                     (l.getCasilla(x, y) & 0x0F));
+            double densidad = random.nextDouble();
+            for (int y = 0; y < h; y++)
+                for (int x = 0; x < w; x++) {
+                    if (x + 1 < w && random.nextDouble() < densidad)
+                        abreEste(c, x, y);
+                    if (y + 1 < h && random.nextDouble() < densidad)
+                        abreSur(c, x, y);
+                }
+            verificaCosto(new Laberinto(w, h, c));
+        }
+    }
+
+    /* Verifica que la ruta vaya de la entrada a la salida por puertas
+     * abiertas y cueste lo mismo que la de Dijkstra por todos los
+     * cuartos; sólo se contraen los corredores. */
+    private static void verificaCosto(Laberinto l) {
+        int w = l.getAncho();
+        int[] ruta = l.resuelve();
+        Assert.assertTrue(ruta[0] == l.getEntrada());
+        Assert.assertTrue(ruta[ruta.length-1] == l.getSalida());
+        long costo = 0;
+        for (int i = 0; i + 1 < ruta.length; i++) {
+            int a = Math.min(ruta[i], ruta[i+1]);
+            int b = Math.max(ruta[i], ruta[i+1]);
+            if (b == a + 1)
+                Assert.assertTrue(a / w == b / w && l.abiertaEste(a % w, a / w));
+            else
+                Assert.assertTrue(b == a + w && l.abiertaSur(a % w, a / w));
+            costo += 1 + l.puntaje(a % w, a / w) + l.puntaje(b % w, b / w);
+        }
+        Assert.assertTrue(costo == dijkstra(l));
+        Assert.assertTrue(l.getReduccion() ==
+                          1 - (double)vertices(l) / (w * l.getAlto()));
+    }
+
+    /* El costo de la ruta más barata de la entrada a la salida, con
+     * Dijkstra cuadrático por todos los cuartos. */
+    private static long dijkstra(Laberinto l) {
+        int w = l.getAncho();
+        int n = w * l.getAlto();
+        long[] d = new long[n];
+        boolean[] listo = new boolean[n];
+        for (int i = 0; i < n; i++)
+            d[i] = Long.MAX_VALUE;
+        d[l.getEntrada()] = 0;
+        while (true) {
+            int c = -1;
+            for (int i = 0; i < n; i++)
+                if (!listo[i] && d[i] != Long.MAX_VALUE && (c == -1 || d[i] < d[c]))
+                    c = i;
+            if (c == -1 || c == l.getSalida())
+                return d[l.getSalida()];
+            listo[c] = true;
+            int x = c % w, y = c / w;
+            int[] vecinos = {
+                x + 1 < w && l.abiertaEste(x, y) ? c + 1 : -1,
+                x > 0 && l.abiertaEste(x-1, y) ? c - 1 : -1,
+                y + 1 < l.getAlto() && l.abiertaSur(x, y) ? c + w : -1,
+                y > 0 && l.abiertaSur(x, y-1) ? c - w : -1
+            };
+            for (int v : vecinos)
+                if (v != -1) {
+                    long nueva = d[c] + 1 + l.puntaje(x, y)
+                        + l.puntaje(v % w, v / w);
+                    if (nueva < d[v])
+                        d[v] = nueva;
+                }
+        }
+    }
+
+    /* Un laberinto con todas las paredes y puntaje 0. */
+    private static byte[][] paredes(int w, int h) {
+        byte[][] c = new byte[h][w];
+        for (int y = 0; y < h; y++)
+            for (int x = 0; x < w; x++)
+                c[y][x] = 0x0F;
+        return c;
+    }
+
+    /* Abre la puerta entre (x, y) y (x+1, y). */
+    private static void abreEste(byte[][] c, int x, int y) {
+        c[y][x] &= ~0b0001;
+        c[y][x+1] &= ~0b0100;
+    }
+
+    /* Abre la puerta entre (x, y) y (x, y+1). */
+    private static void abreSur(byte[][] c, int x, int y) {
+        c[y][x] &= ~0b1000;
+        c[y+1][x] &= ~0b0010;
+    }
+
+    /* El número de puertas interiores del cuarto. */
+    private static int grado(Laberinto l, int x, int y) {
+        int g = 0;
+        if (x + 1 < l.getAncho() && l.abiertaEste(x, y))
+            g++;
+        if (x > 0 && l.abiertaEste(x-1, y))
+            g++;
+        if (y + 1 < l.getAlto() && l.abiertaSur(x, y))
+            g++;
+        if (y > 0 && l.abiertaSur(x, y-1))
+            g++;
+        return g;
+    }
+
+    /* Los cuartos que no son parte de un corredor. */
+    private static int vertices(Laberinto l) {
+        int w = l.getAncho();
+        int n = 0;
+        for (int i = 0; i < w * l.getAlto(); i++)
+            if (grado(l, i % w, i / w) != 2 ||
+                i == l.getEntrada() || i == l.getSalida())
+                n++;
+        return n;
+    }
+
+    /* La ruta de la entrada a la salida con BFS por todos los cuartos; en un
+     * laberinto sin ciclos es la única. */
+    private static int[] rutaArbol(Laberinto l) {
+        int w = l.getAncho();
+        int n = w * l.getAlto();
+        int[] anterior = new int[n];
+        for (int i = 0; i < n; i++)
+            anterior[i] = -1;
+        int[] cola = new int[n];
+        int cabeza = 0, rabo = 0;
+        cola[rabo++] = l.getEntrada();
+        anterior[l.getEntrada()] = l.getEntrada();
+        while (cabeza < rabo) {
+            int c = cola[cabeza++];
+            int x = c % w, y = c / w;
+            int[] vecinos = {
+                x + 1 < w && l.abiertaEste(x, y) ? c + 1 : -1,
+                x > 0 && l.abiertaEste(x-1, y) ? c - 1 : -1,
+                y + 1 < l.getAlto() && l.abiertaSur(x, y) ? c + w : -1,
+                y > 0 && l.abiertaSur(x, y-1) ? c - w : -1
+            };
+            for (int v : vecinos)
+                if (v != -1 && anterior[v] == -1) {
+                    anterior[v] = c;
+                    cola[rabo++] = v;
+                }
+        }
+        int largo = 1;
+        for (int c = l.getSalida(); c != l.getEntrada(); c = anterior[c])
+            largo++;
+        int[] ruta = new int[largo];
+        for (int c = l.getSalida(); largo > 0; c = anterior[c])
+            ruta[--largo] = c;
+        return ruta;
+    }
+}
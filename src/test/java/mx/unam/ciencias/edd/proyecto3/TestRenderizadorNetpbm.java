@@ -0,0 +1,123 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link RenderizadorNetpbm}: los
+ * pixeles de PBM y PGM son los mismos que los del PNG de {@link
+ * RenderizadorPNG}, también cuando el ancho en pixeles no es múltiplo de 8.
+ */
+public class TestRenderizadorNetpbm {
+
+    /** Expiración para que ninguna prueba tarde más de 10 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(10);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+
+    /**
+     * Crea el generador para cada prueba.
+     */
+    public TestRenderizadorNetpbm() {
+        random = new Random();
+    }
+
+    /**
+     * Prueba unitaria para PGM: cada pixel es el gris del color del PNG.
+     */
+    @Test public void testPGM() throws IOException {
+        for (int w = 2; w < 14; w++) {
+            Laberinto l = new Laberinto(random.nextLong(), w, 2 + random.nextInt(12));
+            int[] ruta = l.resuelve();
+            BufferedImage png = png(l, ruta);
+            int ancho = png.getWidth();
+            int alto = png.getHeight();
+            byte[] pgm = dibuja(new RenderizadorNetpbm(true), l, ruta);
+            int datos = encabezado(pgm, "P5\n" + ancho + " " + alto + "\n255\n");
+            Assert.assertTrue(pgm.length == datos + ancho * alto);
+            for (int y = 0; y < alto; y++)
+                for (int x = 0; x < ancho; x++)
+                    Assert.assertTrue((pgm[datos + y * ancho + x] & 0xFF) ==
+                                      gris(png.getRGB(x, y)));
+        }
+    }
+
+    /**
+     * Prueba unitaria para PBM: cada bit es negro donde el PNG no es
+     * blanco, cada renglón ocupa bytes completos, y los bits de relleno
+     * del último byte de cada renglón están en 0.
+     */
+    @Test public void testPBM() throws IOException {
+        boolean relleno = false;
+        for (int w = 2; w < 14; w++) {
+            Laberinto l = new Laberinto(random.nextLong(), w, 2 + random.nextInt(12));
+            int[] ruta = l.resuelve();
+            BufferedImage png = png(l, ruta);
+            int ancho = png.getWidth();
+            int alto = png.getHeight();
+            relleno |= ancho % 8 != 0;
+            byte[] pbm = dibuja(new RenderizadorNetpbm(false), l, ruta);
+            int datos = encabezado(pbm, "P4\n" + ancho + " " + alto + "\n");
+            int bytes = (ancho + 7) / 8;
+            Assert.assertTrue(pbm.length == datos + bytes * alto);
+            for (int y = 0; y < alto; y++)
+                for (int x = 0; x < 8 * bytes; x++) {
+                    int b = pbm[datos + y * bytes + x / 8] >>> (7 - x % 8) & 1;
+                    if (x >= ancho)
+                        Assert.assertTrue(b == 0);
+                    else
+                        Assert.assertTrue((b == 1) == (gris(png.getRGB(x, y)) != 255));
+                }
+        }
+        Assert.assertTrue(relleno);
+    }
+
+    /* Dibuja el PNG y lo lee de regreso. */
+    private static BufferedImage png(Laberinto l, int[] ruta) throws IOException {
+        byte[] bytes = dibuja(new RenderizadorPNG(), l, ruta);
+        return ImageIO.read(new ByteArrayInputStream(bytes));
+    }
+
+    /* Los bytes que escribe el renderizador. */
+    private static byte[] dibuja(Renderizador r, Laberinto l, int[] ruta)
+        throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        r.dibuja(l, ruta, out);
+        return out.toByteArray();
+    }
+
+    /* Verifica que el archivo empiece con el encabezado y regresa su
+     * longitud. */
+    private static int encabezado(byte[] archivo, String encabezado) {
+        byte[] e = encabezado.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < e.length; i++)
+            Assert.assertTrue(archivo[i] == e[i]);
+        return e.length;
+    }
+
+    /* El gris de PGM del color del PNG: blanco, negro o el verde de la
+     * ruta. */
+    private static int gris(int rgb) {
+        switch (rgb & 0xFFFFFF) {
+        case 0xFFFFFF:
+            return 255;
+        case 0x000000:
+            return 0;
+        case 0x008000:
+            return 128;
+        default:
+            Assert.fail();
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link RenderizadorSVG}: con
+ * trazos, el elemento path de las paredes y el elemento polyline de la
+ * solución cubren, en el mismo orden, los mismos segmentos de longitud 1
+ * que los elementos line sin trazos.
+ */
+public class TestRenderizadorSVG {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Los elementos line, con sus coordenadas y su color. */
+    private static final Pattern LINEA =
+        Pattern.compile("<line x1='(-?\\d+)' y1='(-?\\d+)' x2='(-?\\d+)' y2='(-?\\d+)'[^>]*stroke='(\\w+)'");
+    /* El atributo d del elemento path. */
+    private static final Pattern TRAZO = Pattern.compile("<path d='([^']*)'");
+    /* El atributo points del elemento polyline. */
+    private static final Pattern POLILINEA = Pattern.compile("<polyline points='([^']*)'");
+    /* Un comando del atributo d con sus números. */
+    private static final Pattern COMANDO = Pattern.compile("([MmHhVv])([-\\d ]+)");
+
+    /* Generador de números aleatorios. */
+    private Random random;
+
+    /**
+     * Crea el generador para cada prueba.
+     */
+    public TestRenderizadorSVG() {
+        random = new Random();
+    }
+
+    /**
+     * Prueba unitaria para laberintos generados de varios tamaños, con la
+     * entrada y la salida en cualquier renglón.
+     */
+    @Test public void testTrazos() throws IOException {
+        for (int k = 0; k < 40; k++)
+            compara(new Laberinto(random.nextLong(), 2 + random.nextInt(20),
+                                  2 + random.nextInt(20)));
+    }
+
+    /**
+     * Prueba unitaria para una serpiente: la solución tiene tramos rectos
+     * que cruzan todo el laberinto, y la polilínea omite todos sus puntos
+     * intermedios.
+     */
+    @Test public void testTramosRectos() throws IOException {
+        int w = 2 + random.nextInt(20);
+        int h = 2 + random.nextInt(20);
+        byte[][] c = new byte[h][w];
+        for (int y = 0; y < h; y++)
+            for (int x = 0; x < w; x++)
+                c[y][x] = 0x0F;
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x + 1 < w; x++) {
+                c[y][x] &= ~0b0001;
+                c[y][x+1] &= ~0b0100;
+            }
+            if (y + 1 < h) {
+                int x = y % 2 == 0 ? w-1 : 0;
+                c[y][x] &= ~0b1000;
+                c[y+1][x] &= ~0b0010;
+            }
+        }
+        c[0][0] &= ~0b0100;
+        c[h-1][h % 2 == 1 ? w-1 : 0] &= ~0b1000;
+        String trazos = compara(new Laberinto(w, h, c));
+        Matcher m = POLILINEA.matcher(trazos);
+        Assert.assertTrue(m.find());
+        Assert.assertTrue(m.group(1).split(" ").length == 2 * h + 1);
+    }
+
+    /* Verifica que las paredes y la solución con trazos sean las mismas que
+     * sin trazos, y regresa el SVG con trazos. */
+    private static String compara(Laberinto l) throws IOException {
+        int[] ruta = l.resuelve();
+        String lineas = svg(l, ruta, false);
+        String trazos = svg(l, ruta, true);
+
+        long[] paredes = new long[0];
+        long[] solucion = new long[0];
+        Matcher m = LINEA.matcher(lineas);
+        while (m.find()) {
+            long[] s = unitarios(entero(m, 1), entero(m, 2), entero(m, 3), entero(m, 4));
+            if (m.group(5).equals("black"))
+                paredes = concatena(paredes, s);
+            else
+                solucion = concatena(solucion, s);
+        }
+        Assert.assertTrue(paredes.length > 0 && solucion.length > 0);
+
+        m = TRAZO.matcher(trazos);
+        Assert.assertTrue(m.find());
+        Assert.assertArrayEquals(paredes, trazo(m.group(1)));
+        Assert.assertFalse(m.find());
+        m = POLILINEA.matcher(trazos);
+        Assert.assertTrue(m.find());
+        Assert.assertArrayEquals(solucion, polilinea(m.group(1)));
+        Assert.assertFalse(m.find());
+        Assert.assertFalse(LINEA.matcher(trazos).find());
+        return trazos;
+    }
+
+    /* Los segmentos unitarios del atributo d: M absoluto al principio, y
+     * después m, h y v relativos. */
+    private static long[] trazo(String d) {
+        long[] segmentos = new long[0];
+        Matcher m = COMANDO.matcher(d);
+        int x = 0, y = 0;
+        int fin = 0;
+        while (m.find()) {
+            Assert.assertTrue(m.start() == fin);
+            fin = m.end();
+            String[] numeros = m.group(2).replace("-", " -").trim().split(" +");
+            switch (m.group(1)) {
+            case "M":
+                Assert.assertTrue(m.start() == 0);
+                x = Integer.parseInt(numeros[0]);
+                y = Integer.parseInt(numeros[1]);
+                break;
+            case "m":
+                x += Integer.parseInt(numeros[0]);
+                y += Integer.parseInt(numeros[1]);
+                break;
+            case "h":
+                int dx = Integer.parseInt(numeros[0]);
+                segmentos = concatena(segmentos, unitarios(x, y, x + dx, y));
+                x += dx;
+                break;
+            case "v":
+                int dy = Integer.parseInt(numeros[0]);
+                segmentos = concatena(segmentos, unitarios(x, y, x, y + dy));
+                y += dy;
+                break;
+            default:
+                Assert.fail();
+            }
+        }
+        Assert.assertTrue(fin == d.length());
+        return segmentos;
+    }
+
+    /* Los segmentos unitarios del atributo points. */
+    private static long[] polilinea(String points) {
+        String[] puntos = points.split(" ");
+        long[] segmentos = new long[0];
+        for (int k = 0; k + 1 < puntos.length; k++) {
+            String[] a = puntos[k].split(",");
+            String[] b = puntos[k+1].split(",");
+            segmentos = concatena(segmentos,
+                                  unitarios(Integer.parseInt(a[0]), Integer.parseInt(a[1]),
+                                            Integer.parseInt(b[0]), Integer.parseInt(b[1])));
+        }
+        return segmentos;
+    }
+
+    /* Parte un segmento horizontal o vertical en segmentos de longitud 1,
+     * en su dirección; cada uno se guarda como un long con su inicio y su
+     * dirección. */
+    private static long[] unitarios(int x1, int y1, int x2, int y2) {
+        Assert.assertTrue(x1 == x2 || y1 == y2);
+        int n = Math.abs(x2 - x1) + Math.abs(y2 - y1);
+        int dx = Integer.signum(x2 - x1);
+        int dy = Integer.signum(y2 - y1);
+        long[] s = new long[n];
+        for (int k = 0; k < n; k++) {
+            long x = x1 + k * dx;
+            long y = y1 + k * dy;
+            s[k] = (x << 32) | (y << 4) | ((dx + 1) << 2) | (dy + 1);
+        }
+        return s;
+    }
+
+    /* Los segmentos de a seguidos de los de b. */
+    private static long[] concatena(long[] a, long[] b) {
+        long[] c = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, c, a.length, b.length);
+        return c;
+    }
+
+    /* El grupo del elemento como entero. */
+    private static int entero(Matcher m, int grupo) {
+        return Integer.parseInt(m.group(grupo));
+    }
+
+    /* El SVG de la solución, con o sin trazos. */
+    private static String svg(Laberinto l, int[] ruta, boolean trazos)
+        throws IOException {
+        StringWriter s = new StringWriter();
+        new RenderizadorSVG(trazos).dibuja(l, ruta, s);
+        return s.toString();
+    }
+}
@@ -0,0 +1,145 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link ResolvedorJerarquico}.
+ */
+public class TestResolvedorJerarquico {
+
+    /** Expiración para que ninguna prueba tarde más de 10 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(10);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+
+    /**
+     * Crea el generador para cada prueba.
+     */
+    public TestResolvedorJerarquico() {
+        random = new Random();
+    }
+
+    /**
+     * Prueba unitaria para {@link ResolvedorJerarquico#resuelve} en
+     * laberintos aleatorios, con bloques que no dividen al laberinto.
+     */
+    @Test public void testResuelve() {
+        for (int k = 0; k < 20; k++) {
+            Laberinto l = new Laberinto(random.nextLong(),
+                                        2 + random.nextInt(60),
+                                        2 + random.nextInt(60));
+            ResolvedorJerarquico r =
+                new ResolvedorJerarquico(l, 2 + random.nextInt(9));
+            int[] ruta = r.resuelve();
+            verificaRuta(l, ruta);
+            Assert.assertTrue(costo(l, ruta) == costo(l, l.resuelve()));
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link ResolvedorJerarquico#setCasilla}: después
+     * de tirar muros y cambiar puntajes, la ruta cuesta lo mismo que la de
+     * {@link Laberinto#resuelve}, y sólo se recalculan los bloques que tocan
+     * los cuartos cambiados.
+     */
+    @Test public void testSetCasilla() {
+        for (int k = 0; k < 10; k++) {
+            int w = 8 + random.nextInt(50);
+            int h = 8 + random.nextInt(50);
+            int tam = 2 + random.nextInt(7);
+            Laberinto l = new Laberinto(random.nextLong(), w, h);
+            ResolvedorJerarquico r = new ResolvedorJerarquico(l, tam);
+            r.resuelve();
+            int bloques = ((w + tam - 1) / tam) * ((h + tam - 1) / tam);
+            Assert.assertTrue(r.getReconstrucciones() == bloques);
+            for (int c = 0; c < 10; c++) {
+                int x = random.nextInt(w);
+                int y = random.nextInt(h);
+                r.setCasilla(x, y, cambia(l, x, y));
+                int antes = r.getReconstrucciones();
+                int[] ruta = r.resuelve();
+                Assert.assertTrue(r.getReconstrucciones() - antes ==
+                                  tocados(w, h, tam, x, y));
+                verificaRuta(l, ruta);
+                Assert.assertTrue(costo(l, ruta) == costo(l, l.resuelve()));
+            }
+            int antes = r.getReconstrucciones();
+            r.resuelve();
+            Assert.assertTrue(r.getReconstrucciones() == antes);
+        }
+    }
+
+    /**
+     * Prueba unitaria para el constructor de {@link ResolvedorJerarquico}.
+     */
+    @Test public void testConstructor() {
+        try {
+            new ResolvedorJerarquico(new Laberinto(1, 4, 4), 1);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /* Regresa el cuarto con un puntaje nuevo y sin algunos de sus muros
+     * interiores; los de la orilla se quedan, para no cambiar la entrada ni
+     * la salida. Tirar muros no desconecta el laberinto. */
+    private byte cambia(Laberinto l, int x, int y) {
+        int c = l.getCasilla(x, y) & 0x0F;
+        int[] muros = { 0b0001, 0b0010, 0b0100, 0b1000 };
+        boolean[] interior = { x < l.getAncho()-1, y > 0, x > 0, y < l.getAlto()-1 };
+        for (int d = 0; d < 4; d++)
+            if (interior[d] && random.nextBoolean())
+                c &= ~muros[d];
+        return (byte)((random.nextInt(16) << 4) | c);
+    }
+
+    /* El número de bloques distintos del cuarto y sus vecinos. */
+    private static int tocados(int w, int h, int tam, int x, int y) {
+        int bx = (w + tam - 1) / tam;
+        boolean[] visto = new boolean[bx * ((h + tam - 1) / tam)];
+        int[][] cuartos = { { x, y }, { x-1, y }, { x+1, y }, { x, y-1 }, { x, y+1 } };
+        int n = 0;
+        for (int[] c : cuartos) {
+            if (c[0] < 0 || c[0] >= w || c[1] < 0 || c[1] >= h)
+                continue;
+            int b = (c[1] / tam) * bx + c[0] / tam;
+            if (!visto[b]) {
+                visto[b] = true;
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /* Verifica que la ruta vaya de la entrada a la salida por puertas
+     * abiertas. */
+    private static void verificaRuta(Laberinto l, int[] ruta) {
+        int w = l.getAncho();
+        Assert.assertTrue(ruta.length > 0);
+        Assert.assertTrue(ruta[0] == l.getEntrada());
+        Assert.assertTrue(ruta[ruta.length-1] == l.getSalida());
+        for (int i = 0; i + 1 < ruta.length; i++) {
+            int a = Math.min(ruta[i], ruta[i+1]);
+            int b = Math.max(ruta[i], ruta[i+1]);
+            if (b == a + 1)
+                Assert.assertTrue(a / w == b / w && l.abiertaEste(a % w, a / w));
+            else
+                Assert.assertTrue(b == a + w && l.abiertaSur(a % w, a / w));
+        }
+    }
+
+    /* El costo de la ruta: 1 por puerta más los puntajes de sus dos
+     * cuartos. */
+    private static long costo(Laberinto l, int[] ruta) {
+        int w = l.getAncho();
+        long c = 0;
+        for (int i = 0; i + 1 < ruta.length; i++)
+            c += 1 + l.puntaje(ruta[i] % w, ruta[i] / w)
+                   + l.puntaje(ruta[i+1] % w, ruta[i+1] / w);
+        return c;
+    }
+}
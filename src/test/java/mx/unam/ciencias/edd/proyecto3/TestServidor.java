@@ -0,0 +1,236 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias del protocolo de {@link Servidor} y {@link
+ * Cliente}. El servidor escucha en un socket temporal, en un hilo que
+ * termina con las pruebas.
+ */
+public class TestServidor {
+
+    /** Expiración para que ninguna prueba tarde más de 10 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(10);
+
+    /* El archivo del socket del servidor. */
+    private static Path socket;
+
+    /* Generador de números aleatorios. */
+    private Random random;
+
+    /**
+     * Crea el generador para cada prueba.
+     */
+    public TestServidor() {
+        random = new Random();
+    }
+
+    /**
+     * Arranca el servidor y espera a que acepte conexiones.
+     */
+    @BeforeClass public static void arrancaServidor() throws Exception {
+        socket = Files.createTempDirectory("proyecto3").resolve("s");
+        Thread t = new Thread(() -> {
+                try {
+                    new Servidor(socket).atiende();
+                } catch (IOException ioe) {}
+            });
+        t.setDaemon(true);
+        t.start();
+        while (true) {
+            try {
+                conecta().close();
+                return;
+            } catch (IOException ioe) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    /**
+     * Prueba unitaria para varias solicitudes de los tres tipos por la
+     * misma conexión, con un archivo inválido en medio.
+     */
+    @Test public void testVariasSolicitudes() throws IOException {
+        try (Cliente c = new Cliente(socket)) {
+            for (int k = 0; k < 10; k++) {
+                Laberinto l = new Laberinto(random.nextLong(),
+                                            2 + random.nextInt(40),
+                                            2 + random.nextInt(40));
+                byte[] archivo = archivo(l);
+                Assert.assertEquals(ruta(l), c.solicita(Servidor.RUTA, archivo));
+                Assert.assertEquals(svg(l, false), c.solicita(Servidor.SVG, archivo));
+                Assert.assertEquals(svg(l, true), c.solicita(Servidor.TRAZOS, archivo));
+                archivo[0] = 'X';
+                try {
+                    c.solicita(Servidor.SVG, archivo);
+                    Assert.fail();
+                } catch (IllegalArgumentException iae) {
+                    Assert.assertTrue(iae.getMessage().contains("regla 1"));
+                    Assert.assertFalse(iae.getMessage().contains("Exception"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Prueba unitaria para archivos más grandes que el buffer inicial del
+     * servidor, que crece conforme llegan los bytes; después de uno grande
+     * se siguen atendiendo archivos pequeños por la misma conexión.
+     */
+    @Test public void testArchivosGrandes() throws IOException {
+        try (Cliente c = new Cliente(socket)) {
+            for (int k = 0; k < 2; k++) {
+                Laberinto l = new Laberinto(random.nextLong(),
+                                            256 + random.nextInt(20),
+                                            256 + random.nextInt(20));
+                Assert.assertEquals(ruta(l), c.solicita(Servidor.RUTA, archivo(l)));
+                l = new Laberinto(random.nextLong(), 5, 5);
+                Assert.assertEquals(ruta(l), c.solicita(Servidor.RUTA, archivo(l)));
+            }
+        }
+    }
+
+    /**
+     * Prueba unitaria para una longitud válida pero más grande que lo que
+     * manda el cliente antes de cerrar: el servidor no reserva toda la
+     * longitud, y sigue atendiendo a los demás.
+     */
+    @Test public void testLongitudSinArchivo() throws IOException {
+        for (int k = 0; k < 20; k++)
+            try (SocketChannel c = conecta()) {
+                escribe(c, ByteBuffer.allocate(5 + 100).put(Servidor.SVG)
+                        .putInt(12 + Laberinto.MAXIMO_CUARTOS).put(new byte[100]).flip());
+            }
+        Laberinto l = new Laberinto(random.nextLong(), 6, 4);
+        try (Cliente c = new Cliente(socket)) {
+            Assert.assertEquals(ruta(l), c.solicita(Servidor.RUTA, archivo(l)));
+        }
+    }
+
+    /**
+     * Prueba unitaria para una longitud inválida: el servidor responde con
+     * un error y cierra la conexión, porque ya no sabe dónde empieza la
+     * siguiente solicitud.
+     */
+    @Test public void testLongitudInvalida() throws IOException {
+        for (int n : new int[] { -1, Integer.MIN_VALUE, 12 + Laberinto.MAXIMO_CUARTOS + 1 }) {
+            try (SocketChannel c = conecta()) {
+                escribe(c, ByteBuffer.allocate(5).put(Servidor.SVG).putInt(n).flip());
+                ByteBuffer encabezado = ByteBuffer.allocate(5);
+                Assert.assertTrue(Servidor.lee(c, encabezado));
+                Assert.assertTrue(encabezado.get(0) == Servidor.ERROR);
+                Assert.assertTrue(cuerpo(c, encabezado).contains(String.valueOf(n)));
+                Assert.assertTrue(c.read(ByteBuffer.allocate(1)) == -1);
+            }
+        }
+    }
+
+    /**
+     * Prueba unitaria para un tipo desconocido: el servidor responde con un
+     * error y sigue atendiendo la conexión.
+     */
+    @Test public void testTipoDesconocido() throws IOException {
+        Laberinto l = new Laberinto(random.nextLong(), 5, 5);
+        byte[] archivo = archivo(l);
+        try (SocketChannel c = conecta()) {
+            for (byte tipo : new byte[] { 'x', 0, Servidor.RUTA }) {
+                escribe(c, ByteBuffer.allocate(5 + archivo.length).put(tipo)
+                        .putInt(archivo.length).put(archivo).flip());
+                ByteBuffer encabezado = ByteBuffer.allocate(5);
+                Assert.assertTrue(Servidor.lee(c, encabezado));
+                String cuerpo = cuerpo(c, encabezado);
+                if (tipo == Servidor.RUTA) {
+                    Assert.assertTrue(encabezado.get(0) == Servidor.BIEN);
+                    Assert.assertEquals(ruta(l), cuerpo);
+                } else {
+                    Assert.assertTrue(encabezado.get(0) == Servidor.ERROR);
+                    Assert.assertTrue(cuerpo.contains("tipo " + tipo));
+                }
+            }
+        }
+    }
+
+    /**
+     * Prueba unitaria para clientes que se desconectan a la mitad del
+     * encabezado o del archivo: el servidor sigue atendiendo a los demás.
+     */
+    @Test public void testDesconexion() throws IOException {
+        Laberinto l = new Laberinto(random.nextLong(), 6, 4);
+        byte[] archivo = archivo(l);
+        try (SocketChannel c = conecta()) {
+            escribe(c, ByteBuffer.wrap(new byte[] { Servidor.SVG, 0, 0 }));
+        }
+        try (SocketChannel c = conecta()) {
+            escribe(c, ByteBuffer.allocate(5 + 10).put(Servidor.SVG)
+                    .putInt(archivo.length).put(archivo, 0, 10).flip());
+        }
+        try (Cliente c = new Cliente(socket)) {
+            Assert.assertEquals(ruta(l), c.solicita(Servidor.RUTA, archivo));
+        }
+    }
+
+    /* Abre una conexión al servidor. */
+    private static SocketChannel conecta() throws IOException {
+        SocketChannel c = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            c.connect(UnixDomainSocketAddress.of(socket));
+        } catch (IOException ioe) {
+            c.close();
+            throw ioe;
+        }
+        return c;
+    }
+
+    /* Escribe todo el buffer al canal. */
+    private static void escribe(SocketChannel c, ByteBuffer b)
+        throws IOException {
+        while (b.hasRemaining())
+            c.write(b);
+    }
+
+    /* Lee el cuerpo de la respuesta con el encabezado leído. */
+    private static String cuerpo(SocketChannel c, ByteBuffer encabezado)
+        throws IOException {
+        ByteBuffer cuerpo = ByteBuffer.allocate(encabezado.getInt(1));
+        Servidor.lee(c, cuerpo);
+        return new String(cuerpo.array(), StandardCharsets.UTF_8);
+    }
+
+    /* El laberinto en MAZE. */
+    private static byte[] archivo(Laberinto l) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FormatoMaze.escribe(l, out);
+        return out.toByteArray();
+    }
+
+    /* Los cuartos de la ruta como los regresa el servidor. */
+    private static String ruta(Laberinto l) {
+        StringBuilder s = new StringBuilder();
+        for (int c : l.resuelve())
+            s.append(l.getX(c)).append(' ').append(l.getY(c)).append('\n');
+        return s.toString();
+    }
+
+    /* El SVG de la solución, con o sin trazos. */
+    private static String svg(Laberinto l, boolean trazos) throws IOException {
+        StringWriter s = new StringWriter();
+        l.escribeSVG(s, trazos);
+        return s.toString();
+    }
+}
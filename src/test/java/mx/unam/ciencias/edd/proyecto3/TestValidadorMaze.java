@@ -0,0 +1,224 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link ValidadorMaze}. Cada
+ * archivo se valida como flujo, como flujo comprimido con gzip y como
+ * archivo mapeado a memoria, y en los tres casos se debe reportar el mismo
+ * byte y la misma regla.
+ */
+public class TestValidadorMaze {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /** Carpeta para los archivos que se mapean a memoria. */
+    @Rule public TemporaryFolder carpeta = new TemporaryFolder();
+
+    /* Las formas de leer un archivo. */
+    private enum Entrada { FLUJO, GZIP, MAPEO }
+
+    /**
+     * Prueba unitaria para un archivo válido: una serpiente de 4×3 con la
+     * entrada en (0,0) y la salida en (3,2).
+     */
+    @Test public void testValido() throws IOException {
+        byte[] archivo = serpiente();
+        for (Entrada e : Entrada.values()) {
+            ValidadorMaze v = validador(archivo, e);
+            Assert.assertTrue(v.getAncho() == 4);
+            Assert.assertTrue(v.getAlto() == 3);
+            ByteBuffer cuartos = v.cuartos();
+            Assert.assertTrue(cuartos.remaining() == 12);
+            for (int i = 0; i < 12; i++)
+                Assert.assertTrue(cuartos.get(cuartos.position() + i) == archivo[6 + i]);
+            Assert.assertTrue(v.getEntrada() == 0);
+            Assert.assertTrue(v.getSalida() == 11);
+        }
+    }
+
+    /**
+     * Prueba unitaria para la regla 1: la firma.
+     */
+    @Test public void testRegla1() throws IOException {
+        byte[] archivo = serpiente();
+        archivo[3] = 'A';
+        invalido(archivo, 3, 1);
+        invalido(new byte[0], 0, 1);
+        invalido(Arrays.copyOf(archivo, 2), 2, 1);
+    }
+
+    /**
+     * Prueba unitaria para la regla 2: el número de renglones.
+     */
+    @Test public void testRegla2() throws IOException {
+        byte[] archivo = serpiente();
+        archivo[4] = 1;
+        invalido(archivo, 4, 2);
+        invalido(Arrays.copyOf(archivo, 4), 4, 2);
+        // En MAZX el número ocupa 4 bytes, y se reporta el primero
+        invalido(extendido(0, 1, 4), 4, 2);
+        invalido(Arrays.copyOf(extendido(0, 3, 4), 6), 6, 2);
+    }
+
+    /**
+     * Prueba unitaria para la regla 3: el número de columnas, y el número
+     * de cuartos del formato extendido.
+     */
+    @Test public void testRegla3() throws IOException {
+        byte[] archivo = serpiente();
+        archivo[5] = 0;
+        invalido(archivo, 5, 3);
+        invalido(Arrays.copyOf(archivo, 5), 5, 3);
+        invalido(extendido(0, 3, 1), 8, 3);
+        invalido(extendido(0, 1 << 16, (1 << 14) + 1), 8, 3);
+    }
+
+    /**
+     * Prueba unitaria para la regla 5: faltan cuartos.
+     */
+    @Test public void testRegla5() throws IOException {
+        byte[] archivo = serpiente();
+        invalido(Arrays.copyOf(archivo, 6), 6, 5);
+        invalido(Arrays.copyOf(archivo, 11), 11, 5);
+        invalido(Arrays.copyOf(archivo, 17), 17, 5);
+    }
+
+    /**
+     * Prueba unitaria para la regla 6: cuartos inconsistentes con su vecino
+     * Oeste o con su vecino Norte.
+     */
+    @Test public void testRegla6() throws IOException {
+        // El cuarto (2,1) abre su pared Oeste, pero (1,1) tiene la Este
+        byte[] archivo = serpiente();
+        archivo[6 + 4 + 1] |= 0b0001;
+        invalido(archivo, 6 + 4 + 2, 6);
+        // El cuarto (1,2) abre su pared Norte, pero (1,1) tiene la Sur
+        archivo = serpiente();
+        archivo[6 + 8 + 1] &= ~0b0010;
+        invalido(archivo, 6 + 8 + 1, 6);
+        // Las dos en el mismo renglón: se reporta la primera
+        archivo = serpiente();
+        archivo[6 + 8 + 3] &= ~0b0010;
+        archivo[6 + 8 + 1] |= 0b0001;
+        invalido(archivo, 6 + 8 + 2, 6);
+    }
+
+    /**
+     * Prueba unitaria para la regla 8: exactamente dos aberturas en la
+     * frontera, en cuartos distintos.
+     */
+    @Test public void testRegla8() throws IOException {
+        // Una abertura más, en la pared Norte de (2,0); se reporta la
+        // tercera en el orden del archivo, que es la salida
+        byte[] archivo = serpiente();
+        archivo[6 + 2] &= ~0b0010;
+        invalido(archivo, 6 + 11, 8);
+        // La entrada también abre su pared Norte
+        archivo = serpiente();
+        archivo[6] &= ~0b0010;
+        invalido(archivo, 6, 8);
+        // Sin salida; se reporta el byte después del último cuarto
+        archivo = serpiente();
+        archivo[6 + 11] |= 0b0001;
+        invalido(archivo, 6 + 12, 8);
+    }
+
+    /* Una serpiente de 4×3: el primer renglón de Oeste a Este, el segundo de
+     * Este a Oeste y el tercero de Oeste a Este, con puntajes distintos. */
+    private static byte[] serpiente() {
+        byte[][] c = new byte[3][4];
+        for (int y = 0; y < 3; y++)
+            for (int x = 0; x < 4; x++)
+                c[y][x] = (byte)(((x + 4 * y) << 4) | 0x0F);
+        for (int y = 0; y < 3; y++)
+            for (int x = 0; x < 3; x++) {
+                c[y][x] &= ~0b0001;
+                c[y][x+1] &= ~0b0100;
+            }
+        c[0][3] &= ~0b1000;
+        c[1][3] &= ~0b0010;
+        c[1][0] &= ~0b1000;
+        c[2][0] &= ~0b0010;
+        c[0][0] &= ~0b0100;
+        c[2][3] &= ~0b0001;
+        byte[] archivo = new byte[6 + 12];
+        archivo[0] = 'M';
+        archivo[1] = 'A';
+        archivo[2] = 'Z';
+        archivo[3] = 'E';
+        archivo[4] = 3;
+        archivo[5] = 4;
+        for (int y = 0; y < 3; y++)
+            System.arraycopy(c[y], 0, archivo, 6 + 4 * y, 4);
+        return archivo;
+    }
+
+    /* Un encabezado MAZX con los renglones y columnas dados, seguido de
+     * cuartos bytes. */
+    private static byte[] extendido(int cuartos, int h, int w) {
+        ByteBuffer b = ByteBuffer.allocate(12 + cuartos);
+        b.put(new byte[] { 'M', 'A', 'Z', 'X' });
+        b.putInt(h);
+        b.putInt(w);
+        return b.array();
+    }
+
+    /* Verifica que validar el archivo de las tres formas lance la excepción
+     * con el byte y la regla. */
+    private void invalido(byte[] archivo, long posicion, int regla)
+        throws IOException {
+        for (Entrada e : Entrada.values()) {
+            try {
+                validador(archivo, e).cuartos();
+                Assert.fail();
+            } catch (ExcepcionFormatoInvalido efi) {
+                Assert.assertTrue(efi.getPosicion() == posicion);
+                Assert.assertTrue(efi.getRegla() == regla);
+            }
+        }
+    }
+
+    /* Crea el validador del archivo con la entrada; el encabezado ya se
+     * valida aquí. */
+    private ValidadorMaze validador(byte[] archivo, Entrada e)
+        throws IOException {
+        switch (e) {
+        case FLUJO:
+            return new ValidadorMaze(new ByteArrayInputStream(archivo));
+        case GZIP:
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                gzip.write(archivo);
+            }
+            InputStream in = new ByteArrayInputStream(bytes.toByteArray());
+            return new ValidadorMaze(new GZIPInputStream(in));
+        default:
+            Path p = carpeta.newFile().toPath();
+            Files.write(p, archivo);
+            MappedByteBuffer b;
+            try (FileChannel canal = FileChannel.open(p, StandardOpenOption.READ)) {
+                b = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            }
+            return new ValidadorMaze(b);
+        }
+    }
+}
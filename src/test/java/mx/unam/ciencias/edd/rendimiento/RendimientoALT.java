@@ -0,0 +1,75 @@
+package mx.unam.ciencias.edd.rendimiento;
+
+import java.util.Random;
+import mx.unam.ciencias.edd.BusquedaALT;
+import mx.unam.ciencias.edd.Grafica;
+
+/**
+ * Compara {@link BusquedaALT} con distintos números de marcas contra {@link
+ * Grafica#dijkstra} en una cuadrícula con pesos aleatorios entre 1 y 9.
+ * Reporta el tiempo de preproceso, la memoria de las tablas, el tiempo
+ * promedio por consulta, los vértices explorados y la aceleración sobre
+ * Dijkstra. Se ejecuta con <code>java -cp target/classes:target/test-classes
+ * mx.unam.ciencias.edd.rendimiento.RendimientoALT [lado] [consultas]</code>.
+ */
+public class RendimientoALT {
+
+    /* Números de marcas a comparar. */
+    private static final int[] MARCAS = { 0, 1, 2, 4, 8, 16 };
+
+    /**
+     * Punto de entrada.
+     * @param args el lado de la cuadrícula y el número de consultas
+     *        (opcionales).
+     */
+    public static void main(String[] args) {
+        int lado = args.length > 0 ? Integer.parseInt(args[0]) : 150;
+        int consultas = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        Random random = new Random(1234);
+        Grafica<Integer> g = new Grafica<Integer>();
+        int n = lado * lado;
+        for (int i = 0; i < n; i++)
+            g.agrega(i);
+        for (int i = 0; i < lado; i++) {
+            for (int j = 0; j < lado; j++) {
+                if (j + 1 < lado)
+                    g.conecta(i*lado + j, i*lado + j + 1, 1 + random.nextInt(9));
+                if (i + 1 < lado)
+                    g.conecta(i*lado + j, (i+1)*lado + j, 1 + random.nextInt(9));
+            }
+        }
+        int[] origen = new int[consultas];
+        int[] destino = new int[consultas];
+        for (int q = 0; q < consultas; q++) {
+            origen[q] = random.nextInt(n);
+            destino[q] = random.nextInt(n);
+        }
+
+        long t = System.nanoTime();
+        for (int q = 0; q < consultas; q++)
+            g.dijkstra(origen[q], destino[q]);
+        double dijkstra = (System.nanoTime() - t) / 1e6 / consultas;
+        System.out.printf("dijkstra: %.3f ms por consulta, %d vértices%n",
+                          dijkstra, n);
+
+        System.out.printf("%6s %12s %12s %12s %12s %12s%n", "marcas",
+                          "prep(ms)", "tablas(KB)", "ms/consulta",
+                          "explorados", "aceleración");
+        for (int k : MARCAS) {
+            t = System.nanoTime();
+            BusquedaALT<Integer> alt = new BusquedaALT<Integer>(g, k);
+            double preproceso = (System.nanoTime() - t) / 1e6;
+            long explorados = 0;
+            t = System.nanoTime();
+            for (int q = 0; q < consultas; q++) {
+                alt.trayectoriaMinima(origen[q], destino[q]);
+                explorados += alt.getExplorados();
+            }
+            double consulta = (System.nanoTime() - t) / 1e6 / consultas;
+            System.out.printf("%6d %12.1f %12d %12.3f %12d %12.1f%n", k,
+                              preproceso, alt.getBytesTablas() / 1024,
+                              consulta, explorados / consultas,
+                              dijkstra / consulta);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package mx.unam.ciencias.edd.rendimiento;
+
+import java.util.Random;
+import mx.unam.ciencias.edd.Grafica;
+
+/**
+ * Compara el tiempo de {@link Grafica#kruskal} contra {@link Grafica#prim}
+ * en gráficas aleatorias conexas de distintas densidades. Se ejecuta con
+ * <code>java -cp target/classes:target/test-classes
+ * mx.unam.ciencias.edd.rendimiento.RendimientoArbolGenerador [vértices]</code>.
+ */
+public class RendimientoArbolGenerador {
+
+    /* Grados promedio a comparar. */
+    private static final int[] GRADOS = { 2, 4, 8, 16, 32 };
+    /* Repeticiones por medición. */
+    private static final int REPETICIONES = 3;
+
+    /* Construye una gráfica conexa con n vértices y aproximadamente n*grado/2
+     * aristas con pesos aleatorios. */
+    private static Grafica<Integer> grafica(Random random, int n, int grado) {
+        Grafica<Integer> g = new Grafica<Integer>();
+        for (int i = 0; i < n; i++)
+            g.agrega(i);
+        for (int i = 1; i < n; i++)
+            g.conecta(random.nextInt(i), i, 1 + random.nextInt(1000));
+        long m = (long)n * grado / 2;
+        for (long k = n - 1; k < m; k++) {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            if (a != b && !g.sonVecinos(a, b))
+                g.conecta(a, b, 1 + random.nextInt(1000));
+        }
+        return g;
+    }
+
+    /**
+     * Punto de entrada.
+     * @param args el número de vértices (opcional).
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        Random random = new Random(1234);
+        System.out.printf("%8s %10s %12s %12s%n",
+                          "grado", "aristas", "kruskal(ms)", "prim(ms)");
+        for (int grado : GRADOS) {
+            Grafica<Integer> g = grafica(random, n, grado);
+            long kruskal = Long.MAX_VALUE;
+            long prim = Long.MAX_VALUE;
+            for (int r = 0; r < REPETICIONES; r++) {
+                long t = System.nanoTime();
+                g.kruskal();
+                kruskal = Math.min(kruskal, System.nanoTime() - t);
+                t = System.nanoTime();
+                g.prim();
+                prim = Math.min(prim, System.nanoTime() - t);
+            }
+            System.out.printf("%8d %10d %12.1f %12.1f%n", grado, g.getAristas(),
+                              kruskal / 1e6, prim / 1e6);
+        }
+    }
+}
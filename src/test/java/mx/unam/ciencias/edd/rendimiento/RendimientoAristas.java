@@ -0,0 +1,49 @@
+package mx.unam.ciencias.edd.rendimiento;
+
+import mx.unam.ciencias.edd.Grafica;
+
+/**
+ * Mide la memoria que ocupa cada arista de una cuadrícula cuando todas las
+ * aristas pesan 1, como en una gráfica con pesos sólo en los vértices,
+ * contra cuando pesan 2 y cada vecino guarda su peso. La memoria se mide
+ * con el montículo ocupado después de recolectar la basura. Se ejecuta con
+ * <code>java -cp target/classes:target/test-classes
+ * mx.unam.ciencias.edd.rendimiento.RendimientoAristas [lado]</code>.
+ */
+public class RendimientoAristas {
+
+    /**
+     * Punto de entrada.
+     * @param args el lado de la cuadrícula (opcional).
+     */
+    public static void main(String[] args) {
+        int lado = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        for (double peso : new double[] { 1, 2 }) {
+            Grafica<Integer> g = new Grafica<Integer>();
+            for (int i = 0; i < lado * lado; i++)
+                g.agrega(i);
+            long antes = ocupada();
+            for (int i = 0; i < lado; i++) {
+                for (int j = 0; j < lado; j++) {
+                    if (j + 1 < lado)
+                        g.conecta(i*lado + j, i*lado + j + 1, peso);
+                    if (i + 1 < lado)
+                        g.conecta(i*lado + j, (i+1)*lado + j, peso);
+                }
+            }
+            long bytes = ocupada() - antes;
+            System.out.printf("peso %.0f: %d aristas, %.1f bytes por arista%n",
+                              peso, g.getAristas(),
+                              (double)bytes / g.getAristas());
+        }
+    }
+
+    /* Regresa la memoria ocupada del montículo después de recolectar la
+     * basura. */
+    private static long ocupada() {
+        Runtime r = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return r.totalMemory() - r.freeMemory();
+    }
+}
@@ -0,0 +1,58 @@
+package mx.unam.ciencias.edd.rendimiento;
+
+import java.util.concurrent.ForkJoinPool;
+import mx.unam.ciencias.edd.Grafica;
+
+/**
+ * Compara {@link Grafica#trayectoriaMinima} contra {@link
+ * Grafica#trayectoriaMinimaParalela} con distintos números de hilos en una
+ * cuadrícula, de esquina a esquina. Se ejecuta con <code>java -cp
+ * target/classes:target/test-classes
+ * mx.unam.ciencias.edd.rendimiento.RendimientoBFS [lado]</code>.
+ */
+public class RendimientoBFS {
+
+    /* Repeticiones por medición. */
+    private static final int REPETICIONES = 5;
+
+    /**
+     * Punto de entrada.
+     * @param args el lado de la cuadrícula (opcional).
+     */
+    public static void main(String[] args) {
+        int lado = args.length > 0 ? Integer.parseInt(args[0]) : 700;
+        Grafica<Integer> g = new Grafica<Integer>();
+        for (int i = 0; i < lado * lado; i++)
+            g.agrega(i);
+        for (int i = 0; i < lado; i++) {
+            for (int j = 0; j < lado; j++) {
+                if (j + 1 < lado)
+                    g.conecta(i*lado + j, i*lado + j + 1);
+                if (i + 1 < lado)
+                    g.conecta(i*lado + j, (i+1)*lado + j);
+            }
+        }
+        int destino = lado * lado - 1;
+
+        long secuencial = Long.MAX_VALUE;
+        for (int r = 0; r < REPETICIONES; r++) {
+            long t = System.nanoTime();
+            g.trayectoriaMinima(0, destino);
+            secuencial = Math.min(secuencial, System.nanoTime() - t);
+        }
+        System.out.printf("%-10s %10.1f ms%n", "secuencial", secuencial / 1e6);
+
+        int maximo = Runtime.getRuntime().availableProcessors();
+        for (int hilos = 1; hilos <= maximo; hilos *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(hilos);
+            long paralelo = Long.MAX_VALUE;
+            for (int r = 0; r < REPETICIONES; r++) {
+                long t = System.nanoTime();
+                g.trayectoriaMinimaParalela(0, destino, pool);
+                paralelo = Math.min(paralelo, System.nanoTime() - t);
+            }
+            pool.shutdown();
+            System.out.printf("%2d hilos   %10.1f ms%n", hilos, paralelo / 1e6);
+        }
+    }
+}
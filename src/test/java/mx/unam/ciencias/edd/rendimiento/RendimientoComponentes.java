@@ -0,0 +1,55 @@
+package mx.unam.ciencias.edd.rendimiento;
+
+import java.util.Random;
+import mx.unam.ciencias.edd.proyecto3.Componentes;
+import mx.unam.ciencias.edd.proyecto3.Laberinto;
+
+/**
+ * Compara el etiquetado de componentes de {@link Componentes} con una sola
+ * franja contra el número de franjas por omisión, en laberintos de 255x255
+ * con paredes al azar (y por lo tanto muchas componentes). Se ejecuta con
+ * <code>java -cp target/classes:target/test-classes
+ * mx.unam.ciencias.edd.rendimiento.RendimientoComponentes [repeticiones]</code>.
+ */
+public class RendimientoComponentes {
+
+    /* El lado del laberinto. */
+    private static final int LADO = 255;
+
+    /**
+     * Punto de entrada.
+     * @param args el número de repeticiones (opcional).
+     */
+    public static void main(String[] args) {
+        int repeticiones = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        Random random = new Random(1234);
+        byte[][] m = new byte[LADO][LADO];
+        for (int i = 0; i < LADO; i++) {
+            for (int j = 0; j < LADO; j++) {
+                int c = random.nextInt(256);
+                if (j > 0)
+                    c = (c & ~0b0100) | ((m[i][j-1] & 0b0001) << 2);
+                if (i > 0)
+                    c = (c & ~0b0010) | ((m[i-1][j] & 0b1000) >> 2);
+                m[i][j] = (byte)c;
+            }
+        }
+        Laberinto laberinto = new Laberinto(LADO, LADO, m);
+
+        for (int r = 0; r < 3; r++) {
+            long t = System.nanoTime();
+            int componentes = 0;
+            for (int k = 0; k < repeticiones; k++)
+                componentes = new Componentes(laberinto, 1).getComponentes();
+            double una = (System.nanoTime() - t) / 1e6 / repeticiones;
+
+            t = System.nanoTime();
+            for (int k = 0; k < repeticiones; k++)
+                componentes = new Componentes(laberinto).getComponentes();
+            double franjas = (System.nanoTime() - t) / 1e6 / repeticiones;
+
+            System.out.printf("una franja %7.3f ms   por omisión %7.3f ms   %5.1fx   (%d componentes)%n",
+                              una, franjas, una / franjas, componentes);
+        }
+    }
+}
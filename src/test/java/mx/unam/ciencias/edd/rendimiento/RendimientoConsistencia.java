@@ -0,0 +1,113 @@
+package mx.unam.ciencias.edd.rendimiento;
+
+import java.util.Random;
+import mx.unam.ciencias.edd.proyecto3.ConsistenciaRenglones;
+
+/**
+ * Compara la verificación de consistencia de paredes de {@link
+ * ConsistenciaRenglones} cuarto por cuarto, por longs y por vectores, en
+ * laberintos consistentes, para que se recorran todos los renglones. Los
+ * anchos van de 255, el máximo de MAZE, a varios miles, que sólo hay en
+ * MAZX; los renglones se revisan por vectores a partir de 256 cuartos. Cada
+ * laberinto tiene unos 2<sup>16</sup> cuartos. Se ejecuta con
+ * <code>java --add-modules jdk.incubator.vector -cp
+ * target/classes:target/test-classes
+ * mx.unam.ciencias.edd.rendimiento.RendimientoConsistencia
+ * [repeticiones]</code>; sin la bandera, la columna de vectores usa longs.
+ */
+public class RendimientoConsistencia {
+
+    /* Los anchos de los laberintos. */
+    private static final int[] ANCHOS = { 255, 256, 1000, 1024, 4096, 5000 };
+
+    /**
+     * Punto de entrada.
+     * @param args el número de repeticiones (opcional).
+     */
+    public static void main(String[] args) {
+        int repeticiones = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+            System.out.println("Sin --add-modules jdk.incubator.vector: " +
+                               "los vectores usan longs");
+        Random random = new Random(1234);
+        for (int w : ANCHOS) {
+            int h = Math.max(16, (1 << 16) / w);
+            byte[][] m = laberinto(random, w, h);
+            for (int r = 0; r < 3; r++) {
+                long t = System.nanoTime();
+                int errores = 0;
+                for (int k = 0; k < repeticiones; k++)
+                    errores += escalar(m, w);
+                double escalar = (System.nanoTime() - t) / 1e3 / repeticiones;
+
+                t = System.nanoTime();
+                for (int k = 0; k < repeticiones; k++)
+                    errores += longs(m, w);
+                double longs = (System.nanoTime() - t) / 1e3 / repeticiones;
+
+                t = System.nanoTime();
+                for (int k = 0; k < repeticiones; k++)
+                    errores += vectores(m, w);
+                double vectores = (System.nanoTime() - t) / 1e3 / repeticiones;
+
+                System.out.printf("%5dx%-4d escalar %8.2f us   longs %8.2f us" +
+                                  "   vectores %8.2f us   %5.1fx   (%d)%n",
+                                  w, h, escalar, longs, vectores,
+                                  longs / vectores, errores);
+            }
+        }
+    }
+
+    /* Un laberinto de w por h con paredes consistentes al azar. */
+    private static byte[][] laberinto(Random random, int w, int h) {
+        byte[][] m = new byte[h][w];
+        for (int i = 0; i < h; i++) {
+            for (int j = 0; j < w; j++) {
+                int c = random.nextInt(256);
+                if (j > 0)
+                    c = (c & ~0b0100) | ((m[i][j-1] & 0b0001) << 2);
+                if (i > 0)
+                    c = (c & ~0b0010) | ((m[i-1][j] & 0b1000) >> 2);
+                m[i][j] = (byte)c;
+            }
+        }
+        return m;
+    }
+
+    /* Verifica todo el laberinto cuarto por cuarto. */
+    private static int escalar(byte[][] m, int w) {
+        int errores = 0;
+        for (int i = 0; i < m.length; i++) {
+            if (ConsistenciaRenglones.horizontalEscalar(m[i], w) != -1)
+                errores++;
+            if (i > 0 && ConsistenciaRenglones.verticalEscalar(m[i-1], m[i], w) != -1)
+                errores++;
+        }
+        return errores;
+    }
+
+    /* Verifica todo el laberinto por longs. */
+    private static int longs(byte[][] m, int w) {
+        int errores = 0;
+        for (int i = 0; i < m.length; i++) {
+            if (ConsistenciaRenglones.horizontalLongs(m[i], w) != -1)
+                errores++;
+            if (i > 0 && ConsistenciaRenglones.verticalLongs(m[i-1], m[i], w) != -1)
+                errores++;
+        }
+        return errores;
+    }
+
+    /* Verifica todo el laberinto como lo hace el validador: por vectores a
+     * partir de 256 cuartos, si se cargó la API. */
+    private static int vectores(byte[][] m, int w) {
+        int errores = 0;
+        for (int i = 0; i < m.length; i++) {
+            if (ConsistenciaRenglones.horizontal(m[i], w) != -1)
+                errores++;
+            if (i > 0 && ConsistenciaRenglones.vertical(m[i-1], m[i], w) != -1)
+                errores++;
+        }
+        return errores;
+    }
+}
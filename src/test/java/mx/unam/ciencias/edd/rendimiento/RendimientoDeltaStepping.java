@@ -0,0 +1,65 @@
+package mx.unam.ciencias.edd.rendimiento;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import mx.unam.ciencias.edd.Grafica;
+
+/**
+ * Mide la escalabilidad de {@link Grafica#deltaStepping} de 1 a N hilos y con
+ * distintas deltas, contra {@link Grafica#dijkstra}, en una cuadrícula con
+ * pesos aleatorios entre 1 y 31. Se ejecuta con <code>java -cp
+ * target/classes:target/test-classes
+ * mx.unam.ciencias.edd.rendimiento.RendimientoDeltaStepping [lado]</code>.
+ */
+public class RendimientoDeltaStepping {
+
+    /* Deltas a comparar. */
+    private static final double[] DELTAS = { 4, 16, 64 };
+    /* Repeticiones por medición. */
+    private static final int REPETICIONES = 3;
+
+    /**
+     * Punto de entrada.
+     * @param args el lado de la cuadrícula (opcional).
+     */
+    public static void main(String[] args) {
+        int lado = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        Random random = new Random(1234);
+        Grafica<Integer> g = new Grafica<Integer>();
+        for (int i = 0; i < lado * lado; i++)
+            g.agrega(i);
+        for (int i = 0; i < lado; i++) {
+            for (int j = 0; j < lado; j++) {
+                if (j + 1 < lado)
+                    g.conecta(i*lado + j, i*lado + j + 1, 1 + random.nextInt(31));
+                if (i + 1 < lado)
+                    g.conecta(i*lado + j, (i+1)*lado + j, 1 + random.nextInt(31));
+            }
+        }
+        int destino = lado * lado - 1;
+
+        long dijkstra = Long.MAX_VALUE;
+        for (int r = 0; r < REPETICIONES; r++) {
+            long t = System.nanoTime();
+            g.dijkstra(0, destino);
+            dijkstra = Math.min(dijkstra, System.nanoTime() - t);
+        }
+        System.out.printf("dijkstra %10.1f ms%n", dijkstra / 1e6);
+
+        int maximo = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%6s %8s %12s%n", "hilos", "delta", "tiempo(ms)");
+        for (int hilos = 1; hilos <= maximo; hilos *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(hilos);
+            for (double delta : DELTAS) {
+                long mejor = Long.MAX_VALUE;
+                for (int r = 0; r < REPETICIONES; r++) {
+                    long t = System.nanoTime();
+                    g.deltaStepping(0, destino, delta, pool);
+                    mejor = Math.min(mejor, System.nanoTime() - t);
+                }
+                System.out.printf("%6d %8.0f %12.1f%n", hilos, delta, mejor / 1e6);
+            }
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package mx.unam.ciencias.edd.rendimiento;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import mx.unam.ciencias.edd.proyecto3.FormatoCompacto;
+import mx.unam.ciencias.edd.proyecto3.Laberinto;
+import mx.unam.ciencias.edd.proyecto3.ValidadorMaze;
+
+/**
+ * Compara el tamaño y el tiempo de lectura (con validación) de un
+ * laberinto en el formato MAZX contra el {@link FormatoCompacto}. Se
+ * ejecuta con <code>java -cp target/classes:target/test-classes
+ * mx.unam.ciencias.edd.rendimiento.RendimientoFormatoCompacto [lado]
+ * [repeticiones]</code>.
+ */
+public class RendimientoFormatoCompacto {
+
+    /**
+     * Punto de entrada.
+     * @param args el lado del laberinto y el número de repeticiones
+     *        (opcionales).
+     * @throws IOException nunca; los laberintos están en memoria.
+     */
+    public static void main(String[] args) throws IOException {
+        int lado = args.length > 0 ? Integer.parseInt(args[0]) : 1500;
+        int repeticiones = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        Laberinto laberinto = new Laberinto(1234, lado, lado);
+
+        ByteArrayOutputStream plano = new ByteArrayOutputStream();
+        plano.write(new byte[] { 0x4D, 0x41, 0x5A, 0x58 });
+        for (int i = 0; i < 2; i++)
+            for (int k = 24; k >= 0; k -= 8)
+                plano.write(lado >>> k);
+        for (Byte b : laberinto)
+            plano.write(b);
+        ByteArrayOutputStream compacto = new ByteArrayOutputStream();
+        FormatoCompacto.escribe(laberinto, compacto);
+        byte[] p = plano.toByteArray();
+        byte[] c = compacto.toByteArray();
+        System.out.printf("plano %d bytes, compacto %d bytes (%.1f%%)%n",
+                          p.length, c.length, 100.0 * c.length / p.length);
+
+        for (int r = 0; r < 3; r++) {
+            long t = System.nanoTime();
+            for (int k = 0; k < repeticiones; k++)
+                new ValidadorMaze(ByteBuffer.wrap(p)).cuartos();
+            double tp = (System.nanoTime() - t) / 1e6 / repeticiones;
+
+            t = System.nanoTime();
+            for (int k = 0; k < repeticiones; k++)
+                new ValidadorMaze(ByteBuffer.wrap(c)).cuartos();
+            double tc = (System.nanoTime() - t) / 1e6 / repeticiones;
+
+            System.out.printf("plano %7.2f ms   compacto %7.2f ms%n", tp, tc);
+        }
+    }
+}
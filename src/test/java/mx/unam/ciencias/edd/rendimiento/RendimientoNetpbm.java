@@ -0,0 +1,60 @@
+package mx.unam.ciencias.edd.rendimiento;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import mx.unam.ciencias.edd.proyecto3.Laberinto;
+import mx.unam.ciencias.edd.proyecto3.Renderizador;
+import mx.unam.ciencias.edd.proyecto3.RenderizadorNetpbm;
+import mx.unam.ciencias.edd.proyecto3.RenderizadorPNG;
+
+/**
+ * Compara el tiempo y la memoria reservada al dibujar un laberinto resuelto
+ * en PGM, renglón por renglón con {@link RenderizadorNetpbm}, contra
+ * dibujarlo en una imagen en memoria con {@link RenderizadorPNG}. La ruta
+ * se calcula una sola vez, fuera de las mediciones, y la salida se
+ * descarta. Se ejecuta con <code>java -Djava.awt.headless=true -cp
+ * target/classes:target/test-classes
+ * mx.unam.ciencias.edd.rendimiento.RendimientoNetpbm [lado]
+ * [repeticiones]</code>.
+ */
+public class RendimientoNetpbm {
+
+    /**
+     * Punto de entrada.
+     * @param args el lado del laberinto y el número de repeticiones
+     *        (opcionales).
+     * @throws IOException nunca; la salida descarta todo.
+     */
+    public static void main(String[] args) throws IOException {
+        int lado = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int repeticiones = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Laberinto laberinto = new Laberinto(1234, lado, lado);
+        int[] ruta = laberinto.resuelve();
+        Renderizador pgm = new RenderizadorNetpbm(true);
+        RenderizadorPNG png = new RenderizadorPNG(1);
+        OutputStream nulo = OutputStream.nullOutputStream();
+        com.sun.management.ThreadMXBean hilos =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+
+        for (int r = 0; r < 3; r++) {
+            long m = hilos.getThreadAllocatedBytes(id);
+            long t = System.nanoTime();
+            for (int k = 0; k < repeticiones; k++)
+                png.imagen(laberinto, ruta);
+            double ti = (System.nanoTime() - t) / 1e6 / repeticiones;
+            double mi = (hilos.getThreadAllocatedBytes(id) - m) / 1e6 / repeticiones;
+
+            m = hilos.getThreadAllocatedBytes(id);
+            t = System.nanoTime();
+            for (int k = 0; k < repeticiones; k++)
+                pgm.dibuja(laberinto, ruta, nulo);
+            double tp = (System.nanoTime() - t) / 1e6 / repeticiones;
+            double mp = (hilos.getThreadAllocatedBytes(id) - m) / 1e6 / repeticiones;
+
+            System.out.printf("imagen %8.1f ms %8.1f MB   PGM %8.1f ms %8.1f MB%n",
+                              ti, mi, tp, mp);
+        }
+    }
+}
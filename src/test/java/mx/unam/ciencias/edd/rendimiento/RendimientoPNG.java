@@ -0,0 +1,55 @@
+package mx.unam.ciencias.edd.rendimiento;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.imageio.ImageIO;
+import mx.unam.ciencias.edd.proyecto3.Laberinto;
+import mx.unam.ciencias.edd.proyecto3.RenderizadorPNG;
+
+/**
+ * Compara el tiempo de dibujar un laberinto resuelto con una sola franja
+ * contra el número de franjas por omisión de {@link RenderizadorPNG}, y
+ * mide aparte la codificación del PNG. La mejora depende del número de
+ * procesadores. Se ejecuta con <code>java -Djava.awt.headless=true -cp
+ * target/classes:target/test-classes
+ * mx.unam.ciencias.edd.rendimiento.RendimientoPNG [lado]
+ * [repeticiones]</code>.
+ */
+public class RendimientoPNG {
+
+    /**
+     * Punto de entrada.
+     * @param args el lado del laberinto y el número de repeticiones
+     *        (opcionales).
+     * @throws IOException nunca; la imagen se descarta.
+     */
+    public static void main(String[] args) throws IOException {
+        int lado = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int repeticiones = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Laberinto lab = new Laberinto(1234, lado, lado);
+        int[] ruta = lab.resuelve();
+        RenderizadorPNG una = new RenderizadorPNG(1);
+        RenderizadorPNG r = new RenderizadorPNG();
+        System.out.printf("%d procesadores%n",
+                          Runtime.getRuntime().availableProcessors());
+
+        for (int k = 0; k < 3; k++) {
+            long t = System.nanoTime();
+            for (int i = 0; i < repeticiones; i++)
+                una.imagen(lab, ruta);
+            double t1 = (System.nanoTime() - t) / 1e6 / repeticiones;
+
+            t = System.nanoTime();
+            for (int i = 0; i < repeticiones; i++)
+                r.imagen(lab, ruta);
+            double tf = (System.nanoTime() - t) / 1e6 / repeticiones;
+
+            t = System.nanoTime();
+            ImageIO.write(r.imagen(lab, ruta), "png", OutputStream.nullOutputStream());
+            double tc = (System.nanoTime() - t) / 1e6 - tf;
+
+            System.out.printf("1 franja %8.1f ms   franjas %8.1f ms   PNG %8.1f ms%n",
+                              t1, tf, tc);
+        }
+    }
+}
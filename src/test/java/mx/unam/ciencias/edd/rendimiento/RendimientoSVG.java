@@ -0,0 +1,62 @@
+package mx.unam.ciencias.edd.rendimiento;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import mx.unam.ciencias.edd.proyecto3.Laberinto;
+
+/**
+ * Compara el tiempo y la memoria reservada al escribir el SVG de la
+ * solución armándolo en una cadena ({@link Laberinto#toSVG}) contra
+ * escribirlo conforme se genera ({@link Laberinto#escribeSVG}). En los dos
+ * casos el texto se codifica en UTF-8 y se descarta. Se ejecuta con
+ * <code>java -cp target/classes:target/test-classes
+ * mx.unam.ciencias.edd.rendimiento.RendimientoSVG [lado]
+ * [repeticiones]</code>.
+ */
+public class RendimientoSVG {
+
+    /* Un flujo que descarta lo que recibe. */
+    private static final Writer NULO =
+        new OutputStreamWriter(OutputStream.nullOutputStream(),
+                               StandardCharsets.UTF_8);
+
+    /**
+     * Punto de entrada.
+     * @param args el lado del laberinto y el número de repeticiones
+     *        (opcionales).
+     * @throws IOException nunca; la salida descarta todo.
+     */
+    public static void main(String[] args) throws IOException {
+        int lado = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int repeticiones = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Laberinto laberinto = new Laberinto(1234, lado, lado);
+        com.sun.management.ThreadMXBean hilos =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+
+        for (int r = 0; r < 3; r++) {
+            long m = hilos.getThreadAllocatedBytes(id);
+            long t = System.nanoTime();
+            for (int k = 0; k < repeticiones; k++) {
+                NULO.write(laberinto.toSVG());
+                NULO.flush();
+            }
+            double tc = (System.nanoTime() - t) / 1e6 / repeticiones;
+            double mc = (hilos.getThreadAllocatedBytes(id) - m) / 1e6 / repeticiones;
+
+            m = hilos.getThreadAllocatedBytes(id);
+            t = System.nanoTime();
+            for (int k = 0; k < repeticiones; k++)
+                laberinto.escribeSVG(NULO);
+            double te = (System.nanoTime() - t) / 1e6 / repeticiones;
+            double me = (hilos.getThreadAllocatedBytes(id) - m) / 1e6 / repeticiones;
+
+            System.out.printf("cadena %8.1f ms %8.1f MB   flujo %8.1f ms %8.1f MB%n",
+                              tc, mc, te, me);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package mx.unam.ciencias.edd.rendimiento;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import mx.unam.ciencias.edd.proyecto3.Laberinto;
+
+/**
+ * Compara el tamaño (sin comprimir y con gzip), el número de elementos y
+ * el tiempo de escritura del SVG de la solución con un elemento line por
+ * tramo contra el SVG con las paredes en un solo elemento path y la
+ * solución en un solo elemento polyline. Se ejecuta con
+ * <code>java -cp target/classes:target/test-classes
+ * mx.unam.ciencias.edd.rendimiento.RendimientoSVGTrazos [lados...]</code>.
+ */
+public class RendimientoSVGTrazos {
+
+    /**
+     * Punto de entrada.
+     * @param args los lados de los laberintos (opcionales).
+     * @throws IOException nunca; los SVG se escriben en memoria.
+     */
+    public static void main(String[] args) throws IOException {
+        String[] lados = args.length > 0 ? args : new String[] { "50", "255", "1000" };
+        System.out.printf("%6s %12s %12s %10s %10s %8s %8s %9s %9s%n", "lado",
+                          "líneas", "trazos", "gz líneas", "gz trazos",
+                          "elem.", "elem.", "ms líneas", "ms trazos");
+        for (String lado : lados) {
+            int n = Integer.parseInt(lado);
+            Laberinto laberinto = new Laberinto(1234, n, n);
+            // Una vuelta para calentar el JIT
+            escribe(laberinto, false);
+            escribe(laberinto, true);
+
+            long t = System.nanoTime();
+            byte[] l = escribe(laberinto, false);
+            double tl = (System.nanoTime() - t) / 1e6;
+            t = System.nanoTime();
+            byte[] p = escribe(laberinto, true);
+            double tp = (System.nanoTime() - t) / 1e6;
+
+            System.out.printf("%6d %12d %12d %10d %10d %8d %8d %9.1f %9.1f%n", n,
+                              l.length, p.length, comprime(l), comprime(p),
+                              elementos(l), elementos(p), tl, tp);
+        }
+    }
+
+    /* Escribe el SVG en memoria, en UTF-8. */
+    private static byte[] escribe(Laberinto laberinto, boolean trazos)
+        throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Writer out = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+        laberinto.escribeSVG(out, trazos);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /* El tamaño comprimido con gzip. */
+    private static int comprime(byte[] datos) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(datos);
+        }
+        return bytes.size();
+    }
+
+    /* El número de elementos, contando las etiquetas que abren. */
+    private static int elementos(byte[] datos) {
+        int n = 0;
+        for (int i = 0; i + 1 < datos.length; i++)
+            if (datos[i] == '<' && datos[i+1] != '!' && datos[i+1] != '/')
+                n++;
+        return n;
+    }
+}
@@ -0,0 +1,123 @@
+package mx.unam.ciencias.edd.test;
+
+import java.util.Random;
+import mx.unam.ciencias.edd.ConstructorGrafica;
+import mx.unam.ciencias.edd.Grafica;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link ConstructorGrafica}.
+ */
+public class TestConstructorGrafica {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Número total de elementos. */
+    private int total;
+    /* El constructor. */
+    private ConstructorGrafica<Integer> constructor;
+
+    /**
+     * Crea un constructor para cada prueba.
+     */
+    public TestConstructorGrafica() {
+        random = new Random();
+        total = 2 + random.nextInt(100);
+        constructor = new ConstructorGrafica<Integer>(1, 1);
+    }
+
+    /**
+     * Prueba unitaria para {@link ConstructorGrafica#agrega}.
+     */
+    @Test public void testAgrega() {
+        for (int i = 0; i < total; i++) {
+            Assert.assertTrue(constructor.agrega(i * 2) == i);
+            Assert.assertTrue(constructor.getElementos() == i+1);
+        }
+        try {
+            constructor.agrega(null);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        Grafica<Integer> grafica = constructor.construye();
+        Assert.assertTrue(grafica.getElementos() == total);
+        Assert.assertTrue(grafica.getAristas() == 0);
+        for (int i = 0; i < total; i++)
+            Assert.assertTrue(grafica.contiene(i * 2));
+    }
+
+    /**
+     * Prueba unitaria para {@link ConstructorGrafica#agrega(Object,double)}.
+     */
+    @Test public void testAgregaConPeso() {
+        for (int i = 0; i < total; i++)
+            Assert.assertTrue(constructor.agrega(i, i / 2.0) == i);
+        try {
+            constructor.agrega(total, -1);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        Grafica<Integer> grafica = constructor.construye();
+        for (int i = 0; i < total; i++)
+            Assert.assertTrue(grafica.getPesoVertice(i) == i / 2.0);
+    }
+
+    /**
+     * Prueba unitaria para {@link ConstructorGrafica#conecta}.
+     */
+    @Test public void testConecta() {
+        for (int i = 0; i < total; i++)
+            constructor.agrega(i);
+        try {
+            constructor.conecta(0, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        try {
+            constructor.conecta(0, total);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        try {
+            constructor.conecta(0, 1, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link ConstructorGrafica#construye}.
+     */
+    @Test public void testConstruye() {
+        Grafica<Integer> esperada = new Grafica<Integer>();
+        for (int i = 0; i < total; i++) {
+            constructor.agrega(i);
+            esperada.agrega(i);
+        }
+        for (int k = 0; k < total * 4; k++) {
+            int i = random.nextInt(total);
+            int j = random.nextInt(total);
+            if (i == j)
+                continue;
+            double peso = 1 + random.nextInt(total);
+            constructor.conecta(i, j, peso);
+            if (!esperada.sonVecinos(i, j))
+                esperada.conecta(i, j, peso);
+        }
+        Grafica<Integer> grafica = constructor.construye();
+        Assert.assertTrue(grafica.equals(esperada));
+        for (int i = 0; i < total; i++)
+            for (int j = 0; j < total; j++)
+                if (esperada.sonVecinos(i, j))
+                    Assert.assertTrue(grafica.getPeso(i, j) ==
+                                      esperada.getPeso(i, j));
+        constructor = new ConstructorGrafica<Integer>(2, 0);
+        constructor.agrega(1);
+        constructor.agrega(1);
+        try {
+            constructor.construye();
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+}
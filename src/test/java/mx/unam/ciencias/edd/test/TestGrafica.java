@@ -1,11 +1,18 @@
 package mx.unam.ciencias.edd.test;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import mx.unam.ciencias.edd.AccionVerticeGrafica;
 import mx.unam.ciencias.edd.Color;
 import mx.unam.ciencias.edd.Grafica;
 import mx.unam.ciencias.edd.Lista;
+import mx.unam.ciencias.edd.SerializadorElemento;
 import mx.unam.ciencias.edd.VerticeGrafica;
 import org.junit.Assert;
 import org.junit.Rule;
@@ -329,6 +336,30 @@ public class TestGrafica {
         } catch (IllegalArgumentException iae) {}
     }
 
+    /**
+     * Prueba unitaria para {@link Grafica#setPeso} y {@link
+     * Grafica#setColor} con aristas que pasan de pesar 1, que no guardan su
+     * peso, a pesar otra cosa, y de regreso.
+     */
+    @Test public void testPesoUno() {
+        for (int i = 0; i < total; i++)
+            grafica.agrega(i);
+        for (int i = 1; i < total; i++)
+            grafica.conecta(0, i, i % 2 == 0 ? 1 : i);
+        for (int i = 1; i < total; i++) {
+            Assert.assertTrue(grafica.getPeso(i, 0) == (i % 2 == 0 ? 1 : i));
+            grafica.setPeso(0, i, i % 2 == 0 ? i : 1);
+            Assert.assertTrue(grafica.getPeso(0, i) == (i % 2 == 0 ? i : 1));
+            Assert.assertTrue(grafica.getPeso(i, 0) == (i % 2 == 0 ? i : 1));
+        }
+        Assert.assertTrue(grafica.getAristas() == total - 1);
+        Assert.assertTrue(grafica.vertice(0).getGrado() == total - 1);
+        for (VerticeGrafica<Integer> v : grafica.vertice(0).vecinos()) {
+            grafica.setColor(v, Color.ROJO);
+            Assert.assertTrue(grafica.vertice(v.get()).getColor() == Color.ROJO);
+        }
+    }
+
    /**
      * Prueba unitaria para {@link Grafica#vertice}.
      */
@@ -737,4 +768,362 @@ public class TestGrafica {
             Assert.assertTrue(lista.equals(dijkstra));
         }
     }
+
+    /* Llena la gráfica con un camino y aristas aleatorias con pesos
+     * aleatorios; si partida es verdadero, la deja en dos componentes. */
+    private void llenaAleatoria(boolean partida) {
+        for (int i = 0; i < total; i++)
+            grafica.agrega(i);
+        int corte = total / 2;
+        for (int i = 1; i < total; i++)
+            if (!partida || i != corte)
+                grafica.conecta(i-1, i, 1 + random.nextInt(total));
+        for (int k = 0; k < total * 3; k++) {
+            int i = random.nextInt(total);
+            int j = random.nextInt(total);
+            if (partida && (i < corte) != (j < corte))
+                continue;
+            if (i != j && !grafica.sonVecinos(i, j))
+                grafica.conecta(i, j, 1 + random.nextInt(total));
+        }
+    }
+
+    /* Verifica que el bosque tenga los mismos elementos que la gráfica, que
+     * sus aristas estén en la gráfica con el mismo peso, y regresa su peso
+     * total. */
+    private double verificaBosque(Grafica<Integer> bosque, int aristas) {
+        Assert.assertTrue(bosque.getElementos() == grafica.getElementos());
+        Assert.assertTrue(bosque.getAristas() == aristas);
+        double suma = 0;
+        for (Integer i : bosque) {
+            Assert.assertTrue(grafica.contiene(i));
+            for (VerticeGrafica<Integer> v : bosque.vertice(i).vecinos()) {
+                Assert.assertTrue(grafica.sonVecinos(i, v.get()));
+                Assert.assertTrue(bosque.getPeso(i, v.get()) ==
+                                  grafica.getPeso(i, v.get()));
+                if (i < v.get())
+                    suma += bosque.getPeso(i, v.get());
+            }
+        }
+        return suma;
+    }
+
+    /**
+     * Prueba unitaria para {@link Grafica#kruskal}.
+     */
+    @Test public void testKruskal() {
+        llenaAleatoria(false);
+        Grafica<Integer> arbol = grafica.kruskal();
+        verificaBosque(arbol, total - 1);
+        Assert.assertTrue(arbol.esConexa());
+        grafica = new Grafica<Integer>();
+        llenaAleatoria(true);
+        arbol = grafica.kruskal();
+        verificaBosque(arbol, total - 2);
+        Assert.assertFalse(arbol.esConexa());
+        Assert.assertTrue(new Grafica<Integer>().kruskal().esVacia());
+    }
+
+    /**
+     * Prueba unitaria para {@link Grafica#prim}.
+     */
+    @Test public void testPrim() {
+        llenaAleatoria(false);
+        Grafica<Integer> arbol = grafica.prim();
+        double peso = verificaBosque(arbol, total - 1);
+        Assert.assertTrue(arbol.esConexa());
+        Assert.assertTrue(peso == verificaBosque(grafica.kruskal(), total - 1));
+        for (Integer i : grafica)
+            Assert.assertTrue(grafica.vertice(i).getColor() == Color.NINGUNO);
+        grafica = new Grafica<Integer>();
+        llenaAleatoria(true);
+        arbol = grafica.prim();
+        peso = verificaBosque(arbol, total - 2);
+        Assert.assertFalse(arbol.esConexa());
+        Assert.assertTrue(peso == verificaBosque(grafica.kruskal(), total - 2));
+    }
+
+    /**
+     * Prueba unitaria para {@link Grafica#guarda} y {@link Grafica#carga}.
+     * @throws IOException si no se puede usar el archivo temporal.
+     */
+    @Test public void testGuardaCarga() throws IOException {
+        Path ruta = Files.createTempFile("grafica", ".bin");
+        try {
+            llenaAleatoria(false);
+            for (int i = 0; i < total; i++)
+                grafica.setPesoVertice(i, random.nextInt(16));
+            grafica.guarda(ruta, SerializadorElemento.enteros());
+            Grafica<Integer> cargada =
+                Grafica.carga(ruta, SerializadorElemento.enteros());
+            Assert.assertTrue(grafica.equals(cargada));
+            for (int i = 0; i < total; i++)
+                Assert.assertTrue(grafica.getPesoVertice(i) ==
+                                  cargada.getPesoVertice(i));
+            for (Integer i : grafica)
+                for (VerticeGrafica<Integer> v : grafica.vertice(i).vecinos())
+                    Assert.assertTrue(grafica.getPeso(i, v.get()) ==
+                                      cargada.getPeso(i, v.get()));
+            Grafica<String> cadenas = new Grafica<String>();
+            cadenas.agrega("á");
+            cadenas.agrega("b");
+            cadenas.conecta("á", "b", 0.5);
+            cadenas.guarda(ruta, SerializadorElemento.cadenas());
+            Grafica<String> otra =
+                Grafica.carga(ruta, SerializadorElemento.cadenas());
+            Assert.assertTrue(cadenas.equals(otra));
+            Assert.assertTrue(otra.getPeso("b", "á") == 0.5);
+            Files.write(ruta, new byte[] { 1, 2, 3 });
+            try {
+                Grafica.carga(ruta, SerializadorElemento.enteros());
+                Assert.fail();
+            } catch (IOException ioe) {}
+        } finally {
+            Files.delete(ruta);
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link Grafica#carga} con archivos truncados o
+     * corruptos.
+     * @throws IOException si no se puede usar el archivo temporal.
+     */
+    @Test public void testCargaInvalida() throws IOException {
+        Path ruta = Files.createTempFile("grafica", ".bin");
+        try {
+            Grafica<String> cadenas = new Grafica<String>();
+            cadenas.agrega("a");
+            cadenas.agrega("bc");
+            cadenas.agrega("d");
+            cadenas.conecta("a", "bc", 1);
+            cadenas.conecta("bc", "d", 2);
+            cadenas.guarda(ruta, SerializadorElemento.cadenas());
+            byte[] completo = Files.readAllBytes(ruta);
+            for (int l = 0; l < completo.length; l++) {
+                Files.write(ruta, Arrays.copyOf(completo, l));
+                cargaInvalida(ruta, SerializadorElemento.cadenas());
+            }
+            // La longitud de la primera cadena está en el byte 16.
+            for (int longitud : new int[] { -1, Integer.MIN_VALUE,
+                                            Integer.MAX_VALUE, 1 << 20 }) {
+                byte[] corrupto = completo.clone();
+                ByteBuffer.wrap(corrupto).putInt(16, longitud);
+                Files.write(ruta, corrupto);
+                cargaInvalida(ruta, SerializadorElemento.cadenas());
+            }
+            // Números de vértices y de aristas enormes en el encabezado.
+            for (int i : new int[] { 8, 12 }) {
+                byte[] corrupto = completo.clone();
+                ByteBuffer.wrap(corrupto).putInt(i, Integer.MAX_VALUE);
+                Files.write(ruta, corrupto);
+                cargaInvalida(ruta, SerializadorElemento.cadenas());
+            }
+            Files.write(ruta, aristaRepetida(false));
+            Grafica<Integer> g =
+                Grafica.carga(ruta, SerializadorElemento.enteros());
+            Assert.assertTrue(g.getAristas() == 2);
+            Files.write(ruta, aristaRepetida(true));
+            cargaInvalida(ruta, SerializadorElemento.enteros());
+        } finally {
+            Files.delete(ruta);
+        }
+    }
+
+    /* Regresa una gráfica guardada con los vértices 0, 1 y 2, y las aristas
+     * 0-1 y 1-2, o 0-1 y 1-0 si se pide repetida. */
+    private static byte[] aristaRepetida(boolean repetida) {
+        ByteBuffer b = ByteBuffer.allocate(16 + 3*4 + 3*8 + 2*16);
+        b.putInt(0x47524146).putInt(2).putInt(3).putInt(2);
+        b.putInt(0).putInt(1).putInt(2);
+        b.putDouble(0).putDouble(0).putDouble(0);
+        b.putInt(0).putInt(1);
+        b.putInt(1).putInt(repetida ? 0 : 2);
+        b.putDouble(1).putDouble(1);
+        return b.array();
+    }
+
+    /* Verifica que cargar el archivo lance IOException. */
+    private static <T> void cargaInvalida(Path ruta,
+                                          SerializadorElemento<T> s) {
+        try {
+            Grafica.carga(ruta, s);
+            Assert.fail();
+        } catch (IOException ioe) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link Grafica#getPesoVertice} y {@link
+     * Grafica#setPesoVertice}.
+     */
+    @Test public void testPesoVertice() {
+        for (int i = 0; i < total; i++)
+            grafica.agrega(i);
+        for (int i = 0; i < total; i++) {
+            Assert.assertTrue(grafica.getPesoVertice(i) == 0);
+            grafica.setPesoVertice(i, i);
+            Assert.assertTrue(grafica.getPesoVertice(i) == i);
+        }
+        try {
+            grafica.setPesoVertice(0, -1);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        try {
+            grafica.getPesoVertice(-1);
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        try {
+            grafica.setPesoVertice(-1, 1);
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+    }
+
+    /* Regresa el peso de una trayectoria en la gráfica recibida. */
+    private double pesoTrayectoria(Grafica<Integer> g,
+                                   Lista<VerticeGrafica<Integer>> trayectoria) {
+        double peso = 0;
+        VerticeGrafica<Integer> anterior = null;
+        for (VerticeGrafica<Integer> v : trayectoria) {
+            if (anterior != null)
+                peso += g.getPeso(anterior.get(), v.get());
+            anterior = v;
+        }
+        return peso;
+    }
+
+    /**
+     * Prueba unitaria para {@link Grafica#dijkstraVertices}.
+     */
+    @Test public void testDijkstraVertices() {
+        llenaAleatoria(false);
+        Grafica<Integer> aristas = new Grafica<Integer>();
+        for (int i = 0; i < total; i++) {
+            grafica.setPesoVertice(i, random.nextInt(16));
+            aristas.agrega(i);
+        }
+        for (int i = 0; i < total; i++)
+            for (int j = i+1; j < total; j++)
+                if (grafica.sonVecinos(i, j))
+                    aristas.conecta(i, j, grafica.getPeso(i, j) +
+                                    grafica.getPesoVertice(i) +
+                                    grafica.getPesoVertice(j));
+        for (int i = 0; i < total; i++) {
+            Lista<VerticeGrafica<Integer>> t = grafica.dijkstraVertices(0, i);
+            Lista<VerticeGrafica<Integer>> d = aristas.dijkstra(0, i);
+            Assert.assertTrue(t.getPrimero().get() == 0);
+            Assert.assertTrue(t.getUltimo().get() == i);
+            Assert.assertTrue(pesoTrayectoria(aristas, t) ==
+                              pesoTrayectoria(aristas, d));
+        }
+        grafica = new Grafica<Integer>();
+        grafica.agrega(0);
+        grafica.agrega(1);
+        Assert.assertTrue(grafica.dijkstraVertices(0, 1).esVacia());
+    }
+
+    /* Verifica que la trayectoria vaya de a a b por aristas de la gráfica y
+     * tenga la longitud esperada. */
+    private void verificaTrayectoria(Lista<VerticeGrafica<Integer>> trayectoria,
+                                     int a, int b, int longitud) {
+        Assert.assertTrue(trayectoria.getLongitud() == longitud);
+        if (longitud == 0)
+            return;
+        Assert.assertTrue(trayectoria.getPrimero().get() == a);
+        Assert.assertTrue(trayectoria.getUltimo().get() == b);
+        VerticeGrafica<Integer> anterior = null;
+        for (VerticeGrafica<Integer> v : trayectoria) {
+            if (anterior != null)
+                Assert.assertTrue(grafica.sonVecinos(anterior.get(), v.get()));
+            anterior = v;
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link Grafica#trayectoriaMinimaParalela}.
+     */
+    @Test public void testTrayectoriaMinimaParalela() {
+        llenaAleatoria(true);
+        for (int i = 0; i < total; i++) {
+            int l = grafica.trayectoriaMinima(0, i).getLongitud();
+            verificaTrayectoria(grafica.trayectoriaMinimaParalela(0, i), 0, i, l);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            int lado = 150;
+            grafica = new Grafica<Integer>();
+            for (int i = 0; i < lado * lado; i++)
+                grafica.agrega(i);
+            for (int i = 0; i < lado; i++) {
+                for (int j = 0; j < lado; j++) {
+                    if (j + 1 < lado)
+                        grafica.conecta(i*lado + j, i*lado + j + 1);
+                    if (i + 1 < lado)
+                        grafica.conecta(i*lado + j, (i+1)*lado + j);
+                }
+            }
+            int destino = lado * lado - 1;
+            verificaTrayectoria(grafica.trayectoriaMinimaParalela(0, destino, pool),
+                                0, destino, 2 * lado - 1);
+            int centro = lado/2 * lado + lado/2;
+            verificaTrayectoria(grafica.trayectoriaMinimaParalela(centro, 0, pool),
+                                centro, 0, 2 * (lado/2) + 1);
+            grafica = new Grafica<Integer>();
+            int hojas = 20000;
+            for (int i = 0; i <= hojas + 1; i++)
+                grafica.agrega(i);
+            for (int i = 1; i <= hojas; i++)
+                grafica.conecta(0, i);
+            grafica.conecta(hojas, hojas + 1);
+            verificaTrayectoria(grafica.trayectoriaMinimaParalela(1, hojas + 1, pool),
+                                1, hojas + 1, 4);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link Grafica#deltaStepping}.
+     */
+    @Test public void testDeltaStepping() {
+        llenaAleatoria(true);
+        double[] deltas = { 0.5, 1, 7, total, 1e9 };
+        for (double delta : deltas) {
+            for (int i = 0; i < total; i++) {
+                Lista<VerticeGrafica<Integer>> d = grafica.dijkstra(0, i);
+                Lista<VerticeGrafica<Integer>> ds = grafica.deltaStepping(0, i, delta);
+                Assert.assertTrue(d.getLongitud() == 0 ? ds.esVacia() :
+                                  pesoTrayectoria(grafica, d) ==
+                                  pesoTrayectoria(grafica, ds));
+                if (!ds.esVacia()) {
+                    Assert.assertTrue(ds.getPrimero().get() == 0);
+                    Assert.assertTrue(ds.getUltimo().get() == i);
+                }
+            }
+        }
+        try {
+            grafica.deltaStepping(0, 1, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            int lado = 120;
+            grafica = new Grafica<Integer>();
+            for (int i = 0; i < lado * lado; i++)
+                grafica.agrega(i);
+            for (int i = 0; i < lado; i++) {
+                for (int j = 0; j < lado; j++) {
+                    if (j + 1 < lado)
+                        grafica.conecta(i*lado + j, i*lado + j + 1, 1 + random.nextInt(20));
+                    if (i + 1 < lado)
+                        grafica.conecta(i*lado + j, (i+1)*lado + j, 1 + random.nextInt(20));
+                }
+            }
+            int destino = lado * lado - 1;
+            double peso = pesoTrayectoria(grafica, grafica.dijkstra(0, destino));
+            for (double delta : new double[] { 3, 10, 100, 1e9 })
+                Assert.assertTrue(peso == pesoTrayectoria(grafica,
+                                  grafica.deltaStepping(0, destino, delta, pool)));
+        } finally {
+            pool.shutdown();
+        }
+    }
 }
@@ -0,0 +1,145 @@
+package mx.unam.ciencias.edd.test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import mx.unam.ciencias.edd.Grafica;
+import mx.unam.ciencias.edd.JerarquiaContracciones;
+import mx.unam.ciencias.edd.Lista;
+import mx.unam.ciencias.edd.VerticeGrafica;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link JerarquiaContracciones}.
+ */
+public class TestJerarquiaContracciones {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Número total de elementos. */
+    private int total;
+    /* La gráfica. */
+    private Grafica<Integer> grafica;
+
+    /**
+     * Crea una gráfica para cada prueba.
+     */
+    public TestJerarquiaContracciones() {
+        random = new Random();
+        total = 10 + random.nextInt(90);
+        grafica = new Grafica<Integer>();
+    }
+
+    /* Llena la gráfica con un camino y aristas aleatorias; si partida es
+     * true, la gráfica queda con dos componentes conexas. */
+    private void llenaAleatoria(boolean partida) {
+        for (int i = 0; i < total; i++)
+            grafica.agrega(i);
+        int corte = total / 2;
+        for (int i = 1; i < total; i++)
+            if (!partida || i != corte)
+                grafica.conecta(i-1, i, 1 + random.nextInt(total));
+        for (int k = 0; k < total * 2; k++) {
+            int i = random.nextInt(total);
+            int j = random.nextInt(total);
+            if (partida && (i < corte) != (j < corte))
+                continue;
+            if (i != j && !grafica.sonVecinos(i, j))
+                grafica.conecta(i, j, 1 + random.nextInt(total));
+        }
+    }
+
+    /* Verifica que la trayectoria vaya de a a b por aristas de la gráfica y
+     * regresa su peso. */
+    private double verificaTrayectoria(Lista<VerticeGrafica<Integer>> trayectoria,
+                                       int a, int b) {
+        Assert.assertTrue(trayectoria.getPrimero().get() == a);
+        Assert.assertTrue(trayectoria.getUltimo().get() == b);
+        double peso = 0;
+        VerticeGrafica<Integer> anterior = null;
+        for (VerticeGrafica<Integer> v : trayectoria) {
+            if (anterior != null) {
+                Assert.assertTrue(grafica.sonVecinos(anterior.get(), v.get()));
+                peso += grafica.getPeso(anterior.get(), v.get());
+            }
+            anterior = v;
+        }
+        return peso;
+    }
+
+    /* Verifica trayectorias entre pares aleatorios contra las de Dijkstra. */
+    private void verificaContraDijkstra(JerarquiaContracciones<Integer> jerarquia,
+                                        int pares) {
+        for (int k = 0; k < pares; k++) {
+            int a = random.nextInt(total);
+            int b = random.nextInt(total);
+            Lista<VerticeGrafica<Integer>> d = grafica.dijkstra(a, b);
+            Lista<VerticeGrafica<Integer>> c = jerarquia.trayectoriaMinima(a, b);
+            Assert.assertTrue(d.getLongitud() == 0 ? c.esVacia() :
+                              verificaTrayectoria(d, a, b) ==
+                              verificaTrayectoria(c, a, b));
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link
+     * JerarquiaContracciones#trayectoriaMinima}.
+     */
+    @Test public void testTrayectoriaMinima() {
+        llenaAleatoria(false);
+        JerarquiaContracciones<Integer> jerarquia =
+            new JerarquiaContracciones<Integer>(grafica);
+        verificaContraDijkstra(jerarquia, total * 5);
+        Lista<VerticeGrafica<Integer>> l = jerarquia.trayectoriaMinima(3, 3);
+        Assert.assertTrue(l.getLongitud() == 1);
+        Assert.assertTrue(l.getPrimero().get() == 3);
+        try {
+            jerarquia.trayectoriaMinima(-1, 0);
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        try {
+            jerarquia.trayectoriaMinima(0, total);
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link
+     * JerarquiaContracciones#trayectoriaMinima} en una gráfica no conexa.
+     */
+    @Test public void testTrayectoriaMinimaNoConexa() {
+        llenaAleatoria(true);
+        JerarquiaContracciones<Integer> jerarquia =
+            new JerarquiaContracciones<Integer>(grafica);
+        verificaContraDijkstra(jerarquia, total * 5);
+        Assert.assertTrue(jerarquia.trayectoriaMinima(0, total - 1).esVacia());
+    }
+
+    /**
+     * Prueba unitaria para {@link JerarquiaContracciones#getAtajos} en una
+     * cuadrícula, donde las trayectorias dependen de los atajos.
+     */
+    @Test public void testCuadricula() {
+        int lado = 30;
+        total = lado * lado;
+        for (int i = 0; i < total; i++)
+            grafica.agrega(i);
+        for (int i = 0; i < lado; i++) {
+            for (int j = 0; j < lado; j++) {
+                if (j + 1 < lado)
+                    grafica.conecta(i*lado + j, i*lado + j + 1, 1 + random.nextInt(10));
+                if (i + 1 < lado)
+                    grafica.conecta(i*lado + j, (i+1)*lado + j, 1 + random.nextInt(10));
+            }
+        }
+        JerarquiaContracciones<Integer> jerarquia =
+            new JerarquiaContracciones<Integer>(grafica);
+        Assert.assertTrue(jerarquia.getAtajos() > 0);
+        verificaContraDijkstra(jerarquia, 50);
+    }
+}